@@ -0,0 +1,120 @@
+package tsb.bench;
+
+import java.util.Random;
+
+/**
+ * Generación de las claves y de las secuencias de acceso de los benchmarks.
+ *
+ * La clave i (i >= 0) es siempre la misma para una distribución, de modo que
+ * las claves 0..n-1 son las que se cargan en el mapa y las siguientes sirven
+ * para buscar claves ausentes.
+ */
+final class Claves {
+
+    // Cantidad de bloques de las claves que colisionan: hasta 2^20 claves.
+    private static final int BLOQUES_COLISION = 20;
+
+    /**
+     * Máxima cantidad de claves con COLISIONES: en java.util.Hashtable cada
+     * operación recorre la lista entera, y con más claves una sola iteración
+     * de medición demora minutos.
+     */
+    static final int MAX_COLISIONES = 1 << 16;
+
+    /**
+     * Distribución de las claves y de los accesos.
+     */
+    enum Distribucion {
+        // palabras distintas, accedidas con probabilidad uniforme.
+        UNIFORME,
+        // palabras distintas, accedidas con frecuencias de Zipf (como las
+        // palabras de un texto: pocas muy frecuentes y muchas raras).
+        ZIPF,
+        // Integer consecutivos, accedidos en orden.
+        SECUENCIAL,
+        // cadenas con el mismo hashCode(), accedidas con probabilidad uniforme.
+        COLISIONES
+    }
+
+    private Claves() {
+    }
+
+    /**
+     * @return la clave número i de la distribución.
+     */
+    static Object clave(Distribucion d, int i) {
+        switch (d) {
+            case SECUENCIAL:
+                return i;
+            case COLISIONES:
+                return colision(i);
+            default:
+                return palabra(i);
+        }
+    }
+
+    /**
+     * @return las n claves de la distribución a partir de la número desde.
+     */
+    static Object[] claves(Distribucion d, int desde, int n) {
+        Object[] claves = new Object[n];
+        for (int i = 0; i < n; i++) {
+            claves[i] = clave(d, desde + i);
+        }
+        return claves;
+    }
+
+    /**
+     * Genera una secuencia de accesos a n claves: cada elemento es el número
+     * de una clave entre 0 y n-1, elegida según la distribución.
+     *
+     * @param cantidad la longitud de la secuencia.
+     */
+    static int[] accesos(Distribucion d, int n, int cantidad, Random r) {
+        int[] accesos = new int[cantidad];
+        double logN = Math.log(n);
+        for (int i = 0; i < cantidad; i++) {
+            switch (d) {
+                case SECUENCIAL:
+                    accesos[i] = i % n;
+                    break;
+                case ZIPF:
+                    // con exponente 1 la probabilidad acumulada del rango k
+                    // es aproximadamente ln(k) / ln(n): se invierte.
+                    accesos[i] = Math.min(n - 1, (int) Math.exp(r.nextDouble() * logN) - 1);
+                    break;
+                default:
+                    accesos[i] = r.nextInt(n);
+            }
+        }
+        return accesos;
+    }
+
+    /*
+     * Una palabra en minúsculas distinta para cada i: se mezclan los bits con
+     * un multiplicador impar (una biyección de los int) para que las palabras
+     * no compartan prefijos como los números consecutivos.
+     */
+    private static String palabra(int i) {
+        long x = (i * 0x9E3779B1) & 0xFFFFFFFFL;
+        char[] letras = new char[7];
+        for (int j = 0; j < letras.length; j++) {
+            letras[j] = (char) ('a' + x % 26);
+            x /= 26;
+        }
+        return new String(letras);
+    }
+
+    /*
+     * "Aa" y "BB" tienen el mismo hashCode(), por lo que todas las cadenas
+     * formadas por la misma cantidad de esos bloques también lo tienen. Los
+     * bits de i eligen cada bloque.
+     */
+    private static String colision(int i) {
+        StringBuilder sb = new StringBuilder(2 * BLOQUES_COLISION);
+        for (int j = 0; j < BLOQUES_COLISION; j++) {
+            sb.append((i >>> j & 1) == 0 ? "Aa" : "BB");
+        }
+        return sb.toString();
+    }
+}
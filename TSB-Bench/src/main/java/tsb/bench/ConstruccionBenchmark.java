@@ -0,0 +1,67 @@
+package tsb.bench;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tsb.bench.Claves.Distribucion;
+
+/**
+ * Carga de tamanio claves en un mapa nuevo: desde la capacidad por defecto
+ * (con todos los rehash intermedios) y con la capacidad justa. La diferencia
+ * entre ambos es el costo de crecer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ConstruccionBenchmark {
+
+    @Param({"TSB", "HASH_MAP", "HASHTABLE", "CONCURRENT_HASH_MAP"})
+    private Implementacion implementacion;
+
+    @Param({"UNIFORME", "SECUENCIAL"})
+    private Distribucion distribucion;
+
+    @Param({"1000", "100000", "10000000"})
+    private int tamanio;
+
+    @Param({"0.25", "0.5"})
+    private float factorCarga;
+
+    private Object[] claves;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        claves = Claves.claves(distribucion, 0, tamanio);
+    }
+
+    @Benchmark
+    public Map<Object, Integer> rehash() {
+        return cargar(implementacion.crearVacio(factorCarga));
+    }
+
+    @Benchmark
+    public Map<Object, Integer> sinRehash() {
+        return cargar(implementacion.crear(tamanio, factorCarga));
+    }
+
+    private Map<Object, Integer> cargar(Map<Object, Integer> mapa) {
+        for (int i = 0; i < claves.length; i++) {
+            mapa.put(claves[i], i);
+        }
+        return mapa;
+    }
+}
@@ -0,0 +1,75 @@
+package tsb.bench;
+
+import clases.TSBHashtable;
+import java.util.HashMap;
+import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Los mapas comparados. TSBHashtable recibe la cantidad de elementos
+ * esperada; los mapas del JDK, la cantidad de listas, que se calcula con el
+ * factor de carga para que ninguno tenga que crecer.
+ */
+enum Implementacion {
+
+    TSB {
+        @Override
+        Map<Object, Integer> crear(int elementos, float factorCarga) {
+            return new TSBHashtable<>(elementos, factorCarga);
+        }
+
+        @Override
+        Map<Object, Integer> crearVacio(float factorCarga) {
+            return new TSBHashtable<>(10, factorCarga);
+        }
+    },
+    HASH_MAP {
+        @Override
+        Map<Object, Integer> crear(int elementos, float factorCarga) {
+            return new HashMap<>(capacidad(elementos, factorCarga), factorCarga);
+        }
+
+        @Override
+        Map<Object, Integer> crearVacio(float factorCarga) {
+            return new HashMap<>(16, factorCarga);
+        }
+    },
+    HASHTABLE {
+        @Override
+        Map<Object, Integer> crear(int elementos, float factorCarga) {
+            return new Hashtable<>(capacidad(elementos, factorCarga), factorCarga);
+        }
+
+        @Override
+        Map<Object, Integer> crearVacio(float factorCarga) {
+            return new Hashtable<>(11, factorCarga);
+        }
+    },
+    CONCURRENT_HASH_MAP {
+        @Override
+        Map<Object, Integer> crear(int elementos, float factorCarga) {
+            return new ConcurrentHashMap<>(capacidad(elementos, factorCarga), factorCarga);
+        }
+
+        @Override
+        Map<Object, Integer> crearVacio(float factorCarga) {
+            return new ConcurrentHashMap<>(16, factorCarga);
+        }
+    };
+
+    /**
+     * @return un mapa con lugar para la cantidad de elementos indicada.
+     */
+    abstract Map<Object, Integer> crear(int elementos, float factorCarga);
+
+    /**
+     * @return un mapa con la capacidad inicial por defecto, que tiene que
+     * crecer (rehash) a medida que se agregan elementos.
+     */
+    abstract Map<Object, Integer> crearVacio(float factorCarga);
+
+    private static int capacidad(int elementos, float factorCarga) {
+        return (int) Math.min(Integer.MAX_VALUE - 8, (long) (elementos / factorCarga) + 1);
+    }
+}
@@ -0,0 +1,139 @@
+package tsb.bench;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tsb.bench.Claves.Distribucion;
+
+/**
+ * Operaciones individuales sobre un mapa cargado con tamanio claves: get()
+ * de claves presentes y ausentes, put() y merge() sobre claves presentes,
+ * altas y bajas alternadas, y recorrido completo.
+ *
+ * Cada combinación de parámetros parte de un mapa nuevo (el estado es por
+ * benchmark y se prepara una vez por corrida), de modo que las bajas de
+ * churn() no afectan a los demás.
+ *
+ * Los tamaños por defecto van de 1K a 10M; para 50M claves hace falta un heap
+ * grande:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar OperacionesBenchmark -p tamanio=50000000 -jvmArgs -Xmx16g
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OperacionesBenchmark {
+
+    // Longitud máxima de las secuencias de acceso (potencia de 2).
+    private static final int ACCESOS = 1 << 20;
+
+    @Param({"TSB", "HASH_MAP", "HASHTABLE", "CONCURRENT_HASH_MAP"})
+    private Implementacion implementacion;
+
+    @Param({"UNIFORME", "ZIPF", "SECUENCIAL", "COLISIONES"})
+    private Distribucion distribucion;
+
+    @Param({"1000", "100000", "10000000"})
+    private int tamanio;
+
+    @Param({"0.25", "0.5"})
+    private float factorCarga;
+
+    private Map<Object, Integer> mapa;
+    // claves presentes y ausentes, en el orden en que se acceden.
+    private Object[] presentes;
+    private Object[] ausentes;
+    // las claves de churn(): en el mapa están las n que siguen a la actual.
+    private Object[] ronda;
+    private int n;
+    private int mascara;
+    private int actual;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        n = distribucion == Distribucion.COLISIONES ? Math.min(tamanio, Claves.MAX_COLISIONES) : tamanio;
+        ronda = Claves.claves(distribucion, 0, 2 * n);
+        mapa = implementacion.crear(n, factorCarga);
+        for (int i = 0; i < n; i++) {
+            mapa.put(ronda[i], i);
+        }
+
+        int cantidad = Math.min(ACCESOS, Integer.highestOneBit(Math.max(n - 1, 1)) << 1);
+        mascara = cantidad - 1;
+        int[] accesos = Claves.accesos(distribucion, n, cantidad, new Random(42));
+        presentes = new Object[cantidad];
+        ausentes = new Object[cantidad];
+        for (int i = 0; i < cantidad; i++) {
+            presentes[i] = ronda[accesos[i]];
+            ausentes[i] = ronda[n + accesos[i]];
+        }
+        actual = 0;
+    }
+
+    @Benchmark
+    public Integer getAcierto() {
+        return mapa.get(presentes[actual++ & mascara]);
+    }
+
+    @Benchmark
+    public Integer getFallo() {
+        return mapa.get(ausentes[actual++ & mascara]);
+    }
+
+    /**
+     * Reemplaza el valor de una clave presente.
+     */
+    @Benchmark
+    public Integer put() {
+        return mapa.put(presentes[actual++ & mascara], 1);
+    }
+
+    /**
+     * Incrementa el contador de una clave presente, como al contar palabras.
+     */
+    @Benchmark
+    public Integer merge() {
+        return mapa.merge(presentes[actual++ & mascara], 1, Integer::sum);
+    }
+
+    /**
+     * Quita la clave más vieja y agrega una nueva: el tamaño se mantiene y
+     * las bajas dejan tumbas en TSBHashtable.
+     */
+    @Benchmark
+    public Integer churn() {
+        int i = actual;
+        actual = i + 1 == 2 * n ? 0 : i + 1;
+        mapa.remove(ronda[i]);
+        return mapa.put(ronda[i < n ? i + n : i - n], i);
+    }
+
+    /**
+     * Recorre todas las entradas (una operación es el recorrido completo).
+     */
+    @Benchmark
+    public long recorrer() {
+        long suma = 0;
+        for (Map.Entry<Object, Integer> e : mapa.entrySet()) {
+            suma += e.getValue();
+        }
+        return suma;
+    }
+}
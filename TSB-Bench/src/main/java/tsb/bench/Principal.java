@@ -0,0 +1,34 @@
+package tsb.bench;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Punto de entrada de benchmarks.jar: el de JMH, que además mide la tasa de
+ * asignación de memoria con el perfilador de GC salvo que se indique otro
+ * perfilador con -prof. Acepta las mismas opciones (-h las lista), por
+ * ejemplo:
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar OperacionesBenchmark.getAcierto -p distribucion=ZIPF
+ * </pre>
+ *
+ * Cada benchmark informa el throughput (ops/ns) y el tiempo promedio por
+ * operación; el perfilador agrega gc.alloc.rate y gc.alloc.rate.norm (bytes
+ * asignados por operación).
+ */
+public final class Principal {
+
+    private Principal() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<String> opciones = new ArrayList<>(Arrays.asList(args));
+        if (!opciones.contains("-prof")) {
+            opciones.add("-prof");
+            opciones.add("gc");
+        }
+        org.openjdk.jmh.Main.main(opciones.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,207 @@
+package clases;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.function.LongConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Lectura y escritura de una TSBHashtable serializada en un archivo (como
+ * TSBHashtable.dat).
+ *
+ * TSBHashtable se serializa como una secuencia de pares, por lo que la
+ * lectura avanza a medida que llegan los bytes; leer() informa cuántos bytes
+ * del archivo se consumieron, para poder mostrar el progreso.
+ *
+ * Después de la tabla serializada se escribe una marca y el CRC32 de los
+ * bytes de la tabla, que leer() comprueba (los archivos anteriores, sin la
+ * marca, se siguen leyendo). La escritura se hace en un temporal junto al
+ * destino que después lo reemplaza con un renombrado atómico: si el proceso
+ * se corta a mitad de la escritura, el archivo anterior queda intacto.
+ */
+public final class ArchivoTabla {
+
+    // Tamaño de los buffers de lectura y escritura.
+    private static final int BUFFER = 1 << 16;
+
+    // Marca que precede al CRC32 al final del archivo.
+    private static final long MARCA_CRC = 0x5453424352433332L;
+
+    private ArchivoTabla() {
+    }
+
+    /**
+     * Lee una tabla guardada con escribir().
+     *
+     * @param <K> el tipo de las claves.
+     * @param <V> el tipo de los valores.
+     * @param origen el archivo a leer.
+     * @param avance recibe la cantidad total de bytes leídos del archivo hasta
+     * el momento (cada vez que se llena el buffer), o null.
+     * @return la tabla leída.
+     * @throws IOException si no se puede leer el archivo o no contiene una
+     * tabla.
+     */
+    public static <K, V> TSBHashtable<K, V> leer(File origen, LongConsumer avance) throws IOException {
+        EventosJFR.Persistencia evento = EventosJFR.persistencia();
+        // el CRC se calcula sobre lo que consume ObjectInputStream, que no lee
+        // más allá del final del objeto: el resto del buffer es la marca.
+        BufferedInputStream buffer = new BufferedInputStream(
+                new ContadorLectura(new FileInputStream(origen), avance), BUFFER);
+        CheckedInputStream verificado = new CheckedInputStream(buffer, new CRC32());
+        try (ObjectInputStream in = new ObjectInputStream(verificado)) {
+            Object leido = in.readObject();
+            if (!(leido instanceof TSBHashtable)) {
+                throw new IOException("leer(): el archivo no contiene una tabla");
+            }
+            @SuppressWarnings("unchecked")
+            TSBHashtable<K, V> tabla = (TSBHashtable<K, V>) leido;
+            verificar(new DataInputStream(buffer), verificado.getChecksum().getValue());
+            if (evento != null) {
+                registrar(evento, "lectura", origen, tabla);
+            }
+            return tabla;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("leer(): el archivo no contiene una tabla", e);
+        }
+    }
+
+    /*
+     * Lee la marca y el CRC32 del final del archivo y los compara con el CRC
+     * calculado. Un archivo que termina con la tabla es del formato anterior.
+     */
+    private static void verificar(DataInputStream in, long calculado) throws IOException {
+        long marca;
+        try {
+            marca = in.readLong();
+        } catch (EOFException e) {
+            return;
+        }
+        if (marca != MARCA_CRC || in.readLong() != calculado) {
+            throw new IOException("leer(): el archivo está dañado (no coincide el CRC)");
+        }
+    }
+
+    /**
+     * Guarda la tabla en el archivo indicado. Se escribe primero en un
+     * temporal (destino con extensión .tmp) y, una vez forzado al disco, se
+     * lo renombra como destino.
+     *
+     * @param destino el archivo a escribir.
+     * @param tabla la tabla a guardar.
+     * @throws IOException si no se puede escribir.
+     */
+    public static void escribir(File destino, TSBHashtable<?, ?> tabla) throws IOException {
+        EventosJFR.Persistencia evento = EventosJFR.persistencia();
+        reemplazar(destino, archivo -> {
+            DataOutputStream buffer = new DataOutputStream(new BufferedOutputStream(archivo, BUFFER));
+            CheckedOutputStream verificado = new CheckedOutputStream(buffer, new CRC32());
+            ObjectOutputStream out = new ObjectOutputStream(verificado);
+            out.writeObject(tabla);
+            out.flush();
+            buffer.writeLong(MARCA_CRC);
+            buffer.writeLong(verificado.getChecksum().getValue());
+            buffer.flush();
+        });
+        if (evento != null) {
+            registrar(evento, "escritura", destino, tabla);
+        }
+    }
+
+    /*
+     * Escribe un archivo como escribir(): el contenido va a un temporal junto
+     * al destino (destino con extensión .tmp) que, una vez forzado al disco,
+     * reemplaza al destino con un renombrado atómico. También lo usan
+     * IndiceInvertido y RegistroArchivos.
+     */
+    static void reemplazar(File destino, Contenido contenido) throws IOException {
+        File temporal = new File(destino.getPath() + ".tmp");
+        try (FileOutputStream archivo = new FileOutputStream(temporal)) {
+            contenido.escribir(archivo);
+            archivo.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            temporal.delete();
+            throw e;
+        }
+        try {
+            Files.move(temporal.toPath(), destino.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal.toPath(), destino.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+     * Escribe el contenido de un archivo en out, vaciando sus buffers pero
+     * sin cerrarlo (reemplazar() lo fuerza al disco y lo cierra).
+     */
+    interface Contenido {
+
+        void escribir(OutputStream out) throws IOException;
+    }
+
+    private static void registrar(EventosJFR.Persistencia evento, String operacion, File archivo,
+            TSBHashtable<?, ?> tabla) {
+        evento.operacion = operacion;
+        evento.archivo = archivo.getPath();
+        evento.bytes = archivo.length();
+        evento.pares = tabla.size();
+        evento.commit();
+    }
+
+    /*
+     * Cuenta los bytes leídos del archivo e informa el total.
+     */
+    private static class ContadorLectura extends FilterInputStream {
+
+        private final LongConsumer avance;
+        private long leidos;
+
+        ContadorLectura(InputStream in, LongConsumer avance) {
+            super(in);
+            this.avance = avance;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                sumar(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                sumar(n);
+            }
+            return n;
+        }
+
+        private void sumar(int n) {
+            leidos += n;
+            if (avance != null) {
+                avance.accept(leidos);
+            }
+        }
+    }
+}
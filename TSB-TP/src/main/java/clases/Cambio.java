@@ -0,0 +1,52 @@
+package clases;
+
+/**
+ * Un cambio en el contenido de una TSBHashtable, tal como lo reciben los
+ * suscriptores de su PublicadorCambios.
+ *
+ * @param <K> el tipo de las claves.
+ * @param <V> el tipo de los valores.
+ */
+public final class Cambio<K, V> {
+
+    /**
+     * Tipo de cambio.
+     */
+    public enum Tipo {
+        // se agregó la clave, con el valor indicado.
+        ALTA,
+        // la clave ya estaba y ahora tiene el valor indicado.
+        MODIFICACION,
+        // se quitó la clave (el valor es null).
+        BAJA,
+        // se vació la tabla (la clave y el valor son null).
+        VACIADO
+    }
+
+    private final Tipo tipo;
+    private final K clave;
+    private final V valor;
+
+    Cambio(Tipo tipo, K clave, V valor) {
+        this.tipo = tipo;
+        this.clave = clave;
+        this.valor = valor;
+    }
+
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    public K getClave() {
+        return clave;
+    }
+
+    public V getValor() {
+        return valor;
+    }
+
+    @Override
+    public String toString() {
+        return tipo + (tipo == Tipo.VACIADO ? "" : " " + clave + (valor != null ? "=" + valor : ""));
+    }
+}
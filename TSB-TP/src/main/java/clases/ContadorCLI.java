@@ -0,0 +1,543 @@
+package clases;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Contador de palabras por línea de comandos, sin interfaz gráfica (no depende
+ * de JavaFX). Pensado para procesos por lotes en servidores y para medir el
+ * motor de ingesta por separado.
+ *
+ * <pre>
+ * java -cp TSBHashtable.jar clases.ContadorCLI [opciones] [archivo|carpeta|-]...
+ * </pre>
+ *
+ * Sin rutas (o con "-") lee la entrada estándar. Un único archivo se cuenta
+ * con IngestaParalela; varios archivos o carpetas con PipelineIngesta. Con
+ * --compacta todo se cuenta con un único hilo en una TSBHashtableCompacta, que
+ * ocupa mucha menos memoria con vocabularios grandes. Con --parecidas se
+ * listan las palabras contadas más parecidas a la indicada (sin contar acentos
+ * ni mayúsculas). Con --sin-mayusculas o --sin-acentos las palabras que sólo
+ * difieren en eso se cuentan juntas (ver EstrategiasTexto). Con --ngramas se
+ * cuentan bigramas o trigramas en lugar de palabras (con un único hilo, ver
+ * ContadorNGramas), y con --siguientes se listan las palabras que más
+ * siguieron a las indicadas. Con --seguir los archivos (o la entrada estándar)
+ * se siguen mientras crecen, como "tail -f", y cada --informe-cada segundos se
+ * muestran las palabras más frecuentes de la ventana de --ventana o
+ * --ventana-palabras (ver VentanaDeslizante). El ranking, las palabras
+ * parecidas y el export se escriben en la salida estándar (o en el archivo
+ * indicado) y las métricas en la salida de errores. Si alguna ruta no existe
+ * (salvo con --seguir, que espera a que se cree) se informa en la salida de
+ * errores y el programa termina con código 1.
+ */
+public class ContadorCLI {
+
+    private static final String USO
+            = "uso: ContadorCLI [opciones] [archivo|carpeta|-]...\n"
+            + "  --top N           muestra las N palabras más frecuentes (20 por defecto, 0 = ninguna)\n"
+            + "  --tsv ARCHIVO     exporta todas las cantidades como palabra<TAB>cantidad (- = salida estándar)\n"
+            + "  --charset NOMBRE  codificación de los archivos (por defecto la de la plataforma)\n"
+            + "  --hilos N         hilos de tokenizado para varios archivos\n"
+            + "  --parecidas PAL   lista las palabras a distancia de edición <= --distancia de PAL\n"
+            + "  --distancia K     distancia máxima para --parecidas (2 por defecto)\n"
+            + "  --sin-mayusculas  cuenta igual las palabras que sólo difieren en mayúsculas\n"
+            + "  --sin-acentos     cuenta igual las que difieren en mayúsculas o acentos\n"
+            + "  --compacta        cuenta con un hilo en una tabla de claves compactas (menos memoria)\n"
+            + "  --ngramas N       cuenta secuencias de N palabras (2 o 3) en lugar de palabras\n"
+            + "  --siguientes PAL  con --ngramas, lista las palabras que más siguieron a PAL\n"
+            + "                    (hasta N-1 palabras separadas por espacios)\n"
+            + "  --seguir          sigue los archivos (o la entrada estándar) mientras crecen y\n"
+            + "                    muestra periódicamente las más frecuentes de la ventana\n"
+            + "  --ventana DUR     con --seguir, cuenta los últimos DUR (por ejemplo 90s, 5m, 1h;\n"
+            + "                    5m por defecto)\n"
+            + "  --ventana-palabras N  con --seguir, cuenta las últimas N palabras\n"
+            + "  --cubetas B       partes en que se divide la ventana (60 por defecto)\n"
+            + "  --informe-cada S  con --seguir, segundos entre informes (10 por defecto)\n"
+            + "  --sin-metricas    no informa tiempos, velocidad ni memoria\n";
+
+    // Espera entre lecturas de --seguir cuando no hay texto nuevo (ms).
+    private static final long ESPERA_SEGUIR = 200;
+
+    // Opciones de la línea de comandos.
+    private int top = 20;
+    private String tsv;
+    private Charset charset = Charset.defaultCharset();
+    private int hilos = 0;
+    private boolean compacta;
+    private EstrategiaHash<? super String> estrategia;
+    private String parecidas;
+    private int distancia = 2;
+    private int ngramas;
+    private String siguientes;
+    private boolean metricas = true;
+    private boolean seguir;
+    private long ventana = 5 * 60 * 1000;
+    private long ventanaPalabras;
+    private int cubetas = 60;
+    private long informeCada = 10 * 1000;
+    private final List<File> rutas = new ArrayList<>();
+    private boolean entradaEstandar;
+
+    private final PrintStream out;
+    private final PrintStream err;
+
+    ContadorCLI(PrintStream out, PrintStream err) {
+        this.out = out;
+        this.err = err;
+    }
+
+    public static void main(String[] args) {
+        ContadorCLI cli = new ContadorCLI(System.out, System.err);
+        try {
+            cli.opciones(args);
+            cli.ejecutar();
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USO);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /*
+     * Interpreta los argumentos.
+     */
+    void opciones(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--top":
+                    top = Integer.parseInt(valor(args, ++i, a));
+                    break;
+                case "--tsv":
+                    tsv = valor(args, ++i, a);
+                    break;
+                case "--charset":
+                    charset = Charset.forName(valor(args, ++i, a));
+                    break;
+                case "--hilos":
+                    hilos = Integer.parseInt(valor(args, ++i, a));
+                    break;
+                case "--parecidas":
+                    parecidas = valor(args, ++i, a);
+                    break;
+                case "--distancia":
+                    distancia = Integer.parseInt(valor(args, ++i, a));
+                    break;
+                case "--compacta":
+                    compacta = true;
+                    break;
+                case "--sin-mayusculas":
+                    estrategia = EstrategiasTexto.SIN_MAYUSCULAS;
+                    break;
+                case "--sin-acentos":
+                    estrategia = EstrategiasTexto.SIN_ACENTOS;
+                    break;
+                case "--ngramas":
+                    ngramas = Integer.parseInt(valor(args, ++i, a));
+                    if (ngramas < 2 || ngramas > ContadorNGramas.MAX_N) {
+                        throw new IllegalArgumentException("--ngramas debe ser 2 o " + ContadorNGramas.MAX_N);
+                    }
+                    break;
+                case "--siguientes":
+                    siguientes = valor(args, ++i, a);
+                    break;
+                case "--seguir":
+                    seguir = true;
+                    break;
+                case "--ventana":
+                    ventana = duracion(valor(args, ++i, a));
+                    break;
+                case "--ventana-palabras":
+                    ventanaPalabras = Long.parseLong(valor(args, ++i, a));
+                    if (ventanaPalabras <= 0) {
+                        throw new IllegalArgumentException("--ventana-palabras debe ser positivo");
+                    }
+                    break;
+                case "--cubetas":
+                    cubetas = Integer.parseInt(valor(args, ++i, a));
+                    if (cubetas < 1) {
+                        throw new IllegalArgumentException("--cubetas debe ser positivo");
+                    }
+                    break;
+                case "--informe-cada":
+                    informeCada = Math.round(Double.parseDouble(valor(args, ++i, a)) * 1000);
+                    if (informeCada <= 0) {
+                        throw new IllegalArgumentException("--informe-cada debe ser positivo");
+                    }
+                    break;
+                case "--sin-metricas":
+                    metricas = false;
+                    break;
+                case "-h":
+                case "--help":
+                    throw new IllegalArgumentException("");
+                case "-":
+                    entradaEstandar = true;
+                    break;
+                default:
+                    if (a.startsWith("--")) {
+                        throw new IllegalArgumentException("Opción desconocida: " + a);
+                    }
+                    rutas.add(new File(a));
+            }
+        }
+        if (rutas.isEmpty()) {
+            entradaEstandar = true;
+        }
+        if (siguientes != null && ngramas == 0) {
+            throw new IllegalArgumentException("--siguientes requiere --ngramas");
+        }
+        if (estrategia != null && (compacta || ngramas > 0 || seguir)) {
+            throw new IllegalArgumentException(
+                    "--sin-mayusculas y --sin-acentos no se combinan con --compacta, --ngramas ni --seguir");
+        }
+        if (seguir && (ngramas > 0 || compacta || tsv != null || parecidas != null)) {
+            throw new IllegalArgumentException(
+                    "--seguir no se combina con --ngramas, --compacta, --tsv ni --parecidas");
+        }
+        // se valida la ventana que se va a usar: --ventana-palabras reemplaza a
+        // --ventana.
+        if (seguir && ventanaPalabras > 0 && ventanaPalabras < cubetas) {
+            throw new IllegalArgumentException("--ventana-palabras debe ser mayor o igual a --cubetas");
+        }
+        if (seguir && ventanaPalabras == 0 && ventana < cubetas) {
+            throw new IllegalArgumentException("--ventana debe ser de al menos --cubetas milisegundos");
+        }
+    }
+
+    /*
+     * Interpreta una duración como 90s, 5m o 1h (sin unidad, segundos) y la
+     * retorna en milisegundos.
+     */
+    static long duracion(String s) {
+        long unidad = 1000;
+        String numero = s;
+        if (s.endsWith("ms")) {
+            unidad = 1;
+            numero = s.substring(0, s.length() - 2);
+        } else if (s.endsWith("s")) {
+            numero = s.substring(0, s.length() - 1);
+        } else if (s.endsWith("m")) {
+            unidad = 60 * 1000;
+            numero = s.substring(0, s.length() - 1);
+        } else if (s.endsWith("h")) {
+            unidad = 60 * 60 * 1000;
+            numero = s.substring(0, s.length() - 1);
+        }
+        long ms;
+        try {
+            ms = Math.round(Double.parseDouble(numero) * unidad);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Duración inválida: " + s);
+        }
+        if (ms <= 0) {
+            throw new IllegalArgumentException("Duración inválida: " + s);
+        }
+        return ms;
+    }
+
+    private static String valor(String[] args, int i, String opcion) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + opcion);
+        }
+        return args[i];
+    }
+
+    /*
+     * Cuenta, muestra el ranking, exporta y muestra las métricas.
+     */
+    void ejecutar() throws IOException {
+        if (seguir) {
+            ejecutarSeguimiento();
+            return;
+        }
+        if (ngramas > 0) {
+            ejecutarNGramas();
+            return;
+        }
+        Metricas m = new Metricas();
+        m.iniciarFase("conteo");
+        long[] bytes = {0};
+        Map<String, Integer> tabla = compacta ? contarCompacta(bytes) : contar(bytes);
+
+        long palabras = 0;
+        for (Integer c : tabla.values()) {
+            palabras += c;
+        }
+
+        if (top > 0) {
+            m.iniciarFase("ranking");
+            for (Map.Entry<String, Integer> e : Ranking.mayores(tabla, top)) {
+                out.println(e.getValue() + "\t" + e.getKey());
+            }
+            out.flush();
+        }
+        if (parecidas != null) {
+            m.iniciarFase("parecidas");
+            IndiceDifuso difuso = IndiceDifuso.de(tabla.keySet());
+            for (IndiceDifuso.Sugerencia s : difuso.buscar(parecidas, distancia, Math.max(top, 20), tabla)) {
+                out.println(s.getDistancia() + "\t" + s.getCantidad() + "\t" + s.getPalabra());
+            }
+            out.flush();
+        }
+        if (tsv != null) {
+            m.iniciarFase("exportación");
+            exportar(tabla);
+        }
+        m.terminarFase();
+        if (metricas) {
+            m.imprimir(err, bytes[0], palabras, tabla.size());
+        }
+    }
+
+    /*
+     * Cuenta n-gramas con un único hilo y muestra los más frecuentes y las
+     * continuaciones pedidas.
+     */
+    private void ejecutarNGramas() throws IOException {
+        Metricas m = new Metricas();
+        m.iniciarFase("conteo");
+        ContadorNGramas contador = new ContadorNGramas(ngramas);
+        long bytes = 0;
+        long palabras = 0;
+        LectorMapeado lector = new LectorMapeado(charset);
+        for (File f : PipelineIngesta.listarArchivos(rutas)) {
+            Tokenizador tokenizador = new Tokenizador(contador);
+            lector.leer(f, tokenizador, null);
+            contador.reiniciar();
+            bytes += f.length();
+            palabras += tokenizador.getPalabras();
+        }
+        if (entradaEstandar) {
+            Tokenizador tokenizador = new Tokenizador(contador);
+            bytes += leerEntradaEstandar(tokenizador);
+            palabras += tokenizador.getPalabras();
+        }
+        if (contador.getOmitidos() > 0) {
+            err.println(String.format("Aviso: %,d %d-gramas no se contaron (el vocabulario superó su límite)",
+                    contador.getOmitidos(), ngramas));
+        }
+
+        if (top > 0) {
+            m.iniciarFase("ranking");
+            for (Map.Entry<String, Integer> e : contador.mayores(top)) {
+                out.println(e.getValue() + "\t" + e.getKey());
+            }
+            out.flush();
+        }
+        if (siguientes != null) {
+            m.iniciarFase("siguientes");
+            String[] prefijo = siguientes.trim().split("\\s+");
+            for (Map.Entry<String, Integer> e : contador.continuaciones(Math.max(top, 20), prefijo)) {
+                out.println(e.getValue() + "\t" + e.getKey());
+            }
+            out.flush();
+        }
+        m.terminarFase();
+        if (metricas) {
+            m.imprimir(err, bytes, palabras, contador.size());
+        }
+    }
+
+    /*
+     * Sigue los archivos (desde su final) o la entrada estándar, contando en
+     * una ventana deslizante, y muestra sus palabras más frecuentes cada
+     * informeCada milisegundos. Cuando se cierra la entrada estándar se deja
+     * de leerla y se muestra un informe; si no hay archivos, termina ahí. Con
+     * archivos no termina.
+     */
+    private void ejecutarSeguimiento() throws IOException {
+        VentanaDeslizante v = ventanaPalabras > 0
+                ? VentanaDeslizante.porPalabras(ventanaPalabras, cubetas)
+                : VentanaDeslizante.porTiempo(ventana, cubetas);
+        List<SeguidorArchivo> seguidores = new ArrayList<>();
+        List<Tokenizador> tokenizadores = new ArrayList<>();
+        try {
+            for (File f : rutas) {
+                seguidores.add(new SeguidorArchivo(f, charset, true));
+                tokenizadores.add(new Tokenizador(v));
+            }
+            if (entradaEstandar) {
+                seguidores.add(new SeguidorArchivo(System.in, charset));
+                tokenizadores.add(new Tokenizador(v));
+            }
+            long proximo = System.currentTimeMillis() + informeCada;
+            boolean terminado = false;
+            while (!terminado) {
+                long leidos = 0;
+                // sólo la entrada estándar termina: los archivos se siguen.
+                boolean finEntrada = false;
+                for (int i = 0; i < seguidores.size(); i++) {
+                    long n = seguidores.get(i).leer(tokenizadores.get(i));
+                    if (n < 0) {
+                        seguidores.remove(i).close();
+                        tokenizadores.remove(i);
+                        i--;
+                        finEntrada = true;
+                    } else {
+                        leidos += n;
+                    }
+                }
+                terminado = seguidores.isEmpty();
+                v.avanzar();
+                if (finEntrada || System.currentTimeMillis() >= proximo) {
+                    informar(v);
+                    proximo = System.currentTimeMillis() + informeCada;
+                }
+                if (leidos == 0 && !terminado) {
+                    try {
+                        Thread.sleep(ESPERA_SEGUIR);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        } finally {
+            for (SeguidorArchivo s : seguidores) {
+                s.close();
+            }
+        }
+    }
+
+    /*
+     * Muestra las palabras más frecuentes de la ventana, separadas del
+     * informe anterior por una línea con la cantidad de palabras y la hora.
+     */
+    private void informar(VentanaDeslizante v) {
+        out.println("# " + v.getPalabras() + " palabras, " + v.size() + " distintas\t"
+                + new Date());
+        for (Map.Entry<String, Integer> e : v.mayores(Math.max(top, 1))) {
+            out.println(e.getValue() + "\t" + e.getKey());
+        }
+        out.flush();
+    }
+
+    private TSBHashtable<String, Integer> contar(long[] bytes) throws IOException {
+        TSBHashtable<String, Integer> tabla;
+        if (rutas.size() == 1 && rutas.get(0).isFile()) {
+            IngestaParalela ingesta = new IngestaParalela(ForkJoinPool.commonPool(), charset);
+            ingesta.setEstrategia(estrategia);
+            tabla = ingesta.contar(rutas.get(0));
+            bytes[0] += rutas.get(0).length();
+        } else if (!rutas.isEmpty()) {
+            PipelineIngesta pipeline = new PipelineIngesta();
+            pipeline.setCharset(charset);
+            pipeline.setEstrategia(estrategia);
+            if (hilos > 0) {
+                pipeline.setHilosTokenizado(hilos);
+            }
+            tabla = pipeline.ejecutar(rutas, null);
+            bytes[0] += pipeline.getEtapas().get(0).getBytes();
+        } else {
+            tabla = new TSBHashtable<>(1000, estrategia);
+        }
+        if (entradaEstandar) {
+            TSBHashtable<String, Integer> entrada = new TSBHashtable<>(1000, estrategia);
+            bytes[0] += leerEntradaEstandar(new Tokenizador(new ContadorPalabras(entrada)));
+            IngestaParalela.sumar(tabla, entrada);
+        }
+        return tabla;
+    }
+
+    /*
+     * Cuenta todas las rutas y la entrada estándar con un único hilo, en una
+     * tabla de claves compactas.
+     */
+    private TSBHashtableCompacta contarCompacta(long[] bytes) throws IOException {
+        TSBHashtableCompacta tabla = new TSBHashtableCompacta(1000);
+        LectorMapeado lector = new LectorMapeado(charset);
+        for (File f : PipelineIngesta.listarArchivos(rutas)) {
+            lector.leer(f, new Tokenizador(tabla), null);
+            bytes[0] += f.length();
+        }
+        if (entradaEstandar) {
+            bytes[0] += leerEntradaEstandar(new Tokenizador(tabla));
+        }
+        return tabla;
+    }
+
+    /*
+     * Pasa la entrada estándar por el tokenizador y retorna los bytes leídos.
+     */
+    private long leerEntradaEstandar(Tokenizador tokenizador) throws IOException {
+        char[] buf = new char[64 * 1024];
+        ContadorBytes in = new ContadorBytes(System.in);
+        Reader r = new InputStreamReader(in, charset);
+        int n;
+        while ((n = r.read(buf)) != -1) {
+            tokenizador.procesar(buf, 0, n);
+        }
+        tokenizador.finalizar();
+        return in.leidos;
+    }
+
+    private void exportar(Map<String, Integer> tabla) throws IOException {
+        OutputStream os = "-".equals(tsv) ? out : new FileOutputStream(tsv);
+        Writer w = new BufferedWriter(new OutputStreamWriter(os, StandardCharsets.UTF_8), 1 << 16);
+        try {
+            for (Map.Entry<String, Integer> e : tabla.entrySet()) {
+                w.write(e.getKey());
+                w.write('\t');
+                w.write(e.getValue().toString());
+                w.write('\n');
+            }
+        } finally {
+            if (os == out) {
+                w.flush();
+            } else {
+                w.close();
+            }
+        }
+    }
+
+    /*
+     * Cuenta los bytes leídos de la entrada estándar.
+     */
+    private static class ContadorBytes extends FilterInputStream {
+
+        long leidos;
+
+        ContadorBytes(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                leidos++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                leidos += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package clases;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Receptor del Tokenizador que cuenta n-gramas (secuencias de 2 o 3 palabras
+ * consecutivas) sin crear un String por n-grama.
+ *
+ * Cada palabra se convierte en su id del Vocabulario, y los ids de las
+ * últimas n palabras se empaquetan en un long (la primera palabra en los bits
+ * más altos) que se cuenta en una TablaLargos. Cada id ocupa 31 bits en los
+ * bigramas y 21 en los trigramas, por lo que con n = 3 el vocabulario admite
+ * hasta 2^21 (unos dos millones) de palabras. Las palabras que aparecen
+ * después de completarlo no se agregan: los n-gramas que las contienen se
+ * saltean (sin cortar la carga) y se cuentan en getOmitidos().
+ *
+ * Los n-gramas no cruzan el límite entre textos si se invoca reiniciar() al
+ * terminar cada uno.
+ *
+ * Para continuaciones() se guardan además, por cada palabra, los n-gramas
+ * distintos que empiezan con ella (un long más por n-grama): así se recorren
+ * sólo esos y no toda la tabla.
+ */
+public class ContadorNGramas implements Tokenizador.Receptor {
+
+    // Mayor cantidad de palabras por n-grama.
+    public static final int MAX_N = 3;
+
+    private final int n;
+    // bits de cada id, y máscaras de un id y de un n-grama completo.
+    private final int bits;
+    private final long mascaraId;
+    private final long mascaraClave;
+
+    private final Vocabulario vocabulario;
+    private final TablaLargos tabla;
+
+    // los n-gramas distintos que empiezan con cada palabra (por su id), en
+    // el orden en que aparecieron, y cuántos hay en cada arreglo.
+    private long[][] porPrimera = new long[0][];
+    private int[] largoPorPrimera = new int[0];
+
+    // los ids de las últimas palabras empaquetados, y cuántas palabras hay
+    // desde el último reinicio o la última palabra que no entró (hasta n).
+    private long ventana;
+    private int anteriores;
+    // palabras desde el último reinicio (hasta n), cuenten o no.
+    private int enTexto;
+    // n-gramas salteados por contener una palabra que no entró.
+    private long omitidos;
+
+    /**
+     * @param n la cantidad de palabras de cada n-grama (2 o 3).
+     */
+    public ContadorNGramas(int n) {
+        this(n, new Vocabulario());
+    }
+
+    /**
+     * @param n la cantidad de palabras de cada n-grama (2 o 3).
+     * @param vocabulario el vocabulario de donde salen los ids (por ejemplo
+     * uno compartido con otro contador).
+     */
+    public ContadorNGramas(int n, Vocabulario vocabulario) {
+        this(n, vocabulario, Math.min(31, 63 / n));
+    }
+
+    /*
+     * Con menos bits por id (para probar el límite del vocabulario).
+     */
+    ContadorNGramas(int n, Vocabulario vocabulario, int bits) {
+        if (n < 2 || n > MAX_N) {
+            throw new IllegalArgumentException("ContadorNGramas(): n debe estar entre 2 y " + MAX_N);
+        }
+        this.n = n;
+        this.bits = bits;
+        this.mascaraId = (1L << bits) - 1;
+        this.mascaraClave = (1L << bits * n) - 1;
+        this.vocabulario = vocabulario;
+        this.tabla = new TablaLargos(1000);
+    }
+
+    @Override
+    public void palabra(Palabra palabra) {
+        // primero se busca sin agregar, para que una palabra que no entra en
+        // los n-gramas no quede en el vocabulario.
+        int id = vocabulario.getId(palabra);
+        if (id < 0 && vocabulario.size() <= mascaraId) {
+            id = vocabulario.id(palabra);
+        }
+        if (enTexto < n) {
+            enTexto++;
+        }
+        if (id < 0 || id > mascaraId) {
+            // no entra en los n-gramas: se empieza de nuevo después de ella.
+            ventana = 0;
+            anteriores = 0;
+            if (enTexto == n) {
+                omitidos++;
+            }
+            return;
+        }
+        ventana = (ventana << bits | id) & mascaraClave;
+        if (anteriores < n) {
+            anteriores++;
+        }
+        if (anteriores == n) {
+            if (tabla.sumar(ventana, 1) == 1) {
+                indexar(ventana);
+            }
+        } else if (enTexto == n) {
+            omitidos++;
+        }
+    }
+
+    /*
+     * Agrega un n-grama nuevo a los de su primera palabra.
+     */
+    private void indexar(long clave) {
+        int primera = (int) (clave >>> bits * (n - 1));
+        if (primera >= porPrimera.length) {
+            int largo = Math.max(primera + 1, porPrimera.length * 2);
+            porPrimera = Arrays.copyOf(porPrimera, largo);
+            largoPorPrimera = Arrays.copyOf(largoPorPrimera, largo);
+        }
+        long[] claves = porPrimera[primera];
+        int cantidad = largoPorPrimera[primera];
+        if (claves == null) {
+            claves = porPrimera[primera] = new long[2];
+        } else if (cantidad == claves.length) {
+            claves = porPrimera[primera] = Arrays.copyOf(claves, cantidad * 2);
+        }
+        claves[cantidad] = clave;
+        largoPorPrimera[primera] = cantidad + 1;
+    }
+
+    /**
+     * Empieza un texto nuevo: la próxima palabra no forma n-gramas con las
+     * anteriores.
+     */
+    public void reiniciar() {
+        ventana = 0;
+        anteriores = 0;
+        enTexto = 0;
+    }
+
+    /**
+     * @return la cantidad de n-gramas que no se contaron por contener una
+     * palabra que ya no entraba en el vocabulario (ver la descripción de la
+     * clase).
+     */
+    public long getOmitidos() {
+        return omitidos;
+    }
+
+    public int getN() {
+        return n;
+    }
+
+    public Vocabulario getVocabulario() {
+        return vocabulario;
+    }
+
+    /**
+     * @return la tabla de n-gramas empaquetados (ver getTexto()). No se debe
+     * modificar: continuaciones() no vería los n-gramas agregados por fuera
+     * de palabra().
+     */
+    public TablaLargos getTabla() {
+        return tabla;
+    }
+
+    /**
+     * @return la cantidad de n-gramas distintos.
+     */
+    public int size() {
+        return tabla.size();
+    }
+
+    /**
+     * @param palabras las n palabras del n-grama.
+     * @return cuántas veces apareció el n-grama.
+     */
+    public int cantidad(String... palabras) {
+        if (palabras.length != n) {
+            throw new IllegalArgumentException("cantidad(): se esperaban " + n + " palabras");
+        }
+        long clave = empaquetar(palabras);
+        return clave < 0 ? 0 : tabla.get(clave);
+    }
+
+    /**
+     * Retorna las palabras que más veces siguieron a prefijo. Con un prefijo
+     * más corto que n - 1 palabras se suman los n-gramas que empiezan con él
+     * (por ejemplo, con trigramas, la continuación de una palabra cuenta
+     * cada vez que le siguieron al menos otras dos).
+     *
+     * Sólo recorre los n-gramas que empiezan con la primera palabra del
+     * prefijo, no toda la tabla.
+     *
+     * @param k la cantidad de continuaciones a retornar.
+     * @param prefijo entre 1 y n - 1 palabras.
+     * @return a lo sumo k pares (palabra, cantidad), de mayor a menor.
+     */
+    public List<Map.Entry<String, Integer>> continuaciones(int k, String... prefijo) {
+        int p = prefijo.length;
+        if (p < 1 || p >= n) {
+            throw new IllegalArgumentException("continuaciones(): el prefijo debe tener entre 1 y "
+                    + (n - 1) + " palabras");
+        }
+        long buscado = empaquetar(prefijo);
+        if (buscado < 0) {
+            return new ArrayList<>();
+        }
+        int corrimientoPrefijo = bits * (n - p);
+        int corrimientoSiguiente = bits * (n - p - 1);
+        TablaLargos sumas = new TablaLargos();
+        int primera = (int) (buscado >>> bits * (p - 1));
+        if (primera < porPrimera.length) {
+            long[] claves = porPrimera[primera];
+            for (int i = 0; i < largoPorPrimera[primera]; i++) {
+                long clave = claves[i];
+                if (clave >>> corrimientoPrefijo == buscado) {
+                    sumas.sumar(clave >>> corrimientoSiguiente & mascaraId, tabla.get(clave));
+                }
+            }
+        }
+        TSBHashtable<String, Integer> siguientes = new TSBHashtable<>(sumas.size());
+        sumas.recorrer((id, cantidad) -> siguientes.put(vocabulario.getPalabra((int) id), cantidad));
+        return Ranking.mayores(siguientes, k);
+    }
+
+    /**
+     * Retorna los k n-gramas más frecuentes (a igual cantidad, en el orden de
+     * sus ids).
+     *
+     * @param k la cantidad de n-gramas a retornar.
+     * @return a lo sumo k pares (n-grama con las palabras separadas por un
+     * espacio, cantidad), de mayor a menor.
+     */
+    public List<Map.Entry<String, Integer>> mayores(int k) {
+        List<Map.Entry<String, Integer>> resultado = new ArrayList<>();
+        if (k <= 0) {
+            return resultado;
+        }
+        // heap invertido de pares {clave, cantidad}: en la raíz la menor.
+        PriorityQueue<long[]> heap = new PriorityQueue<>(k + 1, (a, b) -> {
+            int c = Long.compare(a[1], b[1]);
+            return c != 0 ? c : Long.compare(b[0], a[0]);
+        });
+        tabla.recorrer((clave, cantidad) -> {
+            if (heap.size() < k) {
+                heap.add(new long[]{clave, cantidad});
+            } else {
+                long[] menor = heap.peek();
+                if (cantidad > menor[1] || cantidad == menor[1] && clave < menor[0]) {
+                    heap.poll();
+                    heap.add(new long[]{clave, cantidad});
+                }
+            }
+        });
+        while (!heap.isEmpty()) {
+            long[] e = heap.poll();
+            resultado.add(new AbstractMap.SimpleImmutableEntry<>(getTexto(e[0]), (int) e[1]));
+        }
+        Collections.reverse(resultado);
+        return resultado;
+    }
+
+    /**
+     * @param clave un n-grama empaquetado de la tabla.
+     * @return sus palabras separadas por un espacio.
+     */
+    public String getTexto(long clave) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = n - 1; i >= 0; i--) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append(vocabulario.getPalabra((int) (clave >>> bits * i & mascaraId)));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Los ids de las palabras empaquetados (la primera en los bits más
+     * altos), o -1 si alguna no está en el vocabulario.
+     */
+    private long empaquetar(String[] palabras) {
+        long clave = 0;
+        for (String s : palabras) {
+            int id = vocabulario.getId(s);
+            if (id < 0 || id > mascaraId) {
+                return -1;
+            }
+            clave = clave << bits | id;
+        }
+        return clave;
+    }
+}
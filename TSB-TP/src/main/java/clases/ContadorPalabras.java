@@ -0,0 +1,51 @@
+package clases;
+
+import java.util.Map;
+
+/**
+ * Receptor del Tokenizador que cuenta las palabras en una TSBHashtable.
+ *
+ * Cada palabra se busca directamente con el buffer del tokenizador: sólo se
+ * crea un String cuando la palabra todavía no estaba en la tabla.
+ */
+public class ContadorPalabras implements Tokenizador.Receptor {
+
+    private TSBHashtable<String, Integer> tabla;
+
+    /**
+     * @param tabla la tabla donde se acumulan las cantidades.
+     */
+    public ContadorPalabras(TSBHashtable<String, Integer> tabla) {
+        this.tabla = tabla;
+    }
+
+    @Override
+    public void palabra(Palabra palabra) {
+        Map.Entry<String, Integer> e = tabla.buscarEntrada(palabra);
+        if (e == null) {
+            tabla.put(palabra.toString(), 1);
+        } else {
+            e.setValue(e.getValue() + 1);
+        }
+    }
+
+    /**
+     * Cambia la tabla donde se acumulan las cantidades (por ejemplo, para
+     * entregar un lote y empezar otro sin detener el tokenizador).
+     *
+     * @param nueva la tabla donde se acumularán las próximas palabras.
+     * @return la tabla que se usaba hasta ahora.
+     */
+    public TSBHashtable<String, Integer> reemplazarTabla(TSBHashtable<String, Integer> nueva) {
+        TSBHashtable<String, Integer> anterior = tabla;
+        tabla = nueva;
+        return anterior;
+    }
+
+    /**
+     * @return la tabla donde se acumulan las cantidades.
+     */
+    public TSBHashtable<String, Integer> getTabla() {
+        return tabla;
+    }
+}
@@ -0,0 +1,166 @@
+package clases;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Las diferencias entre dos tablas (ver TSBHashtable.diferencia()): las claves
+ * que sólo están en la nueva (agregadas), las que sólo están en la anterior
+ * (quitadas) y las que están en las dos con valores distintos (modificadas).
+ *
+ * Con aplicar() las diferencias se pueden llevar a otra tabla. Así se hace
+ * una combinación de tres vías: los cambios de base a otra se aplican sobre
+ * una copia de la propia, y quedan también los cambios propios en las claves
+ * que otra no tocó. En las claves que cambiaron en las dos (de forma
+ * distinta) gana el cambio de otra; aplicar() las retorna como conflictos
+ * para que quien combina pueda revisarlas.
+ *
+ * @param <K> el tipo de las claves.
+ * @param <V> el tipo de los valores.
+ */
+public class DiferenciaTablas<K, V> {
+
+    /**
+     * Una clave que está en las dos tablas con valores distintos.
+     *
+     * @param <K> el tipo de las claves.
+     * @param <V> el tipo de los valores.
+     */
+    public static final class Modificacion<K, V> {
+
+        private final K clave;
+        private final V anterior;
+        private final V nuevo;
+
+        Modificacion(K clave, V anterior, V nuevo) {
+            this.clave = clave;
+            this.anterior = anterior;
+            this.nuevo = nuevo;
+        }
+
+        public K getClave() {
+            return clave;
+        }
+
+        public V getAnterior() {
+            return anterior;
+        }
+
+        public V getNuevo() {
+            return nuevo;
+        }
+
+        @Override
+        public String toString() {
+            return clave + ": " + anterior + " -> " + nuevo;
+        }
+    }
+
+    private final List<Map.Entry<K, V>> agregadas = new ArrayList<>();
+    private final List<Map.Entry<K, V>> quitadas = new ArrayList<>();
+    private final List<Modificacion<K, V>> modificadas = new ArrayList<>();
+
+    DiferenciaTablas() {
+    }
+
+    void agregada(K clave, V valor) {
+        agregadas.add(new AbstractMap.SimpleImmutableEntry<>(clave, valor));
+    }
+
+    void quitada(K clave, V valor) {
+        quitadas.add(new AbstractMap.SimpleImmutableEntry<>(clave, valor));
+    }
+
+    void modificada(K clave, V anterior, V nuevo) {
+        modificadas.add(new Modificacion<>(clave, anterior, nuevo));
+    }
+
+    /*
+     * Agrega al final las diferencias de otra parte de las tablas.
+     */
+    void sumar(DiferenciaTablas<K, V> otra) {
+        agregadas.addAll(otra.agregadas);
+        quitadas.addAll(otra.quitadas);
+        modificadas.addAll(otra.modificadas);
+    }
+
+    /**
+     * @return los pares que sólo están en la tabla nueva.
+     */
+    public List<Map.Entry<K, V>> getAgregadas() {
+        return Collections.unmodifiableList(agregadas);
+    }
+
+    /**
+     * @return los pares que sólo están en la tabla anterior.
+     */
+    public List<Map.Entry<K, V>> getQuitadas() {
+        return Collections.unmodifiableList(quitadas);
+    }
+
+    /**
+     * @return las claves que cambiaron de valor.
+     */
+    public List<Modificacion<K, V>> getModificadas() {
+        return Collections.unmodifiableList(modificadas);
+    }
+
+    /**
+     * @return la cantidad total de diferencias.
+     */
+    public int size() {
+        return agregadas.size() + quitadas.size() + modificadas.size();
+    }
+
+    /**
+     * @return true si las tablas tienen los mismos pares.
+     */
+    public boolean isVacia() {
+        return size() == 0;
+    }
+
+    /**
+     * Lleva las diferencias a la tabla indicada: quita las claves quitadas,
+     * y agrega las agregadas y las modificadas con su valor nuevo.
+     *
+     * Una clave es un conflicto si destino ya la había cambiado de otra
+     * forma: no tiene el valor anterior (una quitada o modificada que destino
+     * modificó, o una modificada que destino quitó) o ya tiene otro valor (una
+     * agregada también en destino). El cambio se aplica igual: gana el de
+     * estas diferencias.
+     *
+     * @param destino la tabla que recibe los cambios.
+     * @return las claves en conflicto, en el orden en que se aplicaron.
+     */
+    public List<K> aplicar(Map<K, V> destino) {
+        List<K> conflictos = new ArrayList<>();
+        for (Map.Entry<K, V> e : quitadas) {
+            V actual = destino.remove(e.getKey());
+            if (actual != null && !actual.equals(e.getValue())) {
+                conflictos.add(e.getKey());
+            }
+        }
+        for (Map.Entry<K, V> e : agregadas) {
+            V actual = destino.put(e.getKey(), e.getValue());
+            if (actual != null && !actual.equals(e.getValue())) {
+                conflictos.add(e.getKey());
+            }
+        }
+        for (Modificacion<K, V> m : modificadas) {
+            V actual = destino.put(m.getClave(), m.getNuevo());
+            if (!Objects.equals(actual, m.getAnterior()) && !Objects.equals(actual, m.getNuevo())) {
+                conflictos.add(m.getClave());
+            }
+        }
+        return conflictos;
+    }
+
+    @Override
+    public String toString() {
+        return "+" + agregadas.size() + " -" + quitadas.size() + " ~" + modificadas.size();
+    }
+}
@@ -0,0 +1,277 @@
+package clases;
+
+import java.util.Arrays;
+
+/**
+ * Estado de una TSBHashtable en un momento dado (ver
+ * TSBHashtable.getEstadisticas()): ocupación del arreglo, longitud de las
+ * secuencias de sondeo, crecimientos y, si la tabla cuenta sus operaciones
+ * (TSBHashtable.setEstadisticas()), cantidad de búsquedas, altas y bajas.
+ *
+ * Los histogramas de sondeo tienen una posición por cantidad de casillas
+ * salteadas antes de encontrar la clave (aciertos) o de saber que no está
+ * (fallos): la posición 0 cuenta las búsquedas resueltas en la primera
+ * casilla, y la última las de CUBETAS - 1 sondeos o más. En put() encontrar
+ * la clave es un acierto y agregarla un fallo.
+ *
+ * Los datos se toman sin sincronizar con la tabla: si se la está modificando
+ * en otro hilo pueden no ser exactamente consistentes entre sí.
+ */
+public final class EstadisticasTabla {
+
+    // Cantidad de posiciones de los histogramas de sondeo.
+    public static final int CUBETAS = 16;
+
+    // Bytes por casilla del arreglo y por entrada, suponiendo referencias
+    // comprimidas (heap menor a 32 GB): cabecera de 12 bytes, referencia a la
+    // tabla, clave y valor, hash y estado, redondeado a 8.
+    private static final long BYTES_CASILLA = 4;
+    private static final long BYTES_ENTRADA = 32;
+    private static final long BYTES_CABECERA_ARREGLO = 16;
+
+    private final int capacidad;
+    private final int vivas;
+    private final int tumbas;
+    private final float factorCarga;
+    private final int maxSondeo;
+    private final int limiteSondeo;
+    private final boolean hashResistente;
+    private final int rehashes;
+    private final long nanosRehash;
+    private final Contadores contadores;
+
+    EstadisticasTabla(int capacidad, int vivas, int ocupadas, float factorCarga, int maxSondeo,
+            int limiteSondeo, boolean hashResistente, int rehashes, long nanosRehash,
+            Contadores contadores) {
+        this.capacidad = capacidad;
+        this.vivas = vivas;
+        this.tumbas = Math.max(0, ocupadas - vivas);
+        this.factorCarga = factorCarga;
+        this.maxSondeo = maxSondeo;
+        this.limiteSondeo = limiteSondeo;
+        this.hashResistente = hashResistente;
+        this.rehashes = rehashes;
+        this.nanosRehash = nanosRehash;
+        this.contadores = contadores != null ? contadores.copia() : null;
+    }
+
+    /**
+     * @return el tamaño del arreglo de soporte.
+     */
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    /**
+     * @return las casillas con un par (el tamaño de la tabla).
+     */
+    public int getVivas() {
+        return vivas;
+    }
+
+    /**
+     * @return las casillas con un par eliminado, que alargan las secuencias
+     * de sondeo hasta el próximo rehash.
+     */
+    public int getTumbas() {
+        return tumbas;
+    }
+
+    /**
+     * @return las casillas que nunca se usaron desde el último rehash.
+     */
+    public int getVacias() {
+        return capacidad - vivas - tumbas;
+    }
+
+    /**
+     * @return la fracción de casillas no vacías (vivas y tumbas), que la tabla
+     * mantiene por debajo del factor de carga.
+     */
+    public double getOcupacion() {
+        return capacidad == 0 ? 0 : (double) (vivas + tumbas) / capacidad;
+    }
+
+    /**
+     * @return el factor de carga de la tabla.
+     */
+    public float getFactorCarga() {
+        return factorCarga;
+    }
+
+    /**
+     * @return la mayor cantidad de sondeos de una inserción desde el último
+     * rehash (ver TSBHashtable.getMaxSondeo()).
+     */
+    public int getMaxSondeo() {
+        return maxSondeo;
+    }
+
+    /**
+     * @return la cantidad de sondeos que adelanta el crecimiento (ver
+     * TSBHashtable.getLimiteSondeo()).
+     */
+    public int getLimiteSondeo() {
+        return limiteSondeo;
+    }
+
+    /**
+     * @return true si la tabla pasó a usar SipHash por colisiones en masa.
+     */
+    public boolean isHashResistente() {
+        return hashResistente;
+    }
+
+    /**
+     * @return la cantidad de veces que se reconstruyó el arreglo (al crecer,
+     * al descartar tumbas o al cambiar la función de hash).
+     */
+    public int getRehashes() {
+        return rehashes;
+    }
+
+    /**
+     * @return el tiempo total de las reconstrucciones, en nanosegundos.
+     */
+    public long getNanosRehash() {
+        return nanosRehash;
+    }
+
+    /**
+     * @return una estimación de la memoria que ocupa la estructura (arreglo y
+     * entradas, sin las claves ni los valores), en bytes.
+     */
+    public long getBytesEstimados() {
+        return BYTES_CABECERA_ARREGLO + capacidad * BYTES_CASILLA + (long) (vivas + tumbas) * BYTES_ENTRADA;
+    }
+
+    /**
+     * @return true si la tabla estaba contando sus operaciones; si no, los
+     * contadores y los histogramas valen 0.
+     */
+    public boolean isContadoresActivos() {
+        return contadores != null;
+    }
+
+    /**
+     * @return la cantidad de put() (altas y reemplazos) y combinaciones de
+     * mergeAll() que modificaron un valor.
+     */
+    public long getEscrituras() {
+        return contadores != null ? contadores.escrituras : 0;
+    }
+
+    /**
+     * @return la cantidad de pares eliminados.
+     */
+    public long getBajas() {
+        return contadores != null ? contadores.bajas : 0;
+    }
+
+    /**
+     * @return la cantidad de búsquedas que encontraron la clave.
+     */
+    public long getAciertos() {
+        return contadores != null ? contadores.aciertos : 0;
+    }
+
+    /**
+     * @return la cantidad de búsquedas que no encontraron la clave.
+     */
+    public long getFallos() {
+        return contadores != null ? contadores.fallos : 0;
+    }
+
+    /**
+     * @return el promedio de sondeos de las búsquedas con acierto.
+     */
+    public double getSondeoPromedioAciertos() {
+        return contadores == null || contadores.aciertos == 0 ? 0
+                : (double) contadores.sondeosAciertos / contadores.aciertos;
+    }
+
+    /**
+     * @return el promedio de sondeos de las búsquedas con fallo.
+     */
+    public double getSondeoPromedioFallos() {
+        return contadores == null || contadores.fallos == 0 ? 0
+                : (double) contadores.sondeosFallos / contadores.fallos;
+    }
+
+    /**
+     * @return el histograma de sondeos de las búsquedas con acierto (una
+     * copia, de CUBETAS posiciones).
+     */
+    public long[] getHistogramaAciertos() {
+        return contadores != null ? contadores.histogramaAciertos.clone() : new long[CUBETAS];
+    }
+
+    /**
+     * @return el histograma de sondeos de las búsquedas con fallo (una copia,
+     * de CUBETAS posiciones).
+     */
+    public long[] getHistogramaFallos() {
+        return contadores != null ? contadores.histogramaFallos.clone() : new long[CUBETAS];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("capacidad=%d vivas=%d tumbas=%d vacías=%d ocupación=%.3f",
+                capacidad, vivas, tumbas, getVacias(), getOcupacion()));
+        sb.append(String.format(" sondeo máximo=%d/%d", maxSondeo, limiteSondeo));
+        if (hashResistente) {
+            sb.append(" hash resistente");
+        }
+        sb.append(String.format(" rehashes=%d (%.1f ms) bytes≈%d",
+                rehashes, nanosRehash / 1e6, getBytesEstimados()));
+        if (contadores != null) {
+            sb.append(String.format(" escrituras=%d bajas=%d aciertos=%d %s fallos=%d %s",
+                    contadores.escrituras, contadores.bajas,
+                    contadores.aciertos, Arrays.toString(contadores.histogramaAciertos),
+                    contadores.fallos, Arrays.toString(contadores.histogramaFallos)));
+        }
+        return sb.toString();
+    }
+
+    /*
+     * Contadores de operaciones de una tabla. Los actualiza sólo el hilo que
+     * modifica la tabla; los demás leen copias.
+     */
+    static final class Contadores {
+
+        long escrituras;
+        long bajas;
+        long aciertos;
+        long fallos;
+        long sondeosAciertos;
+        long sondeosFallos;
+        final long[] histogramaAciertos = new long[CUBETAS];
+        final long[] histogramaFallos = new long[CUBETAS];
+
+        void acierto(int sondeos) {
+            aciertos++;
+            sondeosAciertos += sondeos;
+            histogramaAciertos[Math.min(sondeos, CUBETAS - 1)]++;
+        }
+
+        void fallo(int sondeos) {
+            fallos++;
+            sondeosFallos += sondeos;
+            histogramaFallos[Math.min(sondeos, CUBETAS - 1)]++;
+        }
+
+        Contadores copia() {
+            Contadores c = new Contadores();
+            c.escrituras = escrituras;
+            c.bajas = bajas;
+            c.aciertos = aciertos;
+            c.fallos = fallos;
+            c.sondeosAciertos = sondeosAciertos;
+            c.sondeosFallos = sondeosFallos;
+            System.arraycopy(histogramaAciertos, 0, c.histogramaAciertos, 0, CUBETAS);
+            System.arraycopy(histogramaFallos, 0, c.histogramaFallos, 0, CUBETAS);
+            return c;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package clases;
+
+import java.io.Serializable;
+
+/**
+ * Define cuándo dos claves de una TSBHashtable son la misma, en lugar de su
+ * hashCode() y equals(): por ejemplo, sin distinguir mayúsculas o acentos
+ * (ver EstrategiasTexto). Se indica al crear la tabla.
+ *
+ * Las búsquedas pueden recibir objetos que no son del tipo de las claves (por
+ * ejemplo la Palabra del tokenizador, para una tabla de claves String): la
+ * estrategia debe aceptarlos y calcular el mismo hash para los objetos
+ * equivalentes. Si la tabla se guarda con ArchivoTabla la estrategia también
+ * se guarda: por eso la interfaz extiende Serializable.
+ *
+ * @param <K> el tipo de las claves.
+ */
+public interface EstrategiaHash<K> extends Serializable {
+
+    /**
+     * @param clave una clave o un objeto a buscar.
+     * @return su hash: igual para todos los objetos equivalentes.
+     */
+    int hash(Object clave);
+
+    /**
+     * @param buscada una clave o un objeto a buscar.
+     * @param clave una clave de la tabla.
+     * @return true si representan la misma clave.
+     */
+    boolean equivalentes(Object buscada, K clave);
+}
@@ -0,0 +1,171 @@
+package clases;
+
+import java.text.Normalizer;
+
+/**
+ * Estrategias de hash para claves de texto (String, Palabra o cualquier
+ * CharSequence), que comparan los caracteres de a uno sin crear una copia
+ * normalizada de la clave. Con SIN_ACENTOS, por ejemplo, una TSBHashtable
+ * cuenta "Canción", "cancion" y "CANCIÓN" como la misma palabra buscando
+ * directamente la Palabra del tokenizador; la clave que queda en la tabla es
+ * la primera forma que se agregó.
+ */
+public enum EstrategiasTexto implements EstrategiaHash<CharSequence> {
+
+    /**
+     * Compara el contenido: cualquier CharSequence (por ejemplo un
+     * StringBuilder) es equivalente al String con los mismos caracteres,
+     * aunque no respete su hashCode() y equals().
+     */
+    CONTENIDO {
+        @Override
+        char plegar(char c) {
+            return c;
+        }
+
+        @Override
+        public int hash(Object clave) {
+            CharSequence s = (CharSequence) clave;
+            if (s instanceof String) {
+                return s.hashCode();
+            }
+            int h = 0;
+            for (int i = 0; i < s.length(); i++) {
+                h = 31 * h + s.charAt(i);
+            }
+            return h;
+        }
+
+        @Override
+        public boolean equivalentes(Object buscada, CharSequence clave) {
+            CharSequence s = (CharSequence) buscada;
+            if (s instanceof String && clave instanceof String) {
+                return s.equals(clave);
+            }
+            int n = s.length();
+            if (n != clave.length()) {
+                return false;
+            }
+            for (int i = 0; i < n; i++) {
+                if (s.charAt(i) != clave.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    },
+
+    /**
+     * No distingue mayúsculas de minúsculas ("Hola" y "HOLA").
+     */
+    SIN_MAYUSCULAS {
+        @Override
+        char plegar(char c) {
+            return c < 0x80 ? (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c) : Character.toLowerCase(c);
+        }
+    },
+
+    /**
+     * No distingue mayúsculas ni acentos y demás marcas diacríticas ("José"
+     * y "jose", "pingüino" y "PINGUINO"), igual que IndiceDifuso.plegar().
+     */
+    SIN_ACENTOS {
+        @Override
+        char plegar(char c) {
+            if (c < 0x80) {
+                return (char) (c >= 'A' && c <= 'Z' ? c + ('a' - 'A') : c);
+            }
+            if (c < LIMITE_PLEGADOS) {
+                return Plegados.TABLA[c];
+            }
+            return esMarca(c) ? OMITIR : Character.toLowerCase(c);
+        }
+    };
+
+    // Resultado de plegar() para los caracteres que no cuentan (las marcas
+    // diacríticas sueltas). U+FFFF no es un caracter válido.
+    static final char OMITIR = '\uFFFF';
+
+    // Los caracteres menores a este límite se pliegan con una tabla
+    // precalculada (alfabetos latino, griego, cirílico, etc.).
+    private static final int LIMITE_PLEGADOS = 0x3000;
+
+    /**
+     * @param c un caracter.
+     * @return el caracter con el que se compara c, u OMITIR si no cuenta.
+     */
+    abstract char plegar(char c);
+
+    @Override
+    public int hash(Object clave) {
+        CharSequence s = (CharSequence) clave;
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = plegar(s.charAt(i));
+            if (c != OMITIR) {
+                h = 31 * h + c;
+            }
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equivalentes(Object buscada, CharSequence clave) {
+        if (buscada == clave) {
+            return true;
+        }
+        CharSequence s = (CharSequence) buscada;
+        int i = 0;
+        int j = 0;
+        int n = s.length();
+        int m = clave.length();
+        while (true) {
+            // el siguiente caracter que cuenta de cada una.
+            char a = OMITIR;
+            while (a == OMITIR && i < n) {
+                a = plegar(s.charAt(i++));
+            }
+            char b = OMITIR;
+            while (b == OMITIR && j < m) {
+                b = plegar(clave.charAt(j++));
+            }
+            if (a != b) {
+                return false;
+            }
+            if (a == OMITIR) {
+                // terminaron las dos.
+                return true;
+            }
+        }
+    }
+
+    private static boolean esMarca(char c) {
+        int tipo = Character.getType(c);
+        return tipo == Character.NON_SPACING_MARK || tipo == Character.COMBINING_SPACING_MARK
+                || tipo == Character.ENCLOSING_MARK;
+    }
+
+    /*
+     * Tabla de plegado de SIN_ACENTOS, creada la primera vez que se usa: la
+     * letra base en minúscula de cada caracter (su primer caracter en la
+     * forma NFD), u OMITIR para las marcas.
+     */
+    private static class Plegados {
+
+        static final char[] TABLA = new char[LIMITE_PLEGADOS];
+
+        static {
+            for (int c = 0; c < LIMITE_PLEGADOS; c++) {
+                char ch = (char) c;
+                if (esMarca(ch)) {
+                    TABLA[c] = OMITIR;
+                } else if (Character.isSurrogate(ch)) {
+                    TABLA[c] = ch;
+                } else {
+                    String nfd = Normalizer.normalize(String.valueOf(ch), Normalizer.Form.NFD);
+                    TABLA[c] = Character.toLowerCase(nfd.charAt(0));
+                }
+            }
+        }
+    }
+}
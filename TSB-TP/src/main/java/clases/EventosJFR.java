@@ -0,0 +1,137 @@
+package clases;
+
+/**
+ * Eventos de JDK Flight Recorder de la tabla y de la ingesta, para ver en una
+ * grabación dónde se va el tiempo de una carga: rehash, secuencias de sondeo
+ * largas, lectura de cada archivo y persistencia de la tabla.
+ *
+ * Todos están desactivados por defecto: hay que activarlos en la
+ * configuración de la grabación, por ejemplo con el archivo tsb.jfc del
+ * proyecto:
+ *
+ * <pre>
+ * java -XX:StartFlightRecording=filename=carga.jfr,settings=tsb.jfc -cp TSBHashtable.jar clases.ContadorCLI texto.txt
+ * </pre>
+ *
+ * Esta clase no depende de jdk.jfr, de forma que el proyecto compila con
+ * Java 8: los eventos reales están en RegistroJFR (carpeta src/main/jfr), que
+ * sólo se compila con el perfil "jfr" del pom (activo con JDK 11 o posterior)
+ * y se carga por reflexión. Si no se compiló o la JVM no tiene JFR, los
+ * métodos de esta clase retornan null.
+ *
+ * Mientras están desactivados, crear un evento es sólo una verificación (los
+ * de rehash y archivos son pocos; el de sondeo se crea sólo con secuencias
+ * más largas que UMBRAL_SONDEO).
+ */
+final class EventosJFR {
+
+    /**
+     * Cantidad de sondeos a partir de la cual una búsqueda o inserción emite
+     * el evento de sondeo largo (propiedad tsb.jfr.sondeo, 16 por defecto).
+     */
+    static final int UMBRAL_SONDEO = Integer.getInteger("tsb.jfr.sondeo", 16);
+
+    // Los eventos de JFR, o null si no están disponibles.
+    private static final Registro REGISTRO = cargar();
+
+    private EventosJFR() {
+    }
+
+    private static Registro cargar() {
+        try {
+            Class<?> c = Class.forName("clases.RegistroJFR", true, EventosJFR.class.getClassLoader());
+            return (Registro) c.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return un evento de rehash ya iniciado, o null si no se registra.
+     */
+    static Rehash rehash() {
+        return REGISTRO != null ? REGISTRO.rehash() : null;
+    }
+
+    /**
+     * @return un evento de ingesta de archivo ya iniciado, o null si no se
+     * registra.
+     */
+    static IngestaArchivo ingesta() {
+        return REGISTRO != null ? REGISTRO.ingesta() : null;
+    }
+
+    /**
+     * @return un evento de persistencia ya iniciado, o null si no se registra.
+     */
+    static Persistencia persistencia() {
+        return REGISTRO != null ? REGISTRO.persistencia() : null;
+    }
+
+    /**
+     * Registra una secuencia de sondeo larga (si el evento está activo).
+     *
+     * @param insercion true si fue una inserción, false si fue una búsqueda.
+     * @param sondeos las casillas salteadas.
+     * @param capacidad el tamaño del arreglo.
+     * @param clave la clave buscada.
+     */
+    static void sondeoLargo(boolean insercion, int sondeos, int capacidad, Object clave) {
+        if (REGISTRO != null) {
+            REGISTRO.sondeoLargo(insercion, sondeos, capacidad, clave);
+        }
+    }
+
+    /*
+     * Crea los eventos de JFR (ver RegistroJFR). Cada método retorna null si
+     * el evento no está activo en ninguna grabación.
+     */
+    interface Registro {
+
+        Rehash rehash();
+
+        IngestaArchivo ingesta();
+
+        Persistencia persistencia();
+
+        void sondeoLargo(boolean insercion, int sondeos, int capacidad, Object clave);
+    }
+
+    //************************ Eventos.
+
+    /*
+     * Los datos de cada evento. commit() los copia al evento de JFR y lo
+     * registra.
+     */
+
+    abstract static class Rehash {
+
+        int capacidadAnterior;
+        int capacidadNueva;
+        int vivas;
+        int tumbas;
+        int maxSondeo;
+
+        abstract void commit();
+    }
+
+    abstract static class IngestaArchivo {
+
+        String archivo;
+        String modo;
+        long bytes;
+        long palabras;
+
+        abstract void commit();
+    }
+
+    abstract static class Persistencia {
+
+        String operacion;
+        String archivo;
+        long bytes;
+        int pares;
+
+        abstract void commit();
+    }
+}
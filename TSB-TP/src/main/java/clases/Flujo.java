@@ -0,0 +1,84 @@
+package clases;
+
+/**
+ * Interfaces para flujos de datos con contrapresión, con los mismos nombres,
+ * métodos y contrato que java.util.concurrent.Flow (que recién existe en Java
+ * 9; el proyecto compila para Java 8). Al pasar a Java 9 alcanza con un
+ * adaptador de una línea en cada sentido.
+ *
+ * Un Publisher entrega elementos a cada Subscriber sólo cuando éste los pidió
+ * con Subscription.request(), nunca más de los pedidos.
+ */
+public final class Flujo {
+
+    private Flujo() {
+    }
+
+    /**
+     * Productor de elementos para los suscriptores.
+     *
+     * @param <T> el tipo de los elementos.
+     */
+    public interface Publisher<T> {
+
+        /**
+         * Agrega un suscriptor, que recibe primero onSubscribe().
+         *
+         * @param subscriber el suscriptor.
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * Receptor de los elementos de un Publisher.
+     *
+     * @param <T> el tipo de los elementos.
+     */
+    public interface Subscriber<T> {
+
+        /**
+         * Se invoca una vez, antes que los demás métodos. Hasta que el
+         * suscriptor no invoque a request() no recibe elementos.
+         *
+         * @param subscription la suscripción.
+         */
+        void onSubscribe(Subscription subscription);
+
+        /**
+         * Recibe el siguiente elemento (uno por cada unidad pedida).
+         *
+         * @param item el elemento.
+         */
+        void onNext(T item);
+
+        /**
+         * El flujo terminó con un error; no habrá más invocaciones.
+         *
+         * @param throwable el error.
+         */
+        void onError(Throwable throwable);
+
+        /**
+         * El flujo terminó; no habrá más invocaciones.
+         */
+        void onComplete();
+    }
+
+    /**
+     * Vínculo entre un Publisher y uno de sus Subscriber.
+     */
+    public interface Subscription {
+
+        /**
+         * Pide n elementos más. Un n menor o igual a 0 es un error.
+         *
+         * @param n la cantidad de elementos.
+         */
+        void request(long n);
+
+        /**
+         * Deja de recibir elementos (puede llegar alguno ya en camino).
+         */
+        void cancel();
+    }
+}
@@ -0,0 +1,328 @@
+package clases;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Genera textos sintéticos para pruebas de carga: palabras de un vocabulario
+ * inventado (con acentos, eñes y algunos nombres propios con mayúscula)
+ * elegidas con frecuencias de Zipf, separadas por espacios y saltos de línea
+ * y acompañadas de puntuación y números como en pruebaSimple.txt.
+ *
+ * El texto depende sólo de los parámetros y de la semilla: dos generadores
+ * configurados igual producen exactamente los mismos bytes, y cuentan cuántas
+ * veces escribieron cada palabra (getFrecuencia()), de modo que el resultado
+ * del conteo puede verificarse sin guardar nada más que los parámetros.
+ *
+ * El texto se escribe en UTF-8.
+ */
+public class GeneradorCorpus {
+
+    public static final int VOCABULARIO_POR_DEFECTO = 200000;
+    public static final double EXPONENTE_POR_DEFECTO = 1.0;
+
+    // Palabras por línea, en promedio.
+    private static final int PALABRAS_POR_LINEA = 12;
+
+    private static final String[] CONSONANTES = {
+        "b", "c", "d", "f", "g", "j", "l", "m", "n", "ñ", "p", "r", "s", "t", "v", "z",
+        "ll", "ch", "qu", "gu", "rr", "br", "tr", "pl"
+    };
+    private static final String[] VOCALES = {"a", "e", "i", "o", "u"};
+    private static final String[] ACENTUADAS = {"á", "é", "í", "ó", "ú"};
+
+    // Signos de cierre que se pegan a la palabra anterior.
+    private static final byte[][] CIERRES = bytes(",", ",", ",", ".", ".", ";", ":", "!", "?");
+
+    private static final byte[] ESPACIO = bytes(" ")[0];
+    private static final byte[] SALTO = bytes("\n")[0];
+
+    private final long semilla;
+    private int vocabulario = VOCABULARIO_POR_DEFECTO;
+    private double exponente = EXPONENTE_POR_DEFECTO;
+
+    // las palabras del vocabulario (por rango) ya codificadas, y cuántas
+    // veces se escribió cada una en la última generación.
+    private byte[][] palabras;
+    private long[] frecuencias;
+    private long cantidadPalabras;
+
+    /**
+     * @param semilla la semilla de los números al azar.
+     */
+    public GeneradorCorpus(long semilla) {
+        this.semilla = semilla;
+    }
+
+    /**
+     * @param vocabulario la cantidad de palabras distintas del vocabulario
+     * (no todas aparecen si el texto es corto).
+     */
+    public void setVocabulario(int vocabulario) {
+        if (vocabulario <= 0) {
+            throw new IllegalArgumentException("setVocabulario(): vocabulario inválido");
+        }
+        this.vocabulario = vocabulario;
+        this.palabras = null;
+    }
+
+    /**
+     * @param exponente el exponente de la ley de Zipf: la palabra de rango k
+     * aparece con probabilidad proporcional a 1 / k^exponente.
+     */
+    public void setExponente(double exponente) {
+        if (!(exponente >= 0)) {
+            throw new IllegalArgumentException("setExponente(): exponente inválido");
+        }
+        this.exponente = exponente;
+    }
+
+    /**
+     * Escribe un texto de al menos bytes bytes (se completa la última
+     * palabra) en el archivo indicado.
+     *
+     * @param destino el archivo a escribir.
+     * @param bytes el tamaño del texto.
+     * @throws IOException si no se puede escribir.
+     */
+    public void generar(File destino, long bytes) throws IOException {
+        try (OutputStream out = new FileOutputStream(destino)) {
+            generar(out, bytes);
+        }
+    }
+
+    /**
+     * Escribe un texto de al menos bytes bytes en out, que no se cierra. Con
+     * out null no se escribe nada pero se cuentan igual las frecuencias.
+     *
+     * @param out donde se escribe el texto, o null.
+     * @param bytes el tamaño del texto.
+     * @throws IOException si no se puede escribir.
+     */
+    public void generar(OutputStream out, long bytes) throws IOException {
+        if (palabras == null) {
+            crearVocabulario();
+        }
+        frecuencias = new long[vocabulario];
+        cantidadPalabras = 0;
+        SplittableRandom r = new SplittableRandom(semilla);
+        Zipf zipf = new Zipf(vocabulario, exponente);
+        Salida s = new Salida(out);
+
+        int enLinea = 0;
+        boolean abierto = false;
+        while (s.escritos < bytes) {
+            int signo = r.nextInt(100);
+            if (signo < 2) {
+                s.escribir("¿");
+                abierto = true;
+            } else if (signo < 3) {
+                s.escribir("«");
+            } else if (signo < 4) {
+                s.escribir("_");
+            } else if (signo < 5) {
+                // un número, que no es una palabra.
+                s.escribir(Integer.toString(1 + r.nextInt(2100)));
+                s.escribir(ESPACIO);
+            }
+            int k = zipf.muestra(r);
+            s.escribir(palabras[k]);
+            frecuencias[k]++;
+            cantidadPalabras++;
+
+            if (abierto && r.nextInt(4) == 0) {
+                s.escribir("?");
+                abierto = false;
+            } else if (signo == 2) {
+                s.escribir("»");
+            } else if (signo == 3) {
+                s.escribir("_");
+            } else if (r.nextInt(8) == 0) {
+                s.escribir(CIERRES[r.nextInt(CIERRES.length)]);
+            }
+            if (++enLinea >= PALABRAS_POR_LINEA / 2 && r.nextInt(PALABRAS_POR_LINEA) == 0) {
+                s.escribir(SALTO);
+                enLinea = 0;
+            } else {
+                s.escribir(ESPACIO);
+            }
+        }
+        s.escribir(SALTO);
+        s.terminar();
+    }
+
+    /**
+     * @return la cantidad de palabras del vocabulario.
+     */
+    public int getVocabulario() {
+        return vocabulario;
+    }
+
+    /**
+     * @param rango el rango de la palabra (0 es la más frecuente).
+     * @return la palabra de ese rango.
+     */
+    public String getPalabra(int rango) {
+        if (palabras == null) {
+            crearVocabulario();
+        }
+        return new String(palabras[rango], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param rango el rango de la palabra (0 es la más frecuente).
+     * @return cuántas veces se escribió la palabra en la última generación.
+     */
+    public long getFrecuencia(int rango) {
+        return frecuencias == null ? 0 : frecuencias[rango];
+    }
+
+    /**
+     * @return la cantidad de palabras escritas en la última generación (sin
+     * contar los números).
+     */
+    public long getCantidadPalabras() {
+        return cantidadPalabras;
+    }
+
+    private static byte[][] bytes(String... textos) {
+        byte[][] b = new byte[textos.length][];
+        for (int i = 0; i < textos.length; i++) {
+            b[i] = textos[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return b;
+    }
+
+    /*
+     * Arma el vocabulario: palabras distintas, más largas cuanto menos
+     * frecuentes, y alrededor del 3% con mayúscula inicial.
+     */
+    private void crearVocabulario() {
+        SplittableRandom r = new SplittableRandom(~semilla);
+        Set<String> usadas = new HashSet<>(vocabulario * 2);
+        palabras = new byte[vocabulario][];
+        StringBuilder sb = new StringBuilder();
+        for (int k = 0; k < vocabulario; k++) {
+            int silabas = 1 + (int) (Math.log10(k + 1) / 1.5);
+            String p;
+            do {
+                sb.setLength(0);
+                int n = silabas + r.nextInt(2);
+                int acento = r.nextInt(6) == 0 ? r.nextInt(n) : -1;
+                for (int i = 0; i < n; i++) {
+                    if (i > 0 || r.nextBoolean()) {
+                        sb.append(CONSONANTES[r.nextInt(CONSONANTES.length)]);
+                    }
+                    int v = r.nextInt(VOCALES.length);
+                    sb.append(i == acento ? ACENTUADAS[v] : VOCALES[v]);
+                    if (r.nextInt(5) == 0) {
+                        sb.append(r.nextBoolean() ? 's' : 'n');
+                    }
+                }
+                if (r.nextInt(33) == 0) {
+                    sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+                }
+                p = sb.toString();
+                // si ya existe se agrega una sílaba más.
+                silabas++;
+            } while (!usadas.add(p));
+            palabras[k] = p.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /*
+     * Muestreo de la distribución de Zipf en tiempo constante con el método
+     * de alias de Vose.
+     */
+    private static class Zipf {
+
+        private final double[] probabilidad;
+        private final int[] alias;
+
+        Zipf(int n, double exponente) {
+            double[] p = new double[n];
+            double suma = 0;
+            for (int k = 0; k < n; k++) {
+                p[k] = 1 / Math.pow(k + 1, exponente);
+                suma += p[k];
+            }
+            probabilidad = new double[n];
+            alias = new int[n];
+            ArrayDeque<Integer> chicas = new ArrayDeque<>();
+            ArrayDeque<Integer> grandes = new ArrayDeque<>();
+            for (int k = 0; k < n; k++) {
+                p[k] = p[k] * n / suma;
+                (p[k] < 1 ? chicas : grandes).push(k);
+            }
+            while (!chicas.isEmpty() && !grandes.isEmpty()) {
+                int c = chicas.pop();
+                int g = grandes.pop();
+                probabilidad[c] = p[c];
+                alias[c] = g;
+                p[g] = p[g] + p[c] - 1;
+                (p[g] < 1 ? chicas : grandes).push(g);
+            }
+            // las que quedan valen 1 (salvo errores de redondeo).
+            while (!grandes.isEmpty()) {
+                probabilidad[grandes.pop()] = 1;
+            }
+            while (!chicas.isEmpty()) {
+                probabilidad[chicas.pop()] = 1;
+            }
+        }
+
+        int muestra(SplittableRandom r) {
+            int k = r.nextInt(probabilidad.length);
+            return r.nextDouble() < probabilidad[k] ? k : alias[k];
+        }
+    }
+
+    /*
+     * Buffer de salida que cuenta los bytes escritos.
+     */
+    private static class Salida {
+
+        private final OutputStream out;
+        private final byte[] buffer = new byte[1 << 16];
+        private int usados;
+        long escritos;
+
+        Salida(OutputStream out) {
+            this.out = out;
+        }
+
+        void escribir(String s) throws IOException {
+            escribir(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void escribir(byte[] b) throws IOException {
+            if (usados + b.length > buffer.length) {
+                vaciar();
+            }
+            System.arraycopy(b, 0, buffer, usados, b.length);
+            usados += b.length;
+            escritos += b.length;
+        }
+
+        private void vaciar() throws IOException {
+            if (out != null) {
+                out.write(buffer, 0, usados);
+            }
+            usados = 0;
+        }
+
+        void terminar() throws IOException {
+            vaciar();
+            if (out != null) {
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Guarda periódicamente una TSBHashtable con ArchivoTabla, en segundo plano,
+ * para que si el proceso se corta se pierdan como mucho los cambios del
+ * último intervalo. Con agregarArchivo() se guardan otros datos en el mismo
+ * ciclo (en la aplicación, el índice invertido y el registro de archivos),
+ * todos con el mismo protocolo: temporal, forzado al disco y renombrado
+ * atómico.
+ *
+ * TSBHashtable no es sincronizada, y la tabla se sigue modificando en su hilo
+ * (hiloTabla, por ejemplo Platform::runLater en la aplicación) mientras se
+ * guarda. Por eso se guarda una copia propia que se mantiene al día en el
+ * hilo del guardado con los cambios que publica la tabla (ver
+ * TSBHashtable.getCambios()): en el hilo de la tabla sólo se hace una copia
+ * completa la primera vez que el proveedor la entrega, y en cada ciclo las
+ * instantáneas de los otros archivos.
+ *
+ * Periódicamente (cada segundo, o cada intervalo si es menor) se revisan en
+ * el hilo de la tabla los cambios desde el último guardado: se guarda si son
+ * al menos getCambios(), o si hubo alguno y pasó el intervalo. La primera vez
+ * que el proveedor entrega una tabla (la recién leída del archivo, por
+ * ejemplo) se la toma como ya guardada. Mientras el proveedor retorne null no
+ * se guarda nada.
+ */
+public class GuardadoPeriodico implements AutoCloseable {
+
+    // Máxima demora entre revisiones de la tabla, en milisegundos.
+    private final static long REVISION = 1000;
+
+    // Intervalo y cantidad de cambios por defecto.
+    private final static long DEFAULT_INTERVALO = 60000;
+    private final static int DEFAULT_CAMBIOS = 100000;
+
+    // Lo que espera close() a que termine una escritura en curso, en segundos.
+    private final static long ESPERA_CIERRE = 60;
+
+    private final File destino;
+    private final Supplier<? extends TSBHashtable<?, ?>> proveedor;
+    private final Executor hiloTabla;
+    private final ScheduledExecutorService hilo;
+
+    // los otros archivos que se guardan con la tabla.
+    private final List<Adjunto> adjuntos = new ArrayList<>();
+
+    private volatile long intervalo = DEFAULT_INTERVALO;
+    private volatile int cambios = DEFAULT_CAMBIOS;
+
+    // la copia de la tabla que entregó el proveedor por última vez, y cuándo
+    // se decidió el último guardado (System.nanoTime()).
+    private volatile Espejo<?, ?> espejo;
+    private volatile long ultimoGuardado;
+
+    // true si falló la última escritura: se reintenta al pasar el intervalo
+    // aunque la tabla no haya vuelto a cambiar.
+    private volatile boolean reintentar;
+
+    // true mientras hay una revisión o una escritura en curso.
+    private final AtomicBoolean ocupado = new AtomicBoolean();
+
+    private volatile long guardados;
+    private volatile IOException ultimoError;
+
+    /**
+     * @param destino el archivo donde se guarda la tabla.
+     * @param proveedor entrega la tabla a guardar (la actual, si se la
+     * reemplaza), o null si no se debe guardar. Se invoca en hiloTabla.
+     * @param hiloTabla ejecuta las tareas en el hilo que modifica la tabla.
+     */
+    public GuardadoPeriodico(File destino, Supplier<? extends TSBHashtable<?, ?>> proveedor,
+            Executor hiloTabla) {
+        this.destino = destino;
+        this.proveedor = proveedor;
+        this.hiloTabla = hiloTabla;
+        this.hilo = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "guardado-" + destino.getName());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Agrega otro archivo que se guarda en cada ciclo, después de la tabla.
+     * Debe agregarse antes de iniciar().
+     *
+     * @param archivo el archivo a escribir.
+     * @param instantanea se invoca en hiloTabla cuando se decide guardar, y
+     * retorna lo que se escribe desde el hilo del guardado: una copia de los
+     * datos en ese momento (por ejemplo IndiceInvertido.instantanea()), que
+     * no debe cambiar mientras se escribe.
+     */
+    public void agregarArchivo(File archivo, Supplier<? extends Escritura> instantanea) {
+        adjuntos.add(new Adjunto(archivo, instantanea));
+    }
+
+    /**
+     * @param milisegundos la máxima demora entre un cambio de la tabla y su
+     * guardado. Debe definirse antes de iniciar().
+     */
+    public void setIntervalo(long milisegundos) {
+        if (milisegundos <= 0) {
+            throw new IllegalArgumentException("setIntervalo(): intervalo inválido");
+        }
+        this.intervalo = milisegundos;
+    }
+
+    public long getIntervalo() {
+        return intervalo;
+    }
+
+    /**
+     * @param cambios la cantidad de cambios de la tabla a partir de la cual
+     * se guarda sin esperar el intervalo.
+     */
+    public void setCambios(int cambios) {
+        if (cambios <= 0) {
+            throw new IllegalArgumentException("setCambios(): cantidad inválida");
+        }
+        this.cambios = cambios;
+    }
+
+    public int getCambios() {
+        return cambios;
+    }
+
+    /**
+     * @return la cantidad de veces que se escribió el archivo.
+     */
+    public long getGuardados() {
+        return guardados;
+    }
+
+    /**
+     * @return el error del último guardado, o null si se pudo escribir.
+     */
+    public IOException getUltimoError() {
+        return ultimoError;
+    }
+
+    /**
+     * Empieza a revisar la tabla periódicamente.
+     */
+    public void iniciar() {
+        long periodo = Math.min(REVISION, intervalo);
+        hilo.scheduleWithFixedDelay(() -> revisar(false), periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Guarda la tabla ahora, aunque no haya cambiado.
+     *
+     * @return se completa con true al terminar de escribir, con false si no
+     * se guardó (el proveedor retornó null, o ya había un guardado en curso),
+     * o con el error de escritura.
+     */
+    public CompletableFuture<Boolean> guardar() {
+        return revisar(true);
+    }
+
+    /**
+     * Deja de revisar la tabla y espera a que termine la escritura en curso,
+     * si la hay. No guarda los cambios pendientes.
+     */
+    @Override
+    public void close() {
+        Espejo<?, ?> actual = espejo;
+        if (actual != null) {
+            actual.cancelar();
+        }
+        hilo.shutdown();
+        try {
+            hilo.awaitTermination(ESPERA_CIERRE, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /*
+     * Decide en el hilo de la tabla si hay que guardar y escribe en el hilo
+     * propio. Si ya hay una revisión en curso no hace nada.
+     */
+    private CompletableFuture<Boolean> revisar(boolean forzar) {
+        if (!ocupado.compareAndSet(false, true)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        CompletableFuture<Boolean> hecho;
+        try {
+            hecho = CompletableFuture.supplyAsync(() -> preparar(forzar), hiloTabla)
+                    .thenApplyAsync(this::escribir, hilo);
+        } catch (RuntimeException e) {
+            ocupado.set(false);
+            throw e;
+        }
+        hecho.whenComplete((r, e) -> ocupado.set(false));
+        return hecho;
+    }
+
+    /*
+     * Se ejecuta en el hilo de la tabla: retorna lo que hay que guardar, o
+     * null.
+     */
+    private Ciclo preparar(boolean forzar) {
+        TSBHashtable<?, ?> t = proveedor.get();
+        if (t == null) {
+            return null;
+        }
+        long ahora = System.nanoTime();
+        Espejo<?, ?> e = espejo;
+        if (e == null || e.original != t || e.invalido) {
+            boolean nueva = e == null || e.original != t;
+            if (e != null) {
+                e.cancelar();
+            }
+            e = new Espejo<>(t);
+            espejo = e;
+            if (nueva && !forzar) {
+                // una tabla nueva se toma como ya guardada.
+                ultimoGuardado = ahora;
+                return null;
+            }
+        } else if (!forzar) {
+            int hechos = e.sinGuardar;
+            if (hechos == 0 && !reintentar || hechos < cambios
+                    && ahora - ultimoGuardado < TimeUnit.MILLISECONDS.toNanos(intervalo)) {
+                return null;
+            }
+        }
+        List<Escritura> escrituras = new ArrayList<>(adjuntos.size());
+        for (Adjunto a : adjuntos) {
+            escrituras.add(a.instantanea.get());
+        }
+        ultimoGuardado = ahora;
+        reintentar = false;
+        return new Ciclo(e, escrituras);
+    }
+
+    /*
+     * Se ejecuta en el hilo propio: escribe la copia de la tabla y los otros
+     * archivos (si hay que guardar). La copia ya recibió todos los cambios
+     * hechos antes de preparar(): se le entregan en este mismo hilo, en
+     * tareas que se programaron antes que esta.
+     */
+    private boolean escribir(Ciclo ciclo) {
+        if (ciclo == null) {
+            return false;
+        }
+        try {
+            ArchivoTabla.escribir(destino, ciclo.espejo.copia);
+            for (int i = 0; i < adjuntos.size(); i++) {
+                ciclo.escrituras.get(i).escribir(adjuntos.get(i).archivo);
+            }
+            ciclo.espejo.sinGuardar = 0;
+            guardados++;
+            ultimoError = null;
+            return true;
+        } catch (IOException e) {
+            reintentar = true;
+            ultimoError = e;
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Escribe datos en un archivo (ver agregarArchivo()).
+     */
+    public interface Escritura {
+
+        /**
+         * @param archivo el archivo a escribir.
+         * @throws IOException si no se puede escribir.
+         */
+        void escribir(File archivo) throws IOException;
+    }
+
+    //************************ Clases internas.
+
+    private static final class Adjunto {
+
+        final File archivo;
+        final Supplier<? extends Escritura> instantanea;
+
+        Adjunto(File archivo, Supplier<? extends Escritura> instantanea) {
+            this.archivo = archivo;
+            this.instantanea = instantanea;
+        }
+    }
+
+    /*
+     * Lo que se escribe en un guardado.
+     */
+    private static final class Ciclo {
+
+        final Espejo<?, ?> espejo;
+        final List<Escritura> escrituras;
+
+        Ciclo(Espejo<?, ?> espejo, List<Escritura> escrituras) {
+            this.espejo = espejo;
+            this.escrituras = escrituras;
+        }
+    }
+
+    /*
+     * Copia de una tabla que se mantiene al día en el hilo del guardado con
+     * los cambios que publica la original. Se crea en el hilo de la tabla:
+     * la copia y la suscripción empiezan en el mismo momento.
+     */
+    private final class Espejo<K, V> implements Flujo.Subscriber<List<Cambio<K, V>>> {
+
+        final TSBHashtable<K, V> original;
+        final TSBHashtable<K, V> copia;
+
+        // cambios aplicados desde el último guardado (sólo se modifica en el
+        // hilo del guardado).
+        volatile int sinGuardar;
+
+        // true si se dejaron de recibir los cambios: hay que volver a copiar.
+        volatile boolean invalido;
+
+        private volatile Flujo.Subscription suscripcion;
+
+        Espejo(TSBHashtable<K, V> original) {
+            this.original = original;
+            this.copia = original.copiar();
+            // cerrado el guardado, los cambios que sigan llegando se descartan.
+            original.getCambios().suscribir(this, r -> {
+                try {
+                    hilo.execute(r);
+                } catch (RejectedExecutionException e) {
+                    invalido = true;
+                }
+            });
+        }
+
+        void cancelar() {
+            Flujo.Subscription s = suscripcion;
+            if (s != null) {
+                s.cancel();
+            }
+        }
+
+        @Override
+        public void onSubscribe(Flujo.Subscription subscription) {
+            suscripcion = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<Cambio<K, V>> lote) {
+            for (Cambio<K, V> c : lote) {
+                switch (c.getTipo()) {
+                    case VACIADO:
+                        copia.clear();
+                        break;
+                    case BAJA:
+                        copia.remove(c.getClave());
+                        break;
+                    default:
+                        copia.put(c.getClave(), c.getValor());
+                }
+            }
+            sinGuardar += lote.size();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            invalido = true;
+        }
+
+        @Override
+        public void onComplete() {
+            invalido = true;
+        }
+    }
+}
@@ -0,0 +1,450 @@
+package clases;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice para búsquedas aproximadas sobre el vocabulario: dada una palabra
+ * retorna las palabras a distancia de edición (Levenshtein) menor o igual a k.
+ *
+ * Las palabras se comparan plegadas: en minúsculas y sin acentos ni diéresis,
+ * de forma que "Jose", "josé" y "José" están a distancia 0.
+ *
+ * Las palabras plegadas se guardan ordenadas y una a continuación de otra en
+ * un único arreglo de caracteres (así la búsqueda no salta entre miles de
+ * objetos String dispersos en memoria). Ese arreglo se recorre
+ * como un trie implícito: las palabras con un mismo prefijo forman un rango
+ * contiguo, y los rangos de cada caracter siguiente se encuentran
+ * con búsqueda binaria. Durante el recorrido se lleva la fila de la matriz de
+ * Levenshtein entre la consulta y el prefijo actual (equivale a avanzar un
+ * autómata de Levenshtein); si todos sus valores superan k, ninguna palabra
+ * con ese prefijo puede servir y el rango completo se descarta. Así sólo se
+ * visitan los prefijos cercanos a la consulta, sin comparar cada palabra.
+ *
+ * Las palabras agregadas después de crear el índice van a un arreglo chico
+ * sin ordenar, que se recorre completo en cada búsqueda y se mezcla con el
+ * ordenado cuando llega a LIMITE_NUEVAS palabras.
+ *
+ * Las palabras no se pueden quitar: la búsqueda recibe la tabla de conteo y
+ * omite las palabras que ya no están en ella.
+ */
+public class IndiceDifuso {
+
+    // Cantidad de palabras sin ordenar a partir de la cual se mezclan con
+    // las ordenadas.
+    static final int LIMITE_NUEVAS = 1024;
+
+    // Orden de los pares: por palabra plegada y luego por la original.
+    private static final Comparator<String[]> ORDEN = (a, b) -> {
+        int c = a[0].compareTo(b[0]);
+        return c != 0 ? c : a[1].compareTo(b[1]);
+    };
+
+    // palabras plegadas (ordenadas): la i-ésima ocupa
+    // texto[inicio[i]..inicio[i + 1]). originales[i] es la palabra sin plegar.
+    private char[] texto;
+    private int[] inicio;
+    private String[] originales;
+    private int ordenadas;
+
+    // palabras agregadas después del último ordenamiento.
+    private String[] nuevasPlegadas;
+    private String[] nuevasOriginales;
+    private int nuevas;
+
+    // Estado de la búsqueda en curso.
+    private char[] consulta;
+    private int k;
+    private int[][] filas;
+    private Map<String, Integer> conteo;
+    private List<Sugerencia> resultado;
+
+    public IndiceDifuso() {
+        this.texto = new char[0];
+        this.inicio = new int[1];
+        this.originales = new String[0];
+        this.ordenadas = 0;
+        this.nuevasPlegadas = new String[LIMITE_NUEVAS];
+        this.nuevasOriginales = new String[LIMITE_NUEVAS];
+        this.nuevas = 0;
+    }
+
+    /**
+     * Crea un índice con todas las palabras indicadas (ordenándolas una sola
+     * vez).
+     *
+     * @param palabras las palabras a indexar.
+     * @return el índice.
+     */
+    public static IndiceDifuso de(Iterable<String> palabras) {
+        List<String[]> pares = new ArrayList<>();
+        for (String p : palabras) {
+            pares.add(new String[]{plegar(p), p});
+        }
+        IndiceDifuso indice = new IndiceDifuso();
+        indice.mezclar(pares);
+        return indice;
+    }
+
+    /**
+     * @return la cantidad de palabras del índice.
+     */
+    public int size() {
+        return ordenadas + nuevas;
+    }
+
+    /**
+     * Agrega una palabra al índice (si no estaba).
+     *
+     * @param palabra la palabra a agregar.
+     * @return true si se agregó, false si ya estaba.
+     */
+    public boolean agregar(String palabra) {
+        String plegada = plegar(palabra);
+        if (contiene(plegada, palabra)) {
+            return false;
+        }
+        nuevasPlegadas[nuevas] = plegada;
+        nuevasOriginales[nuevas] = palabra;
+        nuevas++;
+        if (nuevas == LIMITE_NUEVAS) {
+            List<String[]> pares = new ArrayList<>(nuevas);
+            for (int i = 0; i < nuevas; i++) {
+                pares.add(new String[]{nuevasPlegadas[i], nuevasOriginales[i]});
+            }
+            nuevas = 0;
+            mezclar(pares);
+        }
+        return true;
+    }
+
+    private boolean contiene(String plegada, String palabra) {
+        // primera palabra ordenada mayor o igual a la plegada.
+        int lo = 0;
+        int hi = ordenadas;
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (comparar(medio, plegada) < 0) {
+                lo = medio + 1;
+            } else {
+                hi = medio;
+            }
+        }
+        // puede haber varias originales con la misma plegada.
+        for (int i = lo; i < ordenadas && comparar(i, plegada) == 0; i++) {
+            if (originales[i].equals(palabra)) {
+                return true;
+            }
+        }
+        for (int j = 0; j < nuevas; j++) {
+            if (nuevasOriginales[j].equals(palabra)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Ordena los pares (plegada, original) y los mezcla con los ya ordenados.
+     */
+    private void mezclar(List<String[]> pares) {
+        Collections.sort(pares, ORDEN);
+        int n = ordenadas + pares.size();
+        int caracteres = inicio[ordenadas];
+        for (String[] par : pares) {
+            caracteres += par[0].length();
+        }
+        char[] t = new char[caracteres];
+        int[] ini = new int[n + 1];
+        String[] o = new String[n];
+        int i = 0;
+        int j = 0;
+        int pos = 0;
+        for (int x = 0; x < n; x++) {
+            ini[x] = pos;
+            if (j >= pares.size() || (i < ordenadas && comparar(i, pares.get(j)) <= 0)) {
+                int largo = largo(i);
+                System.arraycopy(texto, inicio[i], t, pos, largo);
+                pos += largo;
+                o[x] = originales[i];
+                i++;
+            } else {
+                String plegada = pares.get(j)[0];
+                plegada.getChars(0, plegada.length(), t, pos);
+                pos += plegada.length();
+                o[x] = pares.get(j)[1];
+                j++;
+            }
+        }
+        ini[n] = pos;
+        texto = t;
+        inicio = ini;
+        originales = o;
+        ordenadas = n;
+    }
+
+    private int largo(int i) {
+        return inicio[i + 1] - inicio[i];
+    }
+
+    /*
+     * Compara la palabra plegada i con la indicada.
+     */
+    private int comparar(int i, String plegada) {
+        int base = inicio[i];
+        int largo = largo(i);
+        int n = Math.min(largo, plegada.length());
+        for (int x = 0; x < n; x++) {
+            int c = texto[base + x] - plegada.charAt(x);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return largo - plegada.length();
+    }
+
+    /*
+     * Compara el par ordenado i con el par indicado, según ORDEN.
+     */
+    private int comparar(int i, String[] par) {
+        int c = comparar(i, par[0]);
+        return c != 0 ? c : originales[i].compareTo(par[1]);
+    }
+
+    /**
+     * Busca las palabras a distancia menor o igual a k de la consulta.
+     *
+     * @param consulta la palabra buscada.
+     * @param k la distancia máxima.
+     * @param maximo la cantidad máxima de resultados.
+     * @param conteo la tabla con la cantidad de cada palabra; se omiten las
+     * palabras que no están en ella.
+     * @return los resultados, de menor a mayor distancia y, a igual
+     * distancia, de mayor a menor cantidad.
+     */
+    public List<Sugerencia> buscar(String consulta, int k, int maximo, Map<String, Integer> conteo) {
+        List<Sugerencia> encontradas = new ArrayList<>();
+        if (size() == 0 || maximo <= 0 || k < 0) {
+            return encontradas;
+        }
+        this.consulta = plegar(consulta).toCharArray();
+        this.k = k;
+        this.conteo = conteo;
+        this.resultado = encontradas;
+        this.filas = new int[this.consulta.length + k + 2][];
+        try {
+            int m = this.consulta.length;
+            int[] fila = fila(0);
+            for (int j = 0; j <= m; j++) {
+                fila[j] = j;
+            }
+            recorrer(0, ordenadas, 0);
+            for (int i = 0; i < nuevas; i++) {
+                int d = distancia(this.consulta, nuevasPlegadas[i], k);
+                if (d <= k) {
+                    agregarResultado(nuevasOriginales[i], d);
+                }
+            }
+        } finally {
+            this.conteo = null;
+            this.resultado = null;
+        }
+        Collections.sort(encontradas);
+        return encontradas.size() > maximo ? new ArrayList<>(encontradas.subList(0, maximo)) : encontradas;
+    }
+
+    /*
+     * Recorre el rango [desde, hasta) de palabras ordenadas, que comparten
+     * los primeros "profundidad" caracteres. filas[profundidad] tiene la fila
+     * de Levenshtein de ese prefijo.
+     */
+    private void recorrer(int desde, int hasta, int profundidad) {
+        int m = consulta.length;
+        int[] fila = filas[profundidad];
+        // las palabras iguales al prefijo están al principio del rango.
+        while (desde < hasta && largo(desde) == profundidad) {
+            if (fila[m] <= k) {
+                agregarResultado(originales[desde], fila[m]);
+            }
+            desde++;
+        }
+        if (profundidad >= m + k) {
+            // cualquier palabra más larga está a más de k.
+            return;
+        }
+        int[] siguiente = fila(profundidad + 1);
+        while (desde < hasta) {
+            char c = texto[inicio[desde] + profundidad];
+            int fin = finDelCaracter(desde, hasta, profundidad, c);
+            siguiente[0] = fila[0] + 1;
+            int minimo = siguiente[0];
+            for (int j = 1; j <= m; j++) {
+                int costo = consulta[j - 1] == c ? 0 : 1;
+                int v = Math.min(Math.min(siguiente[j - 1], fila[j]) + 1, fila[j - 1] + costo);
+                siguiente[j] = v;
+                if (v < minimo) {
+                    minimo = v;
+                }
+            }
+            if (minimo <= k) {
+                recorrer(desde, fin, profundidad + 1);
+            }
+            desde = fin;
+        }
+    }
+
+    private int[] fila(int profundidad) {
+        if (filas[profundidad] == null) {
+            filas[profundidad] = new int[consulta.length + 1];
+        }
+        return filas[profundidad];
+    }
+
+    /*
+     * Retorna el primer índice de [desde, hasta) cuyo caracter en la
+     * posición indicada es mayor a c (búsqueda binaria: en el rango, ese
+     * caracter está ordenado).
+     */
+    private int finDelCaracter(int desde, int hasta, int posicion, char c) {
+        int lo = desde + 1;
+        int hi = hasta;
+        while (lo < hi) {
+            int medio = (lo + hi) >>> 1;
+            if (texto[inicio[medio] + posicion] <= c) {
+                lo = medio + 1;
+            } else {
+                hi = medio;
+            }
+        }
+        return lo;
+    }
+
+    private void agregarResultado(String palabra, int d) {
+        Integer c = conteo.get(palabra);
+        if (c != null) {
+            resultado.add(new Sugerencia(palabra, d, c));
+        }
+    }
+
+    /*
+     * Distancia de Levenshtein entre a y b. Si supera el límite retorna
+     * límite + 1 (sin terminar de calcularla).
+     */
+    private static int distancia(char[] a, String b, int limite) {
+        int n = a.length;
+        int m = b.length();
+        if (Math.abs(n - m) > limite) {
+            return limite + 1;
+        }
+        int[] anterior = new int[m + 1];
+        int[] actual = new int[m + 1];
+        for (int j = 0; j <= m; j++) {
+            anterior[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            actual[0] = i;
+            int minimo = i;
+            char c = a[i - 1];
+            for (int j = 1; j <= m; j++) {
+                int costo = c == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(actual[j - 1], anterior[j]) + 1, anterior[j - 1] + costo);
+                actual[j] = v;
+                if (v < minimo) {
+                    minimo = v;
+                }
+            }
+            if (minimo > limite) {
+                return limite + 1;
+            }
+            int[] t = anterior;
+            anterior = actual;
+            actual = t;
+        }
+        return Math.min(anterior[m], limite + 1);
+    }
+
+    /**
+     * Pasa la palabra a minúsculas y le quita los acentos y demás marcas
+     * diacríticas ("José" -> "jose", "pingüino" -> "pinguino").
+     *
+     * @param palabra la palabra.
+     * @return la palabra plegada.
+     */
+    public static String plegar(String palabra) {
+        boolean ascii = true;
+        for (int i = 0; i < palabra.length() && ascii; i++) {
+            ascii = palabra.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            String nfd = Normalizer.normalize(palabra, Normalizer.Form.NFD);
+            StringBuilder sb = new StringBuilder(nfd.length());
+            for (int i = 0; i < nfd.length(); i++) {
+                char c = nfd.charAt(i);
+                int tipo = Character.getType(c);
+                if (tipo != Character.NON_SPACING_MARK && tipo != Character.COMBINING_SPACING_MARK
+                        && tipo != Character.ENCLOSING_MARK) {
+                    sb.append(Character.toLowerCase(c));
+                }
+            }
+            return sb.toString();
+        }
+        char[] chars = null;
+        for (int i = 0; i < palabra.length(); i++) {
+            char c = palabra.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                if (chars == null) {
+                    chars = palabra.toCharArray();
+                }
+                chars[i] = (char) (c + ('a' - 'A'));
+            }
+        }
+        return chars == null ? palabra : new String(chars);
+    }
+
+    /**
+     * Un resultado de la búsqueda: la palabra, su distancia a la consulta y
+     * su cantidad en la tabla.
+     */
+    public static class Sugerencia implements Comparable<Sugerencia> {
+
+        private final String palabra;
+        private final int distancia;
+        private final int cantidad;
+
+        Sugerencia(String palabra, int distancia, int cantidad) {
+            this.palabra = palabra;
+            this.distancia = distancia;
+            this.cantidad = cantidad;
+        }
+
+        public String getPalabra() {
+            return palabra;
+        }
+
+        public int getDistancia() {
+            return distancia;
+        }
+
+        public int getCantidad() {
+            return cantidad;
+        }
+
+        @Override
+        public int compareTo(Sugerencia o) {
+            int c = Integer.compare(distancia, o.distancia);
+            if (c == 0) {
+                c = Integer.compare(o.cantidad, cantidad);
+            }
+            return c != 0 ? c : palabra.compareTo(o.palabra);
+        }
+
+        @Override
+        public String toString() {
+            return palabra + " (" + cantidad + ")";
+        }
+    }
+}
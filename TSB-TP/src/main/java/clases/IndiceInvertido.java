@@ -0,0 +1,555 @@
+package clases;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice invertido: para cada palabra guarda en qué archivos aparece y
+ * cuántas veces aparece en cada uno.
+ *
+ * Los nombres de los archivos se guardan una sola vez en un diccionario que
+ * les asigna un número (id). La lista de cada palabra (lista de posteo) es un
+ * arreglo de bytes con pares (id, cantidad) ordenados por id, donde el id se
+ * guarda como diferencia con el anterior y ambos números se codifican en
+ * formato varint (7 bits por byte). Una palabra que aparece en pocos archivos
+ * ocupa así unos pocos bytes por archivo.
+ *
+ * La clase no es thread-safe: debe usarse desde un único hilo (o combinar
+ * índices armados en hilos distintos con agregarIndice()). Para guardarlo
+ * desde otro hilo se toma una instantanea(), que comparte las listas de
+ * posteo con el índice: el índice copia cada lista recién cuando la modifica.
+ */
+public class IndiceInvertido {
+
+    // Identifica el formato del archivo del índice.
+    private static final int MAGICO = 0x54534249; // "TSBI"
+    private static final int VERSION = 1;
+
+    // diccionario de archivos: id -> nombre y nombre -> id.
+    private final List<String> archivos;
+    private final TSBHashtable<String, Integer> ids;
+
+    // lista de posteo de cada palabra.
+    private final TSBHashtable<String, ListaPosteo> posteos;
+
+    // se incrementa con cada instantanea(): las listas de posteo de una
+    // generación anterior pueden estar compartidas y se copian antes de
+    // modificarlas.
+    private int generacion;
+
+    public IndiceInvertido() {
+        this.archivos = new ArrayList<>();
+        this.ids = new TSBHashtable<>(100);
+        this.posteos = new TSBHashtable<>(1000);
+    }
+
+    /**
+     * Retorna el id del archivo, registrándolo si todavía no estaba.
+     *
+     * @param nombre el nombre (ruta) del archivo.
+     * @return el id del archivo.
+     */
+    public int registrarArchivo(String nombre) {
+        Integer id = ids.get(nombre);
+        if (id == null) {
+            id = archivos.size();
+            archivos.add(nombre);
+            ids.put(nombre, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param nombre el nombre (ruta) del archivo.
+     * @return el id del archivo, o -1 si no está registrado.
+     */
+    public int getId(String nombre) {
+        Integer id = ids.get(nombre);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @param id el id de un archivo registrado.
+     * @return el nombre del archivo.
+     */
+    public String getNombre(int id) {
+        return archivos.get(id);
+    }
+
+    /**
+     * @return la cantidad de archivos registrados.
+     */
+    public int getCantidadArchivos() {
+        return archivos.size();
+    }
+
+    /**
+     * @return la cantidad de palabras distintas del índice.
+     */
+    public int getCantidadPalabras() {
+        return posteos.size();
+    }
+
+    /**
+     * Suma al archivo indicado las cantidades de la tabla. Puede invocarse
+     * varias veces para el mismo archivo (por ejemplo, una vez por cada lote).
+     *
+     * @param archivo el id del archivo.
+     * @param conteo la cantidad de veces que aparece cada palabra en el
+     * archivo (o en una parte de él).
+     */
+    public void agregar(int archivo, Map<String, Integer> conteo) {
+        for (Map.Entry<String, Integer> e : conteo.entrySet()) {
+            agregar(archivo, e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Suma la cantidad indicada a la palabra en el archivo.
+     *
+     * @param archivo el id del archivo.
+     * @param palabra la palabra.
+     * @param cantidad la cantidad a sumar.
+     */
+    public void agregar(int archivo, String palabra, int cantidad) {
+        Map.Entry<String, ListaPosteo> e = posteos.buscarEntrada(palabra);
+        ListaPosteo lista;
+        if (e == null) {
+            lista = new ListaPosteo();
+            lista.generacion = generacion;
+            posteos.put(palabra, lista);
+        } else {
+            lista = e.getValue();
+            palabra = e.getKey();
+        }
+        modificable(palabra, lista).agregar(archivo, cantidad);
+    }
+
+    /**
+     * Agrega a este índice todo el contenido de otro. Los archivos del otro
+     * índice se registran en este (conservando los ids de los que ya
+     * existían) y sus cantidades se suman.
+     *
+     * @param otro el índice a agregar.
+     */
+    public void agregarIndice(IndiceInvertido otro) {
+        int[] mapa = new int[otro.archivos.size()];
+        for (int i = 0; i < mapa.length; i++) {
+            mapa[i] = registrarArchivo(otro.archivos.get(i));
+        }
+        for (Map.Entry<String, ListaPosteo> e : otro.posteos.entrySet()) {
+            ListaPosteo lista = e.getValue();
+            int[] a = new int[lista.archivos];
+            int[] c = new int[lista.archivos];
+            lista.decodificar(a, c);
+            for (int i = 0; i < a.length; i++) {
+                agregar(mapa[a[i]], e.getKey(), c[i]);
+            }
+        }
+    }
+
+    /**
+     * Quita del índice todo lo que aportó un archivo. El archivo sigue
+     * registrado con el mismo id, de forma que puede volver a agregarse.
+     *
+     * Se recorren todas las listas de posteo (no se guardan las palabras de
+     * cada archivo, que ocuparían tanto como los pares), pero sólo se
+     * decodifican hasta el id buscado y sólo se reescriben las que lo
+     * contienen.
+     *
+     * @param archivo el id del archivo.
+     * @return una tabla nueva con las cantidades quitadas de cada palabra.
+     */
+    public TSBHashtable<String, Integer> quitarArchivo(int archivo) {
+        TSBHashtable<String, Integer> quitadas = new TSBHashtable<>(100);
+        Iterator<Map.Entry<String, ListaPosteo>> it = posteos.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, ListaPosteo> e = it.next();
+            ListaPosteo lista = e.getValue();
+            if (!lista.contiene(archivo)) {
+                continue;
+            }
+            if (lista.generacion != generacion) {
+                lista = lista.copiar(generacion);
+                e.setValue(lista);
+            }
+            quitadas.put(e.getKey(), lista.quitar(archivo));
+            if (lista.archivos == 0) {
+                it.remove();
+            }
+        }
+        return quitadas;
+    }
+
+    /**
+     * Retorna los archivos que contienen la palabra, con la cantidad de
+     * veces que aparece en cada uno, ordenados por id de archivo.
+     *
+     * @param palabra la palabra a buscar.
+     * @return una lista de pares (nombre del archivo, cantidad); vacía si
+     * ningún archivo contiene la palabra.
+     */
+    public List<Map.Entry<String, Integer>> buscar(String palabra) {
+        List<Map.Entry<String, Integer>> resultado = new ArrayList<>();
+        ListaPosteo lista = posteos.get(palabra);
+        if (lista != null) {
+            int[] a = new int[lista.archivos];
+            int[] c = new int[lista.archivos];
+            lista.decodificar(a, c);
+            for (int i = 0; i < a.length; i++) {
+                resultado.add(new AbstractMap.SimpleImmutableEntry<>(archivos.get(a[i]), c[i]));
+            }
+        }
+        return resultado;
+    }
+
+    /**
+     * @param palabra la palabra a buscar.
+     * @return la cantidad de bytes que ocupa su lista de posteo (0 si no
+     * existe).
+     */
+    public int getBytesPosteo(String palabra) {
+        ListaPosteo lista = posteos.get(palabra);
+        return lista != null ? lista.largo : 0;
+    }
+
+    /**
+     * Vacía el índice.
+     */
+    public void clear() {
+        archivos.clear();
+        ids.clear();
+        posteos.clear();
+    }
+
+    /*
+     * La lista de posteo de la palabra, copiada antes si puede estar
+     * compartida con una instantánea.
+     */
+    private ListaPosteo modificable(String palabra, ListaPosteo lista) {
+        if (lista.generacion == generacion) {
+            return lista;
+        }
+        ListaPosteo copia = lista.copiar(generacion);
+        posteos.put(palabra, copia);
+        return copia;
+    }
+
+    //************************ Persistencia.
+
+    /**
+     * Guarda el índice en un archivo binario. Se escribe en un temporal que
+     * después reemplaza al destino, como en ArchivoTabla.escribir().
+     *
+     * @param destino el archivo a escribir.
+     * @throws IOException si no se puede escribir.
+     */
+    public void guardar(File destino) throws IOException {
+        guardar(destino, archivos, posteos);
+    }
+
+    /**
+     * Retorna una copia del índice en este momento, que puede guardarse
+     * desde otro hilo mientras el índice se sigue modificando. No copia las
+     * listas de posteo sino sólo las referencias a ellas: el índice copia
+     * cada lista la primera vez que la modifica después de la instantánea.
+     *
+     * @return la instantánea.
+     */
+    public Instantanea instantanea() {
+        generacion++;
+        return new Instantanea(new ArrayList<>(archivos), posteos.copiar());
+    }
+
+    private static void guardar(File destino, List<String> archivos,
+            TSBHashtable<String, ListaPosteo> posteos) throws IOException {
+        ArchivoTabla.reemplazar(destino, archivo -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(archivo, 1 << 16));
+            out.writeInt(MAGICO);
+            out.writeInt(VERSION);
+            out.writeInt(archivos.size());
+            for (String nombre : archivos) {
+                out.writeUTF(nombre);
+            }
+            out.writeInt(posteos.size());
+            for (Map.Entry<String, ListaPosteo> e : posteos.entrySet()) {
+                ListaPosteo lista = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeInt(lista.largo);
+                out.write(lista.datos, 0, lista.largo);
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Lee un índice guardado con guardar().
+     *
+     * @param origen el archivo a leer.
+     * @return el índice leído.
+     * @throws IOException si no se puede leer o el formato no es válido.
+     */
+    public static IndiceInvertido cargar(File origen) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(origen), 1 << 16))) {
+            if (in.readInt() != MAGICO || in.readInt() != VERSION) {
+                throw new IOException("cargar(): el archivo no es un índice válido");
+            }
+            IndiceInvertido indice = new IndiceInvertido();
+            int n = in.readInt();
+            if (n < 0) {
+                throw new IOException("cargar(): cantidad de archivos inválida");
+            }
+            for (int i = 0; i < n; i++) {
+                indice.registrarArchivo(in.readUTF());
+            }
+            int palabras = in.readInt();
+            for (int i = 0; i < palabras; i++) {
+                String palabra = in.readUTF();
+                int largo = in.readInt();
+                if (largo < 0) {
+                    throw new IOException("cargar(): largo de lista de posteo inválido");
+                }
+                byte[] datos = new byte[largo];
+                in.readFully(datos);
+                indice.posteos.put(palabra, ListaPosteo.desdeBytes(datos, n));
+            }
+            return indice;
+        }
+    }
+
+    //************************ Clases internas.
+
+    /**
+     * El contenido de un índice en un momento dado (ver instantanea()).
+     */
+    public static final class Instantanea {
+
+        private final List<String> archivos;
+        private final TSBHashtable<String, ListaPosteo> posteos;
+
+        private Instantanea(List<String> archivos, TSBHashtable<String, ListaPosteo> posteos) {
+            this.archivos = archivos;
+            this.posteos = posteos;
+        }
+
+        /**
+         * Guarda la instantánea con el formato de IndiceInvertido.guardar().
+         *
+         * @param destino el archivo a escribir.
+         * @throws IOException si no se puede escribir.
+         */
+        public void guardar(File destino) throws IOException {
+            IndiceInvertido.guardar(destino, archivos, posteos);
+        }
+    }
+
+    /*
+     * Lista de pares (id de archivo, cantidad) ordenados por id, codificados
+     * como varints: cada id se guarda como la diferencia con el id anterior.
+     */
+    static final class ListaPosteo {
+
+        private byte[] datos;
+        private int largo;
+
+        // cantidad de archivos de la lista.
+        private int archivos;
+
+        // datos del último par, para poder seguir agregando sin decodificar.
+        private int ultimoArchivo;
+        private int posUltimaCantidad;
+        private int ultimaCantidad;
+
+        // la generación del índice en la que se creó (ver instantanea()).
+        private int generacion;
+
+        ListaPosteo() {
+            this.datos = new byte[4];
+            this.largo = 0;
+            this.archivos = 0;
+            this.ultimoArchivo = -1;
+        }
+
+        /*
+         * Una copia independiente, de la generación indicada.
+         */
+        ListaPosteo copiar(int generacion) {
+            ListaPosteo copia = new ListaPosteo();
+            copia.datos = Arrays.copyOf(datos, Math.max(largo, 4));
+            copia.largo = largo;
+            copia.archivos = archivos;
+            copia.ultimoArchivo = ultimoArchivo;
+            copia.posUltimaCantidad = posUltimaCantidad;
+            copia.ultimaCantidad = ultimaCantidad;
+            copia.generacion = generacion;
+            return copia;
+        }
+
+        /*
+         * Una lista leída de un archivo, verificando que sus ids estén
+         * ordenados y sean menores a cantidadArchivos.
+         */
+        static ListaPosteo desdeBytes(byte[] datos, int cantidadArchivos) throws IOException {
+            ListaPosteo lista = new ListaPosteo();
+            lista.datos = datos.length > 0 ? datos : new byte[4];
+            lista.largo = datos.length;
+            int[] pos = {0};
+            try {
+                while (pos[0] < lista.largo) {
+                    int diferencia = leerVarint(lista.datos, pos);
+                    if (diferencia <= 0 || diferencia >= cantidadArchivos - lista.ultimoArchivo) {
+                        throw new IOException("cargar(): id de archivo inválido en una lista de posteo");
+                    }
+                    lista.ultimoArchivo += diferencia;
+                    lista.posUltimaCantidad = pos[0];
+                    lista.ultimaCantidad = leerVarint(lista.datos, pos);
+                    lista.archivos++;
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                throw new IOException("cargar(): lista de posteo incompleta", e);
+            }
+            return lista;
+        }
+
+        void agregar(int archivo, int cantidad) {
+            if (archivo == ultimoArchivo) {
+                // mismo archivo que el último par: se reescribe su cantidad.
+                largo = posUltimaCantidad;
+                ultimaCantidad += cantidad;
+                escribirVarint(ultimaCantidad);
+            } else if (archivo > ultimoArchivo) {
+                escribirVarint(archivo - ultimoArchivo);
+                posUltimaCantidad = largo;
+                escribirVarint(cantidad);
+                ultimoArchivo = archivo;
+                ultimaCantidad = cantidad;
+                archivos++;
+            } else {
+                agregarDesordenado(archivo, cantidad);
+            }
+        }
+
+        /*
+         * Caso poco frecuente: el archivo es anterior al último. Se decodifica
+         * la lista, se inserta el par y se vuelve a codificar.
+         */
+        private void agregarDesordenado(int archivo, int cantidad) {
+            int[] a = new int[archivos + 1];
+            int[] c = new int[archivos + 1];
+            decodificar(a, c);
+            int i = Arrays.binarySearch(a, 0, archivos, archivo);
+            int n = archivos;
+            if (i >= 0) {
+                c[i] += cantidad;
+            } else {
+                i = -i - 1;
+                System.arraycopy(a, i, a, i + 1, n - i);
+                System.arraycopy(c, i, c, i + 1, n - i);
+                a[i] = archivo;
+                c[i] = cantidad;
+                n++;
+            }
+            largo = 0;
+            archivos = 0;
+            ultimoArchivo = -1;
+            for (int j = 0; j < n; j++) {
+                agregar(a[j], c[j]);
+            }
+        }
+
+        /*
+         * true si la lista tiene un par del archivo. Decodifica sólo hasta
+         * encontrarlo (o pasarlo), sin crear arreglos.
+         */
+        boolean contiene(int archivo) {
+            if (archivo >= ultimoArchivo) {
+                return archivo == ultimoArchivo;
+            }
+            int[] pos = {0};
+            int id = -1;
+            while (pos[0] < largo) {
+                id += leerVarint(datos, pos);
+                if (id >= archivo) {
+                    return id == archivo;
+                }
+                leerVarint(datos, pos);
+            }
+            return false;
+        }
+
+        /*
+         * Quita el par del archivo (si está) y retorna su cantidad, o 0.
+         */
+        int quitar(int archivo) {
+            if (archivo > ultimoArchivo) {
+                return 0;
+            }
+            int[] a = new int[archivos];
+            int[] c = new int[archivos];
+            decodificar(a, c);
+            int i = Arrays.binarySearch(a, archivo);
+            if (i < 0) {
+                return 0;
+            }
+            int n = archivos;
+            largo = 0;
+            archivos = 0;
+            ultimoArchivo = -1;
+            for (int j = 0; j < n; j++) {
+                if (j != i) {
+                    agregar(a[j], c[j]);
+                }
+            }
+            return c[i];
+        }
+
+        /*
+         * Copia los ids y las cantidades en los arreglos (de al menos
+         * "archivos" elementos).
+         */
+        void decodificar(int[] ids, int[] cantidades) {
+            int[] pos = {0};
+            int id = -1;
+            for (int i = 0; i < archivos; i++) {
+                id += leerVarint(datos, pos);
+                ids[i] = id;
+                cantidades[i] = leerVarint(datos, pos);
+            }
+        }
+
+        private void escribirVarint(int v) {
+            if (largo + 5 > datos.length) {
+                datos = Arrays.copyOf(datos, Math.max(datos.length * 2, largo + 5));
+            }
+            while ((v & ~0x7F) != 0) {
+                datos[largo++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            datos[largo++] = (byte) v;
+        }
+
+        private static int leerVarint(byte[] datos, int[] pos) {
+            int v = 0;
+            int desplazamiento = 0;
+            byte b;
+            do {
+                b = datos[pos[0]++];
+                v |= (b & 0x7F) << desplazamiento;
+                desplazamiento += 7;
+            } while (b < 0);
+            return v;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
+
+/**
+ * Cuenta las palabras de un archivo usando varios hilos.
+ *
+ * Cada rango se lee con un LectorMapeado, es decir, mapeando el archivo en
+ * memoria en lugar de copiarlo a buffers del heap.
+ *
+ * El archivo se divide en rangos de bytes cuyos límites caen siempre sobre un
+ * separador (espacio, tabulación o salto de línea), de forma que ninguna
+ * palabra queda partida entre dos rangos. Cada rango se cuenta en su propia
+ * tabla dentro de un ForkJoinPool y las tablas parciales se combinan de a
+ * pares (reducción en árbol), sumando siempre la tabla menor sobre la mayor.
+ *
+ * La división por bytes supone una codificación compatible con ASCII (UTF-8,
+ * ISO-8859-1, etc.), en la que un byte separador nunca forma parte de un
+ * caracter multibyte.
+ */
+public class IngestaParalela {
+
+    // Tamaño mínimo de un rango: por debajo de esto no conviene dividir.
+    public static final long TAMANIO_MINIMO_RANGO = 4L * 1024 * 1024;
+
+    // Cantidad de pares que sumar() combina por invocación a mergeAll().
+    private static final int LOTE_SUMA = 1024;
+
+    private final ForkJoinPool pool;
+
+    // lee cada rango mapeándolo en memoria (es compartido por todos los hilos).
+    private final LectorMapeado lector;
+
+    // estrategia de comparación de las palabras, o null para equals().
+    private EstrategiaHash<? super String> estrategia;
+
+    public IngestaParalela() {
+        this(ForkJoinPool.commonPool(), Charset.defaultCharset());
+    }
+
+    public IngestaParalela(ForkJoinPool pool, Charset charset) {
+        this.pool = pool;
+        this.lector = new LectorMapeado(charset);
+    }
+
+    /**
+     * @param estrategia la estrategia con la que se comparan las palabras de
+     * las tablas que se crean (por ejemplo EstrategiasTexto.SIN_ACENTOS), o
+     * null para distinguirlas con equals().
+     */
+    public void setEstrategia(EstrategiaHash<? super String> estrategia) {
+        this.estrategia = estrategia;
+    }
+
+    /**
+     * Cuenta las palabras del archivo.
+     *
+     * @param archivo el archivo a procesar.
+     * @return una tabla nueva con la cantidad de veces que aparece cada palabra.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public TSBHashtable<String, Integer> contar(File archivo) throws IOException {
+        return contar(archivo, null);
+    }
+
+    /**
+     * Cuenta las palabras del archivo, informando el avance.
+     *
+     * @param archivo el archivo a procesar.
+     * @param avance recibe la cantidad de bytes procesados por cada bloque
+     * leído (puede ser invocado desde varios hilos a la vez), o null.
+     * @return una tabla nueva con la cantidad de veces que aparece cada palabra.
+     * @throws IOException si no se puede leer el archivo.
+     * @throws CancellationException si se invocó cancelar() durante la carga.
+     */
+    public TSBHashtable<String, Integer> contar(File archivo, LongConsumer avance) throws IOException {
+        EventosJFR.IngestaArchivo evento = EventosJFR.ingesta();
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            long[] limites = dividir(canal, pool.getParallelism() * 4);
+            TSBHashtable<String, Integer> tabla = pool.invoke(
+                    new Conteo(canal, limites, 0, limites.length - 1, avance));
+            if (evento != null) {
+                evento.archivo = archivo.getPath();
+                evento.modo = "paralela";
+                evento.bytes = canal.size();
+                // sólo con el evento activo: recorre la tabla.
+                for (Integer c : tabla.values()) {
+                    evento.palabras += c;
+                }
+                evento.commit();
+            }
+            return tabla;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Detiene la carga en curso lo antes posible. La instancia no puede volver
+     * a usarse después de cancelarla.
+     */
+    public void cancelar() {
+        lector.cancelar();
+    }
+
+    /**
+     * Suma en destino las cantidades de origen. Si destino es una
+     * TSBHashtable las claves se combinan por lotes con mergeAll().
+     *
+     * @param destino la tabla que recibe las cantidades.
+     * @param origen la tabla cuyas cantidades se suman.
+     */
+    public static void sumar(Map<String, Integer> destino, Map<String, Integer> origen) {
+        if (!(destino instanceof TSBHashtable)) {
+            for (Map.Entry<String, Integer> e : origen.entrySet()) {
+                destino.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+            return;
+        }
+        TSBHashtable<String, Integer> tabla = (TSBHashtable<String, Integer>) destino;
+        String[] claves = new String[LOTE_SUMA];
+        Integer[] cantidades = new Integer[LOTE_SUMA];
+        int n = 0;
+        for (Map.Entry<String, Integer> e : origen.entrySet()) {
+            claves[n] = e.getKey();
+            cantidades[n] = e.getValue();
+            if (++n == LOTE_SUMA) {
+                tabla.mergeAll(claves, cantidades, Integer::sum);
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            tabla.mergeAll(Arrays.copyOf(claves, n), cantidades, Integer::sum);
+        }
+    }
+
+    /*
+     * Calcula los límites de los rangos: limites[i] es el inicio del rango i y
+     * limites[i + 1] su fin. Cada límite intermedio se corre hacia adelante
+     * hasta el primer separador.
+     */
+    private long[] dividir(FileChannel canal, int maxRangos) throws IOException {
+        long tamanio = canal.size();
+        int rangos = (int) Math.max(1, Math.min(maxRangos, tamanio / TAMANIO_MINIMO_RANGO));
+        long[] limites = new long[rangos + 1];
+        ByteBuffer buf = ByteBuffer.allocate(4096);
+        int n = 1;
+        for (int i = 1; i < rangos; i++) {
+            long pos = Math.max(tamanio / rangos * i, limites[n - 1]);
+            pos = siguienteSeparador(canal, pos, buf);
+            if (pos > limites[n - 1] && pos < tamanio) {
+                limites[n++] = pos;
+            }
+        }
+        limites[n++] = tamanio;
+        if (n < limites.length) {
+            long[] aux = new long[n];
+            System.arraycopy(limites, 0, aux, 0, n);
+            limites = aux;
+        }
+        return limites;
+    }
+
+    private long siguienteSeparador(FileChannel canal, long pos, ByteBuffer buf) throws IOException {
+        while (true) {
+            buf.clear();
+            int n = canal.read(buf, pos);
+            if (n <= 0) {
+                return canal.size();
+            }
+            for (int i = 0; i < n; i++) {
+                if (Tokenizador.esSeparador(buf.get(i))) {
+                    return pos + i;
+                }
+            }
+            pos += n;
+        }
+    }
+
+    /*
+     * Cuenta las palabras de los rangos [desde, hasta) de la lista de límites.
+     * Si abarca más de un rango se divide en dos mitades y combina sus
+     * resultados.
+     */
+    private class Conteo extends RecursiveTask<TSBHashtable<String, Integer>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel canal;
+        private final long[] limites;
+        private final int desde;
+        private final int hasta;
+        private final LongConsumer avance;
+
+        Conteo(FileChannel canal, long[] limites, int desde, int hasta, LongConsumer avance) {
+            this.canal = canal;
+            this.limites = limites;
+            this.desde = desde;
+            this.hasta = hasta;
+            this.avance = avance;
+        }
+
+        @Override
+        protected TSBHashtable<String, Integer> compute() {
+            if (hasta - desde == 1) {
+                try {
+                    return contarRango(limites[desde], limites[hasta]);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            int medio = (desde + hasta) >>> 1;
+            Conteo izquierda = new Conteo(canal, limites, desde, medio, avance);
+            izquierda.fork();
+            TSBHashtable<String, Integer> b = new Conteo(canal, limites, medio, hasta, avance).compute();
+            TSBHashtable<String, Integer> a = izquierda.join();
+            if (a.size() < b.size()) {
+                sumar(b, a);
+                return b;
+            }
+            sumar(a, b);
+            return a;
+        }
+
+        private TSBHashtable<String, Integer> contarRango(long inicio, long fin) throws IOException {
+            TSBHashtable<String, Integer> local = new TSBHashtable<>(1000, estrategia);
+            Tokenizador tokenizador = new Tokenizador(new ContadorPalabras(local));
+            lector.leer(canal, inicio, fin, tokenizador, avance);
+            tokenizador.finalizar();
+            return local;
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CancellationException;
+import java.util.function.LongConsumer;
+
+/**
+ * Lee un archivo (o un rango de bytes de él) mapeándolo en memoria con
+ * FileChannel.map() por ventanas de TAMANIO_VENTANA bytes, y entrega el texto
+ * decodificado al Tokenizador.
+ *
+ * UTF-8 e ISO-8859-1 se decodifican directamente desde el buffer mapeado a un
+ * bloque de caracteres reutilizable, sin copiar los bytes a un arreglo del
+ * heap. El resto de las codificaciones usa un CharsetDecoder sobre el mismo
+ * buffer mapeado.
+ *
+ * Si un caracter multibyte queda cortado al final de una ventana, la ventana
+ * siguiente comienza en el primer byte de ese caracter. Las palabras cortadas
+ * entre ventanas las completa el Tokenizador, que conserva la palabra en curso
+ * entre un bloque y otro.
+ *
+ * Una misma instancia puede usarse desde varios hilos a la vez: cada lectura
+ * usa sus propios buffers.
+ */
+public class LectorMapeado {
+
+    // Tamaño de cada ventana mapeada.
+    public static final long TAMANIO_VENTANA = 64L * 1024 * 1024;
+
+    // Tamaño del bloque de caracteres que se entrega al tokenizador.
+    private static final int TAMANIO_BLOQUE = 64 * 1024;
+
+    private static final char REEMPLAZO = '\uFFFD';
+
+    private final Charset charset;
+
+    // tamaño de las ventanas de esta instancia.
+    private final long tamanioVentana;
+
+    private volatile boolean cancelado;
+
+    public LectorMapeado() {
+        this(Charset.defaultCharset());
+    }
+
+    public LectorMapeado(Charset charset) {
+        this(charset, TAMANIO_VENTANA);
+    }
+
+    /*
+     * Permite usar ventanas más chicas (para probar los cortes entre
+     * ventanas). Una ventana debe poder contener al menos un caracter completo
+     * para que la lectura siempre avance.
+     */
+    LectorMapeado(Charset charset, long tamanioVentana) {
+        this.charset = charset;
+        this.tamanioVentana = Math.max(tamanioVentana, 8);
+    }
+
+    /**
+     * Lee el archivo completo.
+     *
+     * @param archivo el archivo a leer.
+     * @param tokenizador recibe el texto decodificado. Al terminar se invoca
+     * su método finalizar().
+     * @param avance recibe la cantidad de bytes leídos por cada bloque, o null.
+     * @throws IOException si no se puede leer el archivo.
+     * @throws CancellationException si se invocó cancelar() durante la lectura.
+     */
+    public void leer(File archivo, Tokenizador tokenizador, LongConsumer avance) throws IOException {
+        EventosJFR.IngestaArchivo evento = EventosJFR.ingesta();
+        long palabras = tokenizador.getPalabras();
+        long bytes;
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            bytes = canal.size();
+            leer(canal, 0, bytes, tokenizador, avance);
+        }
+        tokenizador.finalizar();
+        if (evento != null) {
+            evento.archivo = archivo.getPath();
+            evento.modo = "secuencial";
+            evento.bytes = bytes;
+            evento.palabras = tokenizador.getPalabras() - palabras;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Lee los bytes [desde, hasta) del canal. No invoca finalizar() sobre el
+     * tokenizador, de forma que puedan leerse varios rangos seguidos.
+     *
+     * @param canal el canal abierto para lectura.
+     * @param desde el primer byte (inclusive).
+     * @param hasta el último byte (exclusive).
+     * @param tokenizador recibe el texto decodificado.
+     * @param avance recibe la cantidad de bytes leídos por cada bloque, o null.
+     * @throws IOException si no se puede leer el archivo.
+     * @throws CancellationException si se invocó cancelar() durante la lectura.
+     */
+    public void leer(FileChannel canal, long desde, long hasta, Tokenizador tokenizador,
+            LongConsumer avance) throws IOException {
+        char[] bloque = new char[TAMANIO_BLOQUE];
+        CharsetDecoder decoder = null;
+        if (!esUtf8() && !esLatin1()) {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+        long pos = desde;
+        while (pos < hasta) {
+            long largo = Math.min(tamanioVentana, hasta - pos);
+            boolean ultima = pos + largo == hasta;
+            MappedByteBuffer ventana = canal.map(FileChannel.MapMode.READ_ONLY, pos, largo);
+            int leidos;
+            if (decoder != null) {
+                leidos = decodificar(ventana, decoder, ultima, bloque, tokenizador, avance);
+            } else if (esLatin1()) {
+                leidos = decodificarLatin1(ventana, bloque, tokenizador, avance);
+            } else {
+                leidos = decodificarUtf8(ventana, ultima, bloque, tokenizador, avance);
+            }
+            pos += leidos;
+        }
+    }
+
+    /**
+     * Detiene las lecturas en curso (y las siguientes) lo antes posible.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * @return la codificación con la que se leen los archivos.
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+
+    private boolean esUtf8() {
+        return charset.equals(StandardCharsets.UTF_8);
+    }
+
+    private boolean esLatin1() {
+        return charset.equals(StandardCharsets.ISO_8859_1);
+    }
+
+    /*
+     * Entrega al tokenizador los n caracteres del bloque e informa el avance.
+     */
+    private void entregar(char[] bloque, int n, Tokenizador tokenizador, LongConsumer avance, long bytes) {
+        if (cancelado) {
+            throw new CancellationException("Lectura cancelada");
+        }
+        tokenizador.procesar(bloque, 0, n);
+        if (avance != null && bytes > 0) {
+            avance.accept(bytes);
+        }
+    }
+
+    private int decodificarLatin1(MappedByteBuffer ventana, char[] bloque, Tokenizador tokenizador,
+            LongConsumer avance) {
+        int limite = ventana.limit();
+        int i = 0;
+        while (i < limite) {
+            int n = Math.min(bloque.length, limite - i);
+            for (int j = 0; j < n; j++) {
+                bloque[j] = (char) (ventana.get(i + j) & 0xFF);
+            }
+            i += n;
+            entregar(bloque, n, tokenizador, avance, n);
+        }
+        return limite;
+    }
+
+    /*
+     * Decodifica UTF-8 desde la ventana. Retorna la cantidad de bytes
+     * consumidos: si un caracter queda cortado al final de una ventana que no
+     * es la última, se lo deja para la ventana siguiente.
+     */
+    private int decodificarUtf8(MappedByteBuffer ventana, boolean ultima, char[] bloque,
+            Tokenizador tokenizador, LongConsumer avance) {
+        final int limite = ventana.limit();
+        // se reservan dos lugares para un par sustituto.
+        final int maxBloque = bloque.length - 2;
+        int i = 0;
+        int n = 0;
+        int inicioBloque = 0;
+        while (i < limite) {
+            int b = ventana.get(i);
+            if (b >= 0) {
+                bloque[n++] = (char) b;
+                i++;
+            } else {
+                int largo = (b & 0xE0) == 0xC0 ? 2 : (b & 0xF0) == 0xE0 ? 3 : (b & 0xF8) == 0xF0 ? 4 : 0;
+                if (largo == 0) {
+                    bloque[n++] = REEMPLAZO;
+                    i++;
+                } else if (i + largo > limite && !ultima) {
+                    break;
+                } else {
+                    int cp = b & (0x7F >> largo);
+                    int k = 1;
+                    while (k < largo && i + k < limite) {
+                        int c = ventana.get(i + k);
+                        if ((c & 0xC0) != 0x80) {
+                            break;
+                        }
+                        cp = (cp << 6) | (c & 0x3F);
+                        k++;
+                    }
+                    if (k < largo) {
+                        bloque[n++] = REEMPLAZO;
+                    } else if (cp >= 0x10000) {
+                        bloque[n++] = Character.highSurrogate(cp);
+                        bloque[n++] = Character.lowSurrogate(cp);
+                    } else {
+                        bloque[n++] = (char) cp;
+                    }
+                    i += k;
+                }
+            }
+            if (n >= maxBloque) {
+                entregar(bloque, n, tokenizador, avance, i - inicioBloque);
+                inicioBloque = i;
+                n = 0;
+            }
+        }
+        entregar(bloque, n, tokenizador, avance, i - inicioBloque);
+        return i;
+    }
+
+    private int decodificar(MappedByteBuffer ventana, CharsetDecoder decoder, boolean ultima,
+            char[] bloque, Tokenizador tokenizador, LongConsumer avance) {
+        CharBuffer chars = CharBuffer.wrap(bloque);
+        int anterior = 0;
+        while (true) {
+            chars.clear();
+            boolean lleno = decoder.decode(ventana, chars, ultima).isOverflow();
+            if (ultima && !lleno) {
+                decoder.flush(chars);
+            }
+            entregar(bloque, chars.position(), tokenizador, avance, ventana.position() - anterior);
+            anterior = ventana.position();
+            if (!lleno) {
+                break;
+            }
+        }
+        if (ultima) {
+            decoder.reset();
+        }
+        return ventana.position();
+    }
+}
@@ -0,0 +1,189 @@
+package clases;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mide los tiempos de las fases de un proceso y junta los datos de memoria y
+ * del recolector de basura de la JVM, para informar un resumen al final.
+ *
+ * Uso típico:
+ * <pre>
+ * Metricas m = new Metricas();
+ * m.iniciarFase("lectura");
+ * ...
+ * m.iniciarFase("orden");   // termina la fase anterior
+ * ...
+ * m.terminarFase();
+ * m.imprimir(System.err, bytes, palabras, distintas);
+ * </pre>
+ */
+public class Metricas {
+
+    private final List<String> nombres;
+    private final List<Long> duraciones;
+
+    private final long inicio;
+    private final long gcInicial;
+    private final long pausasIniciales;
+
+    private String faseActual;
+    private long inicioFase;
+
+    public Metricas() {
+        this.nombres = new ArrayList<>();
+        this.duraciones = new ArrayList<>();
+        this.inicio = System.nanoTime();
+        this.gcInicial = tiempoGC();
+        this.pausasIniciales = cantidadGC();
+    }
+
+    /**
+     * Comienza a medir una fase. Si había otra fase en curso, la termina.
+     *
+     * @param nombre el nombre de la fase.
+     */
+    public void iniciarFase(String nombre) {
+        terminarFase();
+        faseActual = nombre;
+        inicioFase = System.nanoTime();
+    }
+
+    /**
+     * Termina la fase en curso (si la hay).
+     */
+    public void terminarFase() {
+        if (faseActual != null) {
+            nombres.add(faseActual);
+            duraciones.add(System.nanoTime() - inicioFase);
+            faseActual = null;
+        }
+    }
+
+    /**
+     * @param nombre el nombre de una fase terminada.
+     * @return la duración de la fase en segundos (0 si no existe).
+     */
+    public double getSegundos(String nombre) {
+        double total = 0;
+        for (int i = 0; i < nombres.size(); i++) {
+            if (nombres.get(i).equals(nombre)) {
+                total += duraciones.get(i) / 1e9;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return los segundos transcurridos desde que se creó el objeto.
+     */
+    public double getSegundosTotales() {
+        return (System.nanoTime() - inicio) / 1e9;
+    }
+
+    /**
+     * @return el tiempo (en milisegundos) que pasó el recolector de basura
+     * trabajando desde que se creó el objeto.
+     */
+    public long getMilisegundosGC() {
+        return tiempoGC() - gcInicial;
+    }
+
+    /**
+     * @return la cantidad de recolecciones desde que se creó el objeto.
+     */
+    public long getCantidadGC() {
+        return cantidadGC() - pausasIniciales;
+    }
+
+    /**
+     * @return el máximo de memoria heap usada (en bytes) desde que arrancó la
+     * JVM, sumando el pico de cada área del heap.
+     */
+    public static long picoHeap() {
+        long pico = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pico += pool.getPeakUsage().getUsed();
+            }
+        }
+        return pico;
+    }
+
+    /**
+     * @return el máximo de memoria física ocupada por el proceso (en bytes)
+     * desde que arrancó, o -1 si el sistema no lo informa (sólo se lee en
+     * Linux, de /proc/self/status).
+     */
+    public static long picoRSS() {
+        Path estado = Paths.get("/proc/self/status");
+        if (!Files.isReadable(estado)) {
+            return -1;
+        }
+        try {
+            for (String linea : Files.readAllLines(estado, StandardCharsets.ISO_8859_1)) {
+                if (linea.startsWith("VmHWM:")) {
+                    // "VmHWM:     123456 kB"
+                    String kb = linea.substring(6).trim().split("\\s+")[0];
+                    return Long.parseLong(kb) * 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // sin el dato.
+        }
+        return -1;
+    }
+
+    private static long tiempoGC() {
+        long t = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            t += Math.max(0, gc.getCollectionTime());
+        }
+        return t;
+    }
+
+    private static long cantidadGC() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    /**
+     * Imprime el resumen: volumen procesado, velocidad, memoria, recolector de
+     * basura y duración de cada fase.
+     *
+     * @param out donde se imprime.
+     * @param bytes la cantidad de bytes leídos.
+     * @param palabras la cantidad de palabras contadas.
+     * @param distintas la cantidad de palabras distintas.
+     */
+    public void imprimir(PrintStream out, long bytes, long palabras, long distintas) {
+        terminarFase();
+        double total = getSegundosTotales();
+        out.printf("bytes:            %,d (%.1f MB/s)%n", bytes, total > 0 ? bytes / 1048576.0 / total : 0);
+        out.printf("palabras:         %,d (%,.0f palabras/s)%n", palabras, total > 0 ? palabras / total : 0);
+        out.printf("distintas:        %,d%n", distintas);
+        out.printf("pico de heap:     %,d MB%n", picoHeap() / (1024 * 1024));
+        long rss = picoRSS();
+        if (rss >= 0) {
+            out.printf("pico de RSS:      %,d MB%n", rss / (1024 * 1024));
+        }
+        out.printf("recolector:       %,d pausas, %,d ms%n", getCantidadGC(), getMilisegundosGC());
+        for (int i = 0; i < nombres.size(); i++) {
+            out.printf("fase %-12s %,.3f s%n", nombres.get(i) + ":", duraciones.get(i) / 1e9);
+        }
+        out.printf("total:            %,.3f s%n", total);
+    }
+}
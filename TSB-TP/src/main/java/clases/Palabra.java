@@ -0,0 +1,117 @@
+package clases;
+
+import java.util.Arrays;
+
+/**
+ * Buffer reutilizable con los caracteres de una palabra. Lo usa el
+ * Tokenizador para entregar cada palabra sin crear un String.
+ *
+ * hashCode() se calcula sobre el contenido igual que el de String: una
+ * Palabra y un String con los mismos caracteres tienen el mismo hashCode().
+ * equals() en cambio sólo es true con otra Palabra, para ser simétrico (un
+ * String nunca es igual a una Palabra). Para buscar una Palabra en una tabla
+ * cuyas claves son String se compara por contenido (ver
+ * TSBHashtable.buscarEntrada() y EstrategiasTexto.CONTENIDO).
+ *
+ * El contenido cambia cada vez que el tokenizador avanza, por lo que quien
+ * necesite conservar la palabra debe copiarla con toString().
+ */
+public final class Palabra implements CharSequence {
+
+    private char[] chars;
+    private int largo;
+
+    // hash de String calculado a medida que se agregan caracteres.
+    private int hash;
+
+    public Palabra() {
+        this(32);
+    }
+
+    public Palabra(int capacidad) {
+        this.chars = new char[Math.max(capacidad, 1)];
+        this.largo = 0;
+        this.hash = 0;
+    }
+
+    /**
+     * Agrega un caracter al final de la palabra.
+     *
+     * @param c el caracter a agregar.
+     */
+    public void agregar(char c) {
+        if (largo == chars.length) {
+            chars = Arrays.copyOf(chars, largo * 2);
+        }
+        chars[largo++] = c;
+        hash = 31 * hash + c;
+    }
+
+    /**
+     * Deja la palabra vacía para volver a usarla.
+     */
+    public void vaciar() {
+        largo = 0;
+        hash = 0;
+    }
+
+    @Override
+    public int length() {
+        return largo;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= largo) {
+            throw new IndexOutOfBoundsException("charAt(): índice fuera de rango");
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().substring(start, end);
+    }
+
+    /**
+     * @return el mismo valor que retornaría toString().hashCode().
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Determina si obj es una Palabra con el mismo contenido.
+     *
+     * @param obj el objeto a comparar.
+     * @return true si es una Palabra con exactamente los mismos caracteres.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof Palabra)) {
+            return false;
+        }
+        Palabra otra = (Palabra) obj;
+        if (otra.largo != largo) {
+            return false;
+        }
+        for (int i = 0; i < largo; i++) {
+            if (chars[i] != otra.chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return un String nuevo con el contenido actual.
+     */
+    @Override
+    public String toString() {
+        return new String(chars, 0, largo);
+    }
+}
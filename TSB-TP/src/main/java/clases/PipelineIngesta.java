@@ -0,0 +1,639 @@
+package clases;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cuenta las palabras de muchos archivos (o de carpetas completas) con una
+ * cadena de tres etapas que trabajan al mismo tiempo:
+ *
+ * 1. lectura: lee cada archivo en bloques de bytes que terminan siempre en un
+ * separador, de forma que ninguna palabra queda cortada entre dos bloques.
+ * 2. tokenizado: decodifica cada bloque, lo separa en palabras y las cuenta en
+ * una tabla parcial del bloque.
+ * 3. conteo: suma las tablas parciales en una tabla acumulada por hilo.
+ *
+ * Las etapas se comunican por colas acotadas: si una etapa es más lenta, la
+ * anterior se bloquea al llenar la cola (contrapresión) en lugar de acumular
+ * bloques en memoria. La cantidad de hilos de cada etapa se configura por
+ * separado, y cada etapa lleva sus propias estadísticas (ver Etapa).
+ *
+ * Al terminar, las tablas acumuladas se combinan de a pares y se retorna una
+ * única tabla con el total. Si se indicó un índice invertido (setIndice()),
+ * la etapa de conteo acumula también una tabla por archivo, y al terminar se
+ * agregan al índice en el orden de los archivos.
+ *
+ * Igual que IngestaParalela, el corte de bloques supone una codificación
+ * compatible con ASCII.
+ */
+public class PipelineIngesta {
+
+    // Tamaño por defecto de los bloques de lectura.
+    public static final int TAMANIO_BLOQUE = 1024 * 1024;
+
+    // Tiempo máximo de espera en una cola antes de volver a verificar si la
+    // ejecución fue cancelada.
+    private static final long ESPERA_MS = 100;
+
+    // Marcas de fin de datos que se envían a la etapa siguiente.
+    private static final Bloque FIN_BLOQUES = new Bloque(-1, null, 0);
+    private static final Parcial FIN_PARCIALES = new Parcial(-1, 0, null);
+
+    private int hilosLectura;
+    private int hilosTokenizado;
+    private int hilosConteo;
+    private int capacidadColas;
+    private int tamanioBloque;
+    private Charset charset;
+
+    // estrategia de comparación de las palabras, o null para equals().
+    private EstrategiaHash<? super String> estrategia;
+
+    // Si no es null, recibe además las cantidades de cada archivo.
+    private IndiceInvertido indice;
+
+    private final Etapa lectura;
+    private final Etapa tokenizado;
+    private final Etapa conteo;
+
+    private volatile boolean cancelado;
+    private volatile Throwable error;
+
+    public PipelineIngesta() {
+        int procesadores = Runtime.getRuntime().availableProcessors();
+        this.hilosLectura = 2;
+        this.hilosTokenizado = Math.max(1, procesadores - 1);
+        this.hilosConteo = Math.max(1, procesadores / 4);
+        this.capacidadColas = 4 * procesadores;
+        this.tamanioBloque = TAMANIO_BLOQUE;
+        this.charset = Charset.defaultCharset();
+        this.lectura = new Etapa("lectura");
+        this.tokenizado = new Etapa("tokenizado");
+        this.conteo = new Etapa("conteo");
+    }
+
+    public void setHilosLectura(int hilos) {
+        this.hilosLectura = Math.max(1, hilos);
+    }
+
+    public void setHilosTokenizado(int hilos) {
+        this.hilosTokenizado = Math.max(1, hilos);
+    }
+
+    public void setHilosConteo(int hilos) {
+        this.hilosConteo = Math.max(1, hilos);
+    }
+
+    /**
+     * @param capacidad la cantidad máxima de elementos en cada cola.
+     */
+    public void setCapacidadColas(int capacidad) {
+        this.capacidadColas = Math.max(1, capacidad);
+    }
+
+    public void setTamanioBloque(int tamanio) {
+        this.tamanioBloque = Math.max(64, tamanio);
+    }
+
+    public void setCharset(Charset charset) {
+        this.charset = charset;
+    }
+
+    /**
+     * @param estrategia la estrategia con la que se comparan las palabras de
+     * las tablas que se crean (por ejemplo EstrategiasTexto.SIN_ACENTOS), o
+     * null para distinguirlas con equals().
+     */
+    public void setEstrategia(EstrategiaHash<? super String> estrategia) {
+        this.estrategia = estrategia;
+    }
+
+    /**
+     * @param indice el índice invertido donde se registran las cantidades de
+     * cada archivo, o null para contar sólo el total.
+     */
+    public void setIndice(IndiceInvertido indice) {
+        this.indice = indice;
+    }
+
+    /**
+     * @return las estadísticas de las etapas, en orden: lectura, tokenizado y
+     * conteo.
+     */
+    public List<Etapa> getEtapas() {
+        return Arrays.asList(lectura, tokenizado, conteo);
+    }
+
+    /**
+     * Detiene la ejecución en curso lo antes posible.
+     */
+    public void cancelar() {
+        cancelado = true;
+    }
+
+    /**
+     * Reemplaza cada carpeta de la colección por todos los archivos que
+     * contiene (recursivamente). Los archivos se retornan ordenados.
+     *
+     * @param rutas archivos y/o carpetas.
+     * @return la lista de archivos regulares.
+     * @throws FileNotFoundException si alguna ruta no existe.
+     * @throws IOException si no se puede recorrer alguna carpeta.
+     */
+    public static List<File> listarArchivos(Collection<File> rutas) throws IOException {
+        List<File> archivos = new ArrayList<>();
+        for (File ruta : rutas) {
+            if (ruta.isDirectory()) {
+                try (Stream<Path> s = Files.walk(ruta.toPath())) {
+                    archivos.addAll(s.filter(Files::isRegularFile)
+                            .map(Path::toFile)
+                            .collect(Collectors.toList()));
+                }
+            } else if (ruta.isFile()) {
+                archivos.add(ruta);
+            } else if (!ruta.exists()) {
+                throw new FileNotFoundException(ruta + " (no existe)");
+            }
+        }
+        Collections.sort(archivos);
+        return archivos;
+    }
+
+    /**
+     * Cuenta las palabras de todos los archivos indicados.
+     *
+     * @param rutas archivos y/o carpetas (se recorren recursivamente).
+     * @param avance recibe la cantidad de bytes leídos por cada bloque (puede
+     * ser invocado desde varios hilos a la vez), o null.
+     * @return una tabla nueva con el total de cada palabra.
+     * @throws IOException si no se puede leer algún archivo.
+     * @throws CancellationException si se invocó cancelar().
+     */
+    public TSBHashtable<String, Integer> ejecutar(Collection<File> rutas, LongConsumer avance)
+            throws IOException {
+        List<File> archivos = listarArchivos(rutas);
+        ConcurrentLinkedQueue<Integer> pendientes = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < archivos.size(); i++) {
+            pendientes.add(i);
+        }
+        BlockingQueue<Bloque> bloques = new ArrayBlockingQueue<>(capacidadColas);
+        BlockingQueue<Parcial> parciales = new ArrayBlockingQueue<>(capacidadColas);
+        List<TSBHashtable<String, Integer>> acumuladas = Collections.synchronizedList(new ArrayList<>());
+        List<TSBHashtable<Integer, TSBHashtable<String, Integer>>> porArchivo
+                = Collections.synchronizedList(new ArrayList<>());
+
+        cancelado = false;
+        error = null;
+        lectura.iniciar(hilosLectura);
+        tokenizado.iniciar(hilosTokenizado);
+        conteo.iniciar(hilosConteo);
+
+        AtomicInteger lectores = new AtomicInteger(hilosLectura);
+        AtomicInteger tokenizadores = new AtomicInteger(hilosTokenizado);
+        AtomicInteger numero = new AtomicInteger();
+        ExecutorService hilos = Executors.newFixedThreadPool(
+                hilosLectura + hilosTokenizado + hilosConteo, r -> {
+                    Thread t = new Thread(r, "ingesta-" + numero.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        for (int i = 0; i < hilosLectura; i++) {
+            hilos.execute(() -> etapa(() -> {
+                Integer id;
+                while ((id = pendientes.poll()) != null) {
+                    leerArchivo(id, archivos.get(id), bloques, avance);
+                }
+            }, () -> {
+                if (lectores.decrementAndGet() == 0) {
+                    for (int j = 0; j < hilosTokenizado; j++) {
+                        poner(bloques, FIN_BLOQUES, null);
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < hilosTokenizado; i++) {
+            hilos.execute(() -> etapa(() -> tokenizar(bloques, parciales), () -> {
+                if (tokenizadores.decrementAndGet() == 0) {
+                    for (int j = 0; j < hilosConteo; j++) {
+                        poner(parciales, FIN_PARCIALES, null);
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < hilosConteo; i++) {
+            hilos.execute(() -> etapa(() -> acumuladas.add(contar(parciales, porArchivo)), null));
+        }
+
+        hilos.shutdown();
+        try {
+            while (!hilos.awaitTermination(ESPERA_MS, TimeUnit.MILLISECONDS)) {
+                // se espera a que terminen todas las etapas.
+            }
+        } catch (InterruptedException e) {
+            cancelado = true;
+            hilos.shutdownNow();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Ingesta interrumpida");
+        }
+
+        if (error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if (error instanceof RuntimeException) {
+            throw (RuntimeException) error;
+        }
+        if (error != null) {
+            throw new IllegalStateException("Error en la ingesta", error);
+        }
+        if (cancelado) {
+            throw new CancellationException("Ingesta cancelada");
+        }
+        if (indice != null) {
+            indexar(archivos, porArchivo);
+        }
+        return reducir(acumuladas);
+    }
+
+    //************************ Etapas.
+
+    private interface Trabajo {
+
+        void ejecutar() throws IOException, InterruptedException;
+    }
+
+    /*
+     * Ejecuta el trabajo de un hilo de una etapa. Si falla, guarda el error y
+     * detiene toda la cadena. Al final (aún con error) ejecuta el cierre, que
+     * avisa a la etapa siguiente.
+     */
+    private void etapa(Trabajo trabajo, Trabajo cierre) {
+        try {
+            trabajo.ejecutar();
+        } catch (CancellationException e) {
+            cancelado = true;
+        } catch (Throwable e) {
+            if (error == null) {
+                error = e;
+            }
+            cancelado = true;
+        } finally {
+            if (cierre != null) {
+                try {
+                    cierre.ejecutar();
+                } catch (Exception e) {
+                    cancelado = true;
+                }
+            }
+        }
+    }
+
+    private void leerArchivo(int id, File archivo, BlockingQueue<Bloque> bloques, LongConsumer avance)
+            throws IOException, InterruptedException {
+        // el evento mide sólo la lectura: el conteo sigue en otras etapas.
+        EventosJFR.IngestaArchivo evento = EventosJFR.ingesta();
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            byte[] buf = new byte[tamanioBloque];
+            int lleno = 0;
+            while (true) {
+                long t0 = System.nanoTime();
+                int n = canal.read(ByteBuffer.wrap(buf, lleno, buf.length - lleno));
+                lectura.ocupado(System.nanoTime() - t0);
+                if (n < 0) {
+                    if (lleno > 0) {
+                        enviarBloque(new Bloque(id, buf, lleno), bloques, avance);
+                    }
+                    break;
+                }
+                lleno += n;
+                if (lleno < buf.length) {
+                    continue;
+                }
+                int corte = lleno - 1;
+                while (corte >= 0 && !Tokenizador.esSeparador(buf[corte])) {
+                    corte--;
+                }
+                if (corte < 0) {
+                    // una única palabra más grande que el bloque.
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                byte[] siguiente = new byte[Math.max(tamanioBloque, lleno - corte - 1)];
+                System.arraycopy(buf, corte + 1, siguiente, 0, lleno - corte - 1);
+                enviarBloque(new Bloque(id, buf, corte + 1), bloques, avance);
+                lleno = lleno - corte - 1;
+                buf = siguiente;
+            }
+            if (evento != null) {
+                evento.archivo = archivo.getPath();
+                evento.modo = "pipeline";
+                evento.bytes = canal.size();
+                evento.commit();
+            }
+        }
+    }
+
+    private void enviarBloque(Bloque bloque, BlockingQueue<Bloque> bloques, LongConsumer avance)
+            throws InterruptedException {
+        lectura.procesado(bloque.largo);
+        if (avance != null) {
+            avance.accept(bloque.largo);
+        }
+        poner(bloques, bloque, lectura);
+    }
+
+    private void tokenizar(BlockingQueue<Bloque> bloques, BlockingQueue<Parcial> parciales)
+            throws InterruptedException {
+        CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer chars = CharBuffer.allocate(tamanioBloque);
+        while (true) {
+            Bloque b = tomar(bloques, tokenizado);
+            if (b == FIN_BLOQUES) {
+                return;
+            }
+            long t0 = System.nanoTime();
+            TSBHashtable<String, Integer> tabla = new TSBHashtable<>(1000, estrategia);
+            Tokenizador tokenizador = new Tokenizador(new ContadorPalabras(tabla));
+            ByteBuffer bytes = ByteBuffer.wrap(b.datos, 0, b.largo);
+            decoder.reset();
+            while (true) {
+                chars.clear();
+                CoderResult r = decoder.decode(bytes, chars, true);
+                if (!r.isOverflow()) {
+                    decoder.flush(chars);
+                }
+                tokenizador.procesar(chars.array(), 0, chars.position());
+                if (!r.isOverflow()) {
+                    break;
+                }
+            }
+            tokenizador.finalizar();
+            tokenizado.ocupado(System.nanoTime() - t0);
+            tokenizado.procesado(b.largo);
+            poner(parciales, new Parcial(b.archivo, b.largo, tabla), tokenizado);
+        }
+    }
+
+    private TSBHashtable<String, Integer> contar(BlockingQueue<Parcial> parciales,
+            List<TSBHashtable<Integer, TSBHashtable<String, Integer>>> porArchivo)
+            throws InterruptedException {
+        TSBHashtable<String, Integer> acumulada = new TSBHashtable<>(1000, estrategia);
+        TSBHashtable<Integer, TSBHashtable<String, Integer>> archivos = null;
+        if (indice != null) {
+            archivos = new TSBHashtable<>(100);
+            porArchivo.add(archivos);
+        }
+        while (true) {
+            Parcial p = tomar(parciales, conteo);
+            if (p == FIN_PARCIALES) {
+                return acumulada;
+            }
+            long t0 = System.nanoTime();
+            IngestaParalela.sumar(acumulada, p.tabla);
+            if (archivos != null) {
+                TSBHashtable<String, Integer> delArchivo = archivos.get(p.archivo);
+                if (delArchivo == null) {
+                    archivos.put(p.archivo, p.tabla);
+                } else {
+                    IngestaParalela.sumar(delArchivo, p.tabla);
+                }
+            }
+            conteo.ocupado(System.nanoTime() - t0);
+            conteo.procesado(p.bytes);
+        }
+    }
+
+    /*
+     * Agrega al índice la tabla de cada archivo, sumando las de todos los
+     * hilos de conteo. Los archivos se recorren en orden, de forma que los
+     * ids nuevos del índice crecen y las listas de posteo sólo se extienden.
+     */
+    private void indexar(List<File> archivos,
+            List<TSBHashtable<Integer, TSBHashtable<String, Integer>>> porArchivo) {
+        for (int i = 0; i < archivos.size(); i++) {
+            int id = indice.registrarArchivo(archivos.get(i).getPath());
+            for (TSBHashtable<Integer, TSBHashtable<String, Integer>> tablas : porArchivo) {
+                TSBHashtable<String, Integer> t = tablas.get(i);
+                if (t != null) {
+                    indice.agregar(id, t);
+                }
+            }
+        }
+    }
+
+    /*
+     * Combina las tablas de a pares, sumando siempre la menor sobre la mayor.
+     */
+    private TSBHashtable<String, Integer> reducir(List<TSBHashtable<String, Integer>> tablas) {
+        if (tablas.isEmpty()) {
+            return new TSBHashtable<>(1000, estrategia);
+        }
+        List<TSBHashtable<String, Integer>> nivel = new ArrayList<>(tablas);
+        while (nivel.size() > 1) {
+            List<TSBHashtable<String, Integer>> siguiente = new ArrayList<>();
+            for (int i = 0; i + 1 < nivel.size(); i += 2) {
+                TSBHashtable<String, Integer> a = nivel.get(i);
+                TSBHashtable<String, Integer> b = nivel.get(i + 1);
+                if (a.size() < b.size()) {
+                    IngestaParalela.sumar(b, a);
+                    siguiente.add(b);
+                } else {
+                    IngestaParalela.sumar(a, b);
+                    siguiente.add(a);
+                }
+            }
+            if (nivel.size() % 2 == 1) {
+                siguiente.add(nivel.get(nivel.size() - 1));
+            }
+            nivel = siguiente;
+        }
+        return nivel.get(0);
+    }
+
+    //************************ Colas.
+
+    /*
+     * Pone un elemento en la cola, esperando si está llena. Mientras espera
+     * verifica periódicamente si la ejecución fue cancelada.
+     */
+    private <T> void poner(BlockingQueue<T> cola, T elemento, Etapa etapa) throws InterruptedException {
+        long t0 = System.nanoTime();
+        while (!cola.offer(elemento, ESPERA_MS, TimeUnit.MILLISECONDS)) {
+            if (cancelado) {
+                throw new CancellationException();
+            }
+        }
+        if (etapa != null) {
+            etapa.espera(System.nanoTime() - t0);
+        }
+    }
+
+    private <T> T tomar(BlockingQueue<T> cola, Etapa etapa) throws InterruptedException {
+        long t0 = System.nanoTime();
+        T elemento;
+        while ((elemento = cola.poll(ESPERA_MS, TimeUnit.MILLISECONDS)) == null) {
+            if (cancelado) {
+                throw new CancellationException();
+            }
+        }
+        etapa.espera(System.nanoTime() - t0);
+        return elemento;
+    }
+
+    //************************ Clases internas.
+
+    /*
+     * Bloque de bytes leído de un archivo. Termina siempre en un separador
+     * (salvo el último bloque del archivo).
+     */
+    private static class Bloque {
+
+        final int archivo;
+        final byte[] datos;
+        final int largo;
+
+        Bloque(int archivo, byte[] datos, int largo) {
+            this.archivo = archivo;
+            this.datos = datos;
+            this.largo = largo;
+        }
+    }
+
+    /*
+     * Palabras contadas de un bloque.
+     */
+    private static class Parcial {
+
+        final int archivo;
+        final long bytes;
+        final TSBHashtable<String, Integer> tabla;
+
+        Parcial(int archivo, long bytes, TSBHashtable<String, Integer> tabla) {
+            this.archivo = archivo;
+            this.bytes = bytes;
+            this.tabla = tabla;
+        }
+    }
+
+    /**
+     * Estadísticas de una etapa de la cadena. Los valores se actualizan
+     * mientras la cadena se ejecuta y pueden consultarse desde otro hilo.
+     */
+    public static class Etapa {
+
+        private final String nombre;
+        private volatile int hilos;
+        private final AtomicLong elementos = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong nanosOcupado = new AtomicLong();
+        private final AtomicLong nanosEspera = new AtomicLong();
+
+        Etapa(String nombre) {
+            this.nombre = nombre;
+        }
+
+        void iniciar(int hilos) {
+            this.hilos = hilos;
+            elementos.set(0);
+            bytes.set(0);
+            nanosOcupado.set(0);
+            nanosEspera.set(0);
+        }
+
+        void procesado(long b) {
+            elementos.incrementAndGet();
+            bytes.addAndGet(b);
+        }
+
+        void ocupado(long nanos) {
+            nanosOcupado.addAndGet(nanos);
+        }
+
+        void espera(long nanos) {
+            nanosEspera.addAndGet(nanos);
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public int getHilos() {
+            return hilos;
+        }
+
+        /**
+         * @return la cantidad de bloques procesados.
+         */
+        public long getElementos() {
+            return elementos.get();
+        }
+
+        /**
+         * @return la cantidad de bytes de texto procesados.
+         */
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        /**
+         * @return el tiempo total (sumando todos los hilos) dedicado a trabajar.
+         */
+        public double getSegundosOcupado() {
+            return nanosOcupado.get() / 1e9;
+        }
+
+        /**
+         * @return el tiempo total (sumando todos los hilos) bloqueado en las
+         * colas, esperando datos o lugar para dejarlos.
+         */
+        public double getSegundosEspera() {
+            return nanosEspera.get() / 1e9;
+        }
+
+        /**
+         * @return la capacidad de la etapa en MB/s: los bytes procesados sobre
+         * el tiempo ocupado por hilo.
+         */
+        public double getMegabytesPorSegundo() {
+            double segundos = getSegundosOcupado() / Math.max(1, hilos);
+            return segundos > 0 ? getBytes() / 1048576.0 / segundos : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%d hilos): %,d bloques, %.1f MB/s, %.1f s ocupado, %.1f s en espera",
+                    nombre, hilos, getElementos(), getMegabytesPorSegundo(),
+                    getSegundosOcupado(), getSegundosEspera());
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package clases;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Prueba de carga de punta a punta, sin interfaz gráfica: genera (o reutiliza)
+ * un texto sintético con GeneradorCorpus y lo procesa con el mismo camino que
+ * la aplicación al cargar un archivo y al cerrarse y volver a abrirse:
+ *
+ * 1. conteo: lectura, tokenizado y conteo con IngestaParalela.
+ * 2. fusión: suma del resultado en la tabla de la aplicación (como
+ * aplicarLote() en la interfaz).
+ * 3. persistencia: ArchivoTabla.escribir(), como al cerrar la aplicación.
+ * 4. apertura: ArchivoTabla.leer(), como al volver a abrirla.
+ *
+ * Informa la velocidad (MB/s y palabras/s), el recolector de basura, los picos
+ * de heap y de memoria del proceso (RSS) y la duración de cada fase. Con
+ * --informe agrega además una línea con los mismos datos a un archivo
+ * separado por tabulaciones, para comparar versiones:
+ *
+ * <pre>
+ * java -Xmx8g -cp TSBHashtable.jar clases.PruebaCarga --tamanio 4G --etiqueta v1.2 --informe cargas.tsv
+ * </pre>
+ *
+ * El texto se guarda en la carpeta temporal con un nombre que incluye los
+ * parámetros, y se reutiliza en las corridas siguientes con los mismos
+ * parámetros. Con --verificar se comprueba además que la tabla leída tenga
+ * exactamente las cantidades que escribió el generador.
+ */
+public class PruebaCarga {
+
+    private static final String USO
+            = "uso: PruebaCarga [opciones]\n"
+            + "  --tamanio N[K|M|G]  tamaño del texto (256M por defecto)\n"
+            + "  --vocabulario N     palabras distintas del vocabulario ("
+            + GeneradorCorpus.VOCABULARIO_POR_DEFECTO + " por defecto)\n"
+            + "  --exponente S       exponente de Zipf ("
+            + GeneradorCorpus.EXPONENTE_POR_DEFECTO + " por defecto)\n"
+            + "  --semilla N         semilla del generador (1 por defecto)\n"
+            + "  --corpus ARCHIVO    el texto a usar (se genera si no existe)\n"
+            + "  --regenerar         genera el texto aunque ya exista\n"
+            + "  --tabla ARCHIVO     donde se guarda la tabla (por defecto un temporal que se borra)\n"
+            + "  --verificar         comprueba las cantidades contadas contra las generadas\n"
+            + "  --etiqueta TEXTO    nombre de la corrida en el informe (la versión, por ejemplo)\n"
+            + "  --informe ARCHIVO   agrega una línea con los resultados al archivo\n";
+
+    // Columnas del informe.
+    private static final String ENCABEZADO = "fecha\tetiqueta\tbytes\tvocabulario\texponente\tsemilla"
+            + "\tpalabras\tdistintas\tconteo_s\tconteo_mb_s\tconteo_palabras_s\tfusion_s"
+            + "\tpersistencia_s\tapertura_s\ttotal_s\tgc_pausas\tgc_ms\tpico_heap_mb\tpico_rss_mb";
+
+    // Opciones de la línea de comandos.
+    private long tamanio = 256L * 1024 * 1024;
+    private int vocabulario = GeneradorCorpus.VOCABULARIO_POR_DEFECTO;
+    private double exponente = GeneradorCorpus.EXPONENTE_POR_DEFECTO;
+    private long semilla = 1;
+    private File corpus;
+    private boolean regenerar;
+    private File archivoTabla;
+    private boolean verificar;
+    private String etiqueta = "-";
+    private File informe;
+
+    private final PrintStream out;
+
+    PruebaCarga(PrintStream out) {
+        this.out = out;
+    }
+
+    public static void main(String[] args) {
+        PruebaCarga prueba = new PruebaCarga(System.out);
+        try {
+            prueba.opciones(args);
+            if (!prueba.ejecutar()) {
+                System.exit(1);
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.print(USO);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("Error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /*
+     * Interpreta los argumentos.
+     */
+    void opciones(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--tamanio":
+                    tamanio = tamanio(valor(args, ++i, a));
+                    break;
+                case "--vocabulario":
+                    vocabulario = Integer.parseInt(valor(args, ++i, a));
+                    break;
+                case "--exponente":
+                    exponente = Double.parseDouble(valor(args, ++i, a));
+                    break;
+                case "--semilla":
+                    semilla = Long.parseLong(valor(args, ++i, a));
+                    break;
+                case "--corpus":
+                    corpus = new File(valor(args, ++i, a));
+                    break;
+                case "--regenerar":
+                    regenerar = true;
+                    break;
+                case "--tabla":
+                    archivoTabla = new File(valor(args, ++i, a));
+                    break;
+                case "--verificar":
+                    verificar = true;
+                    break;
+                case "--etiqueta":
+                    etiqueta = valor(args, ++i, a);
+                    break;
+                case "--informe":
+                    informe = new File(valor(args, ++i, a));
+                    break;
+                case "-h":
+                case "--help":
+                    throw new IllegalArgumentException("");
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + a);
+            }
+        }
+        if (corpus == null) {
+            corpus = new File(System.getProperty("java.io.tmpdir"), String.format(Locale.ROOT,
+                    "corpus-%d-%d-%s-%d.txt", semilla, vocabulario, exponente, tamanio));
+        }
+    }
+
+    private static String valor(String[] args, int i, String opcion) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException("Falta el valor de " + opcion);
+        }
+        return args[i];
+    }
+
+    /*
+     * Un tamaño en bytes con sufijo K, M o G opcional.
+     */
+    static long tamanio(String texto) {
+        String t = texto.trim().toUpperCase(Locale.ROOT);
+        long unidad = 1;
+        if (t.endsWith("K")) {
+            unidad = 1L << 10;
+        } else if (t.endsWith("M")) {
+            unidad = 1L << 20;
+        } else if (t.endsWith("G")) {
+            unidad = 1L << 30;
+        }
+        if (unidad > 1) {
+            t = t.substring(0, t.length() - 1);
+        }
+        try {
+            long n = Long.parseLong(t);
+            if (n <= 0) {
+                throw new IllegalArgumentException("Tamaño inválido: " + texto);
+            }
+            return n * unidad;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tamaño inválido: " + texto);
+        }
+    }
+
+    /*
+     * Genera el texto si hace falta, ejecuta las fases e informa. Retorna
+     * false si la verificación encontró diferencias.
+     */
+    boolean ejecutar() throws IOException {
+        GeneradorCorpus generador = new GeneradorCorpus(semilla);
+        generador.setVocabulario(vocabulario);
+        generador.setExponente(exponente);
+        boolean generado = false;
+        if (regenerar || !corpus.isFile()) {
+            long inicio = System.nanoTime();
+            generador.generar(corpus, tamanio);
+            generado = true;
+            out.printf("generación:       %s, %,.3f s%n", corpus, (System.nanoTime() - inicio) / 1e9);
+        }
+        long bytes = corpus.length();
+
+        boolean temporal = archivoTabla == null;
+        File destino = temporal ? File.createTempFile("tabla", ".dat") : archivoTabla;
+        Metricas m = new Metricas();
+        TSBHashtable<String, Integer> leida;
+        try {
+            m.iniciarFase("conteo");
+            TSBHashtable<String, Integer> lote = new IngestaParalela(ForkJoinPool.commonPool(),
+                    StandardCharsets.UTF_8).contar(corpus);
+            m.iniciarFase("fusión");
+            TSBHashtable<String, Integer> tabla = new TSBHashtable<>(1000);
+            IngestaParalela.sumar(tabla, lote);
+            // se sueltan las tablas que ya no se usan, como en la aplicación.
+            lote = null;
+            m.iniciarFase("persistencia");
+            ArchivoTabla.escribir(destino, tabla);
+            tabla = null;
+            m.iniciarFase("apertura");
+            leida = ArchivoTabla.leer(destino, null);
+            m.terminarFase();
+        } finally {
+            if (temporal) {
+                destino.delete();
+            }
+        }
+
+        long palabras = 0;
+        for (Integer c : leida.values()) {
+            palabras += c;
+        }
+        double conteo = m.getSegundos("conteo");
+        m.imprimir(out, bytes, palabras, leida.size());
+        out.printf("conteo:           %.1f MB/s, %,.0f palabras/s%n",
+                bytes / 1048576.0 / conteo, palabras / conteo);
+        out.println("tabla:            " + leida.getEstadisticas());
+        if (informe != null) {
+            escribirInforme(m, bytes, palabras, leida.size());
+        }
+
+        if (verificar) {
+            if (!generado) {
+                // se vuelve a generar sin escribir, sólo para las cantidades.
+                generador.generar((OutputStream) null, tamanio);
+            }
+            String error = verificar(generador, leida);
+            out.println(error == null ? "verificación:     correcta" : "verificación:     " + error);
+            return error == null;
+        }
+        return true;
+    }
+
+    /*
+     * Compara las cantidades de la tabla con las del generador. Retorna la
+     * primera diferencia, o null si no hay.
+     */
+    static String verificar(GeneradorCorpus generador, TSBHashtable<String, Integer> tabla) {
+        int distintas = 0;
+        for (int k = 0; k < generador.getVocabulario(); k++) {
+            long esperada = generador.getFrecuencia(k);
+            if (esperada == 0) {
+                continue;
+            }
+            distintas++;
+            String palabra = generador.getPalabra(k);
+            Integer contada = tabla.get(palabra);
+            if (contada == null || contada != esperada) {
+                return "\"" + palabra + "\" aparece " + esperada + " veces y se contaron " + contada;
+            }
+        }
+        if (distintas != tabla.size()) {
+            return "se generaron " + distintas + " palabras distintas y se contaron " + tabla.size();
+        }
+        return null;
+    }
+
+    /*
+     * Agrega una línea al informe (con el encabezado si el archivo es nuevo).
+     */
+    private void escribirInforme(Metricas m, long bytes, long palabras, int distintas) throws IOException {
+        boolean nuevo = !informe.isFile() || informe.length() == 0;
+        try (PrintWriter w = new PrintWriter(new OutputStreamWriter(
+                new FileOutputStream(informe, true), StandardCharsets.UTF_8))) {
+            if (nuevo) {
+                w.print(ENCABEZADO + "\n");
+            }
+            double conteo = m.getSegundos("conteo");
+            long rss = Metricas.picoRSS();
+            w.print(String.format(Locale.ROOT,
+                    "%s\t%s\t%d\t%d\t%s\t%d\t%d\t%d\t%.3f\t%.1f\t%.0f\t%.3f\t%.3f\t%.3f\t%.3f\t%d\t%d\t%d\t%d\n",
+                    new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss").format(new Date()), etiqueta,
+                    bytes, vocabulario, exponente, semilla, palabras, distintas,
+                    conteo, bytes / 1048576.0 / conteo, palabras / conteo,
+                    m.getSegundos("fusión"), m.getSegundos("persistencia"), m.getSegundos("apertura"),
+                    m.getSegundosTotales(), m.getCantidadGC(), m.getMilisegundosGC(),
+                    Metricas.picoHeap() / (1024 * 1024), rss < 0 ? -1 : rss / (1024 * 1024)));
+        }
+    }
+}
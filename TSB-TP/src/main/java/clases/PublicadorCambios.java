@@ -0,0 +1,307 @@
+package clases;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Publica los cambios de una TSBHashtable (ver TSBHashtable.getCambios()) en
+ * lotes: cada elemento que recibe un suscriptor es una lista de Cambio.
+ *
+ * Los cambios se acumulan por suscriptor y por clave: si una clave cambia
+ * varias veces antes de que el suscriptor reciba el lote, recibe un solo
+ * cambio con el estado final (por ejemplo, un alta seguida de tres
+ * modificaciones llega como un alta con el último valor; un alta seguida de
+ * una baja no llega). Así un suscriptor lento ocupa como mucho un cambio por
+ * clave, y no se pierde nada: la contrapresión sólo demora los lotes.
+ *
+ * Cuando hay cambios pendientes y el suscriptor pidió lotes, se programa la
+ * entrega en su Executor. Los cambios hechos hasta que esa tarea se ejecuta
+ * viajan en el mismo lote (con Platform::runLater, los de un mismo evento de
+ * la interfaz), de a tamanioLote cambios como máximo.
+ *
+ * Los cambios se registran en el hilo que modifica la tabla; la entrega puede
+ * ocurrir en otro hilo, por lo que los suscriptores deben usar los valores
+ * del cambio y no leer la tabla.
+ *
+ * @param <K> el tipo de las claves.
+ * @param <V> el tipo de los valores.
+ */
+public class PublicadorCambios<K, V> implements Flujo.Publisher<List<Cambio<K, V>>> {
+
+    // Cantidad máxima de cambios por lote, por defecto.
+    public static final int LOTE_POR_DEFECTO = 1024;
+
+    private final Executor ejecutor;
+    private final int tamanioLote;
+    private final List<Suscripcion> suscripciones = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param ejecutor donde se entregan los lotes a los suscriptores
+     * agregados con subscribe().
+     * @param tamanioLote la cantidad máxima de cambios por lote.
+     */
+    public PublicadorCambios(Executor ejecutor, int tamanioLote) {
+        if (ejecutor == null) {
+            throw new NullPointerException("PublicadorCambios(): ejecutor null");
+        }
+        if (tamanioLote <= 0) {
+            throw new IllegalArgumentException("PublicadorCambios(): tamaño de lote inválido");
+        }
+        this.ejecutor = ejecutor;
+        this.tamanioLote = tamanioLote;
+    }
+
+    /**
+     * Agrega un suscriptor que recibe los lotes en el ejecutor del publicador.
+     * Recibe los cambios hechos desde este momento.
+     */
+    @Override
+    public void subscribe(Flujo.Subscriber<? super List<Cambio<K, V>>> subscriber) {
+        suscribir(subscriber, ejecutor);
+    }
+
+    /**
+     * Agrega un suscriptor que recibe los lotes en el ejecutor indicado (por
+     * ejemplo Platform::runLater para actualizar la interfaz). Recibe los
+     * cambios hechos desde este momento.
+     *
+     * @param subscriber el suscriptor.
+     * @param ejecutor donde se le entregan los lotes.
+     */
+    public void suscribir(Flujo.Subscriber<? super List<Cambio<K, V>>> subscriber, Executor ejecutor) {
+        if (subscriber == null || ejecutor == null) {
+            throw new NullPointerException("suscribir(): parámetro null");
+        }
+        Suscripcion s = new Suscripcion(subscriber, ejecutor);
+        suscripciones.add(s);
+        subscriber.onSubscribe(s);
+    }
+
+    /**
+     * @return la cantidad de suscriptores activos.
+     */
+    public int getCantidadSuscriptores() {
+        return suscripciones.size();
+    }
+
+    /**
+     * Termina el flujo: los suscriptores reciben onComplete() después de los
+     * lotes pendientes que ya pidieron, y no reciben más cambios.
+     */
+    public void cerrar() {
+        for (Suscripcion s : suscripciones) {
+            s.completar();
+        }
+        suscripciones.clear();
+    }
+
+    //************************ Registro (desde TSBHashtable).
+
+    /*
+     * true si hay alguien a quien avisarle (si no, la tabla no registra nada).
+     */
+    boolean activo() {
+        return !suscripciones.isEmpty();
+    }
+
+    void registrar(Cambio.Tipo tipo, K clave, V valor) {
+        for (Suscripcion s : suscripciones) {
+            s.agregar(tipo, clave, valor);
+        }
+    }
+
+    void vaciar() {
+        for (Suscripcion s : suscripciones) {
+            s.vaciar();
+        }
+    }
+
+    //************************ Clases internas.
+
+    /*
+     * Cambios pendientes y demanda de un suscriptor. También es la tarea que
+     * se programa en su ejecutor para entregarle los lotes.
+     */
+    private class Suscripcion implements Flujo.Subscription, Runnable {
+
+        private final Flujo.Subscriber<? super List<Cambio<K, V>>> suscriptor;
+        private final Executor ejecutor;
+
+        // cambios sin entregar, uno por clave, en el orden del primero.
+        private final LinkedHashMap<K, Cambio<K, V>> pendientes = new LinkedHashMap<>();
+        // la tabla se vació después del último lote entregado.
+        private boolean vaciado;
+        // lotes pedidos y no entregados.
+        private long demanda;
+        // hay una entrega programada en el ejecutor.
+        private boolean programada;
+        private boolean cancelada;
+        private boolean completa;
+
+        Suscripcion(Flujo.Subscriber<? super List<Cambio<K, V>>> suscriptor, Executor ejecutor) {
+            this.suscriptor = suscriptor;
+            this.ejecutor = ejecutor;
+        }
+
+        void agregar(Cambio.Tipo tipo, K clave, V valor) {
+            synchronized (this) {
+                if (cancelada || completa) {
+                    return;
+                }
+                acumular(tipo, clave, valor);
+                if (!programar()) {
+                    return;
+                }
+            }
+            ejecutor.execute(this);
+        }
+
+        /*
+         * Combina el cambio con el pendiente de la misma clave, si lo hay.
+         */
+        private void acumular(Cambio.Tipo tipo, K clave, V valor) {
+            Cambio<K, V> anterior = pendientes.get(clave);
+            if (anterior == null) {
+                pendientes.put(clave, new Cambio<>(tipo, clave, valor));
+            } else if (anterior.getTipo() == Cambio.Tipo.ALTA) {
+                if (tipo == Cambio.Tipo.BAJA) {
+                    // el suscriptor nunca supo de la clave.
+                    pendientes.remove(clave);
+                } else {
+                    pendientes.put(clave, new Cambio<>(Cambio.Tipo.ALTA, clave, valor));
+                }
+            } else if (anterior.getTipo() == Cambio.Tipo.BAJA) {
+                // baja y nueva alta: para el suscriptor cambió el valor.
+                pendientes.put(clave, new Cambio<>(Cambio.Tipo.MODIFICACION, clave, valor));
+            } else {
+                pendientes.put(clave, new Cambio<>(tipo, clave, valor));
+            }
+        }
+
+        void vaciar() {
+            synchronized (this) {
+                if (cancelada || completa) {
+                    return;
+                }
+                pendientes.clear();
+                vaciado = true;
+                if (!programar()) {
+                    return;
+                }
+            }
+            ejecutor.execute(this);
+        }
+
+        void completar() {
+            synchronized (this) {
+                completa = true;
+                if (programada) {
+                    return;
+                }
+                programada = true;
+            }
+            ejecutor.execute(this);
+        }
+
+        /*
+         * Indica si hay que programar una entrega: si hay algo para entregar,
+         * lotes pedidos y ninguna entrega programada. Se invoca con el
+         * bloqueo tomado; la tarea se pasa al ejecutor después de soltarlo
+         * (un ejecutor directo entrega en el mismo hilo).
+         */
+        private boolean programar() {
+            if (!programada && demanda > 0 && (vaciado || !pendientes.isEmpty())) {
+                programada = true;
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                suscriptor.onError(new IllegalArgumentException("request(): cantidad no positiva"));
+                return;
+            }
+            synchronized (this) {
+                // se satura en Long.MAX_VALUE (demanda sin límite).
+                demanda = demanda + n < 0 ? Long.MAX_VALUE : demanda + n;
+                if (!programar()) {
+                    return;
+                }
+            }
+            ejecutor.execute(this);
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (this) {
+                cancelada = true;
+                pendientes.clear();
+            }
+            suscripciones.remove(this);
+        }
+
+        /*
+         * Entrega lotes mientras haya cambios y demanda.
+         */
+        @Override
+        public void run() {
+            while (true) {
+                List<Cambio<K, V>> lote;
+                boolean terminar = false;
+                synchronized (this) {
+                    if (cancelada) {
+                        programada = false;
+                        return;
+                    }
+                    if (demanda == 0 || (!vaciado && pendientes.isEmpty())) {
+                        if (!completa) {
+                            programada = false;
+                            return;
+                        }
+                        // completa y sin nada más que pueda entregarse.
+                        cancelada = true;
+                        programada = false;
+                        terminar = true;
+                        lote = null;
+                    } else {
+                        lote = tomarLote();
+                        demanda--;
+                    }
+                }
+                try {
+                    if (terminar) {
+                        suscriptor.onComplete();
+                        return;
+                    }
+                    suscriptor.onNext(lote);
+                } catch (RuntimeException e) {
+                    // un suscriptor que falla queda fuera del flujo.
+                    cancel();
+                    suscriptor.onError(e);
+                    return;
+                }
+            }
+        }
+
+        private List<Cambio<K, V>> tomarLote() {
+            List<Cambio<K, V>> lote = new ArrayList<>(Math.min(pendientes.size() + 1, tamanioLote));
+            if (vaciado) {
+                lote.add(new Cambio<>(Cambio.Tipo.VACIADO, null, null));
+                vaciado = false;
+            }
+            Iterator<Cambio<K, V>> it = pendientes.values().iterator();
+            while (it.hasNext() && lote.size() < tamanioLote) {
+                lote.add(it.next());
+                it.remove();
+            }
+            return lote;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package clases;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Selección de las claves con mayor cantidad de una tabla de conteo.
+ *
+ * Usa un heap de tamaño n, por lo que recorre la tabla una sola vez y no
+ * necesita ordenarla completa: O(m log n) para una tabla de m claves.
+ */
+public final class Ranking {
+
+    // Mayor cantidad primero; a igual cantidad, orden alfabético de la clave.
+    private static final Comparator<Map.Entry<?, Integer>> ORDEN = (a, b) -> {
+        int c = Integer.compare(b.getValue(), a.getValue());
+        return c != 0 ? c : a.getKey().toString().compareTo(b.getKey().toString());
+    };
+
+    private Ranking() {
+    }
+
+    /**
+     * Retorna las n entradas con mayor cantidad, de mayor a menor.
+     *
+     * @param <K> el tipo de las claves.
+     * @param tabla la tabla de conteo.
+     * @param n la cantidad de entradas a retornar.
+     * @return una lista nueva con (a lo sumo) n entradas.
+     */
+    public static <K> List<Map.Entry<K, Integer>> mayores(Map<K, Integer> tabla, int n) {
+        if (n <= 0) {
+            return new ArrayList<>();
+        }
+        // heap invertido: en la raíz queda la menor de las n mayores.
+        PriorityQueue<Map.Entry<K, Integer>> heap = new PriorityQueue<>(n + 1, ORDEN.reversed());
+        for (Map.Entry<K, Integer> e : tabla.entrySet()) {
+            if (heap.size() < n) {
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            } else if (ORDEN.compare(e, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(new AbstractMap.SimpleImmutableEntry<>(e.getKey(), e.getValue()));
+            }
+        }
+        List<Map.Entry<K, Integer>> resultado = new ArrayList<>(heap);
+        Collections.sort(resultado, ORDEN);
+        return resultado;
+    }
+}
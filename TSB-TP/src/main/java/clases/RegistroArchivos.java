@@ -0,0 +1,328 @@
+package clases;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+/**
+ * Registro de los archivos ya cargados, para no contar dos veces el mismo
+ * contenido.
+ *
+ * De cada archivo se guarda el tamaño, la fecha de modificación y un hash de
+ * 64 bits de su contenido (XXH64). Al volver a cargarlo, si el tamaño y la
+ * fecha no cambiaron se lo descarta sin leerlo; si cambiaron se calcula el
+ * hash, que decide si el contenido es realmente distinto. También se descarta
+ * un archivo cuyo contenido ya se cargó con otro nombre.
+ *
+ * Los métodos son sincronizados: el registro se consulta desde las tareas de
+ * carga y se guarda desde el hilo de la interfaz.
+ */
+public class RegistroArchivos {
+
+    // Identifica el formato del archivo del registro.
+    private static final int MAGICO = 0x54534252; // "TSBR"
+    private static final int VERSION = 1;
+
+    // Tamaño de las ventanas con las que se mapea el archivo para calcular
+    // el hash. Debe ser múltiplo de 32.
+    private static final long VENTANA_HASH = 64L * 1024 * 1024;
+
+    // Constantes de XXH64.
+    private static final long P1 = 0x9E3779B185EBCA87L;
+    private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long P3 = 0x165667B19E3779F9L;
+    private static final long P4 = 0x85EBCA77C2B2AE63L;
+    private static final long P5 = 0x27D4EB2F165667C5L;
+
+    /**
+     * Resultado de verificar un archivo contra el registro.
+     */
+    public enum Estado {
+        // el archivo no estaba registrado.
+        NUEVO,
+        // el archivo estaba registrado con otro contenido.
+        MODIFICADO,
+        // el archivo estaba registrado con el mismo contenido.
+        SIN_CAMBIOS,
+        // el mismo contenido está registrado con otro nombre.
+        DUPLICADO
+    }
+
+    // ruta -> datos del archivo.
+    private final TSBHashtable<String, Huella> archivos;
+    // hash del contenido -> ruta.
+    private final TSBHashtable<Long, String> contenidos;
+
+    public RegistroArchivos() {
+        this(new TSBHashtable<>(100), new TSBHashtable<>(100));
+    }
+
+    private RegistroArchivos(TSBHashtable<String, Huella> archivos, TSBHashtable<Long, String> contenidos) {
+        this.archivos = archivos;
+        this.contenidos = contenidos;
+    }
+
+    /**
+     * @return una copia del registro (por ejemplo para guardarla desde otro
+     * hilo sin que cambie mientras tanto).
+     */
+    public synchronized RegistroArchivos copiar() {
+        return new RegistroArchivos(archivos.copiar(), contenidos.copiar());
+    }
+
+    /**
+     * Compara el archivo con lo registrado. El hash sólo se calcula (leyendo
+     * el archivo completo) si el tamaño o la fecha de modificación cambiaron.
+     *
+     * @param archivo el archivo a verificar.
+     * @return el resultado, que se usa luego en registrar().
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public Verificacion verificar(File archivo) throws IOException {
+        String ruta = archivo.getPath();
+        long tamanio = archivo.length();
+        long modificado = archivo.lastModified();
+        Huella anterior;
+        synchronized (this) {
+            anterior = archivos.get(ruta);
+        }
+        if (anterior != null && anterior.tamanio == tamanio && anterior.modificado == modificado) {
+            return new Verificacion(Estado.SIN_CAMBIOS, new Huella(tamanio, modificado, anterior.hash));
+        }
+        // el hash se calcula fuera del bloqueo, puede tardar.
+        Huella huella = new Huella(tamanio, modificado, hashContenido(archivo));
+        synchronized (this) {
+            if (anterior != null && anterior.hash == huella.hash) {
+                // sólo cambió la fecha: se actualiza para no volver a leerlo.
+                archivos.put(ruta, huella);
+                return new Verificacion(Estado.SIN_CAMBIOS, huella);
+            }
+            String otra = contenidos.get(huella.hash);
+            if (otra != null && !otra.equals(ruta)) {
+                return new Verificacion(Estado.DUPLICADO, huella);
+            }
+            return new Verificacion(anterior != null ? Estado.MODIFICADO : Estado.NUEVO, huella);
+        }
+    }
+
+    /**
+     * Registra el archivo con los datos obtenidos al verificarlo. Debe
+     * invocarse sólo cuando el archivo se terminó de cargar.
+     *
+     * @param archivo el archivo cargado.
+     * @param verificacion el resultado de verificar() antes de cargarlo.
+     */
+    public synchronized void registrar(File archivo, Verificacion verificacion) {
+        String ruta = archivo.getPath();
+        Huella anterior = archivos.put(ruta, verificacion.huella);
+        if (anterior != null && ruta.equals(contenidos.get(anterior.hash))) {
+            contenidos.remove(anterior.hash);
+        }
+        contenidos.put(verificacion.huella.hash, ruta);
+    }
+
+    /**
+     * @return la cantidad de archivos registrados.
+     */
+    public synchronized int size() {
+        return archivos.size();
+    }
+
+    /**
+     * Vacía el registro.
+     */
+    public synchronized void clear() {
+        archivos.clear();
+        contenidos.clear();
+    }
+
+    //************************ Hash del contenido.
+
+    /**
+     * Calcula el hash XXH64 (semilla 0) del contenido del archivo. El archivo
+     * se mapea en memoria por ventanas y se procesa de a 8 bytes.
+     *
+     * @param archivo el archivo.
+     * @return el hash de 64 bits.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    public static long hashContenido(File archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo.toPath(), StandardOpenOption.READ)) {
+            long largo = canal.size();
+            long v1 = P1 + P2;
+            long v2 = P2;
+            long v3 = 0;
+            long v4 = -P1;
+            long pos = 0;
+            // bloques de 32 bytes, en ventanas que son múltiplo de 32.
+            long bloques = largo - largo % 32;
+            while (pos < bloques) {
+                long n = Math.min(VENTANA_HASH, bloques - pos);
+                MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, pos, n);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < n; i += 32) {
+                    v1 = ronda(v1, buf.getLong(i));
+                    v2 = ronda(v2, buf.getLong(i + 8));
+                    v3 = ronda(v3, buf.getLong(i + 16));
+                    v4 = ronda(v4, buf.getLong(i + 24));
+                }
+                pos += n;
+            }
+            long h;
+            if (largo >= 32) {
+                h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7)
+                        + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+                h = combinar(h, v1);
+                h = combinar(h, v2);
+                h = combinar(h, v3);
+                h = combinar(h, v4);
+            } else {
+                h = P5;
+            }
+            h += largo;
+
+            // los menos de 32 bytes finales.
+            int resto = (int) (largo - pos);
+            if (resto > 0) {
+                MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, pos, resto);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                int i = 0;
+                for (; i + 8 <= resto; i += 8) {
+                    h ^= ronda(0, buf.getLong(i));
+                    h = Long.rotateLeft(h, 27) * P1 + P4;
+                }
+                if (i + 4 <= resto) {
+                    h ^= (buf.getInt(i) & 0xFFFFFFFFL) * P1;
+                    h = Long.rotateLeft(h, 23) * P2 + P3;
+                    i += 4;
+                }
+                for (; i < resto; i++) {
+                    h ^= (buf.get(i) & 0xFF) * P5;
+                    h = Long.rotateLeft(h, 11) * P1;
+                }
+            }
+            h ^= h >>> 33;
+            h *= P2;
+            h ^= h >>> 29;
+            h *= P3;
+            h ^= h >>> 32;
+            return h;
+        }
+    }
+
+    private static long ronda(long acumulado, long dato) {
+        return Long.rotateLeft(acumulado + dato * P2, 31) * P1;
+    }
+
+    private static long combinar(long h, long v) {
+        h ^= ronda(0, v);
+        return h * P1 + P4;
+    }
+
+    //************************ Persistencia.
+
+    /**
+     * Guarda el registro en un archivo binario. Se escribe en un temporal
+     * que después reemplaza al destino, como en ArchivoTabla.escribir().
+     *
+     * @param destino el archivo a escribir.
+     * @throws IOException si no se puede escribir.
+     */
+    public synchronized void guardar(File destino) throws IOException {
+        ArchivoTabla.reemplazar(destino, archivo -> {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(archivo));
+            out.writeInt(MAGICO);
+            out.writeInt(VERSION);
+            out.writeInt(archivos.size());
+            for (Map.Entry<String, Huella> e : archivos.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeLong(e.getValue().tamanio);
+                out.writeLong(e.getValue().modificado);
+                out.writeLong(e.getValue().hash);
+            }
+            out.flush();
+        });
+    }
+
+    /**
+     * Lee un registro guardado con guardar().
+     *
+     * @param origen el archivo a leer.
+     * @return el registro leído.
+     * @throws IOException si no se puede leer o el formato no es válido.
+     */
+    public static RegistroArchivos cargar(File origen) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(origen)))) {
+            if (in.readInt() != MAGICO || in.readInt() != VERSION) {
+                throw new IOException("cargar(): el archivo no es un registro válido");
+            }
+            RegistroArchivos registro = new RegistroArchivos();
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String ruta = in.readUTF();
+                Huella h = new Huella(in.readLong(), in.readLong(), in.readLong());
+                registro.archivos.put(ruta, h);
+                registro.contenidos.put(h.hash, ruta);
+            }
+            return registro;
+        }
+    }
+
+    //************************ Clases internas.
+
+    /*
+     * Datos registrados de un archivo.
+     */
+    private static class Huella {
+
+        final long tamanio;
+        final long modificado;
+        final long hash;
+
+        Huella(long tamanio, long modificado, long hash) {
+            this.tamanio = tamanio;
+            this.modificado = modificado;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * Resultado de verificar(): el estado del archivo y los datos que se
+     * registran si se lo carga.
+     */
+    public static class Verificacion {
+
+        private final Estado estado;
+        private final Huella huella;
+
+        private Verificacion(Estado estado, Huella huella) {
+            this.estado = estado;
+            this.huella = huella;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        public long getHash() {
+            return huella.hash;
+        }
+
+        /**
+         * @return true si el archivo debe cargarse (es nuevo o cambió).
+         */
+        public boolean debeCargarse() {
+            return estado == Estado.NUEVO || estado == Estado.MODIFICADO;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package clases;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Lee un texto que sigue creciendo, como "tail -f": un archivo de log al que
+ * otro proceso le agrega líneas, o la entrada estándar. Cada invocación de
+ * leer() pasa al tokenizador sólo el texto nuevo desde la anterior y retorna
+ * sin esperar, por lo que quien lee puede intercalar consultas (ver
+ * VentanaDeslizante).
+ *
+ * Con un archivo se conserva la posición leída. Si el archivo se achica
+ * (se lo truncó) se vuelve a leer desde el principio, y si se lo reemplazó
+ * por otro (rotación de logs) se abre el nuevo desde el principio. Un
+ * caracter multibyte cortado al final de lo escrito se completa en la
+ * lectura siguiente.
+ *
+ * Con un InputStream, que no se puede consultar sin bloquearse, un hilo
+ * propio lee los bloques y leer() entrega los que ya llegaron.
+ */
+public class SeguidorArchivo implements Closeable {
+
+    // Tamaño de los bloques de lectura.
+    private static final int BUFFER = 1 << 16;
+
+    // Bloques leídos del InputStream que pueden esperar a leer().
+    private static final int BLOQUES_EN_ESPERA = 64;
+
+    // Bloque que indica el final del InputStream.
+    private static final char[] FIN = new char[0];
+
+    // archivo: su ruta, el canal abierto (null si todavía no existe), su
+    // identidad para detectar que se lo reemplazó, y la posición leída.
+    private final Path ruta;
+    private FileChannel canal;
+    private Object identidad;
+    private long posicion;
+    private final CharsetDecoder decoder;
+    private final ByteBuffer bytes;
+    private final CharBuffer chars;
+
+    // InputStream: los bloques leídos por el hilo lector, y si ya terminó.
+    private final BlockingQueue<char[]> bloques;
+    private final Thread lector;
+    private boolean terminado;
+    private volatile IOException error;
+
+    /**
+     * @param archivo el archivo a seguir (puede no existir todavía).
+     * @param charset su codificación.
+     * @param desdeElFinal true para ignorar lo que el archivo ya tiene y leer
+     * sólo lo que se agregue; false para leerlo desde el principio.
+     * @throws IOException si el archivo existe y no se puede abrir.
+     */
+    public SeguidorArchivo(File archivo, Charset charset, boolean desdeElFinal) throws IOException {
+        this.ruta = archivo.toPath();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.bytes = ByteBuffer.allocate(BUFFER);
+        this.chars = CharBuffer.allocate(BUFFER);
+        this.bloques = null;
+        this.lector = null;
+        abrir();
+        if (desdeElFinal && canal != null) {
+            posicion = canal.size();
+        }
+    }
+
+    /**
+     * @param in la entrada a seguir (por ejemplo System.in).
+     * @param charset su codificación.
+     */
+    public SeguidorArchivo(InputStream in, Charset charset) {
+        this.ruta = null;
+        this.decoder = null;
+        this.bytes = null;
+        this.chars = null;
+        this.bloques = new ArrayBlockingQueue<>(BLOQUES_EN_ESPERA);
+        Reader r = new InputStreamReader(in, charset);
+        this.lector = new Thread(() -> leerEntrada(r), "seguidor-entrada");
+        this.lector.setDaemon(true);
+        this.lector.start();
+    }
+
+    /**
+     * Pasa al tokenizador el texto que se agregó desde la lectura anterior.
+     * Al terminar un InputStream invoca finalizar() sobre el tokenizador.
+     *
+     * @param tokenizador recibe el texto.
+     * @return la cantidad de caracteres leídos (0 si no había nada nuevo), o
+     * -1 si el InputStream terminó.
+     * @throws IOException si no se puede leer.
+     */
+    public long leer(Tokenizador tokenizador) throws IOException {
+        return ruta != null ? leerArchivo(tokenizador) : leerBloques(tokenizador);
+    }
+
+    private long leerArchivo(Tokenizador tokenizador) throws IOException {
+        BasicFileAttributes atributos;
+        try {
+            atributos = Files.readAttributes(ruta, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // rotado y todavía no recreado: se espera al nuevo.
+            return 0;
+        }
+        Object nueva = atributos.fileKey();
+        if (canal == null || nueva != null && !nueva.equals(identidad)) {
+            cerrarCanal();
+            abrir();
+            if (canal == null) {
+                return 0;
+            }
+        } else if (canal.size() < posicion) {
+            posicion = 0;
+            reiniciarDecoder();
+        }
+        long leidos = 0;
+        while (true) {
+            int n = canal.read(bytes, posicion);
+            if (n <= 0) {
+                break;
+            }
+            posicion += n;
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            // los bytes de un caracter incompleto quedan para la próxima.
+            bytes.compact();
+            chars.flip();
+            leidos += chars.remaining();
+            tokenizador.procesar(chars.array(), chars.position(), chars.limit());
+            chars.clear();
+        }
+        return leidos;
+    }
+
+    private long leerBloques(Tokenizador tokenizador) throws IOException {
+        if (terminado) {
+            return -1;
+        }
+        long leidos = 0;
+        char[] bloque;
+        while ((bloque = bloques.poll()) != null) {
+            if (bloque == FIN) {
+                terminado = true;
+                tokenizador.finalizar();
+                if (error != null) {
+                    throw error;
+                }
+                return leidos > 0 ? leidos : -1;
+            }
+            tokenizador.procesar(bloque, 0, bloque.length);
+            leidos += bloque.length;
+        }
+        return leidos;
+    }
+
+    /*
+     * Hilo lector del InputStream.
+     */
+    private void leerEntrada(Reader r) {
+        char[] buf = new char[BUFFER];
+        try {
+            int n;
+            while ((n = r.read(buf)) != -1) {
+                bloques.put(Arrays.copyOf(buf, n));
+            }
+        } catch (IOException e) {
+            error = e;
+        } catch (InterruptedException e) {
+            return;
+        }
+        try {
+            bloques.put(FIN);
+        } catch (InterruptedException e) {
+            // se cerró el seguidor.
+        }
+    }
+
+    private void abrir() throws IOException {
+        try {
+            canal = FileChannel.open(ruta, StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            canal = null;
+            return;
+        }
+        identidad = Files.readAttributes(ruta, BasicFileAttributes.class).fileKey();
+        posicion = 0;
+        reiniciarDecoder();
+    }
+
+    private void reiniciarDecoder() {
+        decoder.reset();
+        bytes.clear();
+    }
+
+    private void cerrarCanal() throws IOException {
+        if (canal != null) {
+            canal.close();
+            canal = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (lector != null) {
+            lector.interrupt();
+        } else {
+            cerrarCanal();
+        }
+    }
+}
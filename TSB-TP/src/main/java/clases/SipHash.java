@@ -0,0 +1,124 @@
+package clases;
+
+/**
+ * Función de hash SipHash-2-4 (Aumasson y Bernstein): un hash de 64 bits con
+ * clave de 128 bits, pensado para tablas hash que reciben datos externos. Sin
+ * conocer la clave no se pueden fabricar entradas que colisionen.
+ *
+ * hash(CharSequence) procesa los caracteres como UTF-16LE (de a 4 caracteres
+ * por palabra de 64 bits), sin crear un arreglo de bytes: da lo mismo que
+ * hash() sobre los bytes de s.getBytes(StandardCharsets.UTF_16LE).
+ */
+public final class SipHash {
+
+    private final long k0;
+    private final long k1;
+
+    /**
+     * @param k0 los primeros 64 bits de la clave (little endian).
+     * @param k1 los últimos 64 bits de la clave.
+     */
+    public SipHash(long k0, long k1) {
+        this.k0 = k0;
+        this.k1 = k1;
+    }
+
+    /**
+     * Calcula el hash de los caracteres de la secuencia.
+     *
+     * @param s la secuencia.
+     * @return el hash de 64 bits.
+     */
+    public long hash(CharSequence s) {
+        Estado e = new Estado(k0, k1);
+        int n = s.length();
+        int i = 0;
+        for (; i + 4 <= n; i += 4) {
+            e.comprimir((long) s.charAt(i)
+                    | (long) s.charAt(i + 1) << 16
+                    | (long) s.charAt(i + 2) << 32
+                    | (long) s.charAt(i + 3) << 48);
+        }
+        long b = (long) (2 * n) << 56;
+        for (int j = 0; i < n; i++, j += 16) {
+            b |= (long) s.charAt(i) << j;
+        }
+        return e.finalizar(b);
+    }
+
+    /**
+     * Calcula el hash de los bytes indicados.
+     *
+     * @param datos los bytes.
+     * @return el hash de 64 bits.
+     */
+    public long hash(byte[] datos) {
+        Estado e = new Estado(k0, k1);
+        int n = datos.length;
+        int i = 0;
+        for (; i + 8 <= n; i += 8) {
+            long m = 0;
+            for (int j = 7; j >= 0; j--) {
+                m = m << 8 | (datos[i + j] & 0xFF);
+            }
+            e.comprimir(m);
+        }
+        long b = (long) n << 56;
+        for (int j = 0; i < n; i++, j += 8) {
+            b |= (long) (datos[i] & 0xFF) << j;
+        }
+        return e.finalizar(b);
+    }
+
+    /*
+     * Los cuatro registros de 64 bits del algoritmo.
+     */
+    private static final class Estado {
+
+        long v0;
+        long v1;
+        long v2;
+        long v3;
+
+        Estado(long k0, long k1) {
+            v0 = k0 ^ 0x736f6d6570736575L;
+            v1 = k1 ^ 0x646f72616e646f6dL;
+            v2 = k0 ^ 0x6c7967656e657261L;
+            v3 = k1 ^ 0x7465646279746573L;
+        }
+
+        void comprimir(long m) {
+            v3 ^= m;
+            ronda();
+            ronda();
+            v0 ^= m;
+        }
+
+        long finalizar(long b) {
+            comprimir(b);
+            v2 ^= 0xFF;
+            ronda();
+            ronda();
+            ronda();
+            ronda();
+            return v0 ^ v1 ^ v2 ^ v3;
+        }
+
+        void ronda() {
+            v0 += v1;
+            v1 = Long.rotateLeft(v1, 13);
+            v1 ^= v0;
+            v0 = Long.rotateLeft(v0, 32);
+            v2 += v3;
+            v3 = Long.rotateLeft(v3, 16);
+            v3 ^= v2;
+            v0 += v3;
+            v3 = Long.rotateLeft(v3, 21);
+            v3 ^= v0;
+            v2 += v1;
+            v1 = Long.rotateLeft(v1, 17);
+            v1 ^= v2;
+            v2 = Long.rotateLeft(v2, 32);
+        }
+    }
+}
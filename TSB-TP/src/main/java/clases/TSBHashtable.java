@@ -1,19 +1,43 @@
 package clases;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.AbstractSet;
 import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
 
 /**
  * Clase que provee una tabla Hash con direccionamiento abierto.
  *
+ * El hashCode() de cada clave se mezcla con una semilla al azar propia de
+ * cada tabla, de forma que no se puede predecir en qué casilla cae una clave.
+ * Eso no alcanza si muchas claves tienen el mismo hashCode() (es fácil
+ * fabricar Strings así): si una inserción encuentra una secuencia de sondeo
+ * larga formada por claves con su mismo hash, la tabla pasa a calcular el
+ * hash de las claves que son CharSequence (String, Palabra) con SipHash sobre
+ * sus caracteres, con una clave al azar. Ver isHashResistente().
+ *
+ * Opcionalmente, al crear la tabla se puede indicar una EstrategiaHash que
+ * reemplaza a hashCode() y equals() de las claves (por ejemplo para no
+ * distinguir mayúsculas ni acentos, ver EstrategiasTexto). Sin estrategia la
+ * tabla funciona igual que siempre.
+ *
  * @version Noviembre de 2017.
  * @param <K> el tipo de los objetos que serán usados como clave en la tabla.
  * @param <V> el tipo de los objetos que serán los valores de la tabla.
@@ -21,9 +45,14 @@ import java.util.Set;
 public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     //************************ Constantes.    
 
-    // el tamaño máximo que podrá tener el arreglo de soporte...
-    // TODO: Modificar para que sea el mayor primo que admite un Integer.
-    private final static int MAX_CAPACITY = Integer.MAX_VALUE;
+    // Fijo en el valor con el que se generaron los TSBHashtable.dat ya
+    // guardados, para poder seguir leyéndolos (ver readObject()).
+    private static final long serialVersionUID = 0x6244f77e2c7c947aL;
+
+    // el tamaño máximo que podrá tener el arreglo de soporte: el mayor primo
+    // que admite un arreglo (las JVM reservan algunas posiciones por debajo de
+    // Integer.MAX_VALUE). Para más claves ver TSBHashtableGrande.
+    private final static int MAX_CAPACITY = 2147483629;
     
     // Capacidad por defecto.
     private final static int DEFAULT_CAPACITY = 10;
@@ -31,9 +60,24 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     // Factor de carga por defecto. NO debe ser mayor a 0.5f
     private final static float DEFAULT_LOAD_FACTOR = 0.5f;
 
+    // Mínimo de la cantidad de sondeos a partir de la cual una inserción
+    // adelanta el crecimiento de la tabla (ver getLimiteSondeo()).
+    private final static int MIN_LIMITE_SONDEO = 8;
+
+    // Cantidad de búsquedas que getAll() y mergeAll() avanzan a la vez.
+    private final static int CARRILES = 16;
+
+    // Casillas que recorre cada tarea de diferencia() y combinar(): con menos
+    // casillas no conviene repartir el trabajo.
+    private final static int CASILLAS_POR_TAREA = 1 << 14;
+
+    // Cantidad de pares que combinar() agrega por invocación a mergeAll().
+    private final static int LOTE_COMBINACION = 1024;
+
     //************************ Atributos privados (estructurales).
     // la tabla hash: el arreglo que contiene las entradas...
-    private Entry<K, V> table[];
+    // No se serializa: se escriben sólo los pares vivos (ver writeObject()).
+    private transient Entry<K, V> table[];
 
     // el tamaño inicial de la tabla (tamaño con el que fue creada). Corresponde
     // al primer tamaño válido (nro primo) mayor al requerido.
@@ -42,6 +86,39 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     // la cantidad de objetos que contiene la tabla.
     private int size;
 
+    // la cantidad de casillas no vacías (objetos vivos más tumbas): es la que
+    // se compara con el factor de carga, porque las tumbas también alargan
+    // las secuencias de sondeo.
+    private transient int ocupadas;
+
+    // semilla con la que se mezcla el hashCode() de las claves.
+    private transient int semilla;
+
+    // función de hash de las claves CharSequence desde que se detectaron
+    // colisiones de hashCode() en masa, o null mientras no ocurra.
+    private transient SipHash resistente;
+
+    // hash y equivalencia de las claves, o null para usar hashCode() y
+    // equals(). Se serializa con la tabla.
+    private EstrategiaHash<? super K> estrategia;
+
+    // publicador de los cambios, creado la primera vez que se lo pide.
+    private transient volatile PublicadorCambios<K, V> publicador;
+
+    // la mayor cantidad de sondeos que necesitó una inserción desde el último
+    // rehash: ninguna clave está más lejos de su casilla inicial, por lo que
+    // la búsqueda de una clave que no existe se corta ahí.
+    private transient int maxSondeo;
+
+    // contadores de operaciones, o null si no se cuentan (ver
+    // setEstadisticas()). Volatile porque se activan desde otros hilos (por
+    // ejemplo desde JMX, ver TSBHashtableMonitor).
+    private transient volatile EstadisticasTabla.Contadores contadores;
+
+    // cantidad de reconstrucciones del arreglo y su duración total.
+    private transient int rehashes;
+    private transient long nanosRehash;
+
     // el factor de carga para calcular si hace falta un rehashing.
     // no debe ser mayor a 0.5f para asegurar que el direccionamiento abierto
     // funcione.
@@ -89,11 +166,38 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
      * @param load_factor el factor de carga de la tabla.
      */
     public TSBHashtable(int initial_capacity, float load_factor) {
+        this(initial_capacity, load_factor, null);
+    }
+
+    /**
+     * Crea una tabla vacía, con la capacidad inicial indicada, con factor de
+     * carga igual a 0.5f y que compara las claves con la estrategia indicada.
+     *
+     * @param initial_capacity la capacidad inicial de la tabla.
+     * @param estrategia el hash y la equivalencia de las claves (null para
+     * usar hashCode() y equals()).
+     */
+    public TSBHashtable(int initial_capacity, EstrategiaHash<? super K> estrategia) {
+        this(initial_capacity, DEFAULT_LOAD_FACTOR, estrategia);
+    }
+
+    /**
+     * Crea una tabla vacía, con la capacidad inicial, el factor de carga y la
+     * estrategia de comparación de claves indicados.
+     *
+     * @param initial_capacity la capacidad inicial usable de la tabla.
+     * @param load_factor el factor de carga de la tabla.
+     * @param estrategia el hash y la equivalencia de las claves (null para
+     * usar hashCode() y equals()).
+     */
+    public TSBHashtable(int initial_capacity, float load_factor, EstrategiaHash<? super K> estrategia) {
+        this.estrategia = estrategia;
         setLoadFactor(load_factor);
         setInitialCapacity(initial_capacity); // Debe estar despues de setLoadFactor();
-        this.table = new Entry[initial_capacity];      
+        this.table = new Entry[initialCapacity];
         this.size = 0;
         this.modCount = 0;
+        this.semilla = ThreadLocalRandom.current().nextInt();
     }
 
     /**
@@ -109,7 +213,7 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     }
     
     private void setLoadFactor(float factor) {
-        loadFactor = factor < 0 || factor > 0.5f ? DEFAULT_LOAD_FACTOR : factor;
+        loadFactor = factor <= 0 || factor > 0.5f ? DEFAULT_LOAD_FACTOR : factor;
     }
     
     /**
@@ -121,22 +225,31 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     private void setInitialCapacity(int initial_capacity) {
         if (initial_capacity <= 0) {
             initial_capacity = DEFAULT_CAPACITY;
-        } else if (initial_capacity > TSBHashtable.MAX_CAPACITY) {
-            initial_capacity = TSBHashtable.MAX_CAPACITY;
-        } else {
-            /* 
-             * La capacidad inicial se aumenta en funcion del load_factor de 
-             * forma que la tabla en su maxima capacidad pueda contener la 
-             * cantidad de elementos pasada por parametro.
-             */
-            initial_capacity = (int) ((float) initial_capacity / loadFactor);
-            initial_capacity = proximoPrimo(initial_capacity);
         }
-        this.initialCapacity = initial_capacity;
+        /* 
+         * La capacidad inicial se aumenta en funcion del load_factor de 
+         * forma que la tabla en su maxima capacidad pueda contener la 
+         * cantidad de elementos pasada por parametro. Debe ser primo para
+         * que el sondeo cuadrático recorra la mitad de las casillas.
+         */
+        this.initialCapacity = capacidadPara(initial_capacity);
+    }
+
+    /*
+     * El tamaño de arreglo (primo) necesario para guardar cantidad objetos sin
+     * superar el factor de carga, como mucho MAX_CAPACITY. Se calcula en long
+     * para que las cantidades grandes no desborden.
+     */
+    private int capacidadPara(long cantidad) {
+        long necesaria = (long) Math.ceil(cantidad / (double) loadFactor);
+        if (necesaria >= TSBHashtable.MAX_CAPACITY) {
+            return TSBHashtable.MAX_CAPACITY;
+        }
+        return proximoPrimo((int) necesaria);
     }
 
     private int proximoPrimo(int initial) {
-        for (int i = initial; i < Integer.MAX_VALUE; i++) {
+        for (int i = Math.max(initial, 3); i < Integer.MAX_VALUE; i++) {
             if (esPrimo(i)) {
                 return i;
             }
@@ -243,31 +356,78 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
         if (key == null || value == null) {
             throw new NullPointerException("put(): parámetro null");
         }
-        if ((size + 1) / table.length >= loadFactor) {
-            rehash();
-        }
-        // TODO: Todo este codigo es muy similar a getEntry, si se los puede
-        //       unificar de alguna manera, se reduce el codigo duplicado.
-        V old = null;
-        Iterator<Integer> it = getIndexIterator(h(key.hashCode()));
-        int i;
-        while (it.hasNext()) {
-            i = it.next();
-            if (table[i] == null) {
-                table[i] = new Entry(key, value);
-                break;
+        if (ocupadas + 1 > table.length * loadFactor) {
+            reorganizar();
+            if (ocupadas + 1 > table.length * loadFactor) {
+                // ya tiene MAX_CAPACITY casillas y no hay tumbas que descartar.
+                throw new IllegalStateException("put(): la tabla llegó a su capacidad máxima ("
+                        + TSBHashtable.MAX_CAPACITY + " casillas), usar TSBHashtableGrande");
             }
-            else if (table[i].getKey().equals(key)) {
+        }
+        int n = table.length;
+        int hash = hash(key);
+        int i = h(hash);
+        // primera tumba de la secuencia: si la clave no está, se la reutiliza.
+        int tumba = -1;
+        int sondeosTumba = 0;
+        int sondeos = 0;
+        // claves de la secuencia con el mismo hash (colisiones completas).
+        int iguales = 0;
+        // sondeo cuadrático incremental: i, i + 1, i + 4, i + 9... (módulo n).
+        for (int paso = 1; table[i] != null; paso += 2) {
+            Entry<K, V> e = table[i];
+            if (e.hash == hash && mismaClave(key, e.getKey())) {
                 // Si esta ocupado retorna el objeto, si es tumba retorna null.
-                old = table[i].setValue(value);
-                break;
+                boolean viva = e.alive();
+                contarEscritura(viva, sondeos, key);
+                V old = e.asignar(value);
+                if (!viva) {
+                    size++;
+                    old = null;
+                }
+                modCount++;
+                notificar(viva ? Cambio.Tipo.MODIFICACION : Cambio.Tipo.ALTA, key, value);
+                return old;
+            }
+            if (tumba < 0 && e.dead()) {
+                tumba = i;
+                sondeosTumba = sondeos;
             }
+            if (e.hash == hash) {
+                iguales++;
+            }
+            sondeos++;
+            i = siguiente(i, paso, n);
         }
-        if (old == null) {
-            size++;
+        contarEscritura(false, sondeos, key);
+        if (tumba >= 0) {
+            i = tumba;
+            sondeos = sondeosTumba;
+        } else {
+            ocupadas++;
         }
+        table[i] = new Entry(key, value, hash);
+        size++;
         modCount++;
-        return old;
+        if (sondeos > maxSondeo) {
+            maxSondeo = sondeos;
+            int limite = getLimiteSondeo();
+            if (sondeos > limite && iguales > limite / 2 && resistente == null
+                    && estrategia == null && key instanceof CharSequence) {
+                // la secuencia larga se debe a claves con el mismo hash:
+                // crecer no ayuda, se cambia la función de hash.
+                activarHashResistente();
+            } else if (sondeos > limite && size > table.length * loadFactor / 4
+                    && table.length < TSBHashtable.MAX_CAPACITY) {
+                // secuencias largas con la tabla poco cargada indican muchas
+                // colisiones: se crece antes de llegar al factor de carga.
+                // Con la tabla casi vacía no se crece (si las claves tienen
+                // el mismo hashCode() crecer no ayuda).
+                rehash();
+            }
+        }
+        notificar(Cambio.Tipo.ALTA, key, value);
+        return null;
     }
     
     /**
@@ -290,7 +450,10 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
         if (entry != null && entry.alive()){
             size--;
             modCount++;
-            return entry.kill();
+            contarBaja();
+            V old = entry.kill();
+            notificar(Cambio.Tipo.BAJA, entry.getKey(), null);
+            return old;
         }
         return null;
     }
@@ -319,7 +482,12 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
     public void clear() {
         this.table = new Entry[initialCapacity];
         this.size = 0;
+        this.ocupadas = 0;
+        this.maxSondeo = 0;
         this.modCount++;
+        if (publicador != null && publicador.activo()) {
+            publicador.vaciar();
+        }
     }
 
     /**
@@ -406,7 +574,8 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
      * Retorna una copia superficial de la tabla. Las entradas que conforman la
      * tabla se clonan, pero no se clonan los objetos que estas contienen: en
      * cada entrada de la tabla se almacenan las direcciones de los mismos
-     * objetos que contiene la original.
+     * objetos que contiene la original. Las tumbas se copian como tumbas, para
+     * que las secuencias de sondeo de la copia sean las mismas.
      *
      * @return una copia superficial de la tabla.
      * @throws java.lang.CloneNotSupportedException si la clase no implementa la
@@ -417,11 +586,19 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
         TSBHashtable<K, V> copy = (TSBHashtable<K, V>) super.clone();
         copy.table = new Entry[table.length];
         for (int i = 0; i < table.length; i++) {
-            copy.table[i] = (Entry<K, V>) table[i].clone();
+            if (table[i] != null) {
+                // la entrada nueva pertenece a la copia (avisa a ella sus
+                // cambios).
+                copy.table[i] = copy.new Entry<K, V>(table[i]);
+            }
         }
         copy.keySet = null;
         copy.entrySet = null;
         copy.values = null;
+        copy.publicador = null;
+        copy.contadores = contadores != null ? new EstadisticasTabla.Contadores() : null;
+        copy.rehashes = 0;
+        copy.nanosRehash = 0;
         copy.modCount = 0;
         return copy;
     }
@@ -533,6 +710,198 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
         return false;
     }
     
+    /**
+     * Retorna el publicador de los cambios de la tabla (altas, modificaciones,
+     * bajas y vaciados), para aplicarlos en otra estructura a medida que
+     * ocurren en lugar de recorrer la tabla completa. Los suscriptores reciben
+     * lotes de cambios acumulados por clave, sólo cuando los piden (ver
+     * PublicadorCambios). Por defecto los lotes se entregan en el pool común
+     * de ForkJoin; con suscribir() se elige otro ejecutor.
+     *
+     * Mientras no haya suscriptores la tabla no registra los cambios.
+     *
+     * @return el publicador (siempre el mismo para esta tabla).
+     */
+    public synchronized PublicadorCambios<K, V> getCambios() {
+        if (publicador == null) {
+            publicador = new PublicadorCambios<>(ForkJoinPool.commonPool(),
+                    PublicadorCambios.LOTE_POR_DEFECTO);
+        }
+        return publicador;
+    }
+
+    /*
+     * Registra un cambio si alguien está suscripto.
+     */
+    private void notificar(Cambio.Tipo tipo, Object key, Object value) {
+        if (publicador != null && publicador.activo()) {
+            publicador.registrar(tipo, (K) key, (V) value);
+        }
+    }
+
+    /**
+     * Busca varias claves a la vez: out[i] recibe el valor asociado a
+     * keys[i], o null si la clave no está en la tabla.
+     *
+     * Equivale a invocar get() con cada clave, pero primero se calculan los
+     * hash de un grupo de claves y luego se avanzan sus secuencias de sondeo
+     * intercaladas (un paso de cada una por vuelta). Como los accesos de
+     * claves distintas no dependen entre sí, el procesador puede esperar
+     * varias lecturas de memoria al mismo tiempo en lugar de una detrás de
+     * otra, lo que conviene con tablas que no entran en la memoria caché.
+     *
+     * @param keys las claves a buscar.
+     * @param out el arreglo que recibe los valores (al menos tan largo como
+     * keys).
+     * @throws NullPointerException si alguna clave es null.
+     * @throws IllegalArgumentException si out es más corto que keys.
+     */
+    public void getAll(K[] keys, V[] out) {
+        if (out.length < keys.length) {
+            throw new IllegalArgumentException("getAll(): arreglo de salida muy corto");
+        }
+        Entry<K, V>[] encontradas = new Entry[keys.length];
+        buscarEntradas(keys, encontradas);
+        for (int i = 0; i < keys.length; i++) {
+            out[i] = encontradas[i] != null ? encontradas[i].getValue() : null;
+        }
+    }
+
+    /**
+     * Combina varios pares a la vez, como invocar merge(keys[i], values[i],
+     * funcion) en orden: si la clave no está se agrega con su valor; si está,
+     * se reemplaza su valor por funcion(anterior, values[i]), o se elimina si
+     * la función retorna null.
+     *
+     * Las claves que ya están en la tabla se buscan con las secuencias de
+     * sondeo intercaladas, como en getAll(); las nuevas se agregan de a una.
+     *
+     * @param keys las claves.
+     * @param values los valores a combinar (al menos tan largo como keys).
+     * @param funcion la función que combina el valor anterior con el nuevo.
+     * @throws NullPointerException si alguna clave o valor es null.
+     * @throws IllegalArgumentException si values es más corto que keys.
+     */
+    public void mergeAll(K[] keys, V[] values, BiFunction<? super V, ? super V, ? extends V> funcion) {
+        if (values.length < keys.length) {
+            throw new IllegalArgumentException("mergeAll(): faltan valores");
+        }
+        Entry<K, V>[] encontradas = new Entry[keys.length];
+        buscarEntradas(keys, encontradas);
+        for (int i = 0; i < keys.length; i++) {
+            V value = values[i];
+            if (value == null) {
+                throw new NullPointerException("mergeAll(): valor null");
+            }
+            Entry<K, V> e = encontradas[i];
+            // la entrada pudo morir por una clave repetida antes en el lote.
+            if (e == null || e.dead()) {
+                merge(keys[i], value, funcion);
+                continue;
+            }
+            V nuevo = funcion.apply(e.getValue(), value);
+            if (nuevo == null) {
+                e.kill();
+                size--;
+                contarBaja();
+                notificar(Cambio.Tipo.BAJA, e.getKey(), null);
+            } else {
+                e.asignar(nuevo);
+                EstadisticasTabla.Contadores c = contadores;
+                if (c != null) {
+                    c.escrituras++;
+                }
+                notificar(Cambio.Tipo.MODIFICACION, e.getKey(), nuevo);
+            }
+            modCount++;
+        }
+    }
+
+    /*
+     * Busca las entradas vivas de las claves indicadas (null si no están),
+     * avanzando de a CARRILES secuencias de sondeo intercaladas.
+     */
+    private void buscarEntradas(Object[] keys, Entry<K, V>[] encontradas) {
+        Entry<K, V>[] t = table;
+        int n = t.length;
+        int[] hashes = new int[CARRILES];
+        int[] pos = new int[CARRILES];
+        int[] pasos = new int[CARRILES];
+        Entry<K, V>[] entradas = new Entry[CARRILES];
+        EstadisticasTabla.Contadores c = contadores;
+        for (int base = 0; base < keys.length; base += CARRILES) {
+            int carriles = Math.min(CARRILES, keys.length - base);
+            // primero todos los hash del grupo...
+            for (int j = 0; j < carriles; j++) {
+                Object key = keys[base + j];
+                if (key == null) {
+                    throw new NullPointerException("buscarEntradas(): clave null");
+                }
+                hashes[j] = hash(key);
+                pos[j] = h(hashes[j]);
+                pasos[j] = 1;
+            }
+            // ... y luego un sondeo de cada búsqueda pendiente por vuelta. Un
+            // bit en 1 de pendientes indica un carril sin terminar.
+            int pendientes = (1 << carriles) - 1;
+            int sondeos = 0;
+            for (; pendientes != 0 && sondeos <= maxSondeo; sondeos++) {
+                // se leen las casillas de todos los carriles antes de mirar
+                // cualquier entrada, para que las lecturas se superpongan.
+                for (int j = 0; j < carriles; j++) {
+                    entradas[j] = t[pos[j]];
+                }
+                for (int j = 0; j < carriles; j++) {
+                    if ((pendientes & (1 << j)) == 0) {
+                        continue;
+                    }
+                    Entry<K, V> e = entradas[j];
+                    if (e == null) {
+                        pendientes &= ~(1 << j);
+                        if (c != null) {
+                            c.fallo(sondeos);
+                        }
+                    } else if (e.hash == hashes[j] && mismaClave(keys[base + j], e.getKey())) {
+                        encontradas[base + j] = e.alive() ? e : null;
+                        pendientes &= ~(1 << j);
+                        if (c != null) {
+                            if (e.alive()) {
+                                c.acierto(sondeos);
+                            } else {
+                                c.fallo(sondeos);
+                            }
+                        }
+                    } else {
+                        pos[j] = siguiente(pos[j], pasos[j], n);
+                        pasos[j] += 2;
+                    }
+                }
+            }
+            // las que siguen pendientes superaron el sondeo máximo.
+            if (c != null) {
+                for (int p = pendientes; p != 0; p &= p - 1) {
+                    c.fallo(sondeos);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retorna la entrada viva cuya clave tiene los mismos caracteres que el
+     * texto indicado, o null si no existe. Sirve para buscar una clave String
+     * con una Palabra del tokenizador sin crear un String: el hash es el de
+     * String (Palabra.hashCode() lo respeta) y, si la tabla no tiene
+     * estrategia, las claves se comparan por contenido como en
+     * EstrategiasTexto.CONTENIDO, no con equals(). Con estrategia se usa la
+     * de la tabla.
+     *
+     * @param texto el texto a buscar.
+     * @return la entrada encontrada o null si no existe.
+     */
+    Map.Entry<K, V> buscarEntrada(CharSequence texto) {
+        return getEntry(texto, estrategia == null && !(texto instanceof String));
+    }
+
     /**
      * Retorna la entrada de la clave indicada o null si no existe.
      * Filtra las entradas muertas.
@@ -540,47 +909,234 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
      * @param key
      * @return la entrada buscada o null si no existe.
      */
-    private Entry<K, V> getEntry(K key) {
+    private Entry<K, V> getEntry(Object key) {
+        return getEntry(key, false);
+    }
+
+    /*
+     * Como getEntry(key); con porContenido la clave es una CharSequence que
+     * se compara por sus caracteres (ver buscarEntrada()).
+     */
+    private Entry<K, V> getEntry(Object key, boolean porContenido) {
         if (key == null) {
             throw new NullPointerException("getEntry(): parámetro null");
         }
         
-        int startIndex = h(key.hashCode());
-        Iterator<Integer> index = getIndexIterator(startIndex);
-        Entry<K, V> entry;
-
-        while (index.hasNext()) {
-            int i = index.next();
-            entry = table[i];
+        int n = table.length;
+        int hash = hash(key);
+        int i = h(hash);
+        // ninguna clave está a más de maxSondeo sondeos de su casilla inicial.
+        int sondeos = 0;
+        for (int paso = 1; sondeos <= maxSondeo; sondeos++, paso += 2) {
+            Entry<K, V> entry = table[i];
             if (entry == null) {
-                return null;
+                break;
             }
-            if(entry.getKey().equals(key)){
+            if(entry.hash == hash && (porContenido ? mismoTexto(key, entry.getKey())
+                    : mismaClave(key, entry.getKey()))){
                 // Si la entrada es tumba y tiene esta clave retorna null.
-                return entry.alive() ? entry : null;
+                boolean viva = entry.alive();
+                contarBusqueda(viva, sondeos, key);
+                return viva ? entry : null;
             }
+            i = siguiente(i, paso, n);
         }
-        // se recorrieron todas las casillas y no esta el objeto.
+        contarBusqueda(false, sondeos, key);
         return null;
     }
 
+    /**
+     * Retorna la mayor cantidad de sondeos (casillas ocupadas salteadas) que
+     * necesitó una inserción desde el último rehash. Es también la mayor
+     * cantidad de casillas que recorre una búsqueda.
+     *
+     * @return la longitud máxima de sondeo.
+     */
+    public int getMaxSondeo() {
+        return maxSondeo;
+    }
+
+    /**
+     * Retorna la cantidad de sondeos a partir de la cual una inserción hace
+     * crecer la tabla antes de llegar al factor de carga (si la tabla no está
+     * casi vacía). Es el doble del logaritmo en base 2 del tamaño del arreglo,
+     * holgado para claves bien dispersas con carga 0.5.
+     *
+     * @return el límite de sondeos.
+     */
+    public int getLimiteSondeo() {
+        return Math.max(MIN_LIMITE_SONDEO, 2 * (32 - Integer.numberOfLeadingZeros(table.length)));
+    }
+
+    /**
+     * Indica si la tabla detectó colisiones de hashCode() en masa y calcula
+     * el hash de las claves CharSequence con SipHash.
+     *
+     * @return true si usa el hash resistente a colisiones.
+     */
+    public boolean isHashResistente() {
+        return resistente != null;
+    }
+
+    /**
+     * @return la estrategia de hash y equivalencia de las claves, o null si
+     * se usan hashCode() y equals().
+     */
+    public EstrategiaHash<? super K> getEstrategia() {
+        return estrategia;
+    }
+
+    /**
+     * @return el tamaño actual del arreglo de soporte.
+     */
+    public int getCapacidad() {
+        return table.length;
+    }
+
+    /**
+     * Activa o desactiva el conteo de operaciones (búsquedas con sus
+     * sondeos, escrituras y bajas) que informa getEstadisticas(). Desactivado
+     * (como al crear la tabla) no tiene costo; activado agrega unos pocos
+     * incrementos por operación. Al activarlo los contadores empiezan en 0.
+     *
+     * Puede invocarse desde otro hilo mientras se usa la tabla.
+     *
+     * @param activas true para contar las operaciones.
+     */
+    public void setEstadisticas(boolean activas) {
+        if (activas != (contadores != null)) {
+            contadores = activas ? new EstadisticasTabla.Contadores() : null;
+        }
+    }
+
+    /**
+     * @return true si la tabla cuenta sus operaciones.
+     */
+    public boolean isEstadisticas() {
+        return contadores != null;
+    }
+
+    /**
+     * Vuelve a 0 los contadores de operaciones (si están activos) y los de
+     * rehash.
+     */
+    public void reiniciarEstadisticas() {
+        if (contadores != null) {
+            contadores = new EstadisticasTabla.Contadores();
+        }
+        rehashes = 0;
+        nanosRehash = 0;
+    }
+
+    /**
+     * Retorna el estado de la tabla: casillas vivas, tumbas y vacías,
+     * sondeos, crecimientos y memoria estimada, y los contadores de
+     * operaciones si están activos. Es una copia: no cambia con la tabla, y
+     * su costo no depende del tamaño de la tabla.
+     *
+     * @return las estadísticas de la tabla.
+     */
+    public EstadisticasTabla getEstadisticas() {
+        return new EstadisticasTabla(table.length, size, ocupadas, loadFactor, maxSondeo,
+                getLimiteSondeo(), resistente != null, rehashes, nanosRehash, contadores);
+    }
+
+    /*
+     * Cuentan las operaciones si las estadísticas están activas, y registran
+     * las secuencias de sondeo largas en JFR (ver EventosJFR).
+     */
+    private void contarBusqueda(boolean acierto, int sondeos, Object key) {
+        if (sondeos >= EventosJFR.UMBRAL_SONDEO) {
+            EventosJFR.sondeoLargo(false, sondeos, table.length, key);
+        }
+        EstadisticasTabla.Contadores c = contadores;
+        if (c != null) {
+            if (acierto) {
+                c.acierto(sondeos);
+            } else {
+                c.fallo(sondeos);
+            }
+        }
+    }
+
+    private void contarEscritura(boolean acierto, int sondeos, Object key) {
+        if (sondeos >= EventosJFR.UMBRAL_SONDEO) {
+            EventosJFR.sondeoLargo(true, sondeos, table.length, key);
+        }
+        EstadisticasTabla.Contadores c = contadores;
+        if (c != null) {
+            c.escrituras++;
+            if (acierto) {
+                c.acierto(sondeos);
+            } else {
+                c.fallo(sondeos);
+            }
+        }
+    }
+
+    private void contarBaja() {
+        EstadisticasTabla.Contadores c = contadores;
+        if (c != null) {
+            c.bajas++;
+        }
+    }
+
+    /*
+     * Pasa a calcular el hash de las claves CharSequence con SipHash (con una
+     * clave al azar) y las reubica todas.
+     */
+    private void activarHashResistente() {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        resistente = new SipHash(r.nextLong(), r.nextLong());
+        for (Entry<K, V> x : table) {
+            if (x != null && x.alive()) {
+                x.hash = hash(x.getKey());
+            }
+        }
+        redistribuir(table.length);
+    }
+
+    /*
+     * Se invoca cuando las casillas ocupadas (objetos vivos y tumbas) llegan
+     * al factor de carga. Si la mitad o más son tumbas alcanza con reconstruir
+     * el arreglo con el mismo tamaño, descartándolas; si no, la tabla crece.
+     */
+    private void reorganizar() {
+        if (size <= ocupadas / 2) {
+            redistribuir(table.length);
+        } else {
+            rehash();
+        }
+    }
+
     /**
      * Incrementa el tamaño de la tabla y reorganiza su contenido. Se invoca
-     * automaticamente cuando se detecta que la cantidad de objetos supera el 
-     * factor de carga establecido.
+     * automaticamente cuando las casillas ocupadas (objetos y tumbas) superan
+     * el factor de carga establecido, o cuando una inserción necesita más
+     * sondeos que getLimiteSondeo().
      */
     protected void rehash() {
         int old_length = table.length;
 
         // nuevo tamaño: doble del anterior, más uno para llevarlo a impar...
-        int new_length = proximoPrimo(old_length * 2 + 1);
+        // (en long: a partir de 2^30 casillas el doble desborda un int).
+        long doble = (long) old_length * 2 + 1;
 
         // no permitir que la tabla tenga un tamaño mayor al límite máximo...
         // ... para evitar overflow y/o desborde de índices...
-        if (new_length > TSBHashtable.MAX_CAPACITY) {
-            new_length = TSBHashtable.MAX_CAPACITY;
-        }
+        int new_length = doble >= TSBHashtable.MAX_CAPACITY
+                ? TSBHashtable.MAX_CAPACITY : proximoPrimo((int) doble);
+
+        redistribuir(new_length);
+    }
 
+    /*
+     * Crea un arreglo de new_length casillas y ubica en él las entradas vivas
+     * (las tumbas se descartan), recalculando la longitud máxima de sondeo.
+     */
+    private void redistribuir(int new_length) {
+        long inicio = System.nanoTime();
+        EventosJFR.Rehash evento = EventosJFR.rehash();
         // crear el nuevo arreglo con new_length entradas...
         Entry<K, V> new_table[] = new Entry[new_length];
 
@@ -588,114 +1144,561 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
         this.modCount++;
 
         // recorrer el viejo arreglo y redistribuir los objetos que tenia...
+        int max = 0;
         for (Entry<K, V> x : this.table) {
-            if (x == null) {
+            if (x == null || x.dead()) {
                 continue;
             }
-            // obtener su nuevo valor de dispersión para el nuevo arreglo...
-            K key = x.getKey();
-            int y = this.h(key, new_table.length);
+            // obtener su nuevo valor de dispersión para el nuevo arreglo y
+            // ubicarlo en la primera casilla libre de su secuencia (las claves
+            // son distintas, no hace falta compararlas)...
+            int y = this.h(x.hash, new_length);
+            int sondeos = 0;
+            for (int paso = 1; new_table[y] != null; paso += 2) {
+                sondeos++;
+                y = siguiente(y, paso, new_length);
+            }
+            new_table[y] = x;
+            if (sondeos > max) {
+                max = sondeos;
+            }
+        }
 
-            // insertarlo en el nuevo arreglo, en la lista numero "y"...
-            new_table[y] = new Entry(key, x.getValue());
+        if (evento != null) {
+            evento.capacidadAnterior = this.table.length;
+            evento.capacidadNueva = new_length;
+            evento.vivas = this.size;
+            evento.tumbas = this.ocupadas - this.size;
+            evento.maxSondeo = max;
+            evento.commit();
         }
 
         // cambiar la referencia table para que apunte a temp...
         this.table = new_table;
+        this.ocupadas = this.size;
+        this.maxSondeo = max;
+        this.rehashes++;
+        this.nanosRehash += System.nanoTime() - inicio;
     }
 
-    //************************ Métodos privados.
-    /*
-     * Función hash. Toma una clave entera k y calcula y retorna un índice 
-     * válido para esa clave para entrar en la tabla.     
+    //************************ Comparación y combinación de tablas.
+    /**
+     * Compara esta tabla (la anterior) con la indicada (la nueva) y retorna
+     * sus diferencias: los pares agregados, los quitados y los modificados
+     * (con valores distintos según equals()). Ninguna de las dos tablas se
+     * modifica, y no deben modificarse durante la comparación.
+     *
+     * Si las dos tablas ubican las claves en las mismas casillas (una es una
+     * copia de la otra hecha con clone(), como las instantáneas de
+     * GuardadoPeriodico, y ninguna cambió de capacidad desde entonces) se
+     * comparan directamente las casillas de igual posición, y sólo las claves
+     * que no están en la misma casilla se buscan en la otra tabla. Si no,
+     * cada clave se busca en la otra tabla. Las tablas grandes se recorren
+     * por rangos de casillas en paralelo, en el pool común de ForkJoin.
+     *
+     * @param nueva la tabla con la que se compara.
+     * @return las diferencias de esta tabla a nueva, en el orden de las
+     * casillas.
+     */
+    public DiferenciaTablas<K, V> diferencia(TSBHashtable<K, V> nueva) {
+        return diferencia(nueva, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Como diferencia(nueva), recorriendo las tablas grandes en el pool
+     * indicado.
+     *
+     * @param nueva la tabla con la que se compara.
+     * @param pool el pool donde se reparte la comparación.
+     * @return las diferencias de esta tabla a nueva.
+     */
+    public DiferenciaTablas<K, V> diferencia(TSBHashtable<K, V> nueva, ForkJoinPool pool) {
+        int n = Math.max(table.length, nueva.table.length);
+        Comparacion c = new Comparacion(nueva, 0, n);
+        return n <= CASILLAS_POR_TAREA ? c.compute() : pool.invoke(c);
+    }
+
+    /**
+     * Combina varias tablas en una nueva: cada clave queda asociada a la
+     * combinación, con la función indicada, de sus valores en las tablas que
+     * la tienen (por ejemplo, con Integer::sum se suman las cantidades de
+     * tablas guardadas en varias máquinas). Si la función retorna null la
+     * clave se quita. Las tablas no se modifican.
+     *
+     * La función debe ser asociativa y conmutativa, como Integer::sum: el
+     * orden en que se combinan los valores de cada clave no está definido.
+     *
+     * Si todas las tablas ubican las claves en las mismas casillas (copias
+     * con clone() de una misma tabla que no cambiaron de capacidad) se parte
+     * de una copia de la primera y se combinan directamente las casillas de
+     * igual posición, por rangos en paralelo; sólo las claves que están en
+     * otra casilla se agregan después de a una. Si no, las tablas se combinan
+     * de a pares en paralelo, sumando siempre la menor sobre una copia de la
+     * mayor. Usa el pool común de ForkJoin.
+     *
+     * @param <K> el tipo de las claves.
+     * @param <V> el tipo de los valores.
+     * @param tablas las tablas a combinar.
+     * @param funcion combina dos valores de la misma clave.
+     * @return una tabla nueva con la combinación.
      */
-    private int h(int k) {
-        return h(k, this.table.length);
+    public static <K, V> TSBHashtable<K, V> combinar(List<? extends TSBHashtable<K, V>> tablas,
+            BiFunction<? super V, ? super V, ? extends V> funcion) {
+        return combinar(tablas, funcion, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Como combinar(tablas, funcion), en el pool indicado.
+     *
+     * @param <K> el tipo de las claves.
+     * @param <V> el tipo de los valores.
+     * @param tablas las tablas a combinar.
+     * @param funcion combina dos valores de la misma clave.
+     * @param pool el pool donde se reparte la combinación.
+     * @return una tabla nueva con la combinación.
+     */
+    public static <K, V> TSBHashtable<K, V> combinar(List<? extends TSBHashtable<K, V>> tablas,
+            BiFunction<? super V, ? super V, ? extends V> funcion, ForkJoinPool pool) {
+        if (tablas.isEmpty()) {
+            return new TSBHashtable<>();
+        }
+        TSBHashtable<K, V> primera = tablas.get(0);
+        if (tablas.size() == 1) {
+            return primera.copiar();
+        }
+        boolean alineadas = true;
+        for (TSBHashtable<K, V> t : tablas) {
+            alineadas &= primera.mismoHash(t) && t.table.length == primera.table.length;
+        }
+        if (!alineadas) {
+            return pool.invoke(new CombinacionPares<>(new ArrayList<>(tablas), funcion, 0, tablas.size()));
+        }
+        TSBHashtable<K, V> resultado = primera.copiar();
+        int n = resultado.table.length;
+        TSBHashtable<K, V>.Combinacion c = resultado.new Combinacion(
+                new ArrayList<>(tablas.subList(1, tablas.size())), funcion, 0, n);
+        Pendientes pendientes = n <= CASILLAS_POR_TAREA ? c.compute() : pool.invoke(c);
+        resultado.size -= pendientes.bajas;
+        resultado.modCount++;
+        for (int i = 0; i < pendientes.claves.size(); i++) {
+            @SuppressWarnings("unchecked")
+            K clave = (K) pendientes.claves.get(i);
+            @SuppressWarnings("unchecked")
+            V valor = (V) pendientes.valores.get(i);
+            resultado.merge(clave, valor, funcion);
+        }
+        return resultado;
     }
 
     /*
-     * Función hash. Toma un objeto key que representa una clave y calcula y 
-     * retorna un índice válido para esa clave para entrar en la tabla.     
+     * Una copia con clone().
      */
-    private int h(K key) {
-        return h(key.hashCode(), this.table.length);
+    TSBHashtable<K, V> copiar() {
+        try {
+            @SuppressWarnings("unchecked")
+            TSBHashtable<K, V> copia = (TSBHashtable<K, V>) clone();
+            return copia;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e);
+        }
     }
 
     /*
-     * Función hash. Toma un objeto key que representa una clave y un tamaño de 
-     * tabla t, y calcula y retorna un índice válido para esa clave dedo ese
-     * tamaño.     
+     * Indica si la otra tabla calcula el hash de las claves igual que ésta
+     * (misma semilla, mismo SipHash y misma estrategia): en ese caso el hash
+     * guardado en una entrada sirve para buscar su clave en la otra, y con
+     * la misma capacidad cada clave cae en la misma casilla inicial.
      */
-    private int h(K key, int t) {
-        return h(key.hashCode(), t);
+    private boolean mismoHash(TSBHashtable<?, ?> otra) {
+        return semilla == otra.semilla && resistente == otra.resistente && estrategia == otra.estrategia;
     }
 
     /*
-     * Función hash. Toma una clave entera k y un tamaño de tabla t, y calcula y 
-     * retorna un índice válido para esa clave dado ese tamaño.     
+     * Busca la clave con el hash ya calculado, sin contarlo en las
+     * estadísticas (puede invocarse desde varios hilos mientras la tabla no
+     * cambie). Retorna la entrada viva o null.
      */
-    private int h(int k, int t) {
-        if (k < 0) {
-            k *= -1;
+    private Entry<K, V> buscar(Object key, int hash) {
+        Entry<K, V>[] t = table;
+        int n = t.length;
+        int i = h(hash, n);
+        for (int sondeos = 0, paso = 1; sondeos <= maxSondeo; sondeos++, paso += 2) {
+            Entry<K, V> e = t[i];
+            if (e == null) {
+                return null;
+            }
+            if (e.hash == hash && mismaClave(key, e.getKey())) {
+                return e.alive() ? e : null;
+            }
+            i = siguiente(i, paso, n);
         }
-        return k % t;
+        return null;
     }
 
-    private Iterator<Integer> getIndexIterator(int start) {
-        // Puesto en un metodo para reducir dependencia, el iterador se puede
-        // cambiar por otro (ej. lineal) sin mayores inconvenientes.
-        return new CuadraticIndexIterator(start, table.length);
+    /*
+     * Suma a esta tabla los pares de origen con mergeAll(), por lotes.
+     */
+    private void combinarCon(TSBHashtable<K, V> origen, BiFunction<? super V, ? super V, ? extends V> funcion) {
+        @SuppressWarnings("unchecked")
+        K[] claves = (K[]) new Object[LOTE_COMBINACION];
+        @SuppressWarnings("unchecked")
+        V[] valores = (V[]) new Object[LOTE_COMBINACION];
+        int n = 0;
+        for (Entry<K, V> e : origen.table) {
+            if (e == null || e.dead()) {
+                continue;
+            }
+            claves[n] = e.getKey();
+            valores[n] = e.getValue();
+            if (++n == LOTE_COMBINACION) {
+                mergeAll(claves, valores, funcion);
+                n = 0;
+            }
+        }
+        if (n > 0) {
+            mergeAll(Arrays.copyOf(claves, n), valores, funcion);
+        }
     }
 
-    //************************ Clases Internas.
-    /**
-     * Iterador para recorrer los proximos indices de la tabla en forma
-     * cuadratica.
-     * El iterador garantiza que recorrera todas las entradas de la tabla antes
-     * de repetir un elemento si se cumple que el tamaño del arreglo es un 
-     * numero primo y la carga de la tabla menor al 50%.
+    /*
+     * Compara las casillas [desde, hasta) de esta tabla con las de nueva
+     * (ver diferencia()), dividiendo el rango en tareas.
      */
-    private class CuadraticIndexIterator implements Iterator<Integer> {
+    private class Comparacion extends RecursiveTask<DiferenciaTablas<K, V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final TSBHashtable<K, V> nueva;
+        private final int desde;
+        private final int hasta;
+
+        Comparacion(TSBHashtable<K, V> nueva, int desde, int hasta) {
+            this.nueva = nueva;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected DiferenciaTablas<K, V> compute() {
+            if (hasta - desde > CASILLAS_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                Comparacion izquierda = new Comparacion(nueva, desde, medio);
+                izquierda.fork();
+                DiferenciaTablas<K, V> b = new Comparacion(nueva, medio, hasta).compute();
+                DiferenciaTablas<K, V> a = izquierda.join();
+                a.sumar(b);
+                return a;
+            }
+            DiferenciaTablas<K, V> d = new DiferenciaTablas<>();
+            Entry<K, V>[] anteriores = table;
+            Entry<K, V>[] nuevas = nueva.table;
+            boolean mismoHash = mismoHash(nueva);
+            boolean alineadas = mismoHash && anteriores.length == nuevas.length;
+            for (int i = desde; i < hasta; i++) {
+                Entry<K, V> x = i < anteriores.length ? anteriores[i] : null;
+                if (x != null && x.dead()) {
+                    x = null;
+                }
+                Entry<K, V> y = i < nuevas.length ? nuevas[i] : null;
+                if (y != null && y.dead()) {
+                    y = null;
+                }
+                if (alineadas && x != null && y != null && x.hash == y.hash
+                        && mismaClave(y.getKey(), x.getKey())) {
+                    // la misma clave en la misma casilla: no hay que buscarla.
+                    if (!x.getValue().equals(y.getValue())) {
+                        d.modificada(x.getKey(), x.getValue(), y.getValue());
+                    }
+                    continue;
+                }
+                if (x != null) {
+                    Entry<K, V> e = nueva.buscar(x.getKey(), mismoHash ? x.hash : nueva.hash(x.getKey()));
+                    if (e == null) {
+                        d.quitada(x.getKey(), x.getValue());
+                    } else if (!x.getValue().equals(e.getValue())) {
+                        d.modificada(x.getKey(), x.getValue(), e.getValue());
+                    }
+                }
+                if (y != null && buscar(y.getKey(), mismoHash ? y.hash : hash(y.getKey())) == null) {
+                    d.agregada(y.getKey(), y.getValue());
+                }
+            }
+            return d;
+        }
+    }
 
-        // El indice inicial. (lo devolvera el primer next() e ira aumentando 
-        // segun una funcion cuadratica)
-        int start;
+    /*
+     * Combina en esta tabla (una copia de la primera) las casillas [desde,
+     * hasta) de las otras tablas, que ubican las claves igual (ver
+     * combinar()). Cada tarea sólo modifica las entradas de su rango; las
+     * claves que están en otra casilla quedan pendientes.
+     */
+    private class Combinacion extends RecursiveTask<Pendientes> {
 
-        // Cantidad de invocaciones a next() (iteraciones del iterador).
-        int iterations;
+        private static final long serialVersionUID = 1L;
 
-        // El numero maximo (exclusivo) que retornara el iterador.
-        int length;
+        private final List<TSBHashtable<K, V>> otras;
+        private final BiFunction<? super V, ? super V, ? extends V> funcion;
+        private final int desde;
+        private final int hasta;
 
-        public CuadraticIndexIterator(int startIndex, int arrayLength) {
-            this.start = startIndex;
-            this.iterations = 0;
-            this.length = arrayLength;
+        Combinacion(List<TSBHashtable<K, V>> otras, BiFunction<? super V, ? super V, ? extends V> funcion,
+                int desde, int hasta) {
+            this.otras = otras;
+            this.funcion = funcion;
+            this.desde = desde;
+            this.hasta = hasta;
         }
 
         @Override
-        public boolean hasNext() {
-            return iterations < length;
+        protected Pendientes compute() {
+            if (hasta - desde > CASILLAS_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                Combinacion izquierda = new Combinacion(otras, funcion, desde, medio);
+                izquierda.fork();
+                Pendientes b = new Combinacion(otras, funcion, medio, hasta).compute();
+                Pendientes a = izquierda.join();
+                a.sumar(b);
+                return a;
+            }
+            Pendientes p = new Pendientes();
+            for (TSBHashtable<K, V> otra : otras) {
+                Entry<K, V>[] casillas = otra.table;
+                for (int i = desde; i < hasta; i++) {
+                    Entry<K, V> y = casillas[i];
+                    if (y == null || y.dead()) {
+                        continue;
+                    }
+                    Entry<K, V> x = table[i];
+                    if (x != null && x.alive() && x.hash == y.hash && mismaClave(y.getKey(), x.getKey())) {
+                        V nuevo = funcion.apply(x.getValue(), y.getValue());
+                        if (nuevo == null) {
+                            x.kill();
+                            p.bajas++;
+                        } else {
+                            x.asignar(nuevo);
+                        }
+                    } else {
+                        p.claves.add(y.getKey());
+                        p.valores.add(y.getValue());
+                    }
+                }
+            }
+            return p;
+        }
+    }
+
+    /*
+     * Los pares que una Combinacion no pudo combinar en su casilla, y las
+     * claves que quitó.
+     */
+    private static final class Pendientes {
+
+        final List<Object> claves = new ArrayList<>();
+        final List<Object> valores = new ArrayList<>();
+        int bajas;
+
+        void sumar(Pendientes otros) {
+            claves.addAll(otros.claves);
+            valores.addAll(otros.valores);
+            bajas += otros.bajas;
+        }
+    }
+
+    /*
+     * Combina las tablas [desde, hasta) de a pares (ver combinar()), sumando
+     * la menor sobre la mayor. Las tablas recibidas se copian antes de
+     * modificarlas; las combinaciones intermedias ya son propias.
+     */
+    private static class CombinacionPares<K, V> extends RecursiveTask<TSBHashtable<K, V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final List<TSBHashtable<K, V>> tablas;
+        private final BiFunction<? super V, ? super V, ? extends V> funcion;
+        private final int desde;
+        private final int hasta;
+
+        CombinacionPares(List<TSBHashtable<K, V>> tablas, BiFunction<? super V, ? super V, ? extends V> funcion,
+                int desde, int hasta) {
+            this.tablas = tablas;
+            this.funcion = funcion;
+            this.desde = desde;
+            this.hasta = hasta;
         }
 
         @Override
-        public Integer next() {
-            // La primera vez retorna el mismo índice (+ 0)
-            if (iterations == 0) {
-                iterations++;
-                return start;
+        protected TSBHashtable<K, V> compute() {
+            int medio = (desde + hasta) >>> 1;
+            boolean propiaA = medio - desde > 1;
+            boolean propiaB = hasta - medio > 1;
+            CombinacionPares<K, V> izquierda = null;
+            if (propiaA) {
+                izquierda = new CombinacionPares<>(tablas, funcion, desde, medio);
+                izquierda.fork();
+            }
+            TSBHashtable<K, V> b = propiaB
+                    ? new CombinacionPares<>(tablas, funcion, medio, hasta).compute() : tablas.get(medio);
+            TSBHashtable<K, V> a = propiaA ? izquierda.join() : tablas.get(desde);
+            if (a.size() < b.size()) {
+                TSBHashtable<K, V> t = a;
+                a = b;
+                b = t;
+                propiaA = propiaB;
             }
-            int index = start + (int) Math.pow(iterations++, 2);
-            // TODO: Si se hacen muchas invocaciones el arreglo crece mucho,
-            //       restar de a 1 no es muy optimo...
-            while (index >= length){
-                index -= length;
+            if (!propiaA) {
+                a = a.copiar();
             }
-            return index;
+            a.combinarCon(b, funcion);
+            return a;
         }
+    }
 
+    //************************ Serialización.
+    /*
+     * Escribe los atributos (capacidad inicial, factor de carga y cantidad de
+     * objetos) y a continuación cada par (clave, valor) vivo. No se escriben
+     * las casillas vacías ni las tumbas, y la lectura puede reconstruir la
+     * tabla de a un par, sin tener el arreglo completo en memoria dos veces.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // se escribe la cantidad de pares que realmente se van a escribir.
+        int vivas = 0;
+        for (Entry<K, V> e : table) {
+            if (e != null && e.alive()) {
+                vivas++;
+            }
+        }
+        ObjectOutputStream.PutField campos = out.putFields();
+        campos.put("initialCapacity", initialCapacity);
+        campos.put("loadFactor", loadFactor);
+        campos.put("size", vivas);
+        campos.put("estrategia", estrategia);
+        out.writeFields();
+        for (Entry<K, V> e : table) {
+            if (e != null && e.alive()) {
+                out.writeObject(e.getKey());
+                out.writeObject(e.getValue());
+            }
+        }
+    }
+
+    /*
+     * Lee una tabla escrita por writeObject(). También acepta el formato
+     * anterior, en el que se serializaba el arreglo completo de entradas: en
+     * ese caso se vuelven a insertar las entradas vivas del arreglo leído.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField campos = in.readFields();
+        setLoadFactor(campos.get("loadFactor", DEFAULT_LOAD_FACTOR));
+        int inicial = campos.get("initialCapacity", DEFAULT_CAPACITY);
+        this.initialCapacity = inicial > 0 ? inicial : DEFAULT_CAPACITY;
+        int cantidad = campos.get("size", 0);
+        if (cantidad < 0) {
+            throw new IOException("readObject(): cantidad de objetos inválida");
+        }
+
+        Entry<K, V>[] anteriores = null;
+        ObjectStreamField campoTabla = campos.getObjectStreamClass().getField("table");
+        if (campoTabla != null) {
+            anteriores = (Entry<K, V>[]) campos.get("table", null);
+        }
+
+        this.table = new Entry[Math.max(initialCapacity, capacidadPara(cantidad + 1L))];
+        this.size = 0;
+        this.ocupadas = 0;
+        this.maxSondeo = 0;
+        this.modCount = 0;
+        this.semilla = ThreadLocalRandom.current().nextInt();
+        this.resistente = null;
+        // las tablas guardadas antes de las estrategias no la tienen.
+        this.estrategia = (EstrategiaHash<? super K>) campos.get("estrategia", null);
+        if (anteriores != null) {
+            for (Entry<K, V> e : anteriores) {
+                if (e != null && e.alive()) {
+                    put(e.getKey(), e.getValue());
+                }
+            }
+        } else {
+            for (int i = 0; i < cantidad; i++) {
+                K key = (K) in.readObject();
+                V value = (V) in.readObject();
+                put(key, value);
+            }
+        }
     }
 
+    //************************ Métodos privados.
+    /*
+     * Hash de una clave: con SipHash si está activo y la clave es una
+     * CharSequence; si no, el hashCode() (o el hash de la estrategia)
+     * mezclado con la semilla de la tabla (paso final de MurmurHash3, para
+     * que todos los bits del hashCode() influyan en el resto módulo el tamaño
+     * de la tabla).
+     */
+    private int hash(Object key) {
+        if (resistente != null && key instanceof CharSequence) {
+            long x = resistente.hash((CharSequence) key);
+            return (int) (x ^ (x >>> 32));
+        }
+        int k = (estrategia == null ? key.hashCode() : estrategia.hash(key)) ^ semilla;
+        k ^= k >>> 16;
+        k *= 0x85ebca6b;
+        k ^= k >>> 13;
+        k *= 0xc2b2ae35;
+        k ^= k >>> 16;
+        return k;
+    }
+
+    /*
+     * Indica si el objeto buscado es la clave indicada: con equals() o con
+     * la estrategia de la tabla.
+     */
+    private boolean mismaClave(Object key, K clave) {
+        return estrategia == null ? key.equals(clave) : estrategia.equivalentes(key, clave);
+    }
+
+    /*
+     * Indica si la clave de la tabla es texto con los mismos caracteres que
+     * la CharSequence buscada.
+     */
+    private static boolean mismoTexto(Object texto, Object clave) {
+        return clave instanceof CharSequence
+                && EstrategiasTexto.CONTENIDO.equivalentes(texto, (CharSequence) clave);
+    }
+
+    /*
+     * Función hash. Toma un hash (ver hash()) y calcula y retorna un índice
+     * válido para entrar en la tabla.
+     */
+    private int h(int hash) {
+        return h(hash, this.table.length);
+    }
+
+    /*
+     * Función hash. Toma un hash y un tamaño de tabla t, y calcula y retorna
+     * un índice válido para ese hash dado ese tamaño.
+     */
+    private int h(int hash, int t) {
+        // se descarta el signo con una máscara: -Integer.MIN_VALUE es negativo.
+        return (hash & 0x7FFFFFFF) % t;
+    }
+
+    /*
+     * La casilla siguiente de una secuencia de sondeo: (i + paso) módulo t.
+     * La suma se hace en long: con un arreglo cercano a MAX_CAPACITY, i +
+     * paso puede no entrar en un int.
+     */
+    private static int siguiente(int i, int paso, int t) {
+        long j = (long) i + paso;
+        while (j >= t) {
+            j -= t;
+        }
+        return (int) j;
+    }
+
+    //************************ Clases Internas.
     /**
      * Iterador base para las vistas state-less. Implementa Iterator<Entry<K,V>>
      * pero no lo declara. (Renombra el metodo next por nextEntry).
@@ -767,6 +1770,8 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
             //       el iterador no deberia modificarla directamente.
             // eliminar el objeto que retornó next() la última vez...
             table[lastIndex].kill();
+            TSBHashtable.this.contarBaja();
+            TSBHashtable.this.notificar(Cambio.Tipo.BAJA, table[lastIndex].getKey(), null);
             lastIndex = -1;
 
             // la tabla tiene un elemento menos...
@@ -803,21 +1808,41 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
      */
     private class Entry<K, V> implements Map.Entry<K, V>, Serializable {
 
+        // Igual que en la tabla: el de los TSBHashtable.dat ya guardados.
+        private static final long serialVersionUID = 0x3a2b1321e5eedc78L;
+
         private K key;
         private V value;
 
+        // el hash de la clave (ver TSBHashtable.hash()), guardado para no
+        // recalcularlo en el rehash y para descartar claves distintas sin
+        // invocar a equals().
+        private transient int hash;
+
         // Estado de la entrada. (Viva/Muerta)
         private boolean alive;
 
-        public Entry(K key, V value) {
+        public Entry(K key, V value, int hash) {
             if (key == null || value == null) {
                 throw new IllegalArgumentException("Entry(): parámetro null...");
             }
             this.key = key;
             this.value = value;
+            this.hash = hash;
             this.alive = true;
         }
 
+        /*
+         * Copia de una entrada de otra tabla, en el mismo estado (viva o
+         * tumba).
+         */
+        Entry(Entry<K, V> original) {
+            this.key = original.key;
+            this.value = original.value;
+            this.hash = original.hash;
+            this.alive = original.alive;
+        }
+
         public boolean alive() {
             return alive;
         }
@@ -850,6 +1875,16 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
          * @returns el valor almacenado.
          */
         public V setValue(V newValue) {
+            V old = asignar(newValue);
+            TSBHashtable.this.notificar(Cambio.Tipo.MODIFICACION, key, newValue);
+            return old;
+        }
+
+        /*
+         * Como setValue(), sin avisar del cambio (la tabla avisa por su
+         * cuenta).
+         */
+        V asignar(V newValue) {
             if (newValue == null) {
                 throw new IllegalArgumentException("setValue(): parámetro null...");
             }
@@ -867,11 +1902,6 @@ public class TSBHashtable<K, V> implements Map<K, V>, Cloneable, Serializable {
             return hash;
         }
 
-        @Override
-        protected Object clone() throws CloneNotSupportedException {
-            return new Entry(this.key, this.value);
-        }
-
         @Override
         public boolean equals(Object obj) {
             if (this == obj) {
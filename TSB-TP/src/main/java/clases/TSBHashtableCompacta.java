@@ -0,0 +1,565 @@
+package clases;
+
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Tabla de conteo (String -> Integer) con direccionamiento abierto que guarda
+ * las claves en un único arreglo de bytes (arena) en lugar de un String y una
+ * entrada por clave.
+ *
+ * Cada clave se copia al final de la arena: en Latin-1 (un byte por caracter)
+ * si todos sus caracteres lo permiten, o en UTF-16 (dos bytes por caracter)
+ * si no. Cada casilla de la tabla son cuatro enteros en arreglos paralelos:
+ * posición en la arena, largo, hash y cantidad. No hay un objeto por clave:
+ * una palabra corta ocupa sus bytes más unos 32 bytes de casillas, contra los
+ * ~100 bytes de String + arreglo + Entry + Integer de TSBHashtable.
+ *
+ * Los String se crean sólo cuando se piden (getKey() de las vistas). Las
+ * búsquedas y los incrementos comparan los bytes de la arena contra cualquier
+ * CharSequence, por lo que la tabla puede recibir directamente las palabras
+ * del Tokenizador (implementa Tokenizador.Receptor) sin crear un String por
+ * palabra.
+ *
+ * Igual que TSBHashtable usa sondeo cuadrático sobre un arreglo de tamaño
+ * primo con factor de carga 0.5. Las claves borradas dejan una tumba en la
+ * tabla y sus bytes en la arena hasta el siguiente rehash, que la compacta.
+ */
+public class TSBHashtableCompacta extends AbstractMap<String, Integer>
+        implements Tokenizador.Receptor {
+
+    // Capacidad por defecto.
+    private final static int DEFAULT_CAPACITY = 10;
+
+    // Factor de carga (casillas ocupadas, contando tumbas, sobre el total).
+    private final static float LOAD_FACTOR = 0.5f;
+
+    // Valores especiales de posiciones[].
+    private final static int VACIA = -1;
+    private final static int BORRADA = -2;
+
+    // Bit de largos[] que indica que la clave está en UTF-16.
+    private final static int UTF16 = 0x80000000;
+
+    // la arena con los bytes de todas las claves, y cuántos se usan.
+    private byte[] arena;
+    private int usado;
+
+    // las casillas de la tabla, en arreglos paralelos.
+    private int[] posiciones;
+    private int[] largos;
+    private int[] hashes;
+    private int[] valores;
+
+    // la cantidad de claves, y de casillas ocupadas (claves y tumbas).
+    private int size;
+    private int ocupadas;
+
+    private final int initialCapacity;
+
+    // conteo de cambios de estructura (fail-fast iterator).
+    private transient int modCount;
+
+    private transient Set<Map.Entry<String, Integer>> entrySet;
+
+    public TSBHashtableCompacta() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initial_capacity la cantidad de claves que la tabla puede
+     * contener sin hacer un rehash.
+     */
+    public TSBHashtableCompacta(int initial_capacity) {
+        if (initial_capacity <= 0) {
+            initial_capacity = DEFAULT_CAPACITY;
+        }
+        this.initialCapacity = proximoPrimo((int) (initial_capacity / LOAD_FACTOR) + 1);
+        inicializar(initialCapacity, 8 * initial_capacity);
+    }
+
+    private void inicializar(int capacidad, int bytes) {
+        arena = new byte[Math.max(16, bytes)];
+        usado = 0;
+        posiciones = new int[capacidad];
+        Arrays.fill(posiciones, VACIA);
+        largos = new int[capacidad];
+        hashes = new int[capacidad];
+        valores = new int[capacidad];
+        size = 0;
+        ocupadas = 0;
+    }
+
+    //************************ Conteo.
+
+    /**
+     * Suma la cantidad indicada a la clave, agregándola con esa cantidad si
+     * no estaba. La clave se copia, por lo que puede ser un buffer que luego
+     * cambie (como una Palabra).
+     *
+     * @param clave la clave.
+     * @param cantidad la cantidad a sumar.
+     * @return la cantidad resultante.
+     */
+    public int sumar(CharSequence clave, int cantidad) {
+        int hash = hash(clave);
+        int i = buscar(clave, hash);
+        if (i >= 0) {
+            return valores[i] += cantidad;
+        }
+        insertar(clave, hash, cantidad);
+        return cantidad;
+    }
+
+    /**
+     * @param clave la clave a buscar.
+     * @return la cantidad asociada a la clave, o 0 si no está.
+     */
+    public int cantidad(CharSequence clave) {
+        int i = buscar(clave, hash(clave));
+        return i >= 0 ? valores[i] : 0;
+    }
+
+    /**
+     * Cuenta una palabra del Tokenizador.
+     *
+     * @param palabra la palabra leída.
+     */
+    @Override
+    public void palabra(Palabra palabra) {
+        sumar(palabra, 1);
+    }
+
+    /**
+     * @return la cantidad de bytes usados en la arena (incluyendo los de
+     * claves borradas que todavía no se compactaron).
+     */
+    public long getBytesArena() {
+        return usado;
+    }
+
+    /**
+     * @return una estimación de la memoria que ocupan los arreglos de la
+     * tabla, en bytes.
+     */
+    public long getBytesTotales() {
+        return 16L + arena.length + 4L * 4 * (16 + posiciones.length);
+    }
+
+    //************************ Implementación de Map.
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("containsKey(): parámetro null");
+        }
+        return key instanceof CharSequence && buscar((CharSequence) key, hash((CharSequence) key)) >= 0;
+    }
+
+    @Override
+    public Integer get(Object key) {
+        if (key == null) {
+            throw new NullPointerException("get(): parámetro null");
+        }
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        CharSequence clave = (CharSequence) key;
+        int i = buscar(clave, hash(clave));
+        return i >= 0 ? valores[i] : null;
+    }
+
+    @Override
+    public Integer put(String key, Integer value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("put(): parámetro null");
+        }
+        int hash = key.hashCode();
+        int i = buscar(key, hash);
+        if (i >= 0) {
+            int anterior = valores[i];
+            valores[i] = value;
+            return anterior;
+        }
+        insertar(key, hash, value);
+        return null;
+    }
+
+    @Override
+    public Integer remove(Object key) {
+        if (key == null) {
+            throw new NullPointerException("remove(): parámetro null");
+        }
+        if (!(key instanceof CharSequence)) {
+            return null;
+        }
+        CharSequence clave = (CharSequence) key;
+        int i = buscar(clave, hash(clave));
+        if (i < 0) {
+            return null;
+        }
+        int anterior = valores[i];
+        borrar(i);
+        return anterior;
+    }
+
+    @Override
+    public void clear() {
+        inicializar(initialCapacity, 16);
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    //************************ Métodos privados.
+
+    /*
+     * Hash compatible con String.hashCode(). String y Palabra ya lo tienen
+     * calculado.
+     */
+    private static int hash(CharSequence s) {
+        if (s instanceof String || s instanceof Palabra) {
+            return s.hashCode();
+        }
+        int h = 0;
+        for (int i = 0; i < s.length(); i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h;
+    }
+
+    /*
+     * Retorna la casilla de la clave, o -1 si no está.
+     */
+    private int buscar(CharSequence clave, int hash) {
+        int n = posiciones.length;
+        int i = (hash & 0x7FFFFFFF) % n;
+        for (int j = 1; j <= n; j++) {
+            int p = posiciones[i];
+            if (p == VACIA) {
+                return -1;
+            }
+            if (p != BORRADA && hashes[i] == hash && iguales(i, clave)) {
+                return i;
+            }
+            // sondeo cuadrático: h + j², sumando de a 2j - 1.
+            i += 2 * j - 1;
+            while (i >= n) {
+                i -= n;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Compara la clave de la casilla i con la secuencia indicada.
+     */
+    private boolean iguales(int i, CharSequence s) {
+        int largo = largos[i];
+        int p = posiciones[i];
+        if ((largo & UTF16) == 0) {
+            if (largo != s.length()) {
+                return false;
+            }
+            for (int k = 0; k < largo; k++) {
+                if ((arena[p + k] & 0xFF) != s.charAt(k)) {
+                    return false;
+                }
+            }
+        } else {
+            largo &= ~UTF16;
+            if (largo != s.length()) {
+                return false;
+            }
+            for (int k = 0; k < largo; k++, p += 2) {
+                char c = (char) (((arena[p] & 0xFF) << 8) | (arena[p + 1] & 0xFF));
+                if (c != s.charAt(k)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /*
+     * Agrega una clave que no está en la tabla.
+     */
+    private void insertar(CharSequence clave, int hash, int valor) {
+        if (ocupadas + 1 > posiciones.length * LOAD_FACTOR) {
+            rehash();
+        }
+        int largo = clave.length();
+        boolean latin1 = true;
+        for (int k = 0; k < largo && latin1; k++) {
+            latin1 = clave.charAt(k) <= 0xFF;
+        }
+        int bytes = latin1 ? largo : 2 * largo;
+        if (usado + bytes > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, usado + bytes));
+        }
+        int p = usado;
+        if (latin1) {
+            for (int k = 0; k < largo; k++) {
+                arena[p + k] = (byte) clave.charAt(k);
+            }
+        } else {
+            for (int k = 0; k < largo; k++) {
+                char c = clave.charAt(k);
+                arena[p + 2 * k] = (byte) (c >>> 8);
+                arena[p + 2 * k + 1] = (byte) c;
+            }
+        }
+        usado += bytes;
+        ubicar(p, latin1 ? largo : largo | UTF16, hash, valor);
+        size++;
+        modCount++;
+    }
+
+    /*
+     * Pone los datos de una clave en la primera casilla libre de su
+     * secuencia de sondeo (sin comparar claves).
+     */
+    private void ubicar(int p, int largo, int hash, int valor) {
+        int n = posiciones.length;
+        int i = (hash & 0x7FFFFFFF) % n;
+        for (int j = 1; posiciones[i] >= 0; j++) {
+            i += 2 * j - 1;
+            while (i >= n) {
+                i -= n;
+            }
+        }
+        if (posiciones[i] == VACIA) {
+            ocupadas++;
+        }
+        posiciones[i] = p;
+        largos[i] = largo;
+        hashes[i] = hash;
+        valores[i] = valor;
+    }
+
+    private void borrar(int i) {
+        posiciones[i] = BORRADA;
+        size--;
+        modCount++;
+    }
+
+    /*
+     * Crea arreglos del tamaño necesario para el doble de claves y vuelve a
+     * ubicar las claves vivas. La arena se copia compactada, sin los bytes de
+     * las claves borradas.
+     */
+    private void rehash() {
+        int[] viejasPos = posiciones;
+        int[] viejosLargos = largos;
+        int[] viejosHashes = hashes;
+        int[] viejosValores = valores;
+        byte[] viejaArena = arena;
+
+        int capacidad = proximoPrimo((int) (Math.max(size, 1) * 2 / LOAD_FACTOR) + 1);
+        int vivos = 0;
+        for (int i = 0; i < viejasPos.length; i++) {
+            if (viejasPos[i] >= 0) {
+                vivos += bytes(viejosLargos[i]);
+            }
+        }
+        inicializar(capacidad, Math.max(vivos * 2, 16));
+        for (int i = 0; i < viejasPos.length; i++) {
+            if (viejasPos[i] >= 0) {
+                int b = bytes(viejosLargos[i]);
+                System.arraycopy(viejaArena, viejasPos[i], arena, usado, b);
+                ubicar(usado, viejosLargos[i], viejosHashes[i], viejosValores[i]);
+                usado += b;
+                size++;
+            }
+        }
+        modCount++;
+    }
+
+    private static int bytes(int largo) {
+        return (largo & UTF16) == 0 ? largo : 2 * (largo & ~UTF16);
+    }
+
+    /*
+     * Crea el String de la clave de la casilla i.
+     */
+    private String clave(int i) {
+        int largo = largos[i];
+        int p = posiciones[i];
+        if ((largo & UTF16) == 0) {
+            return new String(arena, p, largo, StandardCharsets.ISO_8859_1);
+        }
+        largo &= ~UTF16;
+        char[] chars = new char[largo];
+        for (int k = 0; k < largo; k++, p += 2) {
+            chars[k] = (char) (((arena[p] & 0xFF) << 8) | (arena[p + 1] & 0xFF));
+        }
+        return new String(chars);
+    }
+
+    private static int proximoPrimo(int n) {
+        for (int i = Math.max(n, 3); i < Integer.MAX_VALUE; i++) {
+            if (esPrimo(i)) {
+                return i;
+            }
+        }
+        throw new Error("No se encuentra un numero primo más grande.");
+    }
+
+    private static boolean esPrimo(int num) {
+        if (num % 2 == 0) {
+            return false;
+        }
+        final int raiz = (int) Math.sqrt(num) + 1;
+        for (int i = 3; i < raiz; i += 2) {
+            if (num % i == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //************************ Clases Internas.
+
+    /*
+     * Vista de los pares de la tabla. Las entradas crean el String de la
+     * clave la primera vez que se lo pide.
+     */
+    private class EntrySet extends AbstractSet<Map.Entry<String, Integer>> {
+
+        @Override
+        public Iterator<Map.Entry<String, Integer>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void clear() {
+            TSBHashtableCompacta.this.clear();
+        }
+    }
+
+    private class EntryIterator implements Iterator<Map.Entry<String, Integer>> {
+
+        private int siguiente;
+        private int actual;
+        private int expectedModCount;
+
+        EntryIterator() {
+            this.siguiente = avanzar(0);
+            this.actual = -1;
+            this.expectedModCount = modCount;
+        }
+
+        private int avanzar(int desde) {
+            while (desde < posiciones.length && posiciones[desde] < 0) {
+                desde++;
+            }
+            return desde;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return siguiente < posiciones.length;
+        }
+
+        @Override
+        public Map.Entry<String, Integer> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("next(): modificación inesperada de tabla");
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("next(): no existe el elemento pedido");
+            }
+            actual = siguiente;
+            siguiente = avanzar(siguiente + 1);
+            return new Entrada(actual);
+        }
+
+        @Override
+        public void remove() {
+            if (actual < 0) {
+                throw new IllegalStateException("remove(): debe invocar a next() antes de remove()");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("remove(): modificación inesperada de tabla");
+            }
+            borrar(actual);
+            actual = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    private class Entrada implements Map.Entry<String, Integer> {
+
+        private final int casilla;
+        private String key;
+
+        Entrada(int casilla) {
+            this.casilla = casilla;
+        }
+
+        @Override
+        public String getKey() {
+            if (key == null) {
+                key = clave(casilla);
+            }
+            return key;
+        }
+
+        @Override
+        public Integer getValue() {
+            return valores[casilla];
+        }
+
+        @Override
+        public Integer setValue(Integer value) {
+            if (value == null) {
+                throw new NullPointerException("setValue(): parámetro null");
+            }
+            int anterior = valores[casilla];
+            valores[casilla] = value;
+            return anterior;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashes[casilla] ^ valores[casilla];
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> otra = (Map.Entry<?, ?>) obj;
+            return getKey().equals(otra.getKey()) && getValue().equals(otra.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
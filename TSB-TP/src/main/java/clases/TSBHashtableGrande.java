@@ -0,0 +1,692 @@
+package clases;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Tabla hash con direccionamiento abierto para más claves de las que entran
+ * en TSBHashtable, cuyo arreglo de soporte no puede superar las 2^31 casillas
+ * (un arreglo de Java se indexa con int).
+ *
+ * Las casillas se indexan con long y se guardan en páginas: arreglos de 2^20
+ * casillas (claves, valores y hashCode() en arreglos paralelos) que se crean
+ * recién cuando se escribe la primera casilla de cada una. Ninguna reserva de
+ * memoria es mayor que una página, por lo que la tabla puede llegar a 2^34
+ * casillas sin necesitar un bloque contiguo enorme.
+ *
+ * La capacidad es una potencia de dos y el sondeo es triangular (i, i + 1,
+ * i + 3, i + 6...), que con ese tamaño recorre todas las casillas. El índice
+ * inicial sale de mezclar el hashCode() con una semilla al azar. Como el
+ * hashCode() tiene 32 bits, hay como mucho 2^32 secuencias de sondeo
+ * distintas y las claves con el mismo hashCode() comparten la suya: por eso
+ * la capacidad se limita a 2^34 casillas, donde con el factor de carga por
+ * defecto cada hashCode() tiene en promedio dos claves. Con más casillas las
+ * búsquedas compararían con equals() cada vez más claves.
+ *
+ * Al crecer no se copia toda la tabla de una vez: se crea la tabla nueva y
+ * cada put() o remove() siguiente mueve MIGRACION_POR_OPERACION casillas de
+ * la anterior, liberando cada página ya recorrida. Mientras dura la migración
+ * las búsquedas miran las dos tablas. terminarMigracion() la completa de una
+ * vez. Así ninguna operación demora lo que demoraría copiar miles de millones
+ * de casillas, y en memoria sólo conviven la tabla nueva y la parte de la
+ * anterior que falta mover.
+ *
+ * Como en TSBHashtable, no se admiten claves ni valores null y las claves
+ * borradas dejan una tumba hasta la siguiente reconstrucción. size() vale como
+ * mucho Integer.MAX_VALUE: la cantidad exacta la da getCantidad().
+ *
+ * @param <K> el tipo de las claves.
+ * @param <V> el tipo de los valores.
+ */
+public class TSBHashtableGrande<K, V> extends AbstractMap<K, V> {
+
+    // Casillas por página: 2^20 (con referencias comprimidas, 4 MB de claves,
+    // 4 MB de valores y 4 MB de hashCode() por página).
+    private final static int BITS_PAGINA = 20;
+
+    // Capacidad máxima: 2^34 casillas (16384 páginas). Ver la descripción
+    // de la clase.
+    private final static long MAX_CAPACITY = 1L << 34;
+
+    // Capacidad mínima (y la de una tabla vacía).
+    private final static long MIN_CAPACITY = 16;
+
+    // Factor de carga por defecto, y el mayor que se acepta.
+    private final static float DEFAULT_LOAD_FACTOR = 0.5f;
+    private final static float MAX_LOAD_FACTOR = 0.75f;
+
+    // Casillas de la tabla anterior que mueve cada put() o remove() durante
+    // una migración: alcanza para terminarla antes de que la tabla nueva
+    // llegue a su factor de carga.
+    final static int MIGRACION_POR_OPERACION = 64;
+
+    // Marca de las casillas cuya clave se eliminó (tumbas).
+    private final static Object TUMBA = new Object();
+
+    private final int bitsPagina;
+    private final float loadFactor;
+    private final long initialCapacity;
+    private final long semilla;
+
+    // la tabla actual y, durante una migración, la anterior.
+    private Paginas tabla;
+    private Paginas anterior;
+
+    // casillas de la tabla anterior ya movidas (las de índice menor).
+    private long migradas;
+
+    // la cantidad de pares, entre las dos tablas.
+    private long cantidad;
+
+    // conteo de cambios de estructura (fail-fast iterator).
+    private transient int modCount;
+
+    private transient Set<Map.Entry<K, V>> entrySet;
+
+    public TSBHashtableGrande() {
+        this(MIN_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initial_capacity la cantidad de pares que la tabla puede
+     * contener sin crecer.
+     */
+    public TSBHashtableGrande(long initial_capacity) {
+        this(initial_capacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param initial_capacity la cantidad de pares que la tabla puede
+     * contener sin crecer.
+     * @param load_factor la fracción de casillas ocupadas (pares y tumbas) a
+     * partir de la cual la tabla crece; si no está entre 0 y 0.75 se usa 0.5.
+     */
+    public TSBHashtableGrande(long initial_capacity, float load_factor) {
+        this(initial_capacity, load_factor, BITS_PAGINA);
+    }
+
+    /*
+     * Con páginas de 2^bitsPagina casillas (las pruebas usan páginas chicas
+     * para ejercitar varias páginas con pocas claves).
+     */
+    TSBHashtableGrande(long initial_capacity, float load_factor, int bitsPagina) {
+        if (bitsPagina < 1 || bitsPagina > 30) {
+            throw new IllegalArgumentException("TSBHashtableGrande(): tamaño de página inválido");
+        }
+        this.bitsPagina = bitsPagina;
+        this.loadFactor = load_factor <= 0 || load_factor > MAX_LOAD_FACTOR
+                ? DEFAULT_LOAD_FACTOR : load_factor;
+        this.initialCapacity = capacidadPara(Math.max(initial_capacity, 1));
+        this.semilla = ThreadLocalRandom.current().nextLong();
+        this.tabla = new Paginas(initialCapacity, bitsPagina);
+    }
+
+    /*
+     * La menor potencia de dos que guarda cantidad pares sin superar el
+     * factor de carga, como mucho MAX_CAPACITY.
+     */
+    private long capacidadPara(long cantidad) {
+        double necesaria = Math.ceil(cantidad / (double) loadFactor);
+        long capacidad = MIN_CAPACITY;
+        while (capacidad < necesaria && capacidad < MAX_CAPACITY) {
+            capacidad <<= 1;
+        }
+        return capacidad;
+    }
+
+    /**
+     * @return la cantidad de pares de la tabla (size() se limita a
+     * Integer.MAX_VALUE).
+     */
+    public long getCantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return la cantidad de casillas de la tabla (de la nueva, si se está
+     * migrando).
+     */
+    public long getCapacidad() {
+        return tabla.capacidad;
+    }
+
+    /**
+     * @return la mayor cantidad de sondeos que necesitó una inserción en la
+     * tabla actual: ninguna clave está más lejos de su casilla inicial.
+     */
+    public int getMaxSondeo() {
+        return tabla.maxSondeo;
+    }
+
+    /**
+     * @return true si todavía quedan pares de la tabla anterior por mover.
+     */
+    public boolean isMigrando() {
+        return anterior != null;
+    }
+
+    /**
+     * Mueve de una vez los pares que quedan en la tabla anterior (por
+     * ejemplo antes de una serie de búsquedas, que así miran una sola tabla).
+     */
+    public void terminarMigracion() {
+        if (anterior != null) {
+            migrar(anterior.capacidad);
+        }
+    }
+
+    @Override
+    public int size() {
+        return (int) Math.min(cantidad, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cantidad == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("containsKey(): parámetro null");
+        }
+        int hc = key.hashCode();
+        long inicio = mezclar(hc);
+        return buscar(tabla, 0, key, hc, inicio) >= 0
+                || anterior != null && buscar(anterior, migradas, key, hc, inicio) >= 0;
+    }
+
+    @Override
+    public V get(Object key) {
+        if (key == null) {
+            throw new NullPointerException("get(): parámetro null");
+        }
+        int hc = key.hashCode();
+        long inicio = mezclar(hc);
+        long i = buscar(tabla, 0, key, hc, inicio);
+        if (i >= 0) {
+            return valor(tabla, i);
+        }
+        if (anterior != null) {
+            i = buscar(anterior, migradas, key, hc, inicio);
+            if (i >= 0) {
+                return valor(anterior, i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            throw new NullPointerException("put(): parámetro null");
+        }
+        int hc = key.hashCode();
+        long inicio = mezclar(hc);
+        V old = null;
+        long i = buscar(tabla, 0, key, hc, inicio);
+        if (i >= 0) {
+            old = valor(tabla, i);
+            tabla.asignarValor(i, value);
+        } else if (anterior != null && (i = buscar(anterior, migradas, key, hc, inicio)) >= 0) {
+            // se reemplaza donde está; la migración lo moverá con el valor nuevo.
+            old = valor(anterior, i);
+            anterior.asignarValor(i, value);
+        } else {
+            if (tabla.ocupadas + 1 > tabla.capacidad * loadFactor) {
+                crecer();
+            }
+            insertar(tabla, key, value, hc, inicio);
+            cantidad++;
+            modCount++;
+        }
+        if (anterior != null) {
+            migrar(MIGRACION_POR_OPERACION);
+        }
+        return old;
+    }
+
+    @Override
+    public V remove(Object key) {
+        if (key == null) {
+            throw new NullPointerException("remove(): parámetro null");
+        }
+        int hc = key.hashCode();
+        long inicio = mezclar(hc);
+        Paginas t = tabla;
+        long i = buscar(t, 0, key, hc, inicio);
+        if (i < 0 && anterior != null) {
+            t = anterior;
+            i = buscar(t, migradas, key, hc, inicio);
+        }
+        if (i < 0) {
+            return null;
+        }
+        V old = valor(t, i);
+        t.borrar(i);
+        cantidad--;
+        modCount++;
+        if (anterior != null) {
+            migrar(MIGRACION_POR_OPERACION);
+        }
+        return old;
+    }
+
+    @Override
+    public void clear() {
+        tabla = new Paginas(initialCapacity, bitsPagina);
+        anterior = null;
+        migradas = 0;
+        cantidad = 0;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    /*
+     * Empieza la migración a una tabla nueva: del doble de casillas o, si la
+     * mitad o más de las ocupadas son tumbas, del mismo tamaño (para
+     * descartarlas). Si todavía se estaba migrando, primero se termina.
+     */
+    private void crecer() {
+        if (anterior != null) {
+            terminarMigracion();
+            if (tabla.ocupadas + 1 <= tabla.capacidad * loadFactor) {
+                return;
+            }
+        }
+        long capacidad = tabla.capacidad;
+        if (cantidad > tabla.ocupadas / 2) {
+            if (capacidad >= MAX_CAPACITY) {
+                throw new IllegalStateException("put(): la tabla llegó a su capacidad máxima ("
+                        + MAX_CAPACITY + " casillas)");
+            }
+            capacidad <<= 1;
+        }
+        anterior = tabla;
+        migradas = 0;
+        tabla = new Paginas(capacidad, bitsPagina);
+        modCount++;
+    }
+
+    /*
+     * Mueve a la tabla actual los pares de las siguientes casillas casillas
+     * de la tabla anterior, y libera las páginas que quedan recorridas.
+     */
+    private void migrar(long casillas) {
+        Paginas a = anterior;
+        long fin = Math.min(a.capacidad, migradas + casillas);
+        int ultima = a.largoPagina - 1;
+        boolean movio = false;
+        for (long i = migradas; i < fin; i++) {
+            Object c = a.clave(i);
+            if (c != null && c != TUMBA) {
+                int hc = a.hash(i);
+                insertar(tabla, c, a.valor(i), hc, mezclar(hc));
+                movio = true;
+            }
+            if (((int) i & ultima) == ultima) {
+                a.liberar(a.pagina(i));
+            }
+        }
+        migradas = fin;
+        if (fin == a.capacidad) {
+            anterior = null;
+            migradas = 0;
+        }
+        if (movio) {
+            // cambia el orden de iteración.
+            modCount++;
+        }
+    }
+
+    /*
+     * Índice inicial (antes de aplicar la máscara) del hashCode() hc: el
+     * finalizador de MurmurHash3 sobre el hashCode() y la semilla, que
+     * reparte también los bits altos de un índice de 64 bits (sólo hay 2^32
+     * índices iniciales distintos, ver MAX_CAPACITY).
+     */
+    private long mezclar(int hc) {
+        long x = (hc & 0xFFFFFFFFL) ^ semilla;
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+
+    /*
+     * Busca la clave en la tabla t, salteando las casillas menores a desde
+     * (las ya migradas de la tabla anterior). Retorna su casilla, o -1.
+     */
+    private static long buscar(Paginas t, long desde, Object key, int hc, long inicio) {
+        long i = inicio & t.mascara;
+        for (int sondeos = 0; sondeos <= t.maxSondeo; sondeos++) {
+            if (i >= desde) {
+                Object c = t.clave(i);
+                if (c == null) {
+                    return -1;
+                }
+                if (c != TUMBA && t.hash(i) == hc && key.equals(c)) {
+                    return i;
+                }
+            }
+            i = (i + sondeos + 1) & t.mascara;
+        }
+        return -1;
+    }
+
+    /*
+     * El valor de la casilla i de la tabla t (las páginas guardan Object).
+     */
+    @SuppressWarnings("unchecked")
+    private static <V> V valor(Paginas t, long i) {
+        return (V) t.valor(i);
+    }
+
+    /*
+     * Ubica un par cuya clave no está en la tabla en la primera casilla vacía
+     * o tumba de su secuencia.
+     */
+    private static void insertar(Paginas t, Object key, Object value, int hc, long inicio) {
+        long i = inicio & t.mascara;
+        int sondeos = 0;
+        for (Object c = t.clave(i); c != null && c != TUMBA; c = t.clave(i)) {
+            sondeos++;
+            i = (i + sondeos) & t.mascara;
+        }
+        if (t.clave(i) == null) {
+            t.ocupadas++;
+        }
+        t.asignar(i, key, value, hc);
+        if (sondeos > t.maxSondeo) {
+            t.maxSondeo = sondeos;
+        }
+    }
+
+    /*
+     * Las casillas de una tabla, en páginas de arreglos paralelos que se crean
+     * al escribir la primera casilla de cada una. Una página null equivale a
+     * una página de casillas vacías.
+     */
+    private static final class Paginas {
+
+        final long capacidad;
+        final long mascara;
+        final int bits;
+        final int largoPagina;
+        final Object[][] claves;
+        final Object[][] valores;
+        final int[][] hashes;
+
+        // casillas no vacías (pares y tumbas), y la mayor cantidad de sondeos
+        // de una inserción.
+        long ocupadas;
+        int maxSondeo;
+
+        Paginas(long capacidad, int bitsPagina) {
+            this.capacidad = capacidad;
+            this.mascara = capacidad - 1;
+            this.bits = bitsPagina;
+            this.largoPagina = (int) Math.min(capacidad, 1L << bitsPagina);
+            int n = (int) (capacidad / largoPagina);
+            this.claves = new Object[n][];
+            this.valores = new Object[n][];
+            this.hashes = new int[n][];
+        }
+
+        int pagina(long i) {
+            return (int) (i >>> bits);
+        }
+
+        Object clave(long i) {
+            Object[] p = claves[pagina(i)];
+            return p == null ? null : p[(int) i & (largoPagina - 1)];
+        }
+
+        Object valor(long i) {
+            return valores[pagina(i)][(int) i & (largoPagina - 1)];
+        }
+
+        int hash(long i) {
+            return hashes[pagina(i)][(int) i & (largoPagina - 1)];
+        }
+
+        void asignar(long i, Object clave, Object valor, int hash) {
+            int p = pagina(i);
+            if (claves[p] == null) {
+                claves[p] = new Object[largoPagina];
+                valores[p] = new Object[largoPagina];
+                hashes[p] = new int[largoPagina];
+            }
+            int c = (int) i & (largoPagina - 1);
+            claves[p][c] = clave;
+            valores[p][c] = valor;
+            hashes[p][c] = hash;
+        }
+
+        void asignarValor(long i, Object valor) {
+            valores[pagina(i)][(int) i & (largoPagina - 1)] = valor;
+        }
+
+        void borrar(long i) {
+            int p = pagina(i);
+            int c = (int) i & (largoPagina - 1);
+            claves[p][c] = TUMBA;
+            valores[p][c] = null;
+        }
+
+        void liberar(int p) {
+            claves[p] = null;
+            valores[p] = null;
+            hashes[p] = null;
+        }
+    }
+
+    /*
+     * Vista de los pares: primero los de la tabla actual y después los que
+     * quedan en la anterior.
+     */
+    private class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return TSBHashtableGrande.this.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return cantidad == 0;
+        }
+
+        @Override
+        public void clear() {
+            TSBHashtableGrande.this.clear();
+        }
+    }
+
+    /*
+     * Recorre las casillas salteando las páginas que no se crearon. remove()
+     * no avanza la migración, para no cambiar el orden de lo que falta
+     * recorrer.
+     */
+    private class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        // la tabla que se está recorriendo y la siguiente casilla con un par
+        // (-1 si no quedan).
+        private Paginas siguienteTabla;
+        private long siguiente;
+        private Paginas actualTabla;
+        private long actual;
+        private int expectedModCount;
+
+        EntryIterator() {
+            this.siguienteTabla = tabla;
+            this.siguiente = avanzar(0);
+            this.actual = -1;
+            this.expectedModCount = modCount;
+        }
+
+        /*
+         * La primera casilla con un par a partir de desde, pasando a la tabla
+         * anterior al terminar la actual.
+         */
+        private long avanzar(long desde) {
+            while (true) {
+                Paginas t = siguienteTabla;
+                while (desde < t.capacidad) {
+                    int p = t.pagina(desde);
+                    if (t.claves[p] == null) {
+                        desde = (long) (p + 1) << t.bits;
+                        continue;
+                    }
+                    Object c = t.clave(desde);
+                    if (c != null && c != TUMBA) {
+                        return desde;
+                    }
+                    desde++;
+                }
+                if (t != tabla || anterior == null) {
+                    return -1;
+                }
+                siguienteTabla = anterior;
+                desde = migradas;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return siguiente >= 0;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("next(): modificación inesperada de tabla");
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("next(): no existe el elemento pedido");
+            }
+            actualTabla = siguienteTabla;
+            actual = siguiente;
+            siguiente = avanzar(siguiente + 1);
+            return new Entrada(actualTabla, actual);
+        }
+
+        @Override
+        public void remove() {
+            if (actual < 0) {
+                throw new IllegalStateException("remove(): debe invocar a next() antes de remove()");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("remove(): modificación inesperada de tabla");
+            }
+            actualTabla.borrar(actual);
+            cantidad--;
+            modCount++;
+            actual = -1;
+            expectedModCount = modCount;
+        }
+    }
+
+    /*
+     * Un par de la tabla. La casilla puede quedar desactualizada si una
+     * migración mueve el par: en ese caso se lo vuelve a buscar.
+     */
+    private class Entrada implements Map.Entry<K, V> {
+
+        private Paginas t;
+        private long casilla;
+        private final K key;
+
+        @SuppressWarnings("unchecked")
+        Entrada(Paginas t, long casilla) {
+            this.t = t;
+            this.casilla = casilla;
+            this.key = (K) t.clave(casilla);
+        }
+
+        /*
+         * Verifica que el par siga en la casilla guardada y, si no, lo busca
+         * en las tablas actuales (sin avanzar la migración, para no afectar a
+         * un iterador en curso).
+         */
+        private void ubicar() {
+            if ((t == tabla || t == anterior && casilla >= migradas) && t.clave(casilla) == key) {
+                return;
+            }
+            int hc = key.hashCode();
+            long inicio = mezclar(hc);
+            long i = buscar(tabla, 0, key, hc, inicio);
+            if (i >= 0) {
+                t = tabla;
+                casilla = i;
+                return;
+            }
+            if (anterior != null && (i = buscar(anterior, migradas, key, hc, inicio)) >= 0) {
+                t = anterior;
+                casilla = i;
+                return;
+            }
+            throw new IllegalStateException("la clave " + key + " ya no está en la tabla");
+        }
+
+        @Override
+        public K getKey() {
+            return key;
+        }
+
+        @Override
+        public V getValue() {
+            ubicar();
+            return valor(t, casilla);
+        }
+
+        @Override
+        public V setValue(V value) {
+            if (value == null) {
+                throw new NullPointerException("setValue(): parámetro null");
+            }
+            V anterior = getValue();
+            t.asignarValor(casilla, value);
+            return anterior;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() ^ getValue().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> otra = (Map.Entry<?, ?>) obj;
+            return key.equals(otra.getKey()) && getValue().equals(otra.getValue());
+        }
+
+        @Override
+        public String toString() {
+            return key + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package clases;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Publica por JMX las estadísticas de una TSBHashtable (ver
+ * EstadisticasTabla), para observarla con jconsole o VisualVM mientras la
+ * aplicación trabaja: la ocupación, las tumbas y las longitudes de sondeo
+ * muestran el deterioro de la tabla antes de que se note en los tiempos.
+ *
+ * La tabla se obtiene de un Supplier en cada consulta, de modo que el monitor
+ * sigue a la tabla actual aunque la aplicación la reemplace (por ejemplo al
+ * abrir los datos guardados). Los contadores de operaciones son de cada
+ * tabla: una tabla nueva empieza sin contar.
+ *
+ * <pre>
+ * TSBHashtableMonitor.registrar("palabras", () -> FXMLController.table);
+ * </pre>
+ */
+public class TSBHashtableMonitor implements TSBHashtableMonitorMBean {
+
+    // Dominio de los nombres JMX de los monitores.
+    public static final String DOMINIO = "clases";
+
+    private final Supplier<? extends TSBHashtable<?, ?>> tabla;
+
+    /**
+     * @param tabla retorna la tabla a observar.
+     */
+    public TSBHashtableMonitor(Supplier<? extends TSBHashtable<?, ?>> tabla) {
+        if (tabla == null) {
+            throw new NullPointerException("TSBHashtableMonitor(): tabla null");
+        }
+        this.tabla = tabla;
+    }
+
+    /**
+     * Registra un monitor en el servidor de MBeans de la plataforma, con el
+     * nombre clases:type=TSBHashtable,name=nombre (reemplazando al que
+     * tuviera ese nombre).
+     *
+     * @param nombre el nombre de la tabla.
+     * @param tabla retorna la tabla a observar.
+     * @return el nombre JMX con el que se registró.
+     * @throws JMException si no se puede registrar.
+     */
+    public static ObjectName registrar(String nombre, Supplier<? extends TSBHashtable<?, ?>> tabla)
+            throws JMException {
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        ObjectName nombreJmx = new ObjectName(DOMINIO + ":type=TSBHashtable,name=" + ObjectName.quote(nombre));
+        if (servidor.isRegistered(nombreJmx)) {
+            servidor.unregisterMBean(nombreJmx);
+        }
+        servidor.registerMBean(new TSBHashtableMonitor(tabla), nombreJmx);
+        return nombreJmx;
+    }
+
+    private EstadisticasTabla estadisticas() {
+        return tabla.get().getEstadisticas();
+    }
+
+    @Override
+    public int getCapacidad() {
+        return estadisticas().getCapacidad();
+    }
+
+    @Override
+    public int getVivas() {
+        return estadisticas().getVivas();
+    }
+
+    @Override
+    public int getTumbas() {
+        return estadisticas().getTumbas();
+    }
+
+    @Override
+    public int getVacias() {
+        return estadisticas().getVacias();
+    }
+
+    @Override
+    public double getOcupacion() {
+        return estadisticas().getOcupacion();
+    }
+
+    @Override
+    public float getFactorCarga() {
+        return estadisticas().getFactorCarga();
+    }
+
+    @Override
+    public int getMaxSondeo() {
+        return estadisticas().getMaxSondeo();
+    }
+
+    @Override
+    public int getLimiteSondeo() {
+        return estadisticas().getLimiteSondeo();
+    }
+
+    @Override
+    public boolean isHashResistente() {
+        return estadisticas().isHashResistente();
+    }
+
+    @Override
+    public int getRehashes() {
+        return estadisticas().getRehashes();
+    }
+
+    @Override
+    public double getMilisegundosRehash() {
+        return estadisticas().getNanosRehash() / 1e6;
+    }
+
+    @Override
+    public long getBytesEstimados() {
+        return estadisticas().getBytesEstimados();
+    }
+
+    @Override
+    public boolean isContadoresActivos() {
+        return tabla.get().isEstadisticas();
+    }
+
+    @Override
+    public void setContadoresActivos(boolean activos) {
+        tabla.get().setEstadisticas(activos);
+    }
+
+    @Override
+    public long getEscrituras() {
+        return estadisticas().getEscrituras();
+    }
+
+    @Override
+    public long getBajas() {
+        return estadisticas().getBajas();
+    }
+
+    @Override
+    public long getAciertos() {
+        return estadisticas().getAciertos();
+    }
+
+    @Override
+    public long getFallos() {
+        return estadisticas().getFallos();
+    }
+
+    @Override
+    public double getSondeoPromedioAciertos() {
+        return estadisticas().getSondeoPromedioAciertos();
+    }
+
+    @Override
+    public double getSondeoPromedioFallos() {
+        return estadisticas().getSondeoPromedioFallos();
+    }
+
+    @Override
+    public long[] getHistogramaAciertos() {
+        return estadisticas().getHistogramaAciertos();
+    }
+
+    @Override
+    public long[] getHistogramaFallos() {
+        return estadisticas().getHistogramaFallos();
+    }
+
+    @Override
+    public void reiniciarEstadisticas() {
+        tabla.get().reiniciarEstadisticas();
+    }
+}
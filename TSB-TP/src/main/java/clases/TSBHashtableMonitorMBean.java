@@ -0,0 +1,65 @@
+package clases;
+
+/**
+ * Interfaz JMX de TSBHashtableMonitor: los atributos son los de
+ * EstadisticasTabla de la tabla observada.
+ */
+public interface TSBHashtableMonitorMBean {
+
+    int getCapacidad();
+
+    int getVivas();
+
+    int getTumbas();
+
+    int getVacias();
+
+    double getOcupacion();
+
+    float getFactorCarga();
+
+    int getMaxSondeo();
+
+    int getLimiteSondeo();
+
+    boolean isHashResistente();
+
+    int getRehashes();
+
+    double getMilisegundosRehash();
+
+    long getBytesEstimados();
+
+    /**
+     * @return true si la tabla cuenta sus operaciones.
+     */
+    boolean isContadoresActivos();
+
+    /**
+     * Activa o desactiva el conteo de operaciones de la tabla.
+     *
+     * @param activos true para contar.
+     */
+    void setContadoresActivos(boolean activos);
+
+    long getEscrituras();
+
+    long getBajas();
+
+    long getAciertos();
+
+    long getFallos();
+
+    double getSondeoPromedioAciertos();
+
+    double getSondeoPromedioFallos();
+
+    long[] getHistogramaAciertos();
+
+    long[] getHistogramaFallos();
+
+    /**
+     * Vuelve a 0 los contadores de operaciones y de rehash.
+     */
+    void reiniciarEstadisticas();
+}
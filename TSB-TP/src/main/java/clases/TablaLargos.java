@@ -0,0 +1,186 @@
+package clases;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de conteo con claves long y cantidades int, en dos arreglos
+ * primitivos paralelos: no hay un objeto por clave ni boxing, por lo que cada
+ * clave ocupa 12 bytes por casilla (24 con el factor de carga de 0.5).
+ *
+ * Pensada para claves compuestas empaquetadas en un long (ver
+ * ContadorNGramas). Las claves deben ser mayores o iguales a cero: -1 marca
+ * las casillas vacías. No admite bajas, sólo sumar a las cantidades.
+ *
+ * La capacidad es una potencia de dos y el sondeo es triangular (i, i + 1,
+ * i + 3, i + 6...), como en TSBHashtableGrande.
+ */
+public class TablaLargos {
+
+    /**
+     * Recibe cada par (clave, cantidad) de recorrer().
+     */
+    public interface Visitante {
+
+        void visitar(long clave, int cantidad);
+    }
+
+    // Capacidad mínima, en casillas.
+    private final static int MIN_CAPACITY = 16;
+
+    // Factor de carga.
+    private final static float LOAD_FACTOR = 0.5f;
+
+    // Mayor capacidad: la mayor potencia de dos que admite un arreglo.
+    private final static int MAX_CAPACITY = 1 << 30;
+
+    // Marca de las casillas vacías.
+    private final static long VACIA = -1;
+
+    private long[] claves;
+    private int[] cantidades;
+    private int size;
+
+    public TablaLargos() {
+        this(MIN_CAPACITY / 2);
+    }
+
+    /**
+     * @param initial_capacity la cantidad de claves que la tabla puede
+     * contener sin crecer.
+     */
+    public TablaLargos(int initial_capacity) {
+        int capacidad = MIN_CAPACITY;
+        while (capacidad < initial_capacity / LOAD_FACTOR && capacidad < MAX_CAPACITY) {
+            capacidad <<= 1;
+        }
+        crear(capacidad);
+    }
+
+    private void crear(int capacidad) {
+        claves = new long[capacidad];
+        Arrays.fill(claves, VACIA);
+        cantidades = new int[capacidad];
+        size = 0;
+    }
+
+    /**
+     * Suma cantidad a la clave (que empieza en 0 si no estaba).
+     *
+     * @param clave la clave, mayor o igual a cero.
+     * @param cantidad lo que se suma.
+     * @return la nueva cantidad de la clave.
+     */
+    public int sumar(long clave, int cantidad) {
+        if (clave < 0) {
+            throw new IllegalArgumentException("sumar(): clave negativa");
+        }
+        int i = casilla(clave);
+        if (claves[i] == VACIA) {
+            if (size + 1 > claves.length * LOAD_FACTOR) {
+                crecer();
+                i = casilla(clave);
+            }
+            claves[i] = clave;
+            size++;
+        }
+        return cantidades[i] += cantidad;
+    }
+
+    /**
+     * @param clave la clave buscada.
+     * @return la cantidad de la clave, o 0 si no está.
+     */
+    public int get(long clave) {
+        if (clave < 0) {
+            return 0;
+        }
+        return cantidades[casilla(clave)];
+    }
+
+    /**
+     * @param clave la clave buscada.
+     * @return true si la clave está en la tabla.
+     */
+    public boolean contiene(long clave) {
+        return clave >= 0 && claves[casilla(clave)] == clave;
+    }
+
+    /**
+     * @return la cantidad de claves.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return la cantidad de casillas.
+     */
+    public int getCapacidad() {
+        return claves.length;
+    }
+
+    /**
+     * Entrega cada par al visitante, en el orden de las casillas.
+     *
+     * @param visitante recibe los pares; no debe modificar la tabla.
+     */
+    public void recorrer(Visitante visitante) {
+        long[] c = claves;
+        for (int i = 0; i < c.length; i++) {
+            if (c[i] != VACIA) {
+                visitante.visitar(c[i], cantidades[i]);
+            }
+        }
+    }
+
+    public void clear() {
+        crear(MIN_CAPACITY);
+    }
+
+    /*
+     * La casilla de la clave, o la casilla vacía donde iría.
+     */
+    private int casilla(long clave) {
+        long[] c = claves;
+        int mascara = c.length - 1;
+        int i = (int) mezclar(clave) & mascara;
+        for (int paso = 1; c[i] != VACIA && c[i] != clave; paso++) {
+            i = (i + paso) & mascara;
+        }
+        return i;
+    }
+
+    /*
+     * Duplica la capacidad y reubica los pares.
+     */
+    private void crecer() {
+        if (claves.length >= MAX_CAPACITY) {
+            throw new IllegalStateException("sumar(): la tabla llegó a su capacidad máxima");
+        }
+        long[] anteriores = claves;
+        int[] cantidadesAnteriores = cantidades;
+        claves = new long[anteriores.length * 2];
+        Arrays.fill(claves, VACIA);
+        cantidades = new int[claves.length];
+        for (int j = 0; j < anteriores.length; j++) {
+            if (anteriores[j] != VACIA) {
+                int i = casilla(anteriores[j]);
+                claves[i] = anteriores[j];
+                cantidades[i] = cantidadesAnteriores[j];
+            }
+        }
+    }
+
+    /*
+     * Finalizador de MurmurHash3: las claves empaquetadas difieren sobre todo
+     * en los bits bajos de cada campo, y hay que repartirlos en el índice.
+     */
+    private static long mezclar(long x) {
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
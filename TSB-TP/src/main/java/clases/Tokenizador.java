@@ -0,0 +1,166 @@
+package clases;
+
+/**
+ * Separa un texto en palabras a medida que se lo va leyendo. El texto puede
+ * entregarse en bloques de cualquier tamaño: una palabra que queda cortada al
+ * final de un bloque se completa con el bloque siguiente.
+ *
+ * Cada caracter se clasifica con una tabla precalculada en letra, separador
+ * (espacio, tabulación o salto de línea) o signo (puntuación y dígitos). Los
+ * signos se descartan sin cortar la palabra, igual que lo hacía limpiar() con
+ * una expresión regular. Las palabras que quedan vacías se descartan.
+ *
+ * Las letras se acumulan en una única Palabra reutilizable que se entrega al
+ * receptor, por lo que el tokenizador no crea objetos por cada palabra.
+ */
+public class Tokenizador {
+
+    /**
+     * Recibe cada palabra encontrada por el tokenizador. La Palabra se
+     * reutiliza: si se la quiere conservar hay que copiarla con toString().
+     */
+    public interface Receptor {
+
+        void palabra(Palabra palabra);
+    }
+
+    // Clases de caracteres.
+    private static final byte LETRA = 0;
+    private static final byte SEPARADOR = 1;
+    private static final byte SIGNO = 2;
+
+    // Signos que se eliminan de las palabras (además de los dígitos).
+    private static final String SIGNOS = ".,-\"()'°ª:;¿?_*|~€¬&=!¡<>[]#@«»$%";
+
+    // Clase de cada caracter, indexada por su valor.
+    private static final byte[] CLASES = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (char c : " \t\n\r\f\u000B".toCharArray()) {
+            CLASES[c] = SEPARADOR;
+        }
+        for (char c : SIGNOS.toCharArray()) {
+            CLASES[c] = SIGNO;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            CLASES[c] = SIGNO;
+        }
+    }
+
+    private final Receptor receptor;
+
+    // la palabra que se está leyendo (puede continuar en el próximo bloque).
+    private final Palabra actual;
+
+    // cantidad de palabras entregadas al receptor.
+    private long palabras;
+
+    public Tokenizador(Receptor receptor) {
+        this.receptor = receptor;
+        this.actual = new Palabra();
+        this.palabras = 0;
+    }
+
+    /**
+     * Procesa el bloque de caracteres buf[desde, hasta).
+     *
+     * @param buf el bloque a procesar.
+     * @param desde el primer índice (inclusive).
+     * @param hasta el último índice (exclusive).
+     */
+    public void procesar(char[] buf, int desde, int hasta) {
+        final byte[] clases = CLASES;
+        final Palabra p = actual;
+        for (int i = desde; i < hasta; i++) {
+            char c = buf[i];
+            byte clase = clases[c];
+            if (clase == LETRA) {
+                p.agregar(c);
+            } else if (clase == SEPARADOR) {
+                emitir();
+            }
+        }
+    }
+
+    /**
+     * Procesa el texto completo de la secuencia indicada.
+     *
+     * @param texto el texto a procesar.
+     */
+    public void procesar(CharSequence texto) {
+        final byte[] clases = CLASES;
+        final Palabra p = actual;
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            byte clase = clases[c];
+            if (clase == LETRA) {
+                p.agregar(c);
+            } else if (clase == SEPARADOR) {
+                emitir();
+            }
+        }
+    }
+
+    /**
+     * Entrega la última palabra pendiente. Debe invocarse al terminar el texto.
+     */
+    public void finalizar() {
+        emitir();
+    }
+
+    /**
+     * @return la cantidad de palabras entregadas al receptor.
+     */
+    public long getPalabras() {
+        return palabras;
+    }
+
+    private void emitir() {
+        if (actual.length() == 0) {
+            return;
+        }
+        palabras++;
+        receptor.palabra(actual);
+        actual.vaciar();
+    }
+
+    /**
+     * Determina si el caracter (o byte) separa palabras. Sólo se consideran
+     * separadores ASCII, de forma que un byte separador nunca forma parte de un
+     * caracter multibyte en UTF-8.
+     *
+     * @param c el caracter a verificar.
+     * @return true si es un espacio, una tabulación o un salto de línea.
+     */
+    public static boolean esSeparador(int c) {
+        return c >= 0 && c < 128 && CLASES[c] == SEPARADOR;
+    }
+
+    /**
+     * Elimina de la palabra los signos de puntuación y los dígitos.
+     *
+     * @param palabra la palabra a limpiar.
+     * @return la palabra sin signos (puede quedar vacía). Si no tenía signos
+     * se retorna el mismo String.
+     */
+    public static String limpiar(String palabra) {
+        int largo = palabra.length();
+        int i = 0;
+        while (i < largo && CLASES[palabra.charAt(i)] != SIGNO) {
+            i++;
+        }
+        if (i == largo) {
+            return palabra;
+        }
+        char[] limpia = new char[largo];
+        palabra.getChars(0, i, limpia, 0);
+        int n = i;
+        for (; i < largo; i++) {
+            char c = palabra.charAt(i);
+            if (CLASES[c] != SIGNO) {
+                limpia[n++] = c;
+            }
+        }
+        return new String(limpia, 0, n);
+    }
+}
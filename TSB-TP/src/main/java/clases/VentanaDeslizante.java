@@ -0,0 +1,221 @@
+package clases;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Cuenta las palabras de una ventana deslizante: las de los últimos minutos
+ * (porTiempo()) o las últimas N palabras (porPalabras()), en lugar del total
+ * desde el principio.
+ *
+ * La ventana se divide en cubetas, cada una con su TSBHashtable de conteo, que
+ * forman un anillo: las palabras se cuentan en la cubeta actual y, cuando ésta
+ * se completa (pasa su tiempo o llega a su cantidad de palabras), la más
+ * vieja se vacía y pasa a ser la actual. Además se mantienen los totales de
+ * toda la ventana: cada palabra se suma a la vez en su cubeta y en los
+ * totales, y al vaciar una cubeta se restan sólo sus cantidades. Así
+ * cantidad() es una búsqueda y mayores() un recorrido de los totales, sin
+ * combinar las cubetas en cada consulta.
+ *
+ * La memoria depende sólo de las palabras distintas de la ventana. La ventana
+ * abarca la cubeta actual (incompleta) y las cubetas - 1 anteriores: entre
+ * (cubetas - 1) / cubetas de la duración pedida y la duración completa.
+ *
+ * En la ventana por tiempo las cubetas avanzan en avanzar(), que invocan las
+ * consultas y que quien lee el texto debe invocar periódicamente (por
+ * ejemplo después de cada bloque leído, ver SeguidorArchivo): así no se
+ * consulta el reloj por cada palabra. No es sincronizada.
+ */
+public class VentanaDeslizante implements Tokenizador.Receptor {
+
+    private final TSBHashtable<String, Integer>[] cubetas;
+    private final TSBHashtable<String, Integer> totales;
+
+    // la cubeta actual.
+    private int actual;
+
+    // por tiempo: la duración de cada cubeta (milisegundos), el reloj y el
+    // inicio de la cubeta actual. Por palabras: las palabras de cada cubeta
+    // y las contadas en la actual.
+    private final long porCubeta;
+    private final LongSupplier reloj;
+    private long inicio;
+    private long enActual;
+
+    // palabras contadas en la ventana.
+    private long palabras;
+
+    /*
+     * Con reloj null la ventana es por palabras.
+     */
+    VentanaDeslizante(long ventana, int cubetas, LongSupplier reloj) {
+        if (cubetas < 1) {
+            throw new IllegalArgumentException("VentanaDeslizante(): cantidad de cubetas inválida");
+        }
+        if (ventana < cubetas) {
+            throw new IllegalArgumentException("VentanaDeslizante(): ventana menor a la cantidad de cubetas");
+        }
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        TSBHashtable<String, Integer>[] tablas = new TSBHashtable[cubetas];
+        for (int i = 0; i < cubetas; i++) {
+            tablas[i] = new TSBHashtable<>(1000);
+        }
+        this.cubetas = tablas;
+        this.totales = new TSBHashtable<>(1000);
+        this.porCubeta = ventana / cubetas;
+        this.reloj = reloj;
+        this.inicio = reloj != null ? reloj.getAsLong() : 0;
+    }
+
+    /**
+     * @param milisegundos la duración de la ventana.
+     * @param cubetas en cuántas partes se divide (más cubetas siguen la
+     * ventana con más precisión, a costa de más tablas).
+     * @return una ventana de las palabras de los últimos milisegundos.
+     */
+    public static VentanaDeslizante porTiempo(long milisegundos, int cubetas) {
+        return new VentanaDeslizante(milisegundos, cubetas, System::currentTimeMillis);
+    }
+
+    /**
+     * @param palabras la cantidad de palabras de la ventana.
+     * @param cubetas en cuántas partes se divide.
+     * @return una ventana de las últimas palabras.
+     */
+    public static VentanaDeslizante porPalabras(long palabras, int cubetas) {
+        return new VentanaDeslizante(palabras, cubetas, null);
+    }
+
+    @Override
+    public void palabra(Palabra palabra) {
+        if (reloj == null && enActual == porCubeta) {
+            rotar(1);
+        }
+        String clave = sumar(cubetas[actual], palabra, null);
+        sumar(totales, palabra, clave);
+        enActual++;
+        palabras++;
+    }
+
+    /*
+     * Suma 1 a la palabra en la tabla. Retorna el String de la clave (el que
+     * recibe, el de la tabla o uno nuevo), para no volver a crearlo.
+     */
+    private static String sumar(TSBHashtable<String, Integer> tabla, Palabra palabra, String clave) {
+        Map.Entry<String, Integer> e = tabla.buscarEntrada(palabra);
+        if (e != null) {
+            e.setValue(e.getValue() + 1);
+            return e.getKey();
+        }
+        if (clave == null) {
+            clave = palabra.toString();
+        }
+        tabla.put(clave, 1);
+        return clave;
+    }
+
+    /**
+     * En la ventana por tiempo, descarta las cubetas que quedaron fuera de
+     * la ventana. En la ventana por palabras no hace nada.
+     */
+    public void avanzar() {
+        if (reloj == null) {
+            return;
+        }
+        long pasadas = (reloj.getAsLong() - inicio) / porCubeta;
+        if (pasadas > 0) {
+            rotar(pasadas);
+            inicio += pasadas * porCubeta;
+        }
+    }
+
+    /*
+     * Avanza n cubetas: cada una se resta de los totales y se vacía.
+     */
+    private void rotar(long n) {
+        if (n >= cubetas.length) {
+            for (TSBHashtable<String, Integer> c : cubetas) {
+                c.clear();
+            }
+            totales.clear();
+            palabras = 0;
+        } else {
+            for (long i = 0; i < n; i++) {
+                actual = (actual + 1) % cubetas.length;
+                restar(cubetas[actual]);
+                cubetas[actual].clear();
+            }
+        }
+        enActual = 0;
+    }
+
+    /*
+     * Resta de los totales las cantidades de la cubeta que sale de la
+     * ventana, quitando las palabras que quedan en cero.
+     */
+    private void restar(TSBHashtable<String, Integer> cubeta) {
+        for (Map.Entry<String, Integer> e : cubeta.entrySet()) {
+            Map.Entry<String, Integer> total = totales.buscarEntrada(e.getKey());
+            int resto = total.getValue() - e.getValue();
+            if (resto == 0) {
+                totales.remove(e.getKey());
+            } else {
+                total.setValue(resto);
+            }
+            palabras -= e.getValue();
+        }
+    }
+
+    /**
+     * @param palabra la palabra buscada.
+     * @return cuántas veces aparece en la ventana.
+     */
+    public int cantidad(String palabra) {
+        avanzar();
+        Integer c = totales.get(palabra);
+        return c != null ? c : 0;
+    }
+
+    /**
+     * @param k la cantidad de palabras a retornar.
+     * @return las k palabras más frecuentes de la ventana, de mayor a menor.
+     */
+    public List<Map.Entry<String, Integer>> mayores(int k) {
+        avanzar();
+        return Ranking.mayores(totales, k);
+    }
+
+    /**
+     * @return las cantidades de la ventana (una vista de sólo lectura, que
+     * cambia con la ventana).
+     */
+    public Map<String, Integer> getTotales() {
+        avanzar();
+        return Collections.unmodifiableMap(totales);
+    }
+
+    /**
+     * @return la cantidad de palabras distintas de la ventana.
+     */
+    public int size() {
+        avanzar();
+        return totales.size();
+    }
+
+    /**
+     * @return la cantidad de palabras (con repeticiones) de la ventana.
+     */
+    public long getPalabras() {
+        avanzar();
+        return palabras;
+    }
+
+    /**
+     * @return la cantidad de cubetas.
+     */
+    public int getCubetas() {
+        return cubetas.length;
+    }
+}
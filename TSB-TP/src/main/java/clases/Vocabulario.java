@@ -0,0 +1,85 @@
+package clases;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Asigna a cada palabra un número (id) denso: 0 a la primera palabra que se
+ * agrega, 1 a la segunda, etc. Permite guardar secuencias de palabras como
+ * enteros (ver ContadorNGramas) y volver a obtener cada palabra por su id.
+ *
+ * Las palabras se buscan con buscarEntrada() de TSBHashtable, por lo que
+ * pueden recibirse directamente las Palabra del tokenizador: sólo se crea un
+ * String la primera vez que aparece cada palabra.
+ */
+public class Vocabulario {
+
+    // Capacidad inicial.
+    private final static int DEFAULT_CAPACITY = 1000;
+
+    // id de cada palabra, y palabra de cada id.
+    private final TSBHashtable<String, Integer> ids;
+    private String[] palabras;
+    private int size;
+
+    public Vocabulario() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param initial_capacity la cantidad de palabras esperada.
+     */
+    public Vocabulario(int initial_capacity) {
+        initial_capacity = Math.max(initial_capacity, 1);
+        this.ids = new TSBHashtable<>(initial_capacity);
+        this.palabras = new String[initial_capacity];
+    }
+
+    /**
+     * Retorna el id de la palabra, agregándola si todavía no estaba.
+     *
+     * @param palabra la palabra (un String o una Palabra del tokenizador).
+     * @return su id.
+     */
+    public int id(CharSequence palabra) {
+        Map.Entry<String, Integer> e = ids.buscarEntrada(palabra);
+        if (e != null) {
+            return e.getValue();
+        }
+        String s = palabra.toString();
+        if (size == palabras.length) {
+            palabras = Arrays.copyOf(palabras, palabras.length * 2);
+        }
+        palabras[size] = s;
+        ids.put(s, size);
+        return size++;
+    }
+
+    /**
+     * @param palabra la palabra buscada.
+     * @return su id, o -1 si no está en el vocabulario.
+     */
+    public int getId(CharSequence palabra) {
+        Map.Entry<String, Integer> e = ids.buscarEntrada(palabra);
+        return e != null ? e.getValue() : -1;
+    }
+
+    /**
+     * @param id un id del vocabulario.
+     * @return la palabra con ese id.
+     * @throws IndexOutOfBoundsException si el id no existe.
+     */
+    public String getPalabra(int id) {
+        if (id < 0 || id >= size) {
+            throw new IndexOutOfBoundsException("getPalabra(): id inexistente: " + id);
+        }
+        return palabras[id];
+    }
+
+    /**
+     * @return la cantidad de palabras (el próximo id).
+     */
+    public int size() {
+        return size;
+    }
+}
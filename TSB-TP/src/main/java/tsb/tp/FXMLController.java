@@ -1,12 +1,25 @@
 package tsb.tp;
 
+import clases.Cambio;
+import clases.Flujo;
+import clases.IndiceDifuso;
+import clases.IndiceInvertido;
+import clases.IngestaParalela;
+import clases.RegistroArchivos;
 import clases.TSBHashtable;
-import java.io.BufferedReader;
+import clases.Tokenizador;
 import java.io.File;
-import java.io.FileReader;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -15,8 +28,10 @@ import javafx.scene.control.Alert.AlertType;
 import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressBar;
 import javafx.scene.control.TextField;
 import javafx.scene.input.MouseEvent;
+import javafx.stage.DirectoryChooser;
 import javafx.stage.FileChooser;
 import javafx.stage.FileChooser.ExtensionFilter;
 
@@ -38,15 +53,52 @@ public class FXMLController implements Initializable {
     private TextField tfRepeticiones;
     
     public static TSBHashtable<String, Integer> table = new TSBHashtable<>(1000);
+    // Archivos en los que aparece cada palabra de la tabla.
+    public static IndiceInvertido indice = new IndiceInvertido();
+    // Archivos ya cargados, para no contarlos dos veces.
+    public static RegistroArchivos registro = new RegistroArchivos();
+    // Vocabulario para sugerir palabras parecidas a una búsqueda sin resultados.
+    public static IndiceDifuso difuso = new IndiceDifuso();
+    // false mientras los datos guardados no se hayan leído (en ese caso no
+    // deben sobrescribirse al cerrar).
+    public static volatile boolean datosCargados = true;
+    // Distancia y cantidad de las sugerencias de búsqueda.
+    private static final int DISTANCIA_SUGERENCIAS = 2;
+    private static final int MAXIMO_SUGERENCIAS = 10;
     @FXML
     private TextField tfTotal;
     @FXML
     private Button btClear;
+    @FXML
+    private ProgressBar pbCarga;
+    @FXML
+    private Label lblEstado;
+    @FXML
+    private Button btCancelar;
+    @FXML
+    private Button btCargarCarpeta;
+    @FXML
+    private ListView<String> lstArchivos;
+    
+    // La carga en curso (null si no hay ninguna).
+    private Task<Long> carga;
+    
+    // Se completa cuando terminan de leerse los datos guardados. Las
+    // búsquedas hechas antes se postergan hasta ese momento.
+    private CompletableFuture<Void> apertura = CompletableFuture.completedFuture(null);
+    
+    // Suscripción a los cambios de la tabla actual: mantienen la lista de
+    // palabras, el total y el índice de búsqueda aproximada.
+    private Flujo.Subscription cambios;
     
+    // Posición de cada palabra en lstPalabras, para quitar las borradas sin
+    // recorrer la lista.
+    private final TSBHashtable<String, Integer> posiciones = new TSBHashtable<>(1000);
     
     @Override
     public void initialize(URL url, ResourceBundle rb) {
         mostrarPalabras();
+        seguirCambios();
     }
 
     @FXML
@@ -61,14 +113,19 @@ public class FXMLController implements Initializable {
         fileChooser.getExtensionFilters().add(allFilter);
         // Ponemos titulo al FileChooser
         fileChooser.setTitle("Buscar archivo");
-        // Obtenemos el archivo seleccionado del FileChooser
+        // Obtenemos los archivos seleccionados del FileChooser
         try{
-            File archivo = fileChooser.showOpenDialog(null);
-            if (archivo == null) return;
-            // Le seteamos el path al TextField de cargar archivo.
-            tfArchivo.textProperty().set(archivo.getPath());
-            // Cargamos la lista
-            cargarLista(archivo);
+            List<File> archivos = fileChooser.showOpenMultipleDialog(null);
+            if (archivos == null || archivos.isEmpty()) return;
+            if (archivos.size() == 1) {
+                // Le seteamos el path al TextField de cargar archivo.
+                tfArchivo.textProperty().set(archivos.get(0).getPath());
+                // Cargamos la lista
+                cargarLista(archivos.get(0));
+            } else {
+                tfArchivo.textProperty().set(archivos.size() + " archivos");
+                cargarLote(archivos);
+            }
         }
         catch (Exception e) {
             Alert alert = new Alert(AlertType.ERROR);
@@ -81,36 +138,235 @@ public class FXMLController implements Initializable {
     }
     
     public void mostrarPalabras(){
-        lstPalabras.getItems().clear();
-        for(Map.Entry<String, Integer> palabra : table.entrySet()){
-            lstPalabras.getItems().add(palabra.getKey());
-        }        
+        listar(new ArrayList<>(table.keySet()));
         tfTotal.setText(""+table.size());
     }
     
-    private void cargarLista(File file){
-        try{
-            BufferedReader br = new BufferedReader(new FileReader(file));
-            String line = null;
-            while ((line = br.readLine()) != null) {
-                String[] str = line.split(" ");
-                for(int i = 0; i < str.length; i++){
-                    str[i] = checkPalabra(str[i]);
-                    if(!str[i].equals(" ")&&!str[i].isEmpty()){
-                        table.merge(str[i], 1, Integer::sum);
+    /*
+     * Reemplaza el contenido de la lista de palabras.
+     */
+    private void listar(Collection<String> palabras){
+        lstPalabras.getItems().setAll(palabras);
+        posiciones.clear();
+        List<String> items = lstPalabras.getItems();
+        for(int i = 0; i < items.size(); i++){
+            posiciones.put(items.get(i), i);
+        }
+    }
+    
+    /*
+     * Quita una palabra de la lista en tiempo constante: su lugar lo ocupa
+     * la última (la lista no tiene un orden en particular).
+     */
+    private void quitarDeLista(String palabra){
+        Integer i = posiciones.remove(palabra);
+        if(i == null) return;
+        List<String> items = lstPalabras.getItems();
+        String ultima = items.remove(items.size() - 1);
+        if(i < items.size()){
+            items.set(i, ultima);
+            posiciones.put(ultima, i);
+        }
+    }
+    
+    /*
+     * Se suscribe a los cambios de la tabla actual (dejando los de la
+     * anterior), para aplicar en la lista sólo las palabras agregadas y
+     * quitadas en lugar de volver a armarla. Los lotes llegan en el hilo de
+     * JavaFX, uno por vez.
+     */
+    private void seguirCambios(){
+        if(cambios != null){
+            cambios.cancel();
+        }
+        table.getCambios().suscribir(new Flujo.Subscriber<List<Cambio<String, Integer>>>() {
+            @Override
+            public void onSubscribe(Flujo.Subscription subscription) {
+                cambios = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(List<Cambio<String, Integer>> lote) {
+                aplicarCambios(lote);
+                cambios.request(1);
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                // la lista queda desactualizada: se la vuelve a armar.
+                mostrarPalabras();
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        }, Platform::runLater);
+    }
+    
+    /*
+     * Aplica en la lista, el total y el índice de búsqueda aproximada un lote
+     * de cambios de la tabla. Las altas se agregan todas juntas al final; las
+     * bajas se quitan de a una buscando su posición.
+     */
+    private void aplicarCambios(List<Cambio<String, Integer>> lote){
+        LinkedHashSet<String> nuevas = new LinkedHashSet<>();
+        for(Cambio<String, Integer> c : lote){
+            switch(c.getTipo()){
+                case VACIADO:
+                    nuevas.clear();
+                    listar(Collections.<String>emptyList());
+                    break;
+                case ALTA:
+                    nuevas.add(c.getClave());
+                    difuso.agregar(c.getClave());
+                    break;
+                case BAJA:
+                    // si se agregó en este mismo lote todavía no está en la lista.
+                    if(!nuevas.remove(c.getClave())){
+                        quitarDeLista(c.getClave());
                     }
-                }
+                    break;
+                default:
+                    break;
+            }
+        }
+        List<String> items = lstPalabras.getItems();
+        int i = items.size();
+        for(String palabra : nuevas){
+            posiciones.put(palabra, i++);
+        }
+        items.addAll(nuevas);
+        tfTotal.setText(""+table.size());
+    }
+    
+    /*
+     * Lee los datos guardados en un hilo de fondo. Se invoca con la ventana
+     * ya visible; mientras tanto no se pueden cargar archivos y las búsquedas
+     * esperan a que termine.
+     */
+    public void abrirGuardados(){
+        datosCargados = false;
+        apertura = new CompletableFuture<>();
+        TareaApertura tarea = new TareaApertura(new File(MainApp.FILENAME),
+                new File(MainApp.FILENAME_INDICE), new File(MainApp.FILENAME_REGISTRO));
+        iniciarCarga(tarea, "apertura");
+        tarea.setOnSucceeded(e -> {
+            table = tarea.getTabla();
+            indice = tarea.getIndice();
+            registro = tarea.getRegistro();
+            difuso = tarea.getDifuso();
+            listar(tarea.getPalabras());
+            tfTotal.setText(""+table.size());
+            seguirCambios();
+            datosCargados = true;
+            apertura.complete(null);
+        });
+        tarea.setOnFailed(e -> {
+            // se sigue con datos vacíos; al cerrar se guardarán los nuevos.
+            datosCargados = true;
+            apertura.complete(null);
+            Alert alert = new Alert(AlertType.ERROR);
+            alert.setTitle("Error");
+            alert.setHeaderText("No se pudieron leer los datos guardados");
+            alert.setContentText(null);
+            alert.showAndWait();
+        });
+        tarea.setOnCancelled(e -> apertura.complete(null));
+    }
+    
+    @FXML
+    private void cargarCarpeta(ActionEvent event) {
+        DirectoryChooser chooser = new DirectoryChooser();
+        chooser.setTitle("Buscar carpeta");
+        File carpeta = chooser.showDialog(null);
+        if (carpeta == null) return;
+        tfArchivo.textProperty().set(carpeta.getPath());
+        cargarLote(Collections.singletonList(carpeta));
+    }
+    
+    /*
+     * Inicia la carga del archivo en un hilo de fondo. Los lotes de palabras
+     * que publica la tarea se aplican sobre la tabla en el hilo de JavaFX.
+     */
+    private void cargarLista(File file){
+        int archivo = indice.registrarArchivo(file.getPath());
+        TareaCarga tarea = new TareaCarga(file, lote -> {
+            aplicarLote(lote);
+            indice.agregar(archivo, lote);
+        });
+        tarea.setRegistro(registro, this::quitarArchivo);
+        iniciarCarga(tarea, file.getName());
+    }
+    
+    /*
+     * Inicia la carga de varios archivos y/o carpetas en hilos de fondo.
+     */
+    private void cargarLote(List<File> rutas){
+        TareaLote tarea = new TareaLote(rutas, (lote, indiceLote) -> {
+            aplicarLote(lote);
+            indice.agregarIndice(indiceLote);
+        });
+        tarea.setRegistro(registro, this::quitarArchivo);
+        iniciarCarga(tarea, "lote");
+    }
+    
+    /*
+     * Resta de la tabla lo que aportó el archivo en una carga anterior (si
+     * lo hay), según el índice. Las palabras que quedan en cero se quitan de
+     * la tabla (y, por sus cambios, de la lista). Se ejecuta en el hilo de
+     * JavaFX.
+     */
+    private void quitarArchivo(File file){
+        int archivo = indice.getId(file.getPath());
+        if(archivo < 0) return;
+        for(Map.Entry<String, Integer> e : indice.quitarArchivo(archivo).entrySet()){
+            Integer anterior = table.get(e.getKey());
+            if(anterior == null) continue;
+            if(anterior <= e.getValue()){
+                table.remove(e.getKey());
+            } else {
+                table.put(e.getKey(), anterior - e.getValue());
             }
         }
-        catch(Exception e){
+    }
+    
+    private void iniciarCarga(Task<Long> tarea, String nombre){
+        if (carga != null && carga.isRunning()) {
+            return;
+        }
+        carga = tarea;
+        pbCarga.progressProperty().bind(carga.progressProperty());
+        lblEstado.textProperty().bind(carga.messageProperty());
+        btCargarArchivo.disableProperty().bind(carga.runningProperty());
+        btCargarCarpeta.disableProperty().bind(carga.runningProperty());
+        btCancelar.visibleProperty().bind(carga.runningProperty());
+        carga.setOnFailed(e -> {
             Alert alert = new Alert(AlertType.ERROR);
             alert.setTitle("Error");
             alert.setHeaderText("Error al cargar la lista");
             alert.setContentText(null);
             alert.showAndWait();
+        });
+        Thread hilo = new Thread(carga, "carga-" + nombre);
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+    
+    /*
+     * Suma a la tabla las cantidades de un lote (las palabras nuevas llegan a
+     * la lista por los cambios de la tabla). Se ejecuta en el hilo de JavaFX.
+     */
+    private void aplicarLote(TSBHashtable<String, Integer> lote){
+        IngestaParalela.sumar(table, lote);
+    }
+    
+    @FXML
+    private void cancelarCarga(ActionEvent event) {
+        if (carga != null) {
+            carga.cancel();
         }
-        mostrarPalabras();
-    }  
+    }
 
     @FXML
     private void eventOnMouseclicked(MouseEvent event) {
@@ -136,30 +392,64 @@ public class FXMLController implements Initializable {
     }
     
     private void buscarPalabra(String palabra){
+        if(!apertura.isDone()){
+            // se responde cuando terminen de leerse los datos guardados.
+            tfRepeticiones.setText("...");
+            apertura.thenRunAsync(() -> buscarPalabra(palabra), Platform::runLater);
+            return;
+        }
         Integer cantidad = table.get(palabra);
+        lstArchivos.getItems().clear();
         if(cantidad == null){
             Alert alert = new Alert(AlertType.INFORMATION);
             alert.setTitle("Aviso");
             alert.setHeaderText("Ningun archivo contiene la palabra '" + palabra + "'.");
-            alert.setContentText(null);
+            alert.setContentText(sugerencias(palabra));
             alert.showAndWait();
             tfRepeticiones.setText("0");
         } else {
             tfRepeticiones.setText(cantidad.toString());
+            for(Map.Entry<String, Integer> e : indice.buscar(palabra)){
+                lstArchivos.getItems().add(e.getValue() + " - " + new File(e.getKey()).getName());
+            }
         }   
     }
     
     
-    public String checkPalabra(String palabra){        
-        palabra = palabra.replaceAll("([.,\\-\"()'°ª:;¿?_*|~€¬&=!¡<>\\[\\]#@«»$%]|[0-9])+", "");
-        return palabra;
+    /*
+     * Arma el texto con las palabras cargadas más parecidas a la buscada (a
+     * distancia de edición 2 o menos, sin contar acentos ni mayúsculas), o
+     * null si no hay ninguna.
+     */
+    private String sugerencias(String palabra){
+        List<IndiceDifuso.Sugerencia> parecidas = difuso.buscar(palabra, DISTANCIA_SUGERENCIAS,
+                MAXIMO_SUGERENCIAS, table);
+        if(parecidas.isEmpty()){
+            return null;
+        }
+        StringBuilder sb = new StringBuilder("¿Quisiste decir...?");
+        for(IndiceDifuso.Sugerencia s : parecidas){
+            sb.append("\n  ").append(s);
+        }
+        return sb.toString();
+    }
+    
+    public static String checkPalabra(String palabra){        
+        return Tokenizador.limpiar(palabra);
     }
     
     @FXML
     private void reiniciar(ActionEvent event) {
+        cancelarCarga(event);
+        datosCargados = true;
         table.clear();
-        lstPalabras.getItems().clear();
+        indice.clear();
+        registro.clear();
+        difuso = new IndiceDifuso();
+        lstArchivos.getItems().clear();
         File file = new File(MainApp.FILENAME);
         file.delete();
+        new File(MainApp.FILENAME_INDICE).delete();
+        new File(MainApp.FILENAME_REGISTRO).delete();
     }
 }
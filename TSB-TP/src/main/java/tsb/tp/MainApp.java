@@ -1,14 +1,13 @@
 package tsb.tp;
 
+import clases.ArchivoTabla;
+import clases.GuardadoPeriodico;
 import clases.TSBHashtable;
+import clases.TSBHashtableMonitor;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import javafx.application.Application;
+import javafx.application.Platform;
 import static javafx.application.Application.launch;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
@@ -18,40 +17,59 @@ import javafx.stage.Stage;
 public class MainApp extends Application {
 
     public static final String FILENAME = "TSBHashtable.dat";
+    // El índice invertido se guarda junto a la tabla.
+    public static final String FILENAME_INDICE = "TSBHashtable.idx";
+    // Y el registro de los archivos cargados.
+    public static final String FILENAME_REGISTRO = "TSBHashtable.reg";
+
+    // Guarda la tabla, el índice y el registro mientras la aplicación está
+    // abierta, para no perder todo lo cargado si se corta.
+    private GuardadoPeriodico guardado;
 
     @Override
     public void start(Stage stage) throws Exception {
-        load();
-        Parent root = FXMLLoader.load(getClass().getResource("/fxml/Scene.fxml"));
+        FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Scene.fxml"));
+        Parent root = loader.load();
         Scene scene = new Scene(root);
         scene.getStylesheets().add("/styles/Styles.css");
         stage.setTitle("Trabajo Practico TSB");
         stage.setScene(scene);
         stage.show();
-
+        // Los datos guardados se leen en segundo plano, con la ventana visible.
+        FXMLController controller = loader.getController();
+        controller.abrirGuardados();
+        // Las estadísticas de la tabla se pueden ver con jconsole.
+        TSBHashtableMonitor.registrar("palabras", () -> FXMLController.table);
+        // Las instantáneas se toman en el hilo de JavaFX, que es el que
+        // modifica los datos; hasta leer los datos guardados no se los pisa.
+        // El índice y el registro se guardan en el mismo ciclo que la tabla.
+        guardado = new GuardadoPeriodico(new File(FILENAME),
+                () -> FXMLController.datosCargados ? FXMLController.table : null,
+                Platform::runLater);
+        guardado.agregarArchivo(new File(FILENAME_INDICE),
+                () -> FXMLController.indice.instantanea()::guardar);
+        guardado.agregarArchivo(new File(FILENAME_REGISTRO),
+                () -> FXMLController.registro.copiar()::guardar);
+        guardado.iniciar();
     }
 
     @Override
     public void stop() throws Exception {
-        this.write(FXMLController.table);
+        // Se espera un guardado en curso, que escribe el mismo temporal.
+        if (guardado != null) {
+            guardado.close();
+        }
+        // Si la lectura de los datos guardados no terminó, no se pisan.
+        if (FXMLController.datosCargados) {
+            this.write(FXMLController.table);
+            FXMLController.indice.guardar(new File(FILENAME_INDICE));
+            FXMLController.registro.guardar(new File(FILENAME_REGISTRO));
+        }
         super.stop();
     }
 
-    public void write(Object o) throws IOException {
-        FileOutputStream out = new FileOutputStream(FILENAME);
-        ObjectOutputStream ois = new ObjectOutputStream(out);
-        ois.writeObject(o);
-        ois.close();
-    }
-
-    public void load() throws FileNotFoundException, IOException, IOException, ClassNotFoundException {
-        File arch = new File(FILENAME);
-        if (arch.exists()) {
-            FileInputStream fis = new FileInputStream(FILENAME);
-            ObjectInputStream ois = new ObjectInputStream(fis);
-            FXMLController.table = (TSBHashtable) ois.readObject();
-            System.out.println("");
-        }
+    public void write(TSBHashtable<?, ?> table) throws IOException {
+        ArchivoTabla.escribir(new File(FILENAME), table);
     }
 
     /**
@@ -0,0 +1,109 @@
+package tsb.tp;
+
+import clases.ArchivoTabla;
+import clases.IndiceDifuso;
+import clases.IndiceInvertido;
+import clases.RegistroArchivos;
+import clases.TSBHashtable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import javafx.concurrent.Task;
+
+/**
+ * Tarea de fondo que lee los datos guardados al iniciar la aplicación: la
+ * tabla de palabras (TSBHashtable.dat), el índice invertido y el registro de
+ * archivos cargados.
+ *
+ * Se ejecuta con la ventana ya visible, informando el avance en bytes leídos.
+ * Al terminar deja los datos leídos (y la lista de palabras para la interfaz
+ * y el índice de búsqueda aproximada, armados fuera del hilo de JavaFX)
+ * disponibles con los getters; quien la inicia los aplica en el hilo de
+ * JavaFX al recibir el evento de éxito.
+ */
+public class TareaApertura extends Task<Long> {
+
+    private final File archivoTabla;
+    private final File archivoIndice;
+    private final File archivoRegistro;
+
+    private TSBHashtable<String, Integer> tabla;
+    private IndiceInvertido indice;
+    private RegistroArchivos registro;
+    private List<String> palabras;
+    private IndiceDifuso difuso;
+
+    /**
+     * @param archivoTabla el archivo de la tabla de palabras.
+     * @param archivoIndice el archivo del índice invertido.
+     * @param archivoRegistro el archivo del registro de archivos cargados.
+     */
+    public TareaApertura(File archivoTabla, File archivoIndice, File archivoRegistro) {
+        this.archivoTabla = archivoTabla;
+        this.archivoIndice = archivoIndice;
+        this.archivoRegistro = archivoRegistro;
+    }
+
+    /**
+     * Lee los tres archivos (los que no existen se reemplazan por datos
+     * vacíos).
+     *
+     * @return la cantidad de palabras distintas leídas.
+     * @throws IOException si algún archivo existe pero no se puede leer.
+     */
+    @Override
+    protected Long call() throws IOException {
+        final long total = Math.max(1, archivoTabla.length() + archivoIndice.length()
+                + archivoRegistro.length());
+        final long inicio = System.nanoTime();
+        if (archivoTabla.exists()) {
+            updateMessage("Leyendo " + archivoTabla.getName());
+            tabla = ArchivoTabla.leer(archivoTabla, leidos -> {
+                updateProgress(leidos, total);
+                if (isCancelled()) {
+                    // corta la lectura: la excepción sale de readObject().
+                    throw new IllegalStateException("Apertura cancelada");
+                }
+            });
+        } else {
+            tabla = new TSBHashtable<>(1000);
+        }
+        updateMessage("Leyendo " + archivoIndice.getName());
+        indice = archivoIndice.exists() ? IndiceInvertido.cargar(archivoIndice) : new IndiceInvertido();
+        updateProgress(archivoTabla.length() + archivoIndice.length(), total);
+        registro = archivoRegistro.exists() ? RegistroArchivos.cargar(archivoRegistro) : new RegistroArchivos();
+        palabras = new ArrayList<>(tabla.keySet());
+        difuso = IndiceDifuso.de(palabras);
+        updateProgress(total, total);
+        updateMessage(String.format("%,d palabras leídas en %.1f s", palabras.size(),
+                (System.nanoTime() - inicio) / 1e9));
+        return (long) palabras.size();
+    }
+
+    public TSBHashtable<String, Integer> getTabla() {
+        return tabla;
+    }
+
+    public IndiceInvertido getIndice() {
+        return indice;
+    }
+
+    public RegistroArchivos getRegistro() {
+        return registro;
+    }
+
+    /**
+     * @return las palabras de la tabla, para mostrar en la lista.
+     */
+    public List<String> getPalabras() {
+        return palabras;
+    }
+
+    /**
+     * @return el índice de búsqueda aproximada sobre las palabras de la tabla.
+     */
+    public IndiceDifuso getDifuso() {
+        return difuso;
+    }
+}
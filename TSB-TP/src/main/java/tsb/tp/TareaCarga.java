@@ -0,0 +1,230 @@
+package tsb.tp;
+
+import clases.ContadorPalabras;
+import clases.IngestaParalela;
+import clases.LectorMapeado;
+import clases.RegistroArchivos;
+import clases.TSBHashtable;
+import clases.Tokenizador;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+/**
+ * Tarea de fondo que lee un archivo de texto y cuenta sus palabras sin
+ * bloquear el hilo de la interfaz.
+ *
+ * El archivo se lee mapeándolo en memoria (LectorMapeado). Las palabras se
+ * acumulan en una tabla parcial (lote) que se entrega al hilo
+ * de JavaFX como mucho cada INTERVALO_PUBLICACION milisegundos, de forma que
+ * la interfaz se actualiza en bloques y no por cada palabra leída. La tabla
+ * compartida sólo se modifica desde el hilo de JavaFX (dentro del destino).
+ *
+ * Los archivos de UMBRAL_PARALELO bytes o más se cuentan con IngestaParalela,
+ * y el resultado se publica una única vez al terminar.
+ *
+ * La tarea informa su avance en bytes leídos (progress) y un mensaje con la
+ * cantidad de palabras procesadas y la velocidad de lectura. Si se cancela,
+ * los lotes ya publicados quedan aplicados.
+ *
+ * Si se indica un registro de archivos (setRegistro()), antes de leer el
+ * archivo se verifica si ya estaba cargado: en ese caso la tarea termina sin
+ * leerlo. Al terminar se lo registra, en el mismo runLater que el último
+ * lote. Si el archivo cambió desde la carga anterior no se publican lotes
+ * intermedios: su aporte anterior se quita y se reemplaza por el nuevo de una
+ * sola vez, sólo si la carga termina bien, de forma que una carga fallida o
+ * cancelada deja la tabla como estaba.
+ */
+public class TareaCarga extends Task<Long> {
+
+    // Tiempo mínimo (en milisegundos) entre dos publicaciones a la interfaz.
+    public static final long INTERVALO_PUBLICACION = 100;
+
+    // Tamaño a partir del cual el archivo se cuenta en paralelo.
+    public static final long UMBRAL_PARALELO = 4 * IngestaParalela.TAMANIO_MINIMO_RANGO;
+
+    private final File archivo;
+
+    // Recibe cada lote en el hilo de JavaFX.
+    private final Consumer<TSBHashtable<String, Integer>> destino;
+
+    // Sólo uno de los dos se usa, según el tamaño del archivo.
+    private volatile LectorMapeado lector;
+    private volatile IngestaParalela paralela;
+
+    // Opcionales: el registro de archivos cargados y la acción que quita el
+    // aporte anterior del archivo (en el hilo de JavaFX).
+    private RegistroArchivos registro;
+    private Consumer<File> quitarAnterior;
+
+    // La verificación del archivo en el registro, y si reemplaza una carga
+    // anterior (el archivo cambió).
+    private RegistroArchivos.Verificacion verificacion;
+    private boolean reemplazo;
+
+    private long palabras;
+    private long inicio;
+    private volatile long ultimaPublicacion;
+
+    /**
+     * @param archivo el archivo a procesar.
+     * @param destino la acción que aplica cada lote; se invoca siempre en el
+     * hilo de JavaFX.
+     */
+    public TareaCarga(File archivo, Consumer<TSBHashtable<String, Integer>> destino) {
+        this.archivo = archivo;
+        this.destino = destino;
+    }
+
+    /**
+     * @param registro el registro de archivos ya cargados.
+     * @param quitarAnterior la acción que quita de la tabla lo que aportó el
+     * archivo en una carga anterior; se invoca en el hilo de JavaFX, sólo si
+     * el archivo cambió y la carga termina bien, inmediatamente antes de
+     * entregar el resultado.
+     */
+    public void setRegistro(RegistroArchivos registro, Consumer<File> quitarAnterior) {
+        this.registro = registro;
+        this.quitarAnterior = quitarAnterior;
+    }
+
+    /**
+     * Procesa el archivo completo.
+     *
+     * @return la cantidad de palabras leídas.
+     * @throws IOException si no se puede leer el archivo.
+     */
+    @Override
+    protected Long call() throws IOException {
+        if (registro != null) {
+            updateMessage("Verificando " + archivo.getName());
+            verificacion = registro.verificar(archivo);
+            if (!verificacion.debeCargarse()) {
+                updateProgress(1, 1);
+                updateMessage(verificacion.getEstado() == RegistroArchivos.Estado.SIN_CAMBIOS
+                        ? "El archivo ya estaba cargado"
+                        : "El contenido ya estaba cargado con otro nombre");
+                return 0L;
+            }
+            reemplazo = verificacion.getEstado() == RegistroArchivos.Estado.MODIFICADO;
+        }
+        inicio = System.nanoTime();
+        ultimaPublicacion = inicio;
+        return archivo.length() >= UMBRAL_PARALELO
+                ? contarEnParalelo()
+                : contarSecuencial();
+    }
+
+    /*
+     * Lee el archivo con un único hilo, publicando lotes mientras avanza
+     * (salvo que reemplace una carga anterior).
+     */
+    private Long contarSecuencial() throws IOException {
+        final long total = archivo.length();
+        final ContadorPalabras contador = new ContadorPalabras(new TSBHashtable<>(1000));
+        final Tokenizador tokenizador = new Tokenizador(contador);
+        final long[] leidos = {0};
+        lector = new LectorMapeado();
+        lector.leer(archivo, tokenizador, n -> {
+            leidos[0] += n;
+            palabras = tokenizador.getPalabras();
+            long ahora = System.nanoTime();
+            if (ahora - ultimaPublicacion < INTERVALO_PUBLICACION * 1000000L) {
+                return;
+            }
+            if (reemplazo) {
+                ultimaPublicacion = ahora;
+                informar(leidos[0], total, ahora);
+            } else {
+                publicar(contador.reemplazarTabla(new TSBHashtable<>(1000)), leidos[0], total, ahora);
+            }
+        });
+        palabras = tokenizador.getPalabras();
+        terminar(contador.getTabla(), total);
+        return palabras;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        LectorMapeado l = lector;
+        if (l != null) {
+            l.cancelar();
+        }
+        IngestaParalela p = paralela;
+        if (p != null) {
+            p.cancelar();
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    /*
+     * Cuenta el archivo con varios hilos. Mientras tanto sólo se informa el
+     * avance; la tabla resultante se publica completa al final.
+     */
+    private Long contarEnParalelo() throws IOException {
+        final long total = archivo.length();
+        final AtomicLong leidos = new AtomicLong();
+        paralela = new IngestaParalela();
+        TSBHashtable<String, Integer> resultado = paralela.contar(archivo, n -> {
+            long l = leidos.addAndGet(n);
+            long ahora = System.nanoTime();
+            if (ahora - ultimaPublicacion >= INTERVALO_PUBLICACION * 1000000L) {
+                ultimaPublicacion = ahora;
+                informar(l, total, ahora);
+            }
+        });
+        for (Integer c : resultado.values()) {
+            palabras += c;
+        }
+        terminar(resultado, total);
+        return palabras;
+    }
+
+    /*
+     * Entrega un lote al hilo de JavaFX y actualiza el progreso y el mensaje
+     * de la tarea.
+     */
+    private void publicar(TSBHashtable<String, Integer> lote, long leidos, long total, long ahora) {
+        if (!lote.isEmpty()) {
+            Platform.runLater(() -> destino.accept(lote));
+        }
+        ultimaPublicacion = ahora;
+        informar(leidos, total, ahora);
+    }
+
+    /*
+     * Entrega el último lote (o todo el archivo, si reemplaza una carga
+     * anterior) y registra el archivo en un único runLater, para que un
+     * guardado nunca vea el archivo registrado sin sus cantidades ni las
+     * cantidades anteriores quitadas sin las nuevas.
+     */
+    private void terminar(TSBHashtable<String, Integer> lote, long total) {
+        final RegistroArchivos.Verificacion v = verificacion;
+        final boolean quitar = reemplazo;
+        Platform.runLater(() -> {
+            if (quitar) {
+                quitarAnterior.accept(archivo);
+            }
+            if (!lote.isEmpty()) {
+                destino.accept(lote);
+            }
+            if (v != null) {
+                registro.registrar(archivo, v);
+            }
+        });
+        long ahora = System.nanoTime();
+        ultimaPublicacion = ahora;
+        informar(total, total, ahora);
+    }
+
+    private void informar(long leidos, long total, long ahora) {
+        double segundos = (ahora - inicio) / 1e9;
+        double mbs = segundos > 0 ? leidos / 1048576.0 / segundos : 0;
+        updateProgress(leidos, total);
+        updateMessage(String.format("%,d palabras - %,d bytes - %.1f MB/s",
+                palabras, leidos, mbs));
+    }
+}
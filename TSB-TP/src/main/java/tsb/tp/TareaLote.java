@@ -0,0 +1,151 @@
+package tsb.tp;
+
+import clases.IndiceInvertido;
+import clases.PipelineIngesta;
+import clases.RegistroArchivos;
+import clases.TSBHashtable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+
+/**
+ * Tarea de fondo que cuenta las palabras de varios archivos (o carpetas) con
+ * PipelineIngesta.
+ *
+ * Mientras la cadena trabaja se informa el avance en bytes y la velocidad de
+ * cada etapa, como mucho cada TareaCarga.INTERVALO_PUBLICACION milisegundos.
+ * El total se entrega al destino, en el hilo de JavaFX, al terminar, junto
+ * con un índice invertido con las cantidades de cada archivo.
+ *
+ * Con un registro de archivos (setRegistro()) se omiten los archivos que ya
+ * estaban cargados y los de contenido repetido; de los modificados se pide
+ * quitar el aporte anterior junto con la entrega del resultado, de forma que
+ * si la carga falla o se cancela la tabla queda como estaba.
+ */
+public class TareaLote extends Task<Long> {
+
+    private final List<File> rutas;
+
+    // Recibe el resultado y el índice de los archivos en el hilo de JavaFX.
+    private final BiConsumer<TSBHashtable<String, Integer>, IndiceInvertido> destino;
+
+    private final PipelineIngesta pipeline;
+
+    // Opcionales: el registro de archivos cargados y la acción que quita el
+    // aporte anterior de un archivo (en el hilo de JavaFX).
+    private RegistroArchivos registro;
+    private Consumer<File> quitarAnterior;
+
+    private long inicio;
+    private volatile long ultimaPublicacion;
+
+    /**
+     * @param rutas los archivos y/o carpetas a procesar.
+     * @param destino la acción que aplica el resultado y el índice de los
+     * archivos procesados; se invoca en el hilo de JavaFX.
+     */
+    public TareaLote(List<File> rutas,
+            BiConsumer<TSBHashtable<String, Integer>, IndiceInvertido> destino) {
+        this.rutas = rutas;
+        this.destino = destino;
+        this.pipeline = new PipelineIngesta();
+    }
+
+    /**
+     * @param registro el registro de archivos ya cargados.
+     * @param quitarAnterior la acción que quita de la tabla lo que aportó un
+     * archivo en una carga anterior; se invoca en el hilo de JavaFX, sólo si
+     * la carga termina bien, inmediatamente antes de entregar el resultado.
+     */
+    public void setRegistro(RegistroArchivos registro, Consumer<File> quitarAnterior) {
+        this.registro = registro;
+        this.quitarAnterior = quitarAnterior;
+    }
+
+    @Override
+    protected Long call() throws IOException {
+        inicio = System.nanoTime();
+        ultimaPublicacion = inicio;
+        List<File> listados = PipelineIngesta.listarArchivos(rutas);
+        List<RegistroArchivos.Verificacion> verificaciones = new ArrayList<>();
+        final List<File> archivos = registro != null ? filtrar(listados, verificaciones) : listados;
+        long bytes = 0;
+        for (File f : archivos) {
+            bytes += f.length();
+        }
+        final long total = bytes;
+        final AtomicLong leidos = new AtomicLong();
+        updateMessage(String.format("%,d archivos", archivos.size()));
+        // el índice se arma aparte y se combina con el de la interfaz al final.
+        final IndiceInvertido indice = new IndiceInvertido();
+        pipeline.setIndice(indice);
+        TSBHashtable<String, Integer> resultado = pipeline.ejecutar(archivos, n -> {
+            long l = leidos.addAndGet(n);
+            long ahora = System.nanoTime();
+            if (ahora - ultimaPublicacion >= TareaCarga.INTERVALO_PUBLICACION * 1000000L) {
+                ultimaPublicacion = ahora;
+                informar(archivos.size(), l, total, ahora);
+            }
+        });
+        long palabras = 0;
+        for (Integer c : resultado.values()) {
+            palabras += c;
+        }
+        informar(archivos.size(), total, total, System.nanoTime());
+        // los archivos se registran junto con el resultado, para que un
+        // guardado nunca tenga uno sin sus cantidades.
+        Platform.runLater(() -> {
+            if (registro != null) {
+                for (int i = 0; i < archivos.size(); i++) {
+                    quitarAnterior.accept(archivos.get(i));
+                    registro.registrar(archivos.get(i), verificaciones.get(i));
+                }
+            }
+            destino.accept(resultado, indice);
+        });
+        return palabras;
+    }
+
+    /*
+     * Retorna sólo los archivos que hay que cargar: los nuevos y los
+     * modificados, sin repetir contenido.
+     */
+    private List<File> filtrar(List<File> archivos, List<RegistroArchivos.Verificacion> verificaciones)
+            throws IOException {
+        updateMessage(String.format("Verificando %,d archivos", archivos.size()));
+        List<File> cargar = new ArrayList<>();
+        TSBHashtable<Long, File> vistos = new TSBHashtable<>(100);
+        for (File f : archivos) {
+            RegistroArchivos.Verificacion v = registro.verificar(f);
+            if (v.debeCargarse() && vistos.get(v.getHash()) == null) {
+                vistos.put(v.getHash(), f);
+                cargar.add(f);
+                verificaciones.add(v);
+            }
+        }
+        return cargar;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        pipeline.cancelar();
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    private void informar(int archivos, long leidos, long total, long ahora) {
+        double segundos = (ahora - inicio) / 1e9;
+        double mbs = segundos > 0 ? leidos / 1048576.0 / segundos : 0;
+        StringBuilder etapas = new StringBuilder();
+        for (PipelineIngesta.Etapa e : pipeline.getEtapas()) {
+            etapas.append(String.format(" - %s %.0f MB/s", e.getNombre(), e.getMegabytesPorSegundo()));
+        }
+        updateProgress(leidos, total);
+        updateMessage(String.format("%,d archivos - %.1f MB/s%s", archivos, mbs, etapas));
+    }
+}
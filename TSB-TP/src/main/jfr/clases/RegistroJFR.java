@@ -0,0 +1,179 @@
+package clases;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Los eventos de JDK Flight Recorder de EventosJFR. Depende de jdk.jfr, por
+ * lo que sólo se compila con el perfil "jfr" del pom; EventosJFR la carga por
+ * reflexión.
+ */
+final class RegistroJFR implements EventosJFR.Registro {
+
+    @Override
+    public EventosJFR.Rehash rehash() {
+        final Rehash e = new Rehash();
+        if (!e.isEnabled()) {
+            return null;
+        }
+        e.begin();
+        return new EventosJFR.Rehash() {
+            @Override
+            void commit() {
+                e.capacidadAnterior = capacidadAnterior;
+                e.capacidadNueva = capacidadNueva;
+                e.vivas = vivas;
+                e.tumbas = tumbas;
+                e.maxSondeo = maxSondeo;
+                e.commit();
+            }
+        };
+    }
+
+    @Override
+    public EventosJFR.IngestaArchivo ingesta() {
+        final IngestaArchivo e = new IngestaArchivo();
+        if (!e.isEnabled()) {
+            return null;
+        }
+        e.begin();
+        return new EventosJFR.IngestaArchivo() {
+            @Override
+            void commit() {
+                e.archivo = archivo;
+                e.modo = modo;
+                e.bytes = bytes;
+                e.palabras = palabras;
+                e.commit();
+            }
+        };
+    }
+
+    @Override
+    public EventosJFR.Persistencia persistencia() {
+        final Persistencia e = new Persistencia();
+        if (!e.isEnabled()) {
+            return null;
+        }
+        e.begin();
+        return new EventosJFR.Persistencia() {
+            @Override
+            void commit() {
+                e.operacion = operacion;
+                e.archivo = archivo;
+                e.bytes = bytes;
+                e.pares = pares;
+                e.commit();
+            }
+        };
+    }
+
+    @Override
+    public void sondeoLargo(boolean insercion, int sondeos, int capacidad, Object clave) {
+        SondeoLargo e = new SondeoLargo();
+        if (e.shouldCommit()) {
+            e.operacion = insercion ? "inserción" : "búsqueda";
+            e.sondeos = sondeos;
+            e.capacidad = capacidad;
+            e.claseClave = clave.getClass().getName();
+            e.commit();
+        }
+    }
+
+    //************************ Eventos.
+
+    @Name("clases.Rehash")
+    @Label("Rehash de TSBHashtable")
+    @Description("Reconstrucción del arreglo de una TSBHashtable: al crecer, al descartar tumbas"
+            + " o al cambiar la función de hash")
+    @Category({"TSB", "Tabla"})
+    @Enabled(false)
+    static final class Rehash extends Event {
+
+        @Label("Capacidad anterior")
+        int capacidadAnterior;
+
+        @Label("Capacidad nueva")
+        int capacidadNueva;
+
+        @Label("Pares")
+        int vivas;
+
+        @Label("Tumbas descartadas")
+        int tumbas;
+
+        @Label("Sondeo máximo")
+        int maxSondeo;
+    }
+
+    @Name("clases.SondeoLargo")
+    @Label("Sondeo largo en TSBHashtable")
+    @Description("Búsqueda o inserción que salteó más casillas que el umbral (tsb.jfr.sondeo)")
+    @Category({"TSB", "Tabla"})
+    @StackTrace(true)
+    @Enabled(false)
+    static final class SondeoLargo extends Event {
+
+        @Label("Operación")
+        String operacion;
+
+        @Label("Sondeos")
+        int sondeos;
+
+        @Label("Capacidad")
+        int capacidad;
+
+        @Label("Clase de la clave")
+        String claseClave;
+    }
+
+    @Name("clases.IngestaArchivo")
+    @Label("Ingesta de archivo")
+    @Description("Lectura y conteo de las palabras de un archivo")
+    @Category({"TSB", "Ingesta"})
+    @Enabled(false)
+    static final class IngestaArchivo extends Event {
+
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Modo")
+        @Description("secuencial, paralela o pipeline (en pipeline sólo la lectura)")
+        String modo;
+
+        @Label("Tamaño")
+        @DataAmount
+        long bytes;
+
+        @Label("Palabras")
+        @Description("0 si no se conocen (pipeline)")
+        long palabras;
+    }
+
+    @Name("clases.Persistencia")
+    @Label("Persistencia de la tabla")
+    @Description("Escritura o lectura de una TSBHashtable serializada (ArchivoTabla)")
+    @Category({"TSB", "Persistencia"})
+    @Enabled(false)
+    static final class Persistencia extends Event {
+
+        @Label("Operación")
+        String operacion;
+
+        @Label("Archivo")
+        String archivo;
+
+        @Label("Tamaño")
+        @DataAmount
+        long bytes;
+
+        @Label("Pares")
+        int pares;
+    }
+}
@@ -0,0 +1,90 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ArchivoTabla y de la serialización de TSBHashtable.
+ */
+public class ArchivoTablaTest {
+
+    /**
+     * Test of escribir and leer methods, of class ArchivoTabla.
+     */
+    @Test
+    public void testEscribirLeer() throws IOException {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(1000);
+        for (int i = 0; i < 500; i++) {
+            tabla.put("palabra" + i, i);
+        }
+        tabla.put("José", 7);
+        for (int i = 0; i < 500; i += 3) {
+            tabla.remove("palabra" + i);
+        }
+        File f = File.createTempFile("tabla", ".dat");
+        try {
+            ArchivoTabla.escribir(f, tabla);
+            long[] avance = {0};
+            TSBHashtable<String, Integer> leida = ArchivoTabla.leer(f, n -> avance[0] = n);
+            assertEquals(tabla, leida);
+            assertEquals(f.length(), avance[0]);
+            // la tabla leída se puede seguir usando.
+            leida.put("nueva", 1);
+            assertEquals(tabla.size() + 1, leida.size());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of leer method, of class ArchivoTabla, con un archivo dañado que
+     * todavía se puede deserializar.
+     */
+    @Test
+    public void testLeerDaniado() throws IOException {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        tabla.put("palabra", 1);
+        tabla.put("otra", 2);
+        File f = File.createTempFile("tabla", ".dat");
+        try {
+            ArchivoTabla.escribir(f, tabla);
+            assertFalse(new File(f.getPath() + ".tmp").exists());
+            byte[] bytes = Files.readAllBytes(f.toPath());
+            String texto = new String(bytes, StandardCharsets.ISO_8859_1);
+            bytes[texto.indexOf("palabra") + 1] = 'e';
+            Files.write(f.toPath(), bytes);
+            try {
+                ArchivoTabla.leer(f, null);
+                fail("leer() de un archivo dañado");
+            } catch (IOException e) {
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of leer method, of class ArchivoTabla, con el formato anterior
+     * (el arreglo de entradas completo), como el TSBHashtable.dat del
+     * proyecto.
+     */
+    @Test
+    public void testLeerFormatoAnterior() throws IOException {
+        File dat = new File("TSBHashtable.dat");
+        if (!dat.exists()) {
+            return;
+        }
+        TSBHashtable<String, Integer> tabla = ArchivoTabla.leer(dat, null);
+        assertFalse(tabla.isEmpty());
+        int vivas = 0;
+        for (Integer v : tabla.values()) {
+            assertNotNull(v);
+            vivas++;
+        }
+        assertEquals(tabla.size(), vivas);
+    }
+}
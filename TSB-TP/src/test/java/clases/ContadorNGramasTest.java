@@ -0,0 +1,188 @@
+package clases;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de ContadorNGramas, Vocabulario y TablaLargos.
+ */
+public class ContadorNGramasTest {
+
+    private static final String TEXTO = "el perro come. el perro duerme, el gato come\n"
+            + "y el perro come otra vez";
+
+    private static ContadorNGramas contar(int n, String... textos) {
+        ContadorNGramas contador = new ContadorNGramas(n);
+        for (String texto : textos) {
+            Tokenizador t = new Tokenizador(contador);
+            t.procesar(texto);
+            t.finalizar();
+            contador.reiniciar();
+        }
+        return contador;
+    }
+
+    /**
+     * Test of cantidad method, of class ContadorNGramas, con bigramas.
+     */
+    @Test
+    public void testBigramas() {
+        ContadorNGramas contador = contar(2, TEXTO);
+        assertEquals(3, contador.cantidad("el", "perro"));
+        assertEquals(2, contador.cantidad("perro", "come"));
+        assertEquals(1, contador.cantidad("come", "el"));
+        assertEquals(0, contador.cantidad("perro", "gato"));
+        assertEquals(0, contador.cantidad("el", "inexistente"));
+        // 15 palabras: 14 bigramas, de los que se repiten "el perro" y "perro come".
+        assertEquals(11, contador.size());
+        assertEquals(8, contador.getVocabulario().size());
+    }
+
+    /**
+     * Test of reiniciar method, of class ContadorNGramas: los n-gramas no
+     * cruzan de un texto al siguiente.
+     */
+    @Test
+    public void testReiniciar() {
+        ContadorNGramas contador = contar(3, "uno dos", "tres cuatro cinco");
+        assertEquals(1, contador.size());
+        assertEquals(1, contador.cantidad("tres", "cuatro", "cinco"));
+        assertEquals(0, contador.cantidad("uno", "dos", "tres"));
+    }
+
+    /**
+     * Test of getOmitidos method, of class ContadorNGramas: con ids de 2
+     * bits el vocabulario admite 4 palabras, y los n-gramas con las demás se
+     * saltean sin cortar la carga.
+     */
+    @Test
+    public void testLimiteVocabulario() {
+        ContadorNGramas contador = new ContadorNGramas(2, new Vocabulario(), 2);
+        Tokenizador t = new Tokenizador(contador);
+        t.procesar("a b c d e f a b e");
+        t.finalizar();
+        // se saltean "d e", "e f", "f a" y "b e".
+        assertEquals(4, contador.getOmitidos());
+        assertEquals(3, contador.size());
+        assertEquals(2, contador.cantidad("a", "b"));
+        assertEquals(4, contador.getVocabulario().size());
+        assertEquals(-1, contador.getVocabulario().getId("e"));
+    }
+
+    /**
+     * Test of continuaciones method, of class ContadorNGramas.
+     */
+    @Test
+    public void testContinuaciones() {
+        ContadorNGramas bigramas = contar(2, TEXTO);
+        List<Map.Entry<String, Integer>> siguientes = bigramas.continuaciones(10, "el");
+        assertEquals(2, siguientes.size());
+        assertEquals("perro", siguientes.get(0).getKey());
+        assertEquals(Integer.valueOf(3), siguientes.get(0).getValue());
+        assertEquals("gato", siguientes.get(1).getKey());
+        assertEquals(1, bigramas.continuaciones(1, "el").size());
+        assertTrue(bigramas.continuaciones(10, "inexistente").isEmpty());
+
+        ContadorNGramas trigramas = contar(3, TEXTO);
+        siguientes = trigramas.continuaciones(10, "el", "perro");
+        assertEquals("come", siguientes.get(0).getKey());
+        assertEquals(Integer.valueOf(2), siguientes.get(0).getValue());
+        assertEquals("duerme", siguientes.get(1).getKey());
+        // con una sola palabra se suman los trigramas que empiezan con ella.
+        assertEquals(Integer.valueOf(3), trigramas.continuaciones(10, "el").get(0).getValue());
+    }
+
+    /**
+     * Test of continuaciones method, of class ContadorNGramas, con un texto
+     * al azar, comparando con las sumas calculadas recorriendo la tabla.
+     */
+    @Test
+    public void testContinuacionesAzar() {
+        Random r = new Random(48);
+        StringBuilder texto = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            texto.append('p').append(r.nextInt(300)).append(' ');
+        }
+        ContadorNGramas trigramas = contar(3, texto.toString());
+        Vocabulario v = trigramas.getVocabulario();
+        for (int i = 0; i < 300; i += 7) {
+            String primera = "p" + i;
+            Map<String, Integer> esperadas = new HashMap<>();
+            trigramas.getTabla().recorrer((clave, cantidad) -> {
+                String[] palabras = trigramas.getTexto(clave).split(" ");
+                if (palabras[0].equals(primera)) {
+                    esperadas.merge(palabras[1], cantidad, Integer::sum);
+                }
+            });
+            Map<String, Integer> obtenidas = new HashMap<>();
+            for (Map.Entry<String, Integer> e : trigramas.continuaciones(v.size(), primera)) {
+                obtenidas.put(e.getKey(), e.getValue());
+            }
+            assertEquals(esperadas, obtenidas);
+        }
+    }
+
+    /**
+     * Test of mayores method, of class ContadorNGramas.
+     */
+    @Test
+    public void testMayores() {
+        List<Map.Entry<String, Integer>> mayores = contar(2, TEXTO).mayores(2);
+        assertEquals(2, mayores.size());
+        assertEquals("el perro", mayores.get(0).getKey());
+        assertEquals(Integer.valueOf(3), mayores.get(0).getValue());
+        assertEquals("perro come", mayores.get(1).getKey());
+        assertEquals(Integer.valueOf(2), mayores.get(1).getValue());
+    }
+
+    /**
+     * Test of sumar and get methods, of class TablaLargos, comparando con un
+     * HashMap.
+     */
+    @Test
+    public void testTablaLargos() {
+        TablaLargos tabla = new TablaLargos();
+        Map<Long, Integer> esperado = new HashMap<>();
+        Random r = new Random(47);
+        for (int i = 0; i < 100000; i++) {
+            long clave = r.nextInt(20000) * 0x100000001L;
+            int cantidad = r.nextInt(5) + 1;
+            assertEquals(esperado.merge(clave, cantidad, Integer::sum).intValue(), tabla.sumar(clave, cantidad));
+        }
+        assertEquals(esperado.size(), tabla.size());
+        for (Map.Entry<Long, Integer> e : esperado.entrySet()) {
+            assertEquals(e.getValue().intValue(), tabla.get(e.getKey()));
+        }
+        assertEquals(0, tabla.get(1));
+        assertFalse(tabla.contiene(1));
+        int[] recorridas = {0};
+        tabla.recorrer((clave, cantidad) -> {
+            assertEquals(esperado.get(clave).intValue(), cantidad);
+            recorridas[0]++;
+        });
+        assertEquals(esperado.size(), recorridas[0]);
+    }
+
+    /**
+     * Test of id method, of class Vocabulario, con la Palabra del tokenizador.
+     */
+    @Test
+    public void testVocabulario() {
+        Vocabulario v = new Vocabulario(1);
+        Palabra p = new Palabra();
+        for (char c : "año".toCharArray()) {
+            p.agregar(c);
+        }
+        assertEquals(0, v.id("hola"));
+        assertEquals(1, v.id(p));
+        assertEquals(1, v.id("año"));
+        assertEquals(0, v.getId("hola"));
+        assertEquals(-1, v.getId("chau"));
+        assertEquals("año", v.getPalabra(1));
+        assertEquals(2, v.size());
+    }
+}
@@ -0,0 +1,196 @@
+package clases;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de los métodos diferencia() y combinar() de TSBHashtable, y de
+ * DiferenciaTablas.
+ */
+public class DiferenciaTablasTest {
+
+    private static TSBHashtable<String, Integer> tabla(int desde, int hasta) {
+        TSBHashtable<String, Integer> t = new TSBHashtable<>(10);
+        for (int i = desde; i < hasta; i++) {
+            t.put("clave" + i, i);
+        }
+        return t;
+    }
+
+    /*
+     * Verifica la diferencia contra la calculada con dos HashMap.
+     */
+    private static void verificar(Map<String, Integer> anterior, Map<String, Integer> nueva,
+            DiferenciaTablas<String, Integer> d) {
+        Map<String, Integer> agregadas = new HashMap<>(nueva);
+        agregadas.keySet().removeAll(anterior.keySet());
+        Map<String, Integer> quitadas = new HashMap<>(anterior);
+        quitadas.keySet().removeAll(nueva.keySet());
+        int modificadas = 0;
+        for (Map.Entry<String, Integer> e : anterior.entrySet()) {
+            Integer v = nueva.get(e.getKey());
+            if (v != null && !v.equals(e.getValue())) {
+                modificadas++;
+            }
+        }
+        assertEquals(agregadas.size(), d.getAgregadas().size());
+        for (Map.Entry<String, Integer> e : d.getAgregadas()) {
+            assertEquals(agregadas.get(e.getKey()), e.getValue());
+        }
+        assertEquals(quitadas.size(), d.getQuitadas().size());
+        for (Map.Entry<String, Integer> e : d.getQuitadas()) {
+            assertEquals(quitadas.get(e.getKey()), e.getValue());
+        }
+        assertEquals(modificadas, d.getModificadas().size());
+        for (DiferenciaTablas.Modificacion<String, Integer> m : d.getModificadas()) {
+            assertEquals(anterior.get(m.getClave()), m.getAnterior());
+            assertEquals(nueva.get(m.getClave()), m.getNuevo());
+        }
+    }
+
+    /**
+     * Test of diferencia method, of class TSBHashtable, entre tablas
+     * independientes (cada clave se busca en la otra).
+     */
+    @Test
+    public void testDiferencia() {
+        TSBHashtable<String, Integer> anterior = tabla(0, 30000);
+        TSBHashtable<String, Integer> nueva = tabla(10000, 40000);
+        for (int i = 10000; i < 30000; i += 7) {
+            nueva.put("clave" + i, -i);
+        }
+        DiferenciaTablas<String, Integer> d = anterior.diferencia(nueva);
+        verificar(new HashMap<>(anterior), new HashMap<>(nueva), d);
+        assertEquals(10000, d.getAgregadas().size());
+        assertEquals(10000, d.getQuitadas().size());
+        assertTrue(anterior.diferencia(tabla(0, 30000)).isVacia());
+        assertTrue(new TSBHashtable<String, Integer>().diferencia(new TSBHashtable<>()).isVacia());
+    }
+
+    /**
+     * Test of diferencia method, of class TSBHashtable, con una instantánea
+     * hecha con clone() (casillas alineadas).
+     */
+    @Test
+    public void testDiferenciaInstantanea() throws Exception {
+        TSBHashtable<String, Integer> tabla = tabla(0, 30000);
+        TSBHashtable<String, Integer> instantanea = (TSBHashtable<String, Integer>) tabla.clone();
+        int capacidad = tabla.getCapacidad();
+        Random r = new Random(50);
+        for (int i = 0; i < 2000; i++) {
+            int k = r.nextInt(35000);
+            switch (r.nextInt(3)) {
+                case 0:
+                    tabla.remove("clave" + k);
+                    break;
+                case 1:
+                    tabla.put("clave" + k, k + 1);
+                    break;
+                default:
+                    tabla.put("otra" + k, k);
+            }
+        }
+        assertEquals(capacidad, tabla.getCapacidad());
+        verificar(new HashMap<>(instantanea), new HashMap<>(tabla), instantanea.diferencia(tabla));
+        verificar(new HashMap<>(tabla), new HashMap<>(instantanea), tabla.diferencia(instantanea));
+    }
+
+    /**
+     * Test of aplicar method, of class DiferenciaTablas: combinación de tres
+     * vías, con los conflictos (gana el cambio de otra).
+     */
+    @Test
+    public void testAplicar() {
+        TSBHashtable<String, Integer> base = tabla(0, 10);
+        TSBHashtable<String, Integer> propia = tabla(0, 10);
+        propia.put("clave1", 100);
+        propia.put("propia", 1);
+        TSBHashtable<String, Integer> otra = tabla(0, 10);
+        otra.remove("clave2");
+        otra.put("clave3", 300);
+        otra.put("otra", 2);
+        // conflictos: modificada en las dos, quitada en otra y modificada en
+        // propia, y agregada en las dos con valores distintos.
+        propia.put("clave4", 40);
+        otra.put("clave4", 400);
+        propia.put("clave5", 50);
+        otra.remove("clave5");
+        propia.put("nueva", 1);
+        otra.put("nueva", 2);
+        // el mismo cambio en las dos no es un conflicto.
+        propia.put("clave6", 60);
+        otra.put("clave6", 60);
+
+        List<String> conflictos = base.diferencia(otra).aplicar(propia);
+        assertEquals(new HashSet<>(Arrays.asList("clave4", "clave5", "nueva")), new HashSet<>(conflictos));
+        assertEquals(3, conflictos.size());
+        Map<String, Integer> esperada = new HashMap<>(base);
+        esperada.remove("clave2");
+        esperada.put("clave1", 100);
+        esperada.put("clave3", 300);
+        esperada.put("propia", 1);
+        esperada.put("otra", 2);
+        esperada.put("clave4", 400);
+        esperada.remove("clave5");
+        esperada.put("nueva", 2);
+        esperada.put("clave6", 60);
+        assertEquals(esperada, new HashMap<>(propia));
+    }
+
+    /**
+     * Test of combinar method, of class TSBHashtable, con tablas
+     * independientes y con instantáneas de una misma tabla.
+     */
+    @Test
+    public void testCombinar() throws Exception {
+        List<TSBHashtable<String, Integer>> independientes = Arrays.asList(
+                tabla(0, 20000), tabla(10000, 30000), tabla(25000, 26000));
+        verificarSuma(independientes, TSBHashtable.combinar(independientes, Integer::sum));
+
+        TSBHashtable<String, Integer> original = tabla(0, 30000);
+        List<TSBHashtable<String, Integer>> instantaneas = new ArrayList<>();
+        for (int j = 0; j < 3; j++) {
+            TSBHashtable<String, Integer> copia = (TSBHashtable<String, Integer>) original.clone();
+            for (int i = j; i < 30000; i += 5) {
+                copia.remove("clave" + i);
+            }
+            copia.put("copia" + j, j);
+            instantaneas.add(copia);
+        }
+        TSBHashtable<String, Integer> suma = TSBHashtable.combinar(instantaneas, Integer::sum);
+        verificarSuma(instantaneas, suma);
+        // las tablas no cambian.
+        assertEquals(24001, instantaneas.get(0).size());
+
+        // la función puede quitar claves.
+        TSBHashtable<String, Integer> sinRepetidas = TSBHashtable.combinar(
+                Arrays.asList(instantaneas.get(0), instantaneas.get(1)), (a, b) -> null);
+        for (String k : sinRepetidas.keySet()) {
+            assertTrue(instantaneas.get(0).containsKey(k) != instantaneas.get(1).containsKey(k));
+        }
+        assertEquals(2 * 6000 + 2, sinRepetidas.size());
+
+        assertTrue(TSBHashtable.<String, Integer>combinar(new ArrayList<>(), Integer::sum).isEmpty());
+        TSBHashtable<String, Integer> una = TSBHashtable.combinar(Arrays.asList(original), Integer::sum);
+        assertEquals(original, una);
+        assertTrue(original != una);
+    }
+
+    private static void verificarSuma(List<TSBHashtable<String, Integer>> tablas, TSBHashtable<String, Integer> suma) {
+        Map<String, Integer> esperada = new HashMap<>();
+        for (TSBHashtable<String, Integer> t : tablas) {
+            for (Map.Entry<String, Integer> e : t.entrySet()) {
+                esperada.merge(e.getKey(), e.getValue(), Integer::sum);
+            }
+        }
+        assertEquals(esperada, new HashMap<>(suma));
+        assertEquals(esperada.size(), suma.size());
+    }
+}
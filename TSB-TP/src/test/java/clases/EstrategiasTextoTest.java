@@ -0,0 +1,99 @@
+package clases;
+
+import java.io.File;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de EstrategiasTexto y de TSBHashtable con una EstrategiaHash.
+ */
+public class EstrategiasTextoTest {
+
+    private static Palabra palabra(String s) {
+        Palabra p = new Palabra();
+        for (char c : s.toCharArray()) {
+            p.agregar(c);
+        }
+        return p;
+    }
+
+    /**
+     * Test of equivalentes and hash methods, of class EstrategiasTexto.
+     */
+    @Test
+    public void testEquivalentes() {
+        EstrategiasTexto contenido = EstrategiasTexto.CONTENIDO;
+        assertTrue(contenido.equivalentes(new StringBuilder("hola"), "hola"));
+        assertEquals("hola".hashCode(), contenido.hash(new StringBuilder("hola")));
+        assertFalse(contenido.equivalentes("Hola", "hola"));
+
+        EstrategiasTexto mayusculas = EstrategiasTexto.SIN_MAYUSCULAS;
+        assertTrue(mayusculas.equivalentes("HoLa", "hola"));
+        assertTrue(mayusculas.equivalentes("ÑANDÚ", "ñandú"));
+        assertEquals(mayusculas.hash("ÑANDÚ"), mayusculas.hash("ñandú"));
+        assertFalse(mayusculas.equivalentes("ñandu", "ñandú"));
+
+        EstrategiasTexto acentos = EstrategiasTexto.SIN_ACENTOS;
+        for (String s : new String[]{"CANCIÓN", "cancion", "Canción", "canción"}) {
+            assertTrue(s, acentos.equivalentes(s, "canción"));
+            assertEquals(s, acentos.hash("canción"), acentos.hash(s));
+        }
+        assertTrue(acentos.equivalentes("pingüino", "PINGUINO"));
+        assertFalse(acentos.equivalentes("cancion", "canciones"));
+        assertFalse(acentos.equivalentes("canciones", "cancion"));
+        assertTrue(acentos.equivalentes("", ""));
+    }
+
+    /**
+     * Test of put and get methods, of class TSBHashtable, con una estrategia
+     * y claves buscadas con la Palabra del tokenizador.
+     */
+    @Test
+    public void testTabla() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(10, EstrategiasTexto.SIN_ACENTOS);
+        ContadorPalabras contador = new ContadorPalabras(tabla);
+        Tokenizador t = new Tokenizador(contador);
+        t.procesar("Canción cancion CANCIÓN José jose otra");
+        t.finalizar();
+        assertEquals(3, tabla.size());
+        assertEquals(Integer.valueOf(3), tabla.get("canción"));
+        assertEquals(Integer.valueOf(2), tabla.get(palabra("JOSE")));
+        // la clave guardada es la primera forma que apareció.
+        assertTrue(tabla.keySet().contains("Canción"));
+        assertEquals(Integer.valueOf(3), tabla.remove("CANCION"));
+        assertFalse(tabla.containsKey("canción"));
+        assertSame(EstrategiasTexto.SIN_ACENTOS, tabla.getEstrategia());
+
+        // muchas claves para forzar varios rehash.
+        for (int i = 0; i < 5000; i++) {
+            tabla.put("Clave" + i, i);
+        }
+        for (int i = 0; i < 5000; i++) {
+            assertEquals(Integer.valueOf(i), tabla.get("CLAVE" + i));
+        }
+        assertNull(new TSBHashtable<String, Integer>(10).getEstrategia());
+    }
+
+    /**
+     * Test of escribir and leer methods, of class ArchivoTabla: la
+     * estrategia se guarda con la tabla.
+     */
+    @Test
+    public void testGuardarEstrategia() throws Exception {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(10, EstrategiasTexto.SIN_MAYUSCULAS);
+        tabla.put("Hola", 1);
+        File f = File.createTempFile("tabla", ".dat");
+        try {
+            ArchivoTabla.escribir(f, tabla);
+            TSBHashtable<String, Integer> leida = ArchivoTabla.leer(f, null);
+            assertSame(EstrategiasTexto.SIN_MAYUSCULAS, leida.getEstrategia());
+            assertEquals(Integer.valueOf(1), leida.get("HOLA"));
+            for (Map.Entry<String, Integer> e : leida.entrySet()) {
+                assertEquals("Hola", e.getKey());
+            }
+        } finally {
+            f.delete();
+        }
+    }
+}
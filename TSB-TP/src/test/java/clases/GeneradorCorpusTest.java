@@ -0,0 +1,73 @@
+package clases;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class GeneradorCorpusTest {
+
+    /**
+     * Test of generar method, of class GeneradorCorpus: con la misma semilla
+     * se genera el mismo texto, y con otra semilla uno distinto.
+     */
+    @Test
+    public void testGenerarReproducible() throws IOException {
+        byte[] a = generar(7, 200000);
+        byte[] b = generar(7, 200000);
+        assertArrayEquals(a, b);
+        assertTrue(a.length >= 200000);
+        assertFalse(new String(a, StandardCharsets.UTF_8).equals(
+                new String(generar(8, 200000), StandardCharsets.UTF_8)));
+
+        String texto = new String(a, StandardCharsets.UTF_8);
+        assertTrue(texto.contains("\n"));
+        assertTrue(texto.contains("¿"));
+        assertTrue(texto.matches("(?s).*[áéíóú].*"));
+        assertTrue(texto.matches("(?s).*[0-9].*"));
+    }
+
+    /**
+     * Test of getFrecuencia method, of class GeneradorCorpus: el conteo de
+     * IngestaParalela coincide con lo que escribió el generador, y las
+     * palabras más frecuentes son las de menor rango.
+     */
+    @Test
+    public void testGetFrecuencia() throws IOException {
+        File f = File.createTempFile("corpus", ".txt");
+        try {
+            GeneradorCorpus g = new GeneradorCorpus(3);
+            g.setVocabulario(5000);
+            g.generar(f, 500000);
+            TSBHashtable<String, Integer> tabla = new IngestaParalela(ForkJoinPool.commonPool(),
+                    StandardCharsets.UTF_8).contar(f);
+            assertNull(PruebaCarga.verificar(g, tabla));
+
+            long total = 0;
+            for (Integer c : tabla.values()) {
+                total += c;
+            }
+            assertEquals(g.getCantidadPalabras(), total);
+            assertTrue(g.getFrecuencia(0) > g.getFrecuencia(10));
+            assertTrue(g.getFrecuencia(10) > g.getFrecuencia(1000));
+
+            // una cantidad distinta se detecta.
+            tabla.put(g.getPalabra(0), 1);
+            assertNotNull(PruebaCarga.verificar(g, tabla));
+        } finally {
+            Files.delete(f.toPath());
+        }
+    }
+
+    private static byte[] generar(long semilla, long bytes) throws IOException {
+        GeneradorCorpus g = new GeneradorCorpus(semilla);
+        g.setVocabulario(1000);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        g.generar(out, bytes);
+        return out.toByteArray();
+    }
+}
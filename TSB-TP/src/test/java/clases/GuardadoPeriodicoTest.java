@@ -0,0 +1,146 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de GuardadoPeriodico. La tabla se modifica siempre desde un único
+ * hilo, que también es el hiloTabla del guardado.
+ */
+public class GuardadoPeriodicoTest {
+
+    /**
+     * Test of guardar method, of class GuardadoPeriodico.
+     */
+    @Test
+    public void testGuardar() throws Exception {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        tabla.put("hola", 1);
+        tabla.put("chau", 2);
+        tabla.remove("chau");
+        File f = File.createTempFile("tabla", ".dat");
+        ExecutorService hiloTabla = Executors.newSingleThreadExecutor();
+        try (GuardadoPeriodico guardado = new GuardadoPeriodico(f, () -> tabla, hiloTabla)) {
+            assertTrue(guardado.guardar().get());
+            assertEquals(1, guardado.getGuardados());
+            assertEquals(tabla, ArchivoTabla.leer(f, null));
+        } finally {
+            hiloTabla.shutdown();
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of iniciar method, of class GuardadoPeriodico: guarda al llegar a
+     * la cantidad de cambios y no vuelve a guardar si la tabla no cambia.
+     */
+    @Test
+    public void testIniciar() throws Exception {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        File f = File.createTempFile("tabla", ".dat");
+        f.delete();
+        ExecutorService hiloTabla = Executors.newSingleThreadExecutor();
+        try (GuardadoPeriodico guardado = new GuardadoPeriodico(f, () -> tabla, hiloTabla)) {
+            guardado.setIntervalo(20);
+            guardado.setCambios(100);
+            guardado.iniciar();
+            // la primera revisión toma la tabla vacía como ya guardada.
+            Thread.sleep(100);
+            assertEquals(0, guardado.getGuardados());
+            assertFalse(f.exists());
+
+            hiloTabla.submit(() -> {
+                for (int i = 0; i < 500; i++) {
+                    tabla.put("palabra" + i, i);
+                }
+            }).get();
+            esperar(guardado, 1);
+            Thread.sleep(100);
+            assertEquals(1, guardado.getGuardados());
+            assertEquals(tabla, ArchivoTabla.leer(f, null));
+            assertNull(guardado.getUltimoError());
+        } finally {
+            hiloTabla.shutdown();
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of agregarArchivo method, of class GuardadoPeriodico: el índice se
+     * guarda en el mismo ciclo que la tabla, y la copia de la tabla sigue
+     * las bajas y los vaciados.
+     */
+    @Test
+    public void testAgregarArchivo() throws Exception {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        IndiceInvertido indice = new IndiceInvertido();
+        File f = File.createTempFile("tabla", ".dat");
+        File fIndice = File.createTempFile("indice", ".idx");
+        ExecutorService hiloTabla = Executors.newSingleThreadExecutor();
+        try (GuardadoPeriodico guardado = new GuardadoPeriodico(f, () -> tabla, hiloTabla)) {
+            guardado.agregarArchivo(fIndice, () -> indice.instantanea()::guardar);
+            assertTrue(guardado.guardar().get());
+            hiloTabla.submit(() -> {
+                int id = indice.registrarArchivo("a.txt");
+                for (int i = 0; i < 300; i++) {
+                    tabla.put("palabra" + i, i);
+                    indice.agregar(id, "palabra" + i, i);
+                }
+                tabla.clear();
+                for (int i = 0; i < 100; i++) {
+                    tabla.put("otra" + i, i);
+                }
+                tabla.remove("otra7");
+            }).get();
+            assertTrue(guardado.guardar().get());
+            // lo que cambia después no afecta lo guardado.
+            hiloTabla.submit(() -> indice.quitarArchivo(0)).get();
+            assertEquals(tabla, ArchivoTabla.leer(f, null));
+            assertEquals(99, ArchivoTabla.leer(f, null).size());
+            IndiceInvertido leido = IndiceInvertido.cargar(fIndice);
+            assertEquals(300, leido.getCantidadPalabras());
+            assertEquals(Integer.valueOf(5), leido.buscar("palabra5").get(0).getValue());
+            assertEquals(0, indice.getCantidadPalabras());
+        } finally {
+            hiloTabla.shutdown();
+            f.delete();
+            fIndice.delete();
+        }
+    }
+
+    /**
+     * Test of getUltimoError method, of class GuardadoPeriodico.
+     */
+    @Test
+    public void testError() throws Exception {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        File carpeta = File.createTempFile("tabla", "");
+        carpeta.delete();
+        // el destino está en una carpeta que no existe.
+        File f = new File(carpeta, "tabla.dat");
+        ExecutorService hiloTabla = Executors.newSingleThreadExecutor();
+        try (GuardadoPeriodico guardado = new GuardadoPeriodico(f, () -> tabla, hiloTabla)) {
+            try {
+                guardado.guardar().join();
+                fail("guardar() en una carpeta que no existe");
+            } catch (RuntimeException e) {
+                assertTrue(e.getCause() instanceof IOException);
+            }
+            assertNotNull(guardado.getUltimoError());
+            assertEquals(0, guardado.getGuardados());
+        } finally {
+            hiloTabla.shutdown();
+        }
+    }
+
+    private static void esperar(GuardadoPeriodico guardado, long guardados) throws InterruptedException {
+        for (int i = 0; i < 500 && guardado.getGuardados() < guardados; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(guardados, guardado.getGuardados());
+    }
+}
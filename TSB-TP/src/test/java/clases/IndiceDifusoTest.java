@@ -0,0 +1,121 @@
+package clases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de IndiceDifuso.
+ */
+public class IndiceDifusoTest {
+
+    /**
+     * Test of plegar method, of class IndiceDifuso.
+     */
+    @Test
+    public void testPlegar() {
+        assertEquals("jose", IndiceDifuso.plegar("José"));
+        assertEquals("pinguino", IndiceDifuso.plegar("Pingüino"));
+        assertEquals("nino", IndiceDifuso.plegar("NIÑO"));
+        assertEquals("hola", IndiceDifuso.plegar("hola"));
+    }
+
+    /**
+     * Test of buscar method, of class IndiceDifuso.
+     */
+    @Test
+    public void testBuscar() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(1000);
+        tabla.put("José", 10);
+        tabla.put("jose", 2);
+        tabla.put("hola", 5);
+        tabla.put("bola", 7);
+        tabla.put("habemus", 1);
+        IndiceDifuso indice = IndiceDifuso.de(tabla.keySet());
+        assertEquals(5, indice.size());
+        assertFalse(indice.agregar("hola"));
+
+        List<IndiceDifuso.Sugerencia> r = indice.buscar("Jose", 0, 10, tabla);
+        assertEquals(2, r.size());
+        // a igual distancia, la de mayor cantidad primero.
+        assertEquals("José", r.get(0).getPalabra());
+        assertEquals(10, r.get(0).getCantidad());
+
+        r = indice.buscar("hoal", 2, 10, tabla);
+        assertEquals("hola", r.get(0).getPalabra());
+        assertEquals(2, r.get(0).getDistancia());
+
+        r = indice.buscar("cola", 1, 10, tabla);
+        assertEquals(2, r.size());
+        assertEquals("bola", r.get(0).getPalabra());
+
+        // las palabras que ya no están en la tabla se omiten.
+        tabla.remove("bola");
+        assertEquals(1, indice.buscar("cola", 1, 10, tabla).size());
+        assertEquals(1, indice.buscar("cola", 1, 1, tabla).size());
+    }
+
+    /**
+     * Compara buscar() con una búsqueda exhaustiva sobre palabras al azar.
+     */
+    @Test
+    public void testBuscarExhaustivo() {
+        Random r = new Random(5);
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(5000);
+        List<String> palabras = new ArrayList<>();
+        for (int i = 0; i < 6000; i++) {
+            String p = palabra(r);
+            if (tabla.put(p, 1) == null) {
+                palabras.add(p);
+            }
+        }
+        // la mitad al crearlo y el resto con agregar(), para pasar por las
+        // palabras sin ordenar y por la mezcla.
+        IndiceDifuso indice = IndiceDifuso.de(palabras.subList(0, palabras.size() / 2));
+        for (String p : palabras.subList(palabras.size() / 2, palabras.size())) {
+            assertTrue(indice.agregar(p));
+        }
+        assertEquals(palabras.size(), indice.size());
+        for (int i = 0; i < 200; i++) {
+            String q = palabra(r);
+            int k = r.nextInt(3);
+            int esperadas = 0;
+            for (String p : palabras) {
+                if (levenshtein(q, p) <= k) {
+                    esperadas++;
+                }
+            }
+            List<IndiceDifuso.Sugerencia> obtenidas = indice.buscar(q, k, Integer.MAX_VALUE, tabla);
+            assertEquals(esperadas, obtenidas.size());
+            for (IndiceDifuso.Sugerencia s : obtenidas) {
+                assertEquals(levenshtein(q, s.getPalabra()), s.getDistancia());
+            }
+        }
+    }
+
+    private static String palabra(Random r) {
+        StringBuilder sb = new StringBuilder();
+        int n = 2 + r.nextInt(6);
+        for (int i = 0; i < n; i++) {
+            sb.append((char) ('a' + r.nextInt(6)));
+        }
+        return sb.toString();
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    int costo = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    d[i][j] = Math.min(Math.min(d[i - 1][j], d[i][j - 1]) + 1, d[i - 1][j - 1] + costo);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,201 @@
+package clases;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de IndiceInvertido.
+ */
+public class IndiceInvertidoTest {
+
+    /**
+     * Test of agregar method, of class IndiceInvertido.
+     */
+    @Test
+    public void testAgregar() {
+        IndiceInvertido indice = new IndiceInvertido();
+        int a = indice.registrarArchivo("a.txt");
+        int b = indice.registrarArchivo("b.txt");
+        int c = indice.registrarArchivo("c.txt");
+        assertEquals(a, indice.registrarArchivo("a.txt"));
+        assertEquals(-1, indice.getId("d.txt"));
+
+        indice.agregar(a, "hola", 3);
+        indice.agregar(c, "hola", 1000);
+        // mismo archivo que el último: se suma.
+        indice.agregar(c, "hola", 1);
+        // archivo anterior al último: se inserta en orden.
+        indice.agregar(b, "hola", 2);
+        indice.agregar(a, "hola", 1);
+
+        List<Map.Entry<String, Integer>> r = indice.buscar("hola");
+        assertEquals(3, r.size());
+        assertEquals("a.txt", r.get(0).getKey());
+        assertEquals(4, (int) r.get(0).getValue());
+        assertEquals("b.txt", r.get(1).getKey());
+        assertEquals(2, (int) r.get(1).getValue());
+        assertEquals("c.txt", r.get(2).getKey());
+        assertEquals(1001, (int) r.get(2).getValue());
+        // tres pares de ids chicos: 1 + 1 + 1 + 1 + 1 + 2 bytes.
+        assertEquals(7, indice.getBytesPosteo("hola"));
+
+        assertTrue(indice.buscar("chau").isEmpty());
+    }
+
+    /**
+     * Test of agregarIndice method, of class IndiceInvertido.
+     */
+    @Test
+    public void testAgregarIndice() {
+        IndiceInvertido uno = new IndiceInvertido();
+        uno.agregar(uno.registrarArchivo("a.txt"), "hola", 1);
+        uno.agregar(uno.registrarArchivo("b.txt"), "hola", 2);
+
+        IndiceInvertido otro = new IndiceInvertido();
+        otro.agregar(otro.registrarArchivo("c.txt"), "hola", 3);
+        otro.agregar(otro.registrarArchivo("a.txt"), "año", 4);
+
+        uno.agregarIndice(otro);
+        assertEquals(3, uno.getCantidadArchivos());
+        assertEquals(2, uno.getCantidadPalabras());
+        assertEquals(3, uno.buscar("hola").size());
+        assertEquals("a.txt", uno.buscar("año").get(0).getKey());
+        assertEquals(4, (int) uno.buscar("año").get(0).getValue());
+    }
+
+    /**
+     * Test of quitarArchivo method, of class IndiceInvertido.
+     */
+    @Test
+    public void testQuitarArchivo() {
+        IndiceInvertido indice = new IndiceInvertido();
+        int a = indice.registrarArchivo("a.txt");
+        int b = indice.registrarArchivo("b.txt");
+        indice.agregar(a, "hola", 3);
+        indice.agregar(a, "año", 1);
+        indice.agregar(b, "hola", 2);
+
+        TSBHashtable<String, Integer> quitadas = indice.quitarArchivo(a);
+        assertEquals(2, quitadas.size());
+        assertEquals(3, (int) quitadas.get("hola"));
+        assertEquals(1, (int) quitadas.get("año"));
+        // la palabra que sólo estaba en el archivo desaparece.
+        assertEquals(1, indice.getCantidadPalabras());
+        assertEquals(1, indice.buscar("hola").size());
+        assertTrue(indice.quitarArchivo(a).isEmpty());
+        // un archivo agregado fuera de orden también se quita.
+        indice.agregar(b, "chau", 1);
+        indice.agregar(a, "chau", 4);
+        assertEquals(4, (int) indice.quitarArchivo(a).get("chau"));
+        assertEquals(1, indice.buscar("chau").size());
+
+        // el archivo puede volver a agregarse con su mismo id.
+        indice.agregar(a, "hola", 5);
+        assertEquals("a.txt", indice.buscar("hola").get(0).getKey());
+        assertEquals(5, (int) indice.buscar("hola").get(0).getValue());
+    }
+
+    /**
+     * Test of instantanea method, of class IndiceInvertido: los cambios
+     * posteriores no afectan a la instantánea.
+     */
+    @Test
+    public void testInstantanea() throws IOException {
+        IndiceInvertido indice = new IndiceInvertido();
+        int a = indice.registrarArchivo("a.txt");
+        int b = indice.registrarArchivo("b.txt");
+        indice.agregar(a, "hola", 3);
+        indice.agregar(b, "hola", 1);
+        IndiceInvertido.Instantanea instantanea = indice.instantanea();
+        indice.agregar(a, "hola", 10);
+        indice.agregar(a, "nueva", 1);
+        indice.quitarArchivo(b);
+        indice.registrarArchivo("c.txt");
+        File f = File.createTempFile("indice", ".idx");
+        try {
+            instantanea.guardar(f);
+            IndiceInvertido leido = IndiceInvertido.cargar(f);
+            assertEquals(2, leido.getCantidadArchivos());
+            assertEquals(1, leido.getCantidadPalabras());
+            assertEquals(2, leido.buscar("hola").size());
+            assertEquals(3, (int) leido.buscar("hola").get(0).getValue());
+        } finally {
+            f.delete();
+        }
+        assertEquals(13, (int) indice.buscar("hola").get(0).getValue());
+        assertEquals(1, indice.buscar("hola").size());
+    }
+
+    /**
+     * Test of guardar and cargar methods, of class IndiceInvertido.
+     */
+    @Test
+    public void testGuardarCargar() throws IOException {
+        IndiceInvertido indice = new IndiceInvertido();
+        for (int i = 0; i < 300; i++) {
+            int id = indice.registrarArchivo("archivo" + i + ".txt");
+            indice.agregar(id, "niño", i + 1);
+            if (i % 7 == 0) {
+                indice.agregar(id, "José", 100000 + i);
+            }
+        }
+        File f = File.createTempFile("indice", ".idx");
+        try {
+            indice.guardar(f);
+            IndiceInvertido leido = IndiceInvertido.cargar(f);
+            assertEquals(indice.getCantidadArchivos(), leido.getCantidadArchivos());
+            assertEquals(indice.buscar("niño"), leido.buscar("niño"));
+            assertEquals(indice.buscar("José"), leido.buscar("José"));
+            // se puede seguir agregando después de leerlo.
+            leido.agregar(299, "niño", 1);
+            assertEquals(301, (int) leido.buscar("niño").get(299).getValue());
+            // y quitar los archivos leídos.
+            TSBHashtable<String, Integer> quitadas = leido.quitarArchivo(7);
+            assertEquals(2, quitadas.size());
+            assertEquals(100007, (int) quitadas.get("José"));
+            assertEquals(299, leido.buscar("niño").size());
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of cargar method, of class IndiceInvertido, con listas de posteo
+     * dañadas: se informan como IOException.
+     */
+    @Test
+    public void testCargarDaniado() throws IOException {
+        // un id fuera del diccionario, ids desordenados y un varint cortado.
+        byte[][] listas = {{5, 1}, {2, 1, 0, 1}, {1, (byte) 0x80}};
+        File f = File.createTempFile("indice", ".idx");
+        try {
+            for (byte[] lista : listas) {
+                try (DataOutputStream out = new DataOutputStream(new FileOutputStream(f))) {
+                    out.writeInt(0x54534249);
+                    out.writeInt(1);
+                    out.writeInt(2);
+                    out.writeUTF("a.txt");
+                    out.writeUTF("b.txt");
+                    out.writeInt(1);
+                    out.writeUTF("hola");
+                    out.writeInt(lista.length);
+                    out.write(lista);
+                }
+                try {
+                    IndiceInvertido.cargar(f);
+                    fail("se esperaba IOException");
+                } catch (IOException e) {
+                    assertTrue(e.getMessage().startsWith("cargar():"));
+                }
+            }
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de IngestaParalela: el conteo en paralelo debe coincidir con el
+ * conteo secuencial del Tokenizador.
+ */
+public class IngestaParalelaTest {
+
+    private static final String[] PALABRAS = {
+        "hola", "palabra", "José", "«Non", "habemus", "hic", "civitatem_",
+        "2,", "futuram", "inquirimus_!».", "año", "niño"
+    };
+
+    private File archivo;
+
+    @Before
+    public void setUp() throws IOException {
+        archivo = File.createTempFile("ingesta", ".txt");
+        Random r = new Random(42);
+        try (PrintWriter pw = new PrintWriter(archivo, "UTF-8")) {
+            // Más de dos rangos mínimos, para que el archivo se divida.
+            long bytes = 0;
+            while (bytes < 3 * IngestaParalela.TAMANIO_MINIMO_RANGO) {
+                String p = PALABRAS[r.nextInt(PALABRAS.length)];
+                pw.print(p);
+                pw.print(r.nextInt(10) == 0 ? '\n' : ' ');
+                bytes += p.length() + 1;
+            }
+        }
+    }
+
+    @After
+    public void tearDown() {
+        archivo.delete();
+    }
+
+    /**
+     * Test of contar method, of class IngestaParalela.
+     */
+    @Test
+    public void testContar() throws IOException {
+        TSBHashtable<String, Integer> esperado = new TSBHashtable<>(1000);
+        Tokenizador t = new Tokenizador(new ContadorPalabras(esperado));
+        t.procesar(new String(Files.readAllBytes(archivo.toPath()), StandardCharsets.UTF_8));
+        t.finalizar();
+
+        IngestaParalela ingesta = new IngestaParalela(
+                new ForkJoinPool(4), StandardCharsets.UTF_8);
+        TSBHashtable<String, Integer> obtenido = ingesta.contar(archivo);
+
+        assertEquals(esperado, obtenido);
+        assertTrue(obtenido.containsKey("José"));
+        assertTrue(obtenido.containsKey("civitatem"));
+        assertFalse(obtenido.containsKey("2,"));
+    }
+
+    /**
+     * Test of sumar method, of class IngestaParalela.
+     */
+    @Test
+    public void testSumar() {
+        TSBHashtable<String, Integer> a = new TSBHashtable<>();
+        TSBHashtable<String, Integer> b = new TSBHashtable<>();
+        a.put("hola", 2);
+        b.put("hola", 3);
+        b.put("chau", 1);
+        IngestaParalela.sumar(a, b);
+        assertEquals(5, (int) a.get("hola"));
+        assertEquals(1, (int) a.get("chau"));
+    }
+}
@@ -0,0 +1,79 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de LectorMapeado con ventanas chicas, de forma que las palabras y
+ * los caracteres multibyte queden cortados entre ventanas.
+ */
+public class LectorMapeadoTest {
+
+    private static final String TEXTO = "José «Non habemus» año\nniño 𝄞clave ñandú 2, pingüino";
+
+    private File archivo;
+
+    @Before
+    public void setUp() throws IOException {
+        archivo = File.createTempFile("mapeado", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        archivo.delete();
+    }
+
+    private TSBHashtable<String, Integer> esperado(String texto) {
+        TSBHashtable<String, Integer> t = new TSBHashtable<>(100);
+        Tokenizador tokenizador = new Tokenizador(new ContadorPalabras(t));
+        tokenizador.procesar(texto);
+        tokenizador.finalizar();
+        return t;
+    }
+
+    private TSBHashtable<String, Integer> leer(Charset charset, long ventana) throws IOException {
+        TSBHashtable<String, Integer> t = new TSBHashtable<>(100);
+        Tokenizador tokenizador = new Tokenizador(new ContadorPalabras(t));
+        new LectorMapeado(charset, ventana).leer(archivo, tokenizador, null);
+        return t;
+    }
+
+    /**
+     * Test of leer method, of class LectorMapeado, con UTF-8.
+     */
+    @Test
+    public void testLeerUtf8() throws IOException {
+        Files.write(archivo.toPath(), TEXTO.getBytes(StandardCharsets.UTF_8));
+        for (long ventana = 8; ventana <= 13; ventana++) {
+            assertEquals(esperado(TEXTO), leer(StandardCharsets.UTF_8, ventana));
+        }
+        assertEquals(esperado(TEXTO), leer(StandardCharsets.UTF_8, LectorMapeado.TAMANIO_VENTANA));
+    }
+
+    /**
+     * Test of leer method, of class LectorMapeado, con ISO-8859-1.
+     */
+    @Test
+    public void testLeerLatin1() throws IOException {
+        String texto = "José año niño ñandú pingüino";
+        Files.write(archivo.toPath(), texto.getBytes(StandardCharsets.ISO_8859_1));
+        assertEquals(esperado(texto), leer(StandardCharsets.ISO_8859_1, 8));
+    }
+
+    /**
+     * Test of leer method, of class LectorMapeado, con una codificación que
+     * usa CharsetDecoder.
+     */
+    @Test
+    public void testLeerUtf16() throws IOException {
+        Files.write(archivo.toPath(), TEXTO.getBytes(StandardCharsets.UTF_16LE));
+        assertEquals(esperado(TEXTO), leer(StandardCharsets.UTF_16LE, 9));
+    }
+}
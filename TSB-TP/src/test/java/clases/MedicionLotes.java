@@ -0,0 +1,90 @@
+package clases;
+
+import java.util.Random;
+
+/**
+ * Mide getAll() y mergeAll() contra get() y merge() de a una clave, con
+ * tablas de distintos tamaños. No es una prueba (no se ejecuta con mvn test):
+ *
+ * <pre>
+ * java -cp target/classes:target/test-classes clases.MedicionLotes [claves...]
+ * </pre>
+ *
+ * Para cada tamaño informa el menor tiempo por clave de varias repeticiones.
+ */
+public class MedicionLotes {
+
+    private static final int CONSULTAS = 1 << 22;
+    private static final int LOTE = 1024;
+    private static final int REPETICIONES = 10;
+
+    public static void main(String[] args) {
+        int[] tamanios = {100000, 1000000, 4000000};
+        if (args.length > 0) {
+            tamanios = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                tamanios[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int n : tamanios) {
+            medir(n);
+        }
+    }
+
+    private static void medir(int n) {
+        Random r = new Random(n);
+        String[] claves = new String[n];
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(n);
+        for (int i = 0; i < n; i++) {
+            claves[i] = "k" + r.nextLong();
+            tabla.put(claves[i], 1);
+        }
+        // claves existentes al azar, para que cada búsqueda vaya a otra zona
+        // de memoria.
+        String[] consultas = new String[CONSULTAS];
+        for (int i = 0; i < CONSULTAS; i++) {
+            consultas[i] = claves[r.nextInt(n)];
+        }
+        String[] lote = new String[LOTE];
+        Integer[] valores = new Integer[LOTE];
+        Integer[] unos = new Integer[LOTE];
+        java.util.Arrays.fill(unos, 1);
+
+        double get = Double.MAX_VALUE;
+        double getAll = Double.MAX_VALUE;
+        double merge = Double.MAX_VALUE;
+        double mergeAll = Double.MAX_VALUE;
+        long control = 0;
+        for (int rep = 0; rep < REPETICIONES; rep++) {
+            long t0 = System.nanoTime();
+            for (String c : consultas) {
+                control += tabla.get(c);
+            }
+            long t1 = System.nanoTime();
+            for (int i = 0; i < CONSULTAS; i += LOTE) {
+                System.arraycopy(consultas, i, lote, 0, LOTE);
+                tabla.getAll(lote, valores);
+                for (Integer v : valores) {
+                    control += v;
+                }
+            }
+            long t2 = System.nanoTime();
+            for (String c : consultas) {
+                tabla.merge(c, 1, Integer::sum);
+            }
+            long t3 = System.nanoTime();
+            for (int i = 0; i < CONSULTAS; i += LOTE) {
+                System.arraycopy(consultas, i, lote, 0, LOTE);
+                tabla.mergeAll(lote, unos, Integer::sum);
+            }
+            long t4 = System.nanoTime();
+            get = Math.min(get, (t1 - t0) / (double) CONSULTAS);
+            getAll = Math.min(getAll, (t2 - t1) / (double) CONSULTAS);
+            merge = Math.min(merge, (t3 - t2) / (double) CONSULTAS);
+            mergeAll = Math.min(mergeAll, (t4 - t3) / (double) CONSULTAS);
+        }
+        System.out.printf("%,10d claves: get %6.1f ns  getAll %6.1f ns (x%.2f)"
+                + "  merge %6.1f ns  mergeAll %6.1f ns (x%.2f)  [%d]%n",
+                n, get, getAll, get / getAll, merge, mergeAll, merge / mergeAll, control % 10);
+    }
+}
@@ -0,0 +1,115 @@
+package clases;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de PipelineIngesta sobre una carpeta con varios archivos.
+ */
+public class PipelineIngestaTest {
+
+    private static final String[] PALABRAS = {
+        "hola", "palabra", "José", "«Non", "habemus", "hic", "año", "niño", "2,"
+    };
+
+    private File carpeta;
+    private TSBHashtable<String, Integer> esperado;
+
+    @Before
+    public void setUp() throws IOException {
+        carpeta = Files.createTempDirectory("pipeline").toFile();
+        File sub = new File(carpeta, "sub");
+        sub.mkdir();
+        esperado = new TSBHashtable<>(1000);
+        Tokenizador t = new Tokenizador(new ContadorPalabras(esperado));
+        Random r = new Random(7);
+        for (int i = 0; i < 12; i++) {
+            File f = new File(i % 2 == 0 ? carpeta : sub, "archivo" + i + ".txt");
+            StringBuilder sb = new StringBuilder();
+            int n = 1 + r.nextInt(5000);
+            for (int j = 0; j < n; j++) {
+                sb.append(PALABRAS[r.nextInt(PALABRAS.length)]).append(r.nextInt(8) == 0 ? '\n' : ' ');
+            }
+            try (PrintWriter pw = new PrintWriter(f, "UTF-8")) {
+                pw.print(sb);
+            }
+            t.procesar(sb);
+            t.finalizar();
+        }
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        for (File f : PipelineIngesta.listarArchivos(Collections.singleton(carpeta))) {
+            f.delete();
+        }
+        new File(carpeta, "sub").delete();
+        carpeta.delete();
+    }
+
+    /**
+     * Test of ejecutar method, of class PipelineIngesta.
+     */
+    @Test
+    public void testEjecutar() throws IOException {
+        PipelineIngesta pipeline = new PipelineIngesta();
+        pipeline.setCharset(StandardCharsets.UTF_8);
+        // bloques y colas chicas, para forzar cortes y contrapresión.
+        pipeline.setTamanioBloque(256);
+        pipeline.setCapacidadColas(2);
+        pipeline.setHilosLectura(3);
+        pipeline.setHilosTokenizado(2);
+        pipeline.setHilosConteo(2);
+        TSBHashtable<String, Integer> obtenido = pipeline.ejecutar(Arrays.asList(carpeta), null);
+        assertEquals(esperado, obtenido);
+        assertEquals(pipeline.getEtapas().get(0).getBytes(), pipeline.getEtapas().get(2).getBytes());
+    }
+
+    /**
+     * Test of setIndice method, of class PipelineIngesta.
+     */
+    @Test
+    public void testIndice() throws IOException {
+        PipelineIngesta pipeline = new PipelineIngesta();
+        pipeline.setCharset(StandardCharsets.UTF_8);
+        pipeline.setTamanioBloque(256);
+        pipeline.setHilosConteo(2);
+        IndiceInvertido indice = new IndiceInvertido();
+        pipeline.setIndice(indice);
+        pipeline.ejecutar(Arrays.asList(carpeta), null);
+        assertEquals(12, indice.getCantidadArchivos());
+        for (Map.Entry<String, Integer> e : esperado.entrySet()) {
+            int suma = 0;
+            for (Map.Entry<String, Integer> p : indice.buscar(e.getKey())) {
+                suma += p.getValue();
+            }
+            assertEquals(e.getValue().intValue(), suma);
+        }
+    }
+
+    /**
+     * Test of listarArchivos method, of class PipelineIngesta.
+     */
+    @Test
+    public void testListarArchivos() throws IOException {
+        assertEquals(12, PipelineIngesta.listarArchivos(Collections.singleton(carpeta)).size());
+        try {
+            PipelineIngesta.listarArchivos(Arrays.asList(carpeta, new File(carpeta, "no-existe.txt")));
+            fail("una ruta que no existe debe informarse");
+        } catch (FileNotFoundException e) {
+            assertTrue(e.getMessage().contains("no-existe.txt"));
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package clases;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PublicadorCambiosTest {
+
+    // entrega en el mismo hilo, para que las pruebas sean deterministas.
+    private static final Executor DIRECTO = Runnable::run;
+
+    /**
+     * Test of subscribe method, of class PublicadorCambios: los cambios se
+     * acumulan por clave hasta que el suscriptor pide un lote.
+     */
+    @Test
+    public void testCambiosAcumulados() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(100);
+        tabla.put("vieja", 1);
+        tabla.put("otra", 1);
+        Receptor r = new Receptor();
+        tabla.getCambios().suscribir(r, DIRECTO);
+
+        tabla.put("nueva", 1);
+        tabla.put("nueva", 2);
+        tabla.put("fugaz", 1);
+        tabla.remove("fugaz");
+        tabla.put("vieja", 5);
+        tabla.remove("otra");
+        tabla.put("otra", 3);
+        assertTrue(r.lotes.isEmpty());
+
+        r.suscripcion.request(1);
+        assertEquals(1, r.lotes.size());
+        assertEquals("[ALTA nueva=2, MODIFICACION vieja=5, MODIFICACION otra=3]",
+                r.lotes.get(0).toString());
+
+        // con demanda pendiente, cada cambio se entrega enseguida.
+        r.suscripcion.request(2);
+        tabla.remove("vieja");
+        tabla.clear();
+        tabla.put("x", 1);
+        assertEquals(3, r.lotes.size());
+        assertEquals("[BAJA vieja]", r.lotes.get(1).toString());
+        assertEquals("[VACIADO]", r.lotes.get(2).toString());
+        // sin demanda, "x" queda pendiente.
+        r.suscripcion.request(1);
+        assertEquals("[ALTA x=1]", r.lotes.get(3).toString());
+    }
+
+    /**
+     * Test of subscribe method, of class PublicadorCambios: lotes de tamaño
+     * máximo y cambios de mergeAll() y del iterador.
+     */
+    @Test
+    public void testLotes() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(100);
+        tabla.put("a", 1);
+        tabla.put("b", 1);
+        PublicadorCambios<String, Integer> publicador = new PublicadorCambios<>(DIRECTO, 2);
+        Receptor r = new Receptor();
+        publicador.subscribe(r);
+        publicador.registrar(Cambio.Tipo.ALTA, "1", 1);
+        publicador.registrar(Cambio.Tipo.ALTA, "2", 2);
+        publicador.registrar(Cambio.Tipo.ALTA, "3", 3);
+        r.suscripcion.request(Long.MAX_VALUE);
+        assertEquals(2, r.lotes.size());
+        assertEquals("[ALTA 1=1, ALTA 2=2]", r.lotes.get(0).toString());
+        assertEquals("[ALTA 3=3]", r.lotes.get(1).toString());
+
+        Receptor t = new Receptor();
+        tabla.getCambios().suscribir(t, DIRECTO);
+        tabla.mergeAll(new String[]{"a", "b"}, new Integer[]{-1, 4}, (x, y) -> x + y == 0 ? null : x + y);
+        java.util.Iterator<String> it = tabla.keySet().iterator();
+        it.next();
+        it.remove();
+        t.suscripcion.request(1);
+        assertEquals("[BAJA a, BAJA b]", t.lotes.get(0).toString());
+    }
+
+    /**
+     * Test of cancel method, of the subscriptions of PublicadorCambios.
+     */
+    @Test
+    public void testCancelar() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(100);
+        Receptor r = new Receptor();
+        tabla.getCambios().suscribir(r, DIRECTO);
+        assertEquals(1, tabla.getCambios().getCantidadSuscriptores());
+        r.suscripcion.request(10);
+        tabla.put("a", 1);
+        r.suscripcion.cancel();
+        tabla.put("b", 1);
+        assertEquals(1, r.lotes.size());
+        assertEquals(0, tabla.getCambios().getCantidadSuscriptores());
+
+        // pedir 0 lotes es un error que cancela la suscripción.
+        Receptor s = new Receptor();
+        tabla.getCambios().suscribir(s, DIRECTO);
+        s.suscripcion.request(0);
+        assertTrue(s.error instanceof IllegalArgumentException);
+        assertEquals(0, tabla.getCambios().getCantidadSuscriptores());
+    }
+
+    /*
+     * Suscriptor que guarda lo que recibe.
+     */
+    private static class Receptor implements Flujo.Subscriber<List<Cambio<String, Integer>>> {
+
+        Flujo.Subscription suscripcion;
+        final List<List<Cambio<String, Integer>>> lotes = new ArrayList<>();
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Flujo.Subscription subscription) {
+            suscripcion = subscription;
+        }
+
+        @Override
+        public void onNext(List<Cambio<String, Integer>> item) {
+            lotes.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+        }
+    }
+}
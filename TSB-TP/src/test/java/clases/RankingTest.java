@@ -0,0 +1,35 @@
+package clases;
+
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de Ranking.
+ */
+public class RankingTest {
+
+    /**
+     * Test of mayores method, of class Ranking.
+     */
+    @Test
+    public void testMayores() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>(100);
+        tabla.put("hola", 5);
+        tabla.put("palabra", 2);
+        tabla.put("José", 9);
+        tabla.put("año", 5);
+        tabla.put("niño", 1);
+
+        List<Map.Entry<String, Integer>> top = Ranking.mayores(tabla, 3);
+        assertEquals(3, top.size());
+        assertEquals("José", top.get(0).getKey());
+        // a igual cantidad, orden alfabético.
+        assertEquals("año", top.get(1).getKey());
+        assertEquals("hola", top.get(2).getKey());
+
+        assertEquals(5, Ranking.mayores(tabla, 10).size());
+        assertTrue(Ranking.mayores(tabla, 0).isEmpty());
+    }
+}
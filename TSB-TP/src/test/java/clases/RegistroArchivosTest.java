@@ -0,0 +1,107 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de RegistroArchivos.
+ */
+public class RegistroArchivosTest {
+
+    private File a;
+    private File b;
+
+    @Before
+    public void setUp() throws IOException {
+        a = File.createTempFile("registro", ".txt");
+        b = File.createTempFile("registro", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        a.delete();
+        b.delete();
+    }
+
+    private static void escribir(File f, String texto) throws IOException {
+        Files.write(f.toPath(), texto.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Test of hashContenido method, of class RegistroArchivos.
+     */
+    @Test
+    public void testHashContenido() throws IOException {
+        // valores de referencia de XXH64 con semilla 0.
+        escribir(a, "");
+        assertEquals(0xEF46DB3751D8E999L, RegistroArchivos.hashContenido(a));
+        escribir(a, "abc");
+        assertEquals(0x44BC2CF5AD770999L, RegistroArchivos.hashContenido(a));
+
+        // archivos de más de 32 bytes, con y sin resto.
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append("niño ").append(i).append(' ');
+        }
+        escribir(a, sb.toString());
+        escribir(b, sb.toString());
+        assertEquals(RegistroArchivos.hashContenido(a), RegistroArchivos.hashContenido(b));
+        escribir(b, sb.append('x').toString());
+        assertNotEquals(RegistroArchivos.hashContenido(a), RegistroArchivos.hashContenido(b));
+    }
+
+    /**
+     * Test of verificar method, of class RegistroArchivos.
+     */
+    @Test
+    public void testVerificar() throws IOException {
+        RegistroArchivos registro = new RegistroArchivos();
+        escribir(a, "hola mundo");
+        RegistroArchivos.Verificacion v = registro.verificar(a);
+        assertEquals(RegistroArchivos.Estado.NUEVO, v.getEstado());
+        assertTrue(v.debeCargarse());
+        registro.registrar(a, v);
+
+        assertEquals(RegistroArchivos.Estado.SIN_CAMBIOS, registro.verificar(a).getEstado());
+
+        // sólo cambia la fecha: el hash confirma que es el mismo contenido.
+        a.setLastModified(a.lastModified() - 10000);
+        assertEquals(RegistroArchivos.Estado.SIN_CAMBIOS, registro.verificar(a).getEstado());
+
+        // el mismo contenido con otro nombre.
+        escribir(b, "hola mundo");
+        assertEquals(RegistroArchivos.Estado.DUPLICADO, registro.verificar(b).getEstado());
+
+        escribir(a, "hola mundo!");
+        v = registro.verificar(a);
+        assertEquals(RegistroArchivos.Estado.MODIFICADO, v.getEstado());
+        registro.registrar(a, v);
+        // el contenido viejo ya no está registrado.
+        assertEquals(RegistroArchivos.Estado.NUEVO, registro.verificar(b).getEstado());
+    }
+
+    /**
+     * Test of guardar and cargar methods, of class RegistroArchivos.
+     */
+    @Test
+    public void testGuardarCargar() throws IOException {
+        RegistroArchivos registro = new RegistroArchivos();
+        escribir(a, "José");
+        registro.registrar(a, registro.verificar(a));
+        File f = File.createTempFile("registro", ".reg");
+        try {
+            registro.guardar(f);
+            RegistroArchivos leido = RegistroArchivos.cargar(f);
+            assertEquals(1, leido.size());
+            assertEquals(RegistroArchivos.Estado.SIN_CAMBIOS, leido.verificar(a).getEstado());
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package clases;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SipHashTest {
+
+    // clave 00 01 02 ... 0f de los vectores de prueba de la referencia.
+    private final SipHash sip = new SipHash(0x0706050403020100L, 0x0f0e0d0c0b0a0908L);
+
+    /**
+     * Test of hash method (bytes), of class SipHash.
+     */
+    @Test
+    public void testHashBytes() {
+        assertEquals(0x726fdb47dd0e0e31L, sip.hash(mensaje(0)));
+        assertEquals(0x74f839c593dc67fdL, sip.hash(mensaje(1)));
+        assertEquals(0x93f5f5799a932462L, sip.hash(mensaje(8)));
+        assertEquals(0xa129ca6149be45e5L, sip.hash(mensaje(15)));
+    }
+
+    /**
+     * Test of hash method (CharSequence), of class SipHash.
+     */
+    @Test
+    public void testHashCaracteres() {
+        String[] pruebas = {"", "a", "hola", "pingüino", "árbol de 12 letras"};
+        for (String s : pruebas) {
+            assertEquals(s, sip.hash(s.getBytes(StandardCharsets.UTF_16LE)), sip.hash(s));
+            assertEquals(s, sip.hash(s), sip.hash(new StringBuilder(s)));
+        }
+        assertNotEquals(sip.hash("Aa"), sip.hash("BB"));
+    }
+
+    // los bytes 00 01 02 ... (n - 1).
+    private static byte[] mensaje(int n) {
+        byte[] m = new byte[n];
+        for (int i = 0; i < n; i++) {
+            m[i] = (byte) i;
+        }
+        return m;
+    }
+}
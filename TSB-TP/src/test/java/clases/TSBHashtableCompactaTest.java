@@ -0,0 +1,104 @@
+package clases;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de TSBHashtableCompacta, comparando con un HashMap.
+ */
+public class TSBHashtableCompactaTest {
+
+    private static final String[] PALABRAS = {
+        "hola", "José", "año", "niño", "€uro", "Ελλάδα", "", "a", "habemus"
+    };
+
+    /**
+     * Test of put, get and remove methods, of class TSBHashtableCompacta.
+     */
+    @Test
+    public void testPutGetRemove() {
+        TSBHashtableCompacta tabla = new TSBHashtableCompacta(4);
+        Map<String, Integer> esperado = new HashMap<>();
+        Random r = new Random(11);
+        for (int i = 0; i < 20000; i++) {
+            String k = PALABRAS[r.nextInt(PALABRAS.length)] + r.nextInt(2000);
+            if (r.nextInt(4) == 0) {
+                assertEquals(esperado.remove(k), tabla.remove(k));
+            } else {
+                assertEquals(esperado.put(k, i), tabla.put(k, i));
+            }
+        }
+        assertEquals(esperado.size(), tabla.size());
+        assertEquals(esperado, tabla);
+        assertEquals(tabla, esperado);
+        assertEquals(esperado.hashCode(), tabla.hashCode());
+        assertNull(tabla.get("inexistente"));
+        assertNull(tabla.get(42));
+    }
+
+    /**
+     * Test of sumar method, of class TSBHashtableCompacta.
+     */
+    @Test
+    public void testSumar() {
+        TSBHashtableCompacta tabla = new TSBHashtableCompacta();
+        Palabra p = new Palabra();
+        for (String s : PALABRAS) {
+            p.vaciar();
+            for (char c : s.toCharArray()) {
+                p.agregar(c);
+            }
+            tabla.palabra(p);
+            tabla.palabra(p);
+        }
+        assertEquals(PALABRAS.length, tabla.size());
+        for (String s : PALABRAS) {
+            assertEquals(2, tabla.cantidad(s));
+            assertEquals(2, (int) tabla.get(new StringBuilder(s)));
+            assertTrue(tabla.containsKey(s));
+        }
+        assertEquals(5, tabla.sumar("Ελλάδα", 3));
+        assertEquals(0, tabla.cantidad("chau"));
+        // "Ελλάδα" está en UTF-16, el resto en Latin-1.
+        long bytes = 0;
+        for (String s : PALABRAS) {
+            bytes += s.equals("Ελλάδα") || s.equals("€uro") ? 2 * s.length() : s.length();
+        }
+        assertEquals(bytes, tabla.getBytesArena());
+    }
+
+    /**
+     * Test of entrySet method, of class TSBHashtableCompacta.
+     */
+    @Test
+    public void testEntrySet() {
+        TSBHashtableCompacta tabla = new TSBHashtableCompacta();
+        for (int i = 0; i < 100; i++) {
+            tabla.put("clave" + i, i);
+        }
+        Iterator<Map.Entry<String, Integer>> it = tabla.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Integer> e = it.next();
+            if (e.getValue() % 2 == 0) {
+                it.remove();
+            } else {
+                e.setValue(e.getValue() * 10);
+            }
+        }
+        assertEquals(50, tabla.size());
+        assertEquals(10, (int) tabla.get("clave1"));
+        assertNull(tabla.get("clave2"));
+        // el rehash compacta la arena, sin los bytes de las claves borradas.
+        for (int i = 100; i < 1000; i++) {
+            tabla.put("clave" + i, i);
+        }
+        assertEquals(950, tabla.size());
+        tabla.clear();
+        assertTrue(tabla.isEmpty());
+        assertEquals(0, tabla.getBytesArena());
+    }
+}
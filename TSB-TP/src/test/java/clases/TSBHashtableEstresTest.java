@@ -0,0 +1,190 @@
+package clases;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Prueba diferencial de TSBHashtable: aplica la misma secuencia aleatoria de
+ * operaciones a la tabla y a un java.util.HashMap y verifica que los
+ * resultados y el contenido coincidan, y que las secuencias de sondeo se
+ * mantengan acotadas.
+ *
+ * Por defecto hace pocas operaciones para que la prueba sea rápida. Para una
+ * corrida larga se indica la cantidad (y opcionalmente la semilla):
+ *
+ * <pre>
+ * mvn test -Dtest=TSBHashtableEstresTest -Dtsb.estres.operaciones=50000000 -Dtsb.estres.semilla=7
+ * </pre>
+ */
+public class TSBHashtableEstresTest {
+
+    private static final int OPERACIONES = Integer.getInteger("tsb.estres.operaciones", 300000);
+    private static final long SEMILLA = Long.getLong("tsb.estres.semilla", 20171120L);
+
+    // Cada cuántas operaciones se compara el contenido completo.
+    private static final int INTERVALO_COMPARACION = 50000;
+
+    /**
+     * Claves enteras al azar, con altas y bajas frecuentes.
+     */
+    @Test
+    public void testOperacionesAleatorias() {
+        Random r = new Random(SEMILLA);
+        // el rango de claves cambia cada tanto para que la tabla crezca y
+        // se vacíe (y acumule tumbas).
+        int rango = 1000;
+        TSBHashtable<Integer, Integer> tabla = new TSBHashtable<>(10);
+        Map<Integer, Integer> esperado = new HashMap<>();
+        for (int op = 0; op < OPERACIONES; op++) {
+            if (op % 100000 == 0) {
+                rango = 100 << r.nextInt(12);
+            }
+            operar(r, tabla, esperado, r.nextInt(rango) - rango / 2, op);
+            if (op % INTERVALO_COMPARACION == 0) {
+                comparar(tabla, esperado, op);
+                assertTrue(mensaje(op) + " sondeo " + tabla.getMaxSondeo(),
+                        tabla.getMaxSondeo() <= tabla.getLimiteSondeo());
+            }
+        }
+        comparar(tabla, esperado, OPERACIONES);
+        assertTrue(tabla.getMaxSondeo() <= tabla.getLimiteSondeo());
+    }
+
+    /**
+     * Lotes de getAll() y mergeAll() (con claves repetidas dentro del lote),
+     * comparados con get() y merge() de a una clave.
+     */
+    @Test
+    public void testOperacionesPorLotes() {
+        Random r = new Random(SEMILLA + 2);
+        int lotes = Math.max(1, OPERACIONES / 20);
+        TSBHashtable<Integer, Integer> tabla = new TSBHashtable<>(10);
+        Map<Integer, Integer> esperado = new HashMap<>();
+        for (int op = 0; op < lotes; op++) {
+            int rango = 50 << r.nextInt(10);
+            Integer[] claves = new Integer[1 + r.nextInt(40)];
+            Integer[] valores = new Integer[claves.length];
+            for (int i = 0; i < claves.length; i++) {
+                claves[i] = r.nextInt(rango);
+                valores[i] = r.nextInt(7) - 3;
+            }
+            if (r.nextBoolean()) {
+                Integer[] obtenidos = new Integer[claves.length];
+                tabla.getAll(claves, obtenidos);
+                for (int i = 0; i < claves.length; i++) {
+                    assertEquals(mensaje(op), esperado.get(claves[i]), obtenidos[i]);
+                }
+            } else {
+                // la suma que da 0 elimina la clave.
+                tabla.mergeAll(claves, valores, (a, b) -> a + b == 0 ? null : a + b);
+                for (int i = 0; i < claves.length; i++) {
+                    esperado.merge(claves[i], valores[i], (a, b) -> a + b == 0 ? null : a + b);
+                }
+                assertEquals(mensaje(op), esperado.size(), tabla.size());
+            }
+            if (op % (INTERVALO_COMPARACION / 20) == 0) {
+                comparar(tabla, esperado, op);
+            }
+        }
+        comparar(tabla, esperado, lotes);
+    }
+
+    /**
+     * Claves con pocos hashCode() distintos (entre ellos Integer.MIN_VALUE):
+     * la tabla debe seguir respondiendo bien y no crecer sin límite por las
+     * secuencias de sondeo largas.
+     */
+    @Test
+    public void testClavesQueColisionan() {
+        Random r = new Random(SEMILLA + 1);
+        int operaciones = Math.max(1, OPERACIONES / 10);
+        TSBHashtable<Clave, Integer> tabla = new TSBHashtable<>(10);
+        Map<Clave, Integer> esperado = new HashMap<>();
+        int mayor = 0;
+        for (int op = 0; op < operaciones; op++) {
+            operar(r, tabla, esperado, new Clave(r.nextInt(3000)), op);
+            mayor = Math.max(mayor, esperado.size());
+            if (op % INTERVALO_COMPARACION == 0) {
+                comparar(tabla, esperado, op);
+            }
+        }
+        comparar(tabla, esperado, operaciones);
+        assertTrue("capacidad " + tabla.getCapacidad() + " para " + mayor + " claves",
+                tabla.getCapacidad() <= 20 * Math.max(mayor, 10));
+    }
+
+    /*
+     * Aplica una operación al azar sobre la clave en ambos mapas y compara el
+     * resultado.
+     */
+    private static <K> void operar(Random r, TSBHashtable<K, Integer> tabla,
+            Map<K, Integer> esperado, K clave, int op) {
+        int tipo = r.nextInt(100);
+        if (tipo < 45) {
+            Integer valor = r.nextInt();
+            assertEquals(mensaje(op), esperado.put(clave, valor), tabla.put(clave, valor));
+        } else if (tipo < 70) {
+            assertEquals(mensaje(op), esperado.remove(clave), tabla.remove(clave));
+        } else if (tipo < 90) {
+            assertEquals(mensaje(op), esperado.get(clave), tabla.get(clave));
+        } else if (tipo < 99) {
+            assertEquals(mensaje(op), esperado.containsKey(clave), tabla.containsKey(clave));
+        } else if (r.nextInt(1000) == 0) {
+            esperado.clear();
+            tabla.clear();
+        } else {
+            // baja con el iterador de la vista de claves.
+            Iterator<K> it = tabla.keySet().iterator();
+            for (int i = r.nextInt(8); i > 0 && it.hasNext(); i--) {
+                it.next();
+            }
+            if (it.hasNext()) {
+                K quitada = it.next();
+                it.remove();
+                assertNotNull(mensaje(op), esperado.remove(quitada));
+            }
+        }
+        assertEquals(mensaje(op), esperado.size(), tabla.size());
+    }
+
+    private static <K> void comparar(TSBHashtable<K, Integer> tabla, Map<K, Integer> esperado, int op) {
+        assertEquals(mensaje(op), esperado.size(), tabla.size());
+        int recorridas = 0;
+        for (Map.Entry<K, Integer> e : tabla.entrySet()) {
+            assertEquals(mensaje(op), esperado.get(e.getKey()), e.getValue());
+            recorridas++;
+        }
+        assertEquals(mensaje(op), esperado.size(), recorridas);
+        assertTrue(mensaje(op), tabla.equals(esperado));
+    }
+
+    private static String mensaje(int op) {
+        return "semilla " + SEMILLA + ", operación " + op;
+    }
+
+    /*
+     * Clave con sólo 16 valores de hashCode() distintos.
+     */
+    private static class Clave {
+
+        private final int valor;
+
+        Clave(int valor) {
+            this.valor = valor;
+        }
+
+        @Override
+        public int hashCode() {
+            return valor % 16 == 0 ? Integer.MIN_VALUE : valor % 16;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Clave && ((Clave) obj).valor == valor;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package clases;
+
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de TSBHashtableGrande, con páginas de 16 casillas para que pocas
+ * claves ocupen varias páginas y las migraciones duren varias operaciones.
+ */
+public class TSBHashtableGrandeTest {
+
+    private static TSBHashtableGrande<String, Integer> tablaChica() {
+        return new TSBHashtableGrande<>(1, 0.5f, 4);
+    }
+
+    /**
+     * Test of put, get and remove methods, of class TSBHashtableGrande.
+     */
+    @Test
+    public void testPutGetRemove() {
+        TSBHashtableGrande<String, Integer> tabla = tablaChica();
+        Map<String, Integer> esperado = new HashMap<>();
+        Random r = new Random(45);
+        boolean migro = false;
+        for (int i = 0; i < 50000; i++) {
+            String k = "k" + r.nextInt(5000);
+            switch (r.nextInt(4)) {
+                case 0:
+                    assertEquals(esperado.remove(k), tabla.remove(k));
+                    break;
+                case 1:
+                    assertEquals(esperado.get(k), tabla.get(k));
+                    assertEquals(esperado.containsKey(k), tabla.containsKey(k));
+                    break;
+                default:
+                    assertEquals(esperado.put(k, i), tabla.put(k, i));
+            }
+            migro |= tabla.isMigrando();
+            assertEquals(esperado.size(), tabla.getCantidad());
+        }
+        assertTrue(migro);
+        assertEquals(esperado, tabla);
+        assertEquals(tabla, esperado);
+        assertEquals(esperado.hashCode(), tabla.hashCode());
+        tabla.terminarMigracion();
+        assertFalse(tabla.isMigrando());
+        assertEquals(esperado, tabla);
+        assertNull(tabla.get("inexistente"));
+    }
+
+    /**
+     * Test of isMigrando and terminarMigracion methods, of class
+     * TSBHashtableGrande.
+     */
+    @Test
+    public void testMigracion() {
+        TSBHashtableGrande<String, Integer> tabla = tablaChica();
+        int i = 0;
+        while (!tabla.isMigrando()) {
+            tabla.put("k" + i, i);
+            i++;
+        }
+        long capacidad = tabla.getCapacidad();
+        // los pares de la tabla anterior se siguen encontrando y reemplazando.
+        for (int j = 0; j < i; j++) {
+            assertEquals(Integer.valueOf(j), tabla.get("k" + j));
+        }
+        assertEquals(Integer.valueOf(0), tabla.put("k0", -1));
+        assertEquals(Integer.valueOf(1), tabla.remove("k1"));
+        // la migración avanza con cada put() y remove().
+        int operaciones = 0;
+        while (tabla.isMigrando()) {
+            tabla.put("n" + operaciones, operaciones);
+            operaciones++;
+        }
+        assertTrue(operaciones <= capacidad / 2 / TSBHashtableGrande.MIGRACION_POR_OPERACION + 1);
+        assertEquals(capacidad, tabla.getCapacidad());
+        assertEquals(Integer.valueOf(-1), tabla.get("k0"));
+        assertNull(tabla.get("k1"));
+        for (int j = 2; j < i; j++) {
+            assertEquals(Integer.valueOf(j), tabla.get("k" + j));
+        }
+        assertEquals(i - 1 + operaciones, tabla.size());
+    }
+
+    /**
+     * Test of entrySet method, of class TSBHashtableGrande, during a
+     * migration.
+     */
+    @Test
+    public void testEntrySet() {
+        TSBHashtableGrande<String, Integer> tabla = tablaChica();
+        // una migración de 512 casillas, que dura 8 operaciones.
+        int i = 0;
+        while (!tabla.isMigrando() || tabla.getCapacidad() < 1024) {
+            tabla.put("k" + i, i);
+            i++;
+        }
+        tabla.put("k" + i, i);
+        assertTrue(tabla.isMigrando());
+        Map<String, Integer> esperado = new HashMap<>(tabla);
+        assertEquals(i + 1, esperado.size());
+
+        int vistos = 0;
+        for (Iterator<Map.Entry<String, Integer>> it = tabla.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Integer> e = it.next();
+            assertEquals(esperado.get(e.getKey()), e.getValue());
+            if (e.getValue() % 2 == 0) {
+                it.remove();
+                esperado.remove(e.getKey());
+            } else {
+                e.setValue(-e.getValue());
+                esperado.put(e.getKey(), e.getValue());
+            }
+            vistos++;
+        }
+        assertEquals(i + 1, vistos);
+        assertEquals(esperado, tabla);
+
+        Iterator<String> it = tabla.keySet().iterator();
+        it.next();
+        tabla.put("nueva", 1);
+        try {
+            it.next();
+            fail("next() después de put()");
+        } catch (ConcurrentModificationException e) {
+        }
+    }
+
+    /**
+     * Test of setValue method, of class TSBHashtableGrande: una entrada
+     * obtenida antes de una migración sigue modificando la tabla.
+     */
+    @Test
+    public void testSetValueDespuesDeMigrar() {
+        TSBHashtableGrande<String, Integer> tabla = tablaChica();
+        tabla.put("a", 1);
+        Map.Entry<String, Integer> e = tabla.entrySet().iterator().next();
+        long capacidad = tabla.getCapacidad();
+        for (int i = 0; tabla.getCapacidad() < 4 * capacidad; i++) {
+            tabla.put("k" + i, i);
+        }
+        tabla.terminarMigracion();
+        assertEquals(Integer.valueOf(1), e.getValue());
+        assertEquals(Integer.valueOf(1), e.setValue(2));
+        assertEquals(Integer.valueOf(2), tabla.get("a"));
+        tabla.remove("a");
+        try {
+            e.setValue(3);
+            fail("setValue() de una clave borrada");
+        } catch (IllegalStateException ex) {
+        }
+        assertNull(tabla.get("a"));
+    }
+
+    /**
+     * Test of clear method, of class TSBHashtableGrande.
+     */
+    @Test
+    public void testClear() {
+        TSBHashtableGrande<String, Integer> tabla = tablaChica();
+        for (int i = 0; i < 1000; i++) {
+            tabla.put("k" + i, i);
+        }
+        tabla.clear();
+        assertTrue(tabla.isEmpty());
+        assertFalse(tabla.isMigrando());
+        assertFalse(tabla.entrySet().iterator().hasNext());
+        assertNull(tabla.get("k1"));
+        tabla.put("k1", 1);
+        assertEquals(1, tabla.size());
+    }
+
+    /**
+     * Test of put method, of class TSBHashtableGrande, with null parameters.
+     */
+    @Test(expected = NullPointerException.class)
+    public void testPutNull() {
+        tablaChica().put("k", null);
+    }
+}
@@ -0,0 +1,44 @@
+package clases;
+
+import java.lang.management.ManagementFactory;
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TSBHashtableMonitorTest {
+
+    /**
+     * Test of registrar method, of class TSBHashtableMonitor: los atributos
+     * JMX siguen a la tabla que retorna el Supplier.
+     */
+    @Test
+    public void testRegistrar() throws Exception {
+        TSBHashtable<String, Integer>[] actual = new TSBHashtable[]{new TSBHashtable<>(10)};
+        actual[0].put("hola", 1);
+        ObjectName nombre = TSBHashtableMonitor.registrar("prueba", () -> actual[0]);
+        MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+        try {
+            assertEquals(1, servidor.getAttribute(nombre, "Vivas"));
+            assertEquals(false, servidor.getAttribute(nombre, "ContadoresActivos"));
+
+            servidor.setAttribute(nombre, new Attribute("ContadoresActivos", true));
+            actual[0].get("hola");
+            actual[0].get("chau");
+            assertEquals(1L, servidor.getAttribute(nombre, "Aciertos"));
+            assertEquals(1L, servidor.getAttribute(nombre, "Fallos"));
+            assertEquals(EstadisticasTabla.CUBETAS,
+                    ((long[]) servidor.getAttribute(nombre, "HistogramaFallos")).length);
+            servidor.invoke(nombre, "reiniciarEstadisticas", null, null);
+            assertEquals(0L, servidor.getAttribute(nombre, "Aciertos"));
+
+            // otra tabla, y registrar de nuevo con el mismo nombre la reemplaza.
+            actual[0] = new TSBHashtable<>(10);
+            assertEquals(0, servidor.getAttribute(nombre, "Vivas"));
+            assertEquals(nombre, TSBHashtableMonitor.registrar("prueba", () -> actual[0]));
+        } finally {
+            servidor.unregisterMBean(nombre);
+        }
+    }
+}
@@ -145,7 +145,20 @@ public class TSBHashtableTest {
      */
     @Test
     public void testClone() throws Exception {
-        // TODO: Hacer prueba.
+        // una tumba en la secuencia de las claves que quedan.
+        table.remove("Brasil");
+        TSBHashtable<String, Integer> copia = (TSBHashtable<String, Integer>) table.clone();
+        assertEquals(table, copia);
+        assertNull(copia.get("Brasil"));
+        assertEquals(2, copia.size());
+
+        // la copia es independiente de la original.
+        copia.put("Chile", 30);
+        copia.put("Brasil", 2);
+        assertEquals(Integer.valueOf(3), table.get("Chile"));
+        assertFalse(table.containsKey("Brasil"));
+        assertEquals(3, copia.size());
+        assertEquals(2, table.size());
     }
 
     /**
@@ -179,5 +192,120 @@ public class TSBHashtableTest {
     public void testContains() {
         // TODO: Hacer prueba.
     }
-    
+
+    /**
+     * Test of isHashResistente method, of class TSBHashtable.
+     */
+    @Test
+    public void testIsHashResistente() {
+        // palabras comunes: no hay colisiones en masa.
+        TSBHashtable<String, Integer> comunes = new TSBHashtable<>(1000);
+        for (int i = 0; i < 50000; i++) {
+            comunes.put("palabra" + i, i);
+        }
+        assertFalse(comunes.isHashResistente());
+
+        // 2^12 Strings con el mismo hashCode() ("Aa" y "BB" colisionan).
+        TSBHashtable<String, Integer> atacada = new TSBHashtable<>(1000);
+        java.util.List<String> claves = new java.util.ArrayList<>();
+        claves.add("");
+        for (int i = 0; i < 12; i++) {
+            java.util.List<String> siguientes = new java.util.ArrayList<>();
+            for (String c : claves) {
+                siguientes.add(c + "Aa");
+                siguientes.add(c + "BB");
+            }
+            claves = siguientes;
+        }
+        for (int i = 0; i < claves.size(); i++) {
+            atacada.put(claves.get(i), i);
+        }
+        assertTrue(atacada.isHashResistente());
+        assertEquals(claves.size(), atacada.size());
+        assertTrue(atacada.getMaxSondeo() <= atacada.getLimiteSondeo());
+        for (int i = 0; i < claves.size(); i++) {
+            assertEquals(Integer.valueOf(i), atacada.get(claves.get(i)));
+        }
+        // una Palabra encuentra la misma entrada que su String.
+        Palabra p = new Palabra();
+        for (char c : claves.get(7).toCharArray()) {
+            p.agregar(c);
+        }
+        assertEquals(Integer.valueOf(7), atacada.buscarEntrada(p).getValue());
+    }
+
+    /**
+     * Test of getAll method, of class TSBHashtable.
+     */
+    @Test
+    public void testGetAll() {
+        String[] claves = {"Chile", "Peru", "Argentina", "Chile", "Brasil"};
+        Integer[] valores = new Integer[claves.length];
+        table.getAll(claves, valores);
+        assertArrayEquals(new Integer[]{3, null, 1, 3, 2}, valores);
+        table.remove("Argentina");
+        table.getAll(claves, valores);
+        assertArrayEquals(new Integer[]{3, null, null, 3, 2}, valores);
+    }
+
+    /**
+     * Test of mergeAll method, of class TSBHashtable.
+     */
+    @Test
+    public void testMergeAll() {
+        String[] claves = {"Chile", "Peru", "Argentina", "Peru", "Brasil"};
+        Integer[] valores = {10, 5, -1, 5, 1};
+        // la suma que da 0 elimina la clave.
+        table.mergeAll(claves, valores, (a, b) -> a + b == 0 ? null : a + b);
+        assertEquals(3, table.size());
+        assertEquals(Integer.valueOf(13), table.get("Chile"));
+        assertEquals(Integer.valueOf(10), table.get("Peru"));
+        assertNull(table.get("Argentina"));
+        assertEquals(Integer.valueOf(3), table.get("Brasil"));
+    }
+
+    /**
+     * Test of getEstadisticas method, of class TSBHashtable.
+     */
+    @Test
+    public void testGetEstadisticas() {
+        TSBHashtable<Integer, Integer> t = new TSBHashtable<>(10);
+        EstadisticasTabla e = t.getEstadisticas();
+        assertFalse(e.isContadoresActivos());
+        assertEquals(t.getCapacidad(), e.getVacias());
+
+        t.setEstadisticas(true);
+        for (int i = 0; i < 100; i++) {
+            t.put(i, i);
+        }
+        for (int i = 0; i < 30; i++) {
+            t.remove(i);
+        }
+        t.get(50);
+        t.get(1000);
+        t.getAll(new Integer[]{60, 2000}, new Integer[2]);
+        e = t.getEstadisticas();
+        assertEquals(70, e.getVivas());
+        assertEquals(30, e.getTumbas());
+        assertEquals(t.getCapacidad(), e.getVivas() + e.getTumbas() + e.getVacias());
+        assertTrue(e.getRehashes() > 0);
+        assertTrue(e.getBytesEstimados() > 100 * 32);
+        assertEquals(100, e.getEscrituras());
+        assertEquals(30, e.getBajas());
+        // las 30 bajas y los dos get() y getAll() que encuentran la clave.
+        assertEquals(32, e.getAciertos());
+        // las 100 altas, get(1000) y getAll() de 2000.
+        assertEquals(102, e.getFallos());
+        long total = 0;
+        for (long x : e.getHistogramaFallos()) {
+            total += x;
+        }
+        assertEquals(e.getFallos(), total);
+
+        // la copia no cambia con la tabla.
+        t.put(5000, 1);
+        assertEquals(100, e.getEscrituras());
+        t.setEstadisticas(false);
+        assertEquals(0, t.getEstadisticas().getEscrituras());
+    }
 }
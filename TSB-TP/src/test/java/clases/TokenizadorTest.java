@@ -0,0 +1,85 @@
+package clases;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas del Tokenizador.
+ */
+public class TokenizadorTest {
+
+    private List<String> palabras;
+    private Tokenizador tokenizador;
+
+    @Before
+    public void setUp() {
+        palabras = new ArrayList<>();
+        tokenizador = new Tokenizador(p -> palabras.add(p.toString()));
+    }
+
+    /**
+     * Test of procesar method, of class Tokenizador.
+     */
+    @Test
+    public void testProcesar() {
+        tokenizador.procesar(" «_Non habemus\thic 2, _sed futuram_!».\nJosé");
+        tokenizador.finalizar();
+        assertEquals(6, palabras.size());
+        assertEquals("Non", palabras.get(0));
+        assertEquals("habemus", palabras.get(1));
+        assertEquals("hic", palabras.get(2));
+        assertEquals("sed", palabras.get(3));
+        assertEquals("futuram", palabras.get(4));
+        assertEquals("José", palabras.get(5));
+    }
+
+    /**
+     * Una palabra cortada entre dos bloques debe llegar completa.
+     */
+    @Test
+    public void testProcesarPorBloques() {
+        char[] texto = "hola pala-bra".toCharArray();
+        tokenizador.procesar(texto, 0, 7);
+        tokenizador.procesar(texto, 7, texto.length);
+        tokenizador.finalizar();
+        assertEquals(2, palabras.size());
+        assertEquals("palabra", palabras.get(1));
+        assertEquals(2, tokenizador.getPalabras());
+    }
+
+    /**
+     * Test of limpiar method, of class Tokenizador.
+     */
+    @Test
+    public void testLimpiar() {
+        String[] casos = {"hola", "«Non", "inquirimus_!».", "2,", "a-b-c", "¿qué?", "€100", "[x]#@"};
+        for (String c : casos) {
+            String regex = c.replaceAll("([.,\\-\"()'°ª:;¿?_*|~€¬&=!¡<>\\[\\]#@«»$%]|[0-9])+", "");
+            assertEquals(regex, Tokenizador.limpiar(c));
+        }
+        String sinSignos = "palabra";
+        assertSame(sinSignos, Tokenizador.limpiar(sinSignos));
+    }
+
+    /**
+     * Una Palabra debe poder buscarse en una tabla con claves String.
+     */
+    @Test
+    public void testPalabraComoClave() {
+        TSBHashtable<String, Integer> tabla = new TSBHashtable<>();
+        tabla.put("José", 1);
+        Palabra p = new Palabra(2);
+        for (char c : "José".toCharArray()) {
+            p.agregar(c);
+        }
+        assertEquals("José".hashCode(), p.hashCode());
+        assertEquals(1, (int) tabla.buscarEntrada(p).getValue());
+        // equals() es simétrico: una Palabra no es igual a un String.
+        assertFalse(p.equals("José"));
+        assertFalse("José".equals(p));
+        assertNull(tabla.get(p));
+    }
+}
@@ -0,0 +1,145 @@
+package clases;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas de VentanaDeslizante y SeguidorArchivo.
+ */
+public class VentanaDeslizanteTest {
+
+    /**
+     * Test of palabra method, of class VentanaDeslizante, con una ventana de
+     * 6 palabras en 3 cubetas de 2.
+     */
+    @Test
+    public void testPorPalabras() {
+        VentanaDeslizante v = VentanaDeslizante.porPalabras(6, 3);
+        Tokenizador t = new Tokenizador(v);
+        t.procesar("a b a c a b ");
+        assertEquals(3, v.cantidad("a"));
+        assertEquals(2, v.cantidad("b"));
+        assertEquals(6, v.getPalabras());
+        // la séptima palabra descarta la primera cubeta ("a b").
+        t.procesar("d ");
+        assertEquals(2, v.cantidad("a"));
+        assertEquals(1, v.cantidad("b"));
+        assertEquals(1, v.cantidad("d"));
+        assertEquals(5, v.getPalabras());
+        t.procesar("d d d d d ");
+        assertEquals(0, v.cantidad("a"));
+        assertEquals(0, v.cantidad("c"));
+        assertFalse(v.getTotales().containsKey("a"));
+        assertEquals(1, v.size());
+        List<Map.Entry<String, Integer>> mayores = v.mayores(1);
+        assertEquals("d", mayores.get(0).getKey());
+        assertEquals(Integer.valueOf(6), mayores.get(0).getValue());
+    }
+
+    /**
+     * Test of avanzar method, of class VentanaDeslizante, con un reloj
+     * controlado por la prueba.
+     */
+    @Test
+    public void testPorTiempo() {
+        long[] ahora = {0};
+        VentanaDeslizante v = new VentanaDeslizante(1000, 4, () -> ahora[0]);
+        Tokenizador t = new Tokenizador(v);
+        t.procesar("uno dos ");
+        // quien lee avanza la ventana antes de pasar cada bloque.
+        ahora[0] = 300;
+        v.avanzar();
+        t.procesar("uno ");
+        assertEquals(2, v.cantidad("uno"));
+        ahora[0] = 900;
+        assertEquals(2, v.cantidad("uno"));
+        // a los 1000 ms sale la cubeta [0, 250).
+        ahora[0] = 1000;
+        assertEquals(1, v.cantidad("uno"));
+        assertEquals(0, v.cantidad("dos"));
+        assertEquals(1, v.size());
+        // después de una ventana sin palabras queda vacía.
+        ahora[0] = 5000;
+        assertEquals(0, v.getPalabras());
+        assertEquals(0, v.size());
+        t.procesar("tres ");
+        assertEquals(1, v.cantidad("tres"));
+    }
+
+    /**
+     * Test of leer method, of class SeguidorArchivo: lee sólo lo agregado,
+     * completa las palabras y caracteres cortados entre lecturas y vuelve a
+     * empezar si el archivo se trunca.
+     */
+    @Test
+    public void testSeguirArchivo() throws IOException {
+        File f = File.createTempFile("log", ".txt");
+        agregar(f, "viejo viejo ".getBytes(StandardCharsets.UTF_8));
+        VentanaDeslizante v = VentanaDeslizante.porPalabras(1000, 10);
+        Tokenizador t = new Tokenizador(v);
+        try (SeguidorArchivo s = new SeguidorArchivo(f, StandardCharsets.UTF_8, true)) {
+            assertEquals(0, s.leer(t));
+            byte[] nuevo = "año nue".getBytes(StandardCharsets.UTF_8);
+            // la "ñ" queda partida entre dos escrituras.
+            agregar(f, Arrays.copyOf(nuevo, 2));
+            s.leer(t);
+            agregar(f, Arrays.copyOfRange(nuevo, 2, nuevo.length));
+            s.leer(t);
+            agregar(f, "vo\n".getBytes(StandardCharsets.UTF_8));
+            assertEquals(3, s.leer(t));
+            assertEquals(1, v.cantidad("año"));
+            assertEquals(1, v.cantidad("nuevo"));
+            assertEquals(0, v.cantidad("viejo"));
+
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+                raf.setLength(0);
+            }
+            agregar(f, "otro\n".getBytes(StandardCharsets.UTF_8));
+            s.leer(t);
+            assertEquals(1, v.cantidad("otro"));
+        } finally {
+            f.delete();
+        }
+    }
+
+    /**
+     * Test of leer method, of class SeguidorArchivo: si el archivo se
+     * reemplaza por otro (rotación) se lee el nuevo desde el principio.
+     */
+    @Test
+    public void testSeguirRotacion() throws IOException {
+        File f = File.createTempFile("log", ".txt");
+        File rotado = new File(f.getPath() + ".1");
+        VentanaDeslizante v = VentanaDeslizante.porPalabras(1000, 10);
+        Tokenizador t = new Tokenizador(v);
+        try (SeguidorArchivo s = new SeguidorArchivo(f, StandardCharsets.UTF_8, true)) {
+            agregar(f, "antes\n".getBytes(StandardCharsets.UTF_8));
+            s.leer(t);
+            Files.move(f.toPath(), rotado.toPath());
+            assertEquals(0, s.leer(t));
+            agregar(f, "despues despues\n".getBytes(StandardCharsets.UTF_8));
+            s.leer(t);
+            assertEquals(1, v.cantidad("antes"));
+            assertEquals(2, v.cantidad("despues"));
+        } finally {
+            f.delete();
+            rotado.delete();
+        }
+    }
+
+    private static void agregar(File f, byte[] b) throws IOException {
+        try (OutputStream os = new FileOutputStream(f, true)) {
+            os.write(b);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package clases;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EventosJFRTest {
+
+    /**
+     * Test of rehash and persistencia methods, of class EventosJFR: con los
+     * eventos activos en una grabación se registran el rehash y la escritura
+     * y lectura de la tabla.
+     */
+    @Test
+    public void testEventos() throws IOException {
+        File archivo = File.createTempFile("tabla", ".dat");
+        Path jfr = Files.createTempFile("eventos", ".jfr");
+        try (Recording grabacion = new Recording()) {
+            grabacion.enable("clases.Rehash");
+            grabacion.enable("clases.Persistencia");
+            grabacion.start();
+            TSBHashtable<Integer, Integer> tabla = new TSBHashtable<>(10);
+            for (int i = 0; i < 100; i++) {
+                tabla.put(i, i);
+            }
+            ArchivoTabla.escribir(archivo, tabla);
+            ArchivoTabla.leer(archivo, null);
+            grabacion.stop();
+            grabacion.dump(jfr);
+
+            List<RecordedEvent> eventos = RecordingFile.readAllEvents(jfr);
+            RecordedEvent rehash = null;
+            int persistencia = 0;
+            for (RecordedEvent e : eventos) {
+                String nombre = e.getEventType().getName();
+                if (nombre.equals("clases.Rehash") && rehash == null) {
+                    rehash = e;
+                } else if (nombre.equals("clases.Persistencia")) {
+                    persistencia++;
+                    assertEquals(100, e.getInt("pares"));
+                    assertEquals(archivo.length(), e.getLong("bytes"));
+                }
+            }
+            assertNotNull(rehash);
+            assertTrue(rehash.getInt("capacidadNueva") > rehash.getInt("capacidadAnterior"));
+            assertEquals(2, persistencia);
+        } finally {
+            Files.delete(archivo.toPath());
+            Files.delete(jfr);
+        }
+    }
+
+    /**
+     * Test of rehash method, of class EventosJFR: sin una grabación que lo
+     * active no se crea el evento.
+     */
+    @Test
+    public void testDesactivado() {
+        assertNull(EventosJFR.rehash());
+        assertNull(EventosJFR.persistencia());
+    }
+}